@@ -0,0 +1,846 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.foreign.linux;
+
+import static java.lang.foreign.ValueLayout.ADDRESS;
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.lang.foreign.ValueLayout.JAVA_LONG;
+import static java.lang.foreign.ValueLayout.JAVA_SHORT;
+
+import java.lang.foreign.Addressable;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.GroupLayout;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemoryAddress;
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.SymbolLookup;
+import java.lang.invoke.MethodHandle;
+
+public class LinuxLibc {
+
+    private static final SymbolLookup SYS;
+    private static final Linker LINKER;
+
+    static {
+        LINKER = Linker.nativeLinker();
+        SYS = LINKER.defaultLookup();
+    }
+
+    // Data size
+    public static final int BYTE_SIZE = (int) JAVA_BYTE.byteSize();
+    public static final int INT_SIZE = (int) JAVA_INT.byteSize();
+    public static final int LONG_SIZE = (int) JAVA_LONG.byteSize();
+
+    // fcntl.h
+    public static final int O_RDONLY = 0;
+    public static final int O_CLOEXEC = 02000000;
+    public static final int O_PATH = 010000000;
+    // Architecture dependent: the generic value is used by x86 and most others, ARM and PowerPC differ
+    public static final int O_DIRECTORY = System.getProperty("os.arch", "").matches("(aarch64|arm.*|ppc.*)") ? 040000
+            : 0200000;
+
+    // errno.h
+    public static final int EINTR = 4;
+    public static final int EAGAIN = 11;
+    public static final int EINVAL = 22;
+    public static final int ERANGE = 34;
+    public static final int ENOSYS = 38;
+    public static final int EOPNOTSUPP = 95;
+    public static final int ENOBUFS = 105;
+
+    // poll.h: struct pollfd { int fd; short events; short revents; }
+    public static final short POLLIN = 0x001;
+    public static final long POLLFD_SIZE = INT_SIZE + 2L * JAVA_SHORT.byteSize();
+    public static final long POLLFD_EVENTS_OFFSET = INT_SIZE;
+    public static final long POLLFD_REVENTS_OFFSET = POLLFD_EVENTS_OFFSET + JAVA_SHORT.byteSize();
+
+    // sys/socket.h
+    public static final int AF_NETLINK = 16;
+    public static final int SOCK_DGRAM = 2;
+    public static final int SOCK_CLOEXEC = O_CLOEXEC;
+
+    // linux/netlink.h and linux/connector.h
+    public static final int NETLINK_CONNECTOR = 11;
+    public static final short NLMSG_DONE = 3;
+    public static final int CN_IDX_PROC = 1;
+    public static final int CN_VAL_PROC = 1;
+
+    // linux/cn_proc.h
+    public static final int PROC_CN_MCAST_LISTEN = 1;
+    public static final int PROC_CN_MCAST_IGNORE = 2;
+    public static final int PROC_EVENT_FORK = 0x00000001;
+    public static final int PROC_EVENT_EXEC = 0x00000002;
+    public static final int PROC_EVENT_UID = 0x00000004;
+    public static final int PROC_EVENT_COMM = 0x00000200;
+    public static final int PROC_EVENT_EXIT = 0x80000000;
+    public static final int TASK_COMM_LEN = 16;
+
+    // sys/mman.h
+    public static final int PROT_READ = 0x1;
+    public static final int PROT_WRITE = 0x2;
+    public static final int MAP_SHARED = 0x01;
+    public static final int MAP_POPULATE = 0x08000;
+    public static final long MAP_FAILED = -1L;
+
+    // asm/unistd.h: the io_uring syscalls share numbers on all architectures
+    public static final long SYS_IO_URING_SETUP = 425L;
+    public static final long SYS_IO_URING_ENTER = 426L;
+    public static final long SYS_IO_URING_REGISTER = 427L;
+
+    // linux/io_uring.h
+    public static final int IORING_ENTER_GETEVENTS = 1;
+    public static final int IORING_FEAT_SINGLE_MMAP = 1;
+    public static final int IORING_REGISTER_PROBE = 8;
+    public static final short IO_URING_OP_SUPPORTED = 1;
+    public static final long IORING_OFF_SQ_RING = 0L;
+    public static final long IORING_OFF_CQ_RING = 0x8000000L;
+    public static final long IORING_OFF_SQES = 0x10000000L;
+    public static final byte IORING_OP_OPENAT = 18;
+    public static final byte IORING_OP_CLOSE = 19;
+    public static final byte IORING_OP_READ = 22;
+    public static final byte IOSQE_IO_HARDLINK = 1 << 3;
+    public static final int AT_FDCWD = -100;
+
+    // asm/unistd.h: shares its number on all architectures
+    public static final long SYS_PIDFD_OPEN = 434L;
+
+    // sys/epoll.h
+    public static final int EPOLL_CLOEXEC = O_CLOEXEC;
+    public static final int EPOLL_CTL_ADD = 1;
+    public static final int EPOLL_CTL_DEL = 2;
+    public static final int EPOLLIN = 0x001;
+    // struct epoll_event { uint32_t events; epoll_data_t data; } is packed on x86_64 only
+    public static final long EPOLL_EVENT_DATA_OFFSET = System.getProperty("os.arch", "").matches("(amd64|x86_64)")
+            ? INT_SIZE
+            : LONG_SIZE;
+    public static final long EPOLL_EVENT_SIZE = EPOLL_EVENT_DATA_OFFSET + LONG_SIZE;
+
+    // sys/eventfd.h
+    public static final int EFD_CLOEXEC = O_CLOEXEC;
+
+    // sys/resource.h: struct rlimit { rlim_t rlim_cur; rlim_t rlim_max; }
+    public static final int RLIMIT_NOFILE = System.getProperty("os.arch", "").startsWith("mips") ? 5 : 7;
+    public static final long RLIMIT_SIZE = 2L * LONG_SIZE;
+
+    // unistd.h
+    public static final int _SC_CLK_TCK = 2;
+    public static final int _SC_PAGESIZE = 30;
+    public static final int _SC_GETGR_R_SIZE_MAX = 69;
+    public static final int _SC_GETPW_R_SIZE_MAX = 70;
+
+    // dirent.h: struct linux_dirent64 { ino64_t d_ino; off64_t d_off; unsigned short d_reclen; unsigned char d_type;
+    // char d_name[]; }
+    public static final long D_RECLEN_OFFSET = 2L * LONG_SIZE;
+    public static final long D_TYPE_OFFSET = D_RECLEN_OFFSET + JAVA_SHORT.byteSize();
+    public static final long D_NAME_OFFSET = D_TYPE_OFFSET + BYTE_SIZE;
+    public static final byte DT_DIR = 4;
+
+    public static final GroupLayout SOCKADDR_NL = MemoryLayout.structLayout( //
+            JAVA_SHORT.withName("nl_family"), // AF_NETLINK
+            JAVA_SHORT.withName("nl_pad"), //
+            JAVA_INT.withName("nl_pid"), // port ID
+            JAVA_INT.withName("nl_groups")); // multicast groups mask
+
+    public static final GroupLayout NLMSGHDR = MemoryLayout.structLayout( //
+            JAVA_INT.withName("nlmsg_len"), // length of message including header
+            JAVA_SHORT.withName("nlmsg_type"), //
+            JAVA_SHORT.withName("nlmsg_flags"), //
+            JAVA_INT.withName("nlmsg_seq"), //
+            JAVA_INT.withName("nlmsg_pid")); // sending process port ID
+
+    public static final GroupLayout CN_MSG = MemoryLayout.structLayout( //
+            JAVA_INT.withName("idx"), // struct cb_id
+            JAVA_INT.withName("val"), //
+            JAVA_INT.withName("seq"), //
+            JAVA_INT.withName("ack"), //
+            JAVA_SHORT.withName("len"), // length of the following data
+            JAVA_SHORT.withName("flags"));
+
+    // struct proc_event header, followed by the event_data union at offset 16
+    public static final GroupLayout PROC_EVENT = MemoryLayout.structLayout( //
+            JAVA_INT.withName("what"), //
+            JAVA_INT.withName("cpu"), //
+            JAVA_LONG.withName("timestamp_ns"));
+
+    public static final GroupLayout IO_SQRING_OFFSETS = MemoryLayout.structLayout( //
+            JAVA_INT.withName("head"), //
+            JAVA_INT.withName("tail"), //
+            JAVA_INT.withName("ring_mask"), //
+            JAVA_INT.withName("ring_entries"), //
+            JAVA_INT.withName("flags"), //
+            JAVA_INT.withName("dropped"), //
+            JAVA_INT.withName("array"), //
+            JAVA_INT.withName("resv1"), //
+            JAVA_LONG.withName("user_addr"));
+
+    public static final GroupLayout IO_CQRING_OFFSETS = MemoryLayout.structLayout( //
+            JAVA_INT.withName("head"), //
+            JAVA_INT.withName("tail"), //
+            JAVA_INT.withName("ring_mask"), //
+            JAVA_INT.withName("ring_entries"), //
+            JAVA_INT.withName("overflow"), //
+            JAVA_INT.withName("cqes"), //
+            JAVA_INT.withName("flags"), //
+            JAVA_INT.withName("resv1"), //
+            JAVA_LONG.withName("user_addr"));
+
+    public static final GroupLayout IO_URING_PARAMS = MemoryLayout.structLayout( //
+            JAVA_INT.withName("sq_entries"), //
+            JAVA_INT.withName("cq_entries"), //
+            JAVA_INT.withName("flags"), //
+            JAVA_INT.withName("sq_thread_cpu"), //
+            JAVA_INT.withName("sq_thread_idle"), //
+            JAVA_INT.withName("features"), //
+            JAVA_INT.withName("wq_fd"), //
+            MemoryLayout.sequenceLayout(3, JAVA_INT).withName("resv"), //
+            IO_SQRING_OFFSETS.withName("sq_off"), //
+            IO_CQRING_OFFSETS.withName("cq_off"));
+
+    // struct io_uring_sqe, only the members used for open, read and close
+    public static final GroupLayout IO_URING_SQE = MemoryLayout.structLayout( //
+            JAVA_BYTE.withName("opcode"), //
+            JAVA_BYTE.withName("flags"), // IOSQE_ flags
+            JAVA_SHORT.withName("ioprio"), //
+            JAVA_INT.withName("fd"), // file descriptor or directory fd
+            JAVA_LONG.withName("off"), // offset into file
+            JAVA_LONG.withName("addr"), // buffer or path
+            JAVA_INT.withName("len"), // buffer size
+            JAVA_INT.withName("op_flags"), // open_flags, rw_flags
+            JAVA_LONG.withName("user_data"), // returned in the completion
+            MemoryLayout.paddingLayout(24 * 8));
+
+    public static final GroupLayout IO_URING_CQE = MemoryLayout.structLayout( //
+            JAVA_LONG.withName("user_data"), //
+            JAVA_INT.withName("res"), // result, or negated errno
+            JAVA_INT.withName("flags"));
+
+    // struct io_uring_probe, followed by ops_len struct io_uring_probe_op
+    public static final GroupLayout IO_URING_PROBE = MemoryLayout.structLayout( //
+            JAVA_BYTE.withName("last_op"), // the last opcode supported
+            JAVA_BYTE.withName("ops_len"), // the number of entries filled in
+            JAVA_SHORT.withName("resv"), //
+            MemoryLayout.sequenceLayout(3, JAVA_INT).withName("resv2"));
+
+    public static final GroupLayout IO_URING_PROBE_OP = MemoryLayout.structLayout( //
+            JAVA_BYTE.withName("op"), //
+            JAVA_BYTE.withName("resv"), //
+            JAVA_SHORT.withName("flags"), // IO_URING_OP_SUPPORTED
+            JAVA_INT.withName("resv2"));
+
+    private static final MethodHandle methodHandle(String methodName, FunctionDescriptor fd) {
+        return LINKER.downcallHandle(SYS.lookup(methodName).orElseThrow(), fd);
+    }
+
+    private static final MethodHandle optionalMethodHandle(String methodName, FunctionDescriptor fd) {
+        return SYS.lookup(methodName).map(symbol -> LINKER.downcallHandle(symbol, fd)).orElse(null);
+    }
+
+    /**
+     * Gets the last error value ({@code errno}).
+     *
+     * @return the value of the native errno variable.
+     */
+    public static int errno() {
+        try {
+            MemoryAddress addr = (MemoryAddress) errno.invokeExact();
+            return addr.get(JAVA_INT, 0);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static final MethodHandle errno = methodHandle("__errno_location", FunctionDescriptor.of(ADDRESS));
+
+    /**
+     * Returns the process ID of the calling process.
+     *
+     * @return the process ID of the calling process.
+     */
+    public static int getpid() {
+        try {
+            return (int) getpid.invokeExact();
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static final MethodHandle getpid = methodHandle("getpid", FunctionDescriptor.of(JAVA_INT));
+
+    /**
+     * Get configuration information at run time.
+     *
+     * @param name the name of the variable to query, such as {@link #_SC_CLK_TCK}
+     * @return the value of the system resource, or -1 if the name is invalid or the value is indeterminate.
+     */
+    public static long sysconf(int name) {
+        try {
+            return (long) sysconf.invokeExact(name);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static final MethodHandle sysconf = methodHandle("sysconf", FunctionDescriptor.of(JAVA_LONG, JAVA_INT));
+
+    /**
+     * Opens the file specified by pathname.
+     *
+     * @param pathname a null-terminated path to the file
+     * @param flags    the access mode and file creation / status flags
+     * @return the new file descriptor, or -1 if an error occurred, with errno set to indicate the error.
+     */
+    public static int open(Addressable pathname, int flags) {
+        try {
+            return (int) open.invokeExact(pathname, flags);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static final MethodHandle open = methodHandle("open", FunctionDescriptor.of(JAVA_INT, ADDRESS, JAVA_INT));
+
+    /**
+     * Opens the file specified by pathname, relative to a directory file descriptor.
+     *
+     * @param dirfd    a file descriptor referring to a directory, which may have been opened with {@link #O_PATH}
+     * @param pathname a null-terminated path to the file, relative to the directory
+     * @param flags    the access mode and file creation / status flags
+     * @return the new file descriptor, or -1 if an error occurred, with errno set to indicate the error.
+     */
+    public static int openat(int dirfd, Addressable pathname, int flags) {
+        try {
+            return (int) openat.invokeExact(dirfd, pathname, flags);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static final MethodHandle openat = methodHandle("openat",
+            FunctionDescriptor.of(JAVA_INT, JAVA_INT, ADDRESS, JAVA_INT));
+
+    /**
+     * Reads the value of a symbolic link, relative to a directory file descriptor. The result is not null-terminated.
+     *
+     * @param dirfd    a file descriptor referring to a directory, which may have been opened with {@link #O_PATH}
+     * @param pathname a null-terminated path to the link, relative to the directory
+     * @param buf      the buffer to hold the link target
+     * @param bufsiz   the size of the buffer
+     * @return the number of bytes placed in the buffer, or -1 if an error occurred, with errno set to indicate the
+     *         error.
+     */
+    public static long readlinkat(int dirfd, Addressable pathname, Addressable buf, long bufsiz) {
+        try {
+            return (long) readlinkat.invokeExact(dirfd, pathname, buf, bufsiz);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static final MethodHandle readlinkat = methodHandle("readlinkat",
+            FunctionDescriptor.of(JAVA_LONG, JAVA_INT, ADDRESS, ADDRESS, JAVA_LONG));
+
+    /**
+     * Closes a file descriptor.
+     *
+     * @param fd the file descriptor to close
+     * @return zero on success; -1 on error, with errno set to indicate the error.
+     */
+    public static int close(int fd) {
+        try {
+            return (int) close.invokeExact(fd);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static final MethodHandle close = methodHandle("close", FunctionDescriptor.of(JAVA_INT, JAVA_INT));
+
+    /**
+     * Attempts to read up to count bytes from file descriptor fd into the buffer.
+     *
+     * @param fd    the file descriptor to read
+     * @param buf   the buffer to hold the results
+     * @param count the maximum number of bytes to read
+     * @return the number of bytes read (zero indicates end of file), or -1 if an error occurred, with errno set to
+     *         indicate the error.
+     */
+    public static long read(int fd, Addressable buf, long count) {
+        try {
+            return (long) read.invokeExact(fd, buf, count);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static final MethodHandle read = methodHandle("read",
+            FunctionDescriptor.of(JAVA_LONG, JAVA_INT, ADDRESS, JAVA_LONG));
+
+    /**
+     * Writes up to count bytes from the buffer to file descriptor fd.
+     *
+     * @param fd    the file descriptor to write
+     * @param buf   the buffer holding the data
+     * @param count the number of bytes to write
+     * @return the number of bytes written, or -1 if an error occurred, with errno set to indicate the error.
+     */
+    public static long write(int fd, Addressable buf, long count) {
+        try {
+            return (long) write.invokeExact(fd, buf, count);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static final MethodHandle write = methodHandle("write",
+            FunctionDescriptor.of(JAVA_LONG, JAVA_INT, ADDRESS, JAVA_LONG));
+
+    /**
+     * Reads up to count bytes from file descriptor fd at the given offset into the buffer. The file offset is not
+     * changed.
+     *
+     * @param fd     the file descriptor to read
+     * @param buf    the buffer to hold the results
+     * @param count  the maximum number of bytes to read
+     * @param offset the position in the file to read from
+     * @return the number of bytes read (zero indicates end of file), or -1 if an error occurred, with errno set to
+     *         indicate the error.
+     */
+    public static long pread(int fd, Addressable buf, long count, long offset) {
+        try {
+            return (long) pread.invokeExact(fd, buf, count, offset);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static final MethodHandle pread = methodHandle("pread",
+            FunctionDescriptor.of(JAVA_LONG, JAVA_INT, ADDRESS, JAVA_LONG, JAVA_LONG));
+
+    /**
+     * Waits for one of a set of file descriptors to become ready to perform I/O.
+     *
+     * @param fds     an array of {@code struct pollfd}
+     * @param nfds    the number of elements in the array
+     * @param timeout the maximum number of milliseconds to wait, or -1 to wait indefinitely
+     * @return the number of descriptors with events or errors reported; 0 if the call timed out; -1 on error, with
+     *         errno set to indicate the error.
+     */
+    public static int poll(Addressable fds, long nfds, int timeout) {
+        try {
+            return (int) poll.invokeExact(fds, nfds, timeout);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static final MethodHandle poll = methodHandle("poll",
+            FunctionDescriptor.of(JAVA_INT, ADDRESS, JAVA_LONG, JAVA_INT));
+
+    /**
+     * Creates an endpoint for communication.
+     *
+     * @param domain   the communication domain, such as {@link #AF_NETLINK}
+     * @param type     the socket type, optionally combined with {@link #SOCK_CLOEXEC}
+     * @param protocol the protocol to use within the domain
+     * @return a file descriptor for the new socket, or -1 if an error occurred, with errno set to indicate the error.
+     */
+    public static int socket(int domain, int type, int protocol) {
+        try {
+            return (int) socket.invokeExact(domain, type, protocol);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static final MethodHandle socket = methodHandle("socket",
+            FunctionDescriptor.of(JAVA_INT, JAVA_INT, JAVA_INT, JAVA_INT));
+
+    /**
+     * Assigns an address to a socket.
+     *
+     * @param sockfd  the socket file descriptor
+     * @param addr    the address structure for the socket's domain
+     * @param addrlen the size of the address structure
+     * @return zero on success; -1 on error, with errno set to indicate the error.
+     */
+    public static int bind(int sockfd, Addressable addr, int addrlen) {
+        try {
+            return (int) bind.invokeExact(sockfd, addr, addrlen);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static final MethodHandle bind = methodHandle("bind",
+            FunctionDescriptor.of(JAVA_INT, JAVA_INT, ADDRESS, JAVA_INT));
+
+    /**
+     * Transmits a message on a socket.
+     *
+     * @param sockfd the socket file descriptor
+     * @param buf    the message
+     * @param len    the length of the message
+     * @param flags  the bitwise OR of zero or more send flags
+     * @return the number of bytes sent, or -1 if an error occurred, with errno set to indicate the error.
+     */
+    public static long send(int sockfd, Addressable buf, long len, int flags) {
+        try {
+            return (long) send.invokeExact(sockfd, buf, len, flags);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static final MethodHandle send = methodHandle("send",
+            FunctionDescriptor.of(JAVA_LONG, JAVA_INT, ADDRESS, JAVA_LONG, JAVA_INT));
+
+    /**
+     * Receives a message from a socket.
+     *
+     * @param sockfd the socket file descriptor
+     * @param buf    the buffer to hold the message
+     * @param len    the size of the buffer
+     * @param flags  the bitwise OR of zero or more receive flags
+     * @return the number of bytes received, or -1 if an error occurred, with errno set to indicate the error.
+     */
+    public static long recv(int sockfd, Addressable buf, long len, int flags) {
+        try {
+            return (long) recv.invokeExact(sockfd, buf, len, flags);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static final MethodHandle recv = methodHandle("recv",
+            FunctionDescriptor.of(JAVA_LONG, JAVA_INT, ADDRESS, JAVA_LONG, JAVA_INT));
+
+    /**
+     * Maps files or devices into memory.
+     *
+     * @param addr   the preferred starting address, or {@code NULL} to let the kernel choose
+     * @param length the length of the mapping
+     * @param prot   the desired memory protection
+     * @param flags  whether updates are visible to other processes mapping the same region, and other options
+     * @param fd     the file descriptor to map
+     * @param offset the offset in the file, a multiple of the page size
+     * @return the address of the mapping, or {@link #MAP_FAILED} on error, with errno set to indicate the error.
+     */
+    public static MemoryAddress mmap(Addressable addr, long length, int prot, int flags, int fd, long offset) {
+        try {
+            return (MemoryAddress) mmap.invokeExact(addr, length, prot, flags, fd, offset);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static final MethodHandle mmap = methodHandle("mmap",
+            FunctionDescriptor.of(ADDRESS, ADDRESS, JAVA_LONG, JAVA_INT, JAVA_INT, JAVA_INT, JAVA_LONG));
+
+    /**
+     * Deletes a mapping created by {@link #mmap}.
+     *
+     * @param addr   the address of the mapping
+     * @param length the length of the mapping
+     * @return zero on success; -1 on error, with errno set to indicate the error.
+     */
+    public static int munmap(Addressable addr, long length) {
+        try {
+            return (int) munmap.invokeExact(addr, length);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static final MethodHandle munmap = methodHandle("munmap",
+            FunctionDescriptor.of(JAVA_INT, ADDRESS, JAVA_LONG));
+
+    /**
+     * Sets up a submission queue and completion queue with at least the given number of entries. glibc provides no
+     * wrapper, so this is invoked with {@code syscall}.
+     *
+     * @param entries the number of submission queue entries
+     * @param params  a {@code struct io_uring_params}, which the kernel fills with the ring offsets
+     * @return a file descriptor referring to the io_uring instance, or -1 on error, with errno set to indicate the
+     *         error.
+     */
+    public static int io_uring_setup(int entries, Addressable params) {
+        try {
+            return (int) (long) io_uring_setup.invokeExact(SYS_IO_URING_SETUP, (long) entries, params);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // Variadic syscall arguments are read as longs, so ints are widened by the caller
+    private static final MethodHandle io_uring_setup = methodHandle("syscall",
+            FunctionDescriptor.of(JAVA_LONG, JAVA_LONG).asVariadic(JAVA_LONG, ADDRESS));
+
+    /**
+     * Submits new submission queue entries and optionally waits for completions. glibc provides no wrapper, so this
+     * is invoked with {@code syscall}.
+     *
+     * @param fd          the io_uring file descriptor
+     * @param toSubmit    the number of entries to submit
+     * @param minComplete the number of completions to wait for
+     * @param flags       the enter flags, such as {@link #IORING_ENTER_GETEVENTS}
+     * @return the number of entries consumed, or -1 on error, with errno set to indicate the error.
+     */
+    public static int io_uring_enter(int fd, int toSubmit, int minComplete, int flags) {
+        try {
+            return (int) (long) io_uring_enter.invokeExact(SYS_IO_URING_ENTER, (long) fd, (long) toSubmit,
+                    (long) minComplete, (long) flags, (Addressable) MemoryAddress.NULL, 0L);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static final MethodHandle io_uring_enter = methodHandle("syscall",
+            FunctionDescriptor.of(JAVA_LONG, JAVA_LONG).asVariadic(JAVA_LONG, JAVA_LONG, JAVA_LONG, JAVA_LONG,
+                    ADDRESS, JAVA_LONG));
+
+    /**
+     * Registers resources with an io_uring instance or queries it. glibc provides no wrapper, so this is invoked with
+     * {@code syscall}.
+     *
+     * @param fd     the io_uring file descriptor
+     * @param opcode the operation, such as {@link #IORING_REGISTER_PROBE}
+     * @param arg    the argument of the operation, such as a {@code struct io_uring_probe}
+     * @param nrArgs the number of elements of the argument, such as the number of probe entries
+     * @return 0 or a positive value on success, or -1 on error, with errno set to indicate the error.
+     */
+    public static int io_uring_register(int fd, int opcode, Addressable arg, int nrArgs) {
+        try {
+            return (int) (long) io_uring_register.invokeExact(SYS_IO_URING_REGISTER, (long) fd, (long) opcode, arg,
+                    (long) nrArgs);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static final MethodHandle io_uring_register = methodHandle("syscall",
+            FunctionDescriptor.of(JAVA_LONG, JAVA_LONG).asVariadic(JAVA_LONG, JAVA_LONG, ADDRESS, JAVA_LONG));
+
+    /**
+     * Obtains a file descriptor referring to a process. glibc added a wrapper only in version 2.36, so this is invoked
+     * with {@code syscall}.
+     *
+     * @param pid   the process ID
+     * @param flags reserved, must be 0
+     * @return a file descriptor with the close-on-exec flag set, or -1 on error, with errno set to indicate the
+     *         error.
+     */
+    public static int pidfd_open(int pid, int flags) {
+        try {
+            return (int) (long) pidfd_open.invokeExact(SYS_PIDFD_OPEN, (long) pid, (long) flags);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static final MethodHandle pidfd_open = methodHandle("syscall",
+            FunctionDescriptor.of(JAVA_LONG, JAVA_LONG).asVariadic(JAVA_LONG, JAVA_LONG));
+
+    /**
+     * Creates a file descriptor for event notification, holding a 64-bit counter which is readable while non-zero.
+     *
+     * @param initval the initial value of the counter
+     * @param flags   0, or {@link #EFD_CLOEXEC}
+     * @return a new file descriptor, or -1 on error, with errno set to indicate the error.
+     */
+    public static int eventfd(int initval, int flags) {
+        try {
+            return (int) eventfd.invokeExact(initval, flags);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static final MethodHandle eventfd = methodHandle("eventfd",
+            FunctionDescriptor.of(JAVA_INT, JAVA_INT, JAVA_INT));
+
+    /**
+     * Opens an epoll file descriptor.
+     *
+     * @param flags 0, or {@link #EPOLL_CLOEXEC}
+     * @return a file descriptor referring to the new epoll instance, or -1 on error, with errno set to indicate the
+     *         error.
+     */
+    public static int epoll_create1(int flags) {
+        try {
+            return (int) epoll_create1.invokeExact(flags);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static final MethodHandle epoll_create1 = methodHandle("epoll_create1",
+            FunctionDescriptor.of(JAVA_INT, JAVA_INT));
+
+    /**
+     * Adds, modifies, or removes entries in the interest list of an epoll instance.
+     *
+     * @param epfd  the epoll file descriptor
+     * @param op    the operation, such as {@link #EPOLL_CTL_ADD}
+     * @param fd    the target file descriptor
+     * @param event a {@code struct epoll_event} of {@link #EPOLL_EVENT_SIZE} bytes, ignored when removing
+     * @return zero on success; -1 on error, with errno set to indicate the error.
+     */
+    public static int epoll_ctl(int epfd, int op, int fd, Addressable event) {
+        try {
+            return (int) epoll_ctl.invokeExact(epfd, op, fd, event);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static final MethodHandle epoll_ctl = methodHandle("epoll_ctl",
+            FunctionDescriptor.of(JAVA_INT, JAVA_INT, JAVA_INT, JAVA_INT, ADDRESS));
+
+    /**
+     * Waits for events on an epoll instance.
+     *
+     * @param epfd      the epoll file descriptor
+     * @param events    an array of {@code struct epoll_event} to hold the ready events
+     * @param maxevents the number of elements in the array
+     * @param timeout   the maximum number of milliseconds to wait, or -1 to wait indefinitely
+     * @return the number of ready file descriptors; 0 if the call timed out; -1 on error, with errno set to indicate
+     *         the error.
+     */
+    public static int epoll_wait(int epfd, Addressable events, int maxevents, int timeout) {
+        try {
+            return (int) epoll_wait.invokeExact(epfd, events, maxevents, timeout);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static final MethodHandle epoll_wait = methodHandle("epoll_wait",
+            FunctionDescriptor.of(JAVA_INT, JAVA_INT, ADDRESS, JAVA_INT, JAVA_INT));
+
+    /**
+     * Reads several {@code linux_dirent64} structures from the directory referred to by the open file descriptor fd
+     * into the buffer. Each structure contains the inode, an offset, the record length, the file type, and the
+     * null-terminated file name.
+     * <p>
+     * The glibc wrapper was added in version 2.30; use {@link #hasGetdents64()} to check for its presence.
+     *
+     * @param fd    a file descriptor open on a directory
+     * @param dirp  the buffer to hold the results
+     * @param count the size of the buffer
+     * @return the number of bytes read; 0 at the end of the directory; -1 on error, with errno set to indicate the
+     *         error.
+     */
+    public static long getdents64(int fd, Addressable dirp, long count) {
+        try {
+            return (long) getdents64.invokeExact(fd, dirp, count);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static final MethodHandle getdents64 = optionalMethodHandle("getdents64",
+            FunctionDescriptor.of(JAVA_LONG, JAVA_INT, ADDRESS, JAVA_LONG));
+
+    /**
+     * Tests whether the C library exports {@code getdents64}.
+     *
+     * @return {@code true} if {@link #getdents64(int, Addressable, long)} may be called
+     */
+    public static boolean hasGetdents64() {
+        return getdents64 != null;
+    }
+
+    /**
+     * Gets a thread's CPU affinity mask.
+     *
+     * @param pid        the process (or thread) ID, or zero for the calling thread
+     * @param cpusetsize the size of the mask buffer in bytes
+     * @param mask       the buffer to hold the result
+     * @return 0 on success; -1 on error, with errno set to indicate the error.
+     */
+    public static int sched_getaffinity(int pid, long cpusetsize, Addressable mask) {
+        try {
+            return (int) sched_getaffinity.invokeExact(pid, cpusetsize, mask);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static final MethodHandle sched_getaffinity = methodHandle("sched_getaffinity",
+            FunctionDescriptor.of(JAVA_INT, JAVA_INT, JAVA_LONG, ADDRESS));
+
+    /**
+     * Gets a resource limit of the calling process.
+     *
+     * @param resource the resource, such as {@link #RLIMIT_NOFILE}
+     * @param rlim     a buffer of {@link #RLIMIT_SIZE} bytes to hold the soft and hard limits
+     * @return 0 on success; -1 on error, with errno set to indicate the error.
+     */
+    public static int getrlimit(int resource, Addressable rlim) {
+        try {
+            return (int) getrlimit.invokeExact(resource, rlim);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static final MethodHandle getrlimit = methodHandle("getrlimit",
+            FunctionDescriptor.of(JAVA_INT, JAVA_INT, ADDRESS));
+
+    /**
+     * Searches the password database for the given user uid, returning the first one encountered. The result is stored
+     * in caller supplied memory, so unlike {@code getpwuid}, concurrent calls are safe.
+     *
+     * @param uid    The user ID
+     * @param pwd    a buffer of at least {@link #PASSWD_SIZE} bytes to hold the Passwd structure
+     * @param buf    a buffer to hold the strings the structure points to
+     * @param buflen the size of {@code buf}
+     * @param result a pointer set to {@code pwd} if the user was found, or to NULL if not
+     * @return 0 on success, whether or not the user was found; otherwise an error number, {@link #ERANGE} if
+     *         {@code buf} is too small
+     */
+    public static int getpwuid_r(int uid, Addressable pwd, Addressable buf, long buflen, Addressable result) {
+        try {
+            return (int) getpwuid_r.invokeExact(uid, pwd, buf, buflen, result);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static final MethodHandle getpwuid_r = methodHandle("getpwuid_r",
+            FunctionDescriptor.of(JAVA_INT, JAVA_INT, ADDRESS, ADDRESS, JAVA_LONG, ADDRESS));
+
+    /**
+     * Searches the group database for the given group id, returning the first one encountered. The result is stored in
+     * caller supplied memory, so unlike {@code getgrgid}, concurrent calls are safe.
+     *
+     * @param gid    The group ID
+     * @param grp    a buffer of at least {@link #GROUP_SIZE} bytes to hold the Group structure
+     * @param buf    a buffer to hold the strings the structure points to
+     * @param buflen the size of {@code buf}
+     * @param result a pointer set to {@code grp} if the group was found, or to NULL if not
+     * @return 0 on success, whether or not the group was found; otherwise an error number, {@link #ERANGE} if
+     *         {@code buf} is too small
+     */
+    public static int getgrgid_r(int gid, Addressable grp, Addressable buf, long buflen, Addressable result) {
+        try {
+            return (int) getgrgid_r.invokeExact(gid, grp, buf, buflen, result);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static final MethodHandle getgrgid_r = methodHandle("getgrgid_r",
+            FunctionDescriptor.of(JAVA_INT, JAVA_INT, ADDRESS, ADDRESS, JAVA_LONG, ADDRESS));
+
+    // struct passwd and struct group both begin with a char* name
+    public static final long PW_NAME_OFFSET = 0L;
+    public static final long GR_NAME_OFFSET = 0L;
+    // struct passwd { char *pw_name, *pw_passwd; uid_t pw_uid; gid_t pw_gid; char *pw_gecos, *pw_dir, *pw_shell; }
+    public static final long PASSWD_SIZE = 2L * ADDRESS.byteSize() + 2L * INT_SIZE + 3L * ADDRESS.byteSize();
+    // struct group { char *gr_name, *gr_passwd; gid_t gr_gid; char **gr_mem; }, with gr_mem pointer aligned
+    public static final long GROUP_SIZE = 4L * ADDRESS.byteSize();
+}
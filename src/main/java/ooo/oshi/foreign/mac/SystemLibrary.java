@@ -48,6 +48,9 @@ public class SystemLibrary {
     // resource.h
     public static final int RUSAGE_INFO_V2 = 2;
 
+    // errno.h
+    public static final int ERANGE = 34;
+
     private static final MethodHandle methodHandle(String methodName, FunctionDescriptor fd) {
         return LINKER.downcallHandle(SYS.lookup(methodName).orElseThrow(), fd);
     }
@@ -167,36 +170,49 @@ public class SystemLibrary {
 
     /**
      * This function searches the password database for the given user uid, always returning the first one encountered.
+     * Unlike {@code getpwuid}, the result is stored in caller supplied memory, so concurrent calls are safe.
      *
-     * @param uid The user ID
-     * @return an address to a Passwd structure matching that user
+     * @param uid    The user ID
+     * @param pwd    a buffer to hold the {@link #PASSWD} structure
+     * @param buf    a buffer to hold the strings the structure points to
+     * @param buflen the size of {@code buf}
+     * @param result a pointer set to {@code pwd} if the user was found, or to NULL if not
+     * @return 0 on success, whether or not the user was found; otherwise an error number, {@link #ERANGE} if
+     *         {@code buf} is too small
      */
-    public static MemoryAddress getpwuid(int uid) {
+    public static int getpwuid_r(int uid, Addressable pwd, Addressable buf, long buflen, Addressable result) {
         try {
-            return (MemoryAddress) getpwuid.invokeExact(uid);
+            return (int) getpwuid_r.invokeExact(uid, pwd, buf, buflen, result);
         } catch (Throwable e) {
             throw new RuntimeException(e);
         }
     }
 
-    private static final MethodHandle getpwuid = methodHandle("getpwuid", FunctionDescriptor.of(ADDRESS, JAVA_INT));
+    private static final MethodHandle getpwuid_r = methodHandle("getpwuid_r",
+            FunctionDescriptor.of(JAVA_INT, JAVA_INT, ADDRESS, ADDRESS, JAVA_LONG, ADDRESS));
 
     /**
-     * This function searches the group database for the given group name pointed to by the group id given by gid,
-     * returning the first one encountered. Identical group gids may result in undefined behavior.
+     * This function searches the group database for the given group id, returning the first one encountered. Unlike
+     * {@code getgrgid}, the result is stored in caller supplied memory, so concurrent calls are safe.
      *
-     * @param gid The group ID
-     * @return an address to a Group structure matching that group
+     * @param gid    The group ID
+     * @param grp    a buffer to hold the {@link #GROUP} structure
+     * @param buf    a buffer to hold the strings the structure points to
+     * @param buflen the size of {@code buf}
+     * @param result a pointer set to {@code grp} if the group was found, or to NULL if not
+     * @return 0 on success, whether or not the group was found; otherwise an error number, {@link #ERANGE} if
+     *         {@code buf} is too small
      */
-    public static MemoryAddress getgrgid(int gid) {
+    public static int getgrgid_r(int gid, Addressable grp, Addressable buf, long buflen, Addressable result) {
         try {
-            return (MemoryAddress) getgrgid.invokeExact(gid);
+            return (int) getgrgid_r.invokeExact(gid, grp, buf, buflen, result);
         } catch (Throwable e) {
             throw new RuntimeException(e);
         }
     }
 
-    private static final MethodHandle getgrgid = methodHandle("getgrgid", FunctionDescriptor.of(ADDRESS, JAVA_INT));
+    private static final MethodHandle getgrgid_r = methodHandle("getgrgid_r",
+            FunctionDescriptor.of(JAVA_INT, JAVA_INT, ADDRESS, ADDRESS, JAVA_LONG, ADDRESS));
 
     /**
      * The sysctl() function retrieves system information and allows processes with appropriate privileges to set system
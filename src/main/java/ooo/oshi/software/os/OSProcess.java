@@ -4,6 +4,8 @@
  */
 package ooo.oshi.software.os;
 
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 
@@ -183,8 +185,7 @@ public interface OSProcess {
      * Manager.
      * <p>
      * On Linux, returns the RSS value from {@code /proc/[pid]/stat}, which may be inaccurate because of a
-     * kernel-internal scalability optimization. If accurate values are required, read {@code /proc/[pid]/smaps} using
-     * {@link FileUtil#getKeyValueMapFromFile(String, String)}.
+     * kernel-internal scalability optimization. If accurate values are required, read {@code /proc/[pid]/smaps}.
      *
      * @return the Resident Set Size
      */
@@ -265,6 +266,9 @@ public interface OSProcess {
      * The accuracy of this calculation is dependent on both the number of threads on which the process is executing,
      * and the precision of the Operating System's tick counters. A polling interval of at least a few seconds is
      * recommended.
+     * <p>
+     * To calculate the usage of all processes without keeping a prior snapshot of each, see
+     * {@link ProcessCpuTracker}.
      *
      * @param proc An {@link OSProcess} object containing statistics for this same process collected at a prior point in
      *             time. May be null.
@@ -307,6 +311,35 @@ public interface OSProcess {
      */
     boolean updateAttributes();
 
+    /**
+     * Attempts to update only the attributes of the process which change while it runs, such as its state, times,
+     * memory, faults, context switches and I/O counters. Attributes fixed for the life of the process, such as its
+     * path, user and command line, and attributes which are expensive to read, may keep their previous values.
+     * <p>
+     * The default implementation updates all attributes.
+     *
+     * @return {@code true} if the update was successful, false if the update failed. In addition, on a failed update
+     *         the process state will be changed to {@link State#INVALID}.
+     */
+    default boolean updateCounters() {
+        return updateAttributes();
+    }
+
+    /**
+     * Attempts to update the requested process attributes, reading only the native sources needed for them. Attributes
+     * which were not requested may hold stale or default values, or may be read on first access, depending on the
+     * platform.
+     * <p>
+     * The default implementation updates all attributes.
+     *
+     * @param fields The attributes to update
+     * @return {@code true} if the update was successful, false if the update failed. In addition, on a failed update
+     *         the process state will be changed to {@link State#INVALID}.
+     */
+    default boolean updateAttributes(EnumSet<ProcessField> fields) {
+        return updateAttributes();
+    }
+
     /**
      * Retrieves the threads of the process and their details.
      * <p>
@@ -316,6 +349,18 @@ public interface OSProcess {
      */
     List<OSThread> getThreadDetails();
 
+    /**
+     * Retrieves the paths of the control groups containing the process, one per hierarchy, relative to the root of the
+     * hierarchy, such as {@code /system.slice/sshd.service}. The paths are read on each call.
+     * <p>
+     * Only Linux supports control groups. The default implementation returns an empty list.
+     *
+     * @return the control group paths, or an empty list if not available
+     */
+    default List<String> queryControlGroups() {
+        return Collections.emptyList();
+    }
+
     /**
      * Gets the number of minor (soft) faults the process has made which have not required loading a memory page from
      * disk. Sometimes called reclaims.
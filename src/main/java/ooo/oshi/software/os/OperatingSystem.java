@@ -4,14 +4,17 @@
  */
 package ooo.oshi.software.os;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.Objects;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import ooo.oshi.software.os.OSProcess.State;
+import ooo.oshi.util.CollectionExecutor;
+import ooo.oshi.util.KeyComparator;
 
 public interface OperatingSystem {
 
@@ -62,17 +65,17 @@ public interface OperatingSystem {
         /**
          * Sort by decreasing cumulative CPU percentage
          */
-        public static final Comparator<OSProcess> CPU_DESC = Comparator
-                .comparingDouble(OSProcess::getProcessCpuLoadCumulative).reversed();
+        public static final Comparator<OSProcess> CPU_DESC = KeyComparator
+                .<OSProcess>comparingDouble(OSProcess::getProcessCpuLoadCumulative).reversed();
         /**
          * Sort by decreasing Resident Set Size (RSS)
          */
-        public static final Comparator<OSProcess> RSS_DESC = Comparator.comparingLong(OSProcess::getResidentSetSize)
-                .reversed();
+        public static final Comparator<OSProcess> RSS_DESC = KeyComparator
+                .<OSProcess>comparingLong(OSProcess::getResidentSetSize).reversed();
         /**
          * Sort by up time, newest processes first
          */
-        public static final Comparator<OSProcess> UPTIME_ASC = Comparator.comparingLong(OSProcess::getUpTime);
+        public static final Comparator<OSProcess> UPTIME_ASC = KeyComparator.comparingLong(OSProcess::getUpTime);
         /**
          * Sort by up time, oldest processes first
          */
@@ -80,11 +83,11 @@ public interface OperatingSystem {
         /**
          * Sort by Process Id
          */
-        public static final Comparator<OSProcess> PID_ASC = Comparator.comparingInt(OSProcess::getProcessID);
+        public static final Comparator<OSProcess> PID_ASC = KeyComparator.comparingInt(OSProcess::getProcessID);
         /**
          * Sort by Parent Process Id
          */
-        public static final Comparator<OSProcess> PARENTPID_ASC = Comparator
+        public static final Comparator<OSProcess> PARENTPID_ASC = KeyComparator
                 .comparingInt(OSProcess::getParentProcessID);
         /**
          * Sort by Process Name (case insensitive)
@@ -108,7 +111,8 @@ public interface OperatingSystem {
      * Gets currently running processes, optionally filtering, sorting, and limited to the top "N".
      *
      * @param filter An optional {@link Predicate} limiting the results to the specified filter. Some common predicates
-     *               are available in {@link ProcessSorting}. May be {@code null} for no filtering.
+     *               are available in {@link ProcessSorting}. A {@link ProcessFilter} may be evaluated before all
+     *               attributes are read. May be {@code null} for no filtering.
      * @param sort   An optional {@link Comparator} specifying the sorting order. Some common comparators are available
      *               in {@link ProcessSorting}. May be {@code null} for no sorting.
      * @param limit  Max number of results to return, or 0 to return all results
@@ -120,6 +124,56 @@ public interface OperatingSystem {
      */
     List<OSProcess> getProcesses(Predicate<OSProcess> filter, Comparator<OSProcess> sort, int limit);
 
+    /**
+     * Gets currently running processes, reading only the attributes needed by the caller, optionally filtering,
+     * sorting, and limited to the top "N". The fields read should include those used by the filter and sort order.
+     *
+     * @param fields The attributes to read for each process. Other attributes may hold default values, or may be read
+     *               on first access, depending on the platform.
+     * @param filter An optional {@link Predicate} limiting the results to the specified filter. May be {@code null}
+     *               for no filtering.
+     * @param sort   An optional {@link Comparator} specifying the sorting order. May be {@code null} for no sorting.
+     * @param limit  Max number of results to return, or 0 to return all results
+     * @return A list of {@link oshi.software.os.OSProcess} objects, optionally filtered, sorted, and limited to the
+     *         specified number.
+     */
+    default List<OSProcess> getProcesses(EnumSet<ProcessField> fields, Predicate<OSProcess> filter,
+            Comparator<OSProcess> sort, int limit) {
+        return getProcesses(filter, sort, limit);
+    }
+
+    /**
+     * Gets the currently running child processes of a process, optionally filtering, sorting, and limited to the top
+     * "N".
+     *
+     * @param parentPid The process ID whose children to list
+     * @param filter    An optional {@link Predicate} limiting the results to the specified filter. May be {@code null}
+     *                  for no filtering.
+     * @param sort      An optional {@link Comparator} specifying the sorting order. May be {@code null} for no
+     *                  sorting.
+     * @param limit     Max number of results to return, or 0 to return all results
+     * @return A list of {@link oshi.software.os.OSProcess} objects representing the currently running child
+     *         processes of the provided process ID, optionally filtered, sorted, and limited to the specified number.
+     */
+    List<OSProcess> getChildProcesses(int parentPid, Predicate<OSProcess> filter, Comparator<OSProcess> sort,
+            int limit);
+
+    /**
+     * Gets the currently running descendant processes of a process: its children, their children, and so on,
+     * optionally filtering, sorting, and limited to the top "N".
+     *
+     * @param parentPid The process ID whose descendants to list
+     * @param filter    An optional {@link Predicate} limiting the results to the specified filter. May be {@code null}
+     *                  for no filtering.
+     * @param sort      An optional {@link Comparator} specifying the sorting order. May be {@code null} for no
+     *                  sorting.
+     * @param limit     Max number of results to return, or 0 to return all results
+     * @return A list of {@link oshi.software.os.OSProcess} objects representing the currently running descendant
+     *         processes of the provided process ID, optionally filtered, sorted, and limited to the specified number.
+     */
+    List<OSProcess> getDescendantProcesses(int parentPid, Predicate<OSProcess> filter, Comparator<OSProcess> sort,
+            int limit);
+
     /**
      * Gets information on a {@link Collection} of currently running processes. This has potentially improved
      * performance vs. iterating individual processes.
@@ -128,10 +182,87 @@ public interface OperatingSystem {
      * @return A list of {@link oshi.software.os.OSProcess} objects for the specified process ids if it is running
      */
     default List<OSProcess> getProcesses(Collection<Integer> pids) {
-        return pids.stream().distinct().parallel().map(this::getProcess).filter(Objects::nonNull)
-                .filter(ProcessFiltering.VALID_PROCESS).collect(Collectors.toList());
+        return CollectionExecutor.getDefault().map(pids.stream().mapToInt(Integer::intValue).distinct().toArray(),
+                pid -> {
+                    OSProcess p = getProcess(pid);
+                    return p != null && ProcessFiltering.VALID_PROCESS.test(p) ? p : null;
+                });
+    }
+
+    /**
+     * Gets a stream of the currently running processes, each read only when the stream reaches it. Unlike
+     * {@link #getProcesses()}, the processes are not all held in memory at once, and short-circuiting operations such
+     * as {@link Stream#anyMatch(Predicate)} or {@link Stream#findFirst()} stop reading processes once they have a
+     * result.
+     * <p>
+     * The stream may be made parallel, in which case it is split into process ID ranges. Processes which exit before
+     * they are reached are omitted.
+     * <p>
+     * The stream may hold an open directory until it is fully traversed. A caller which may stop early, such as with a
+     * short-circuiting operation, should close it, for example with try-with-resources:
+     *
+     * <pre>{@code
+     * try (Stream<OSProcess> processes = os.processStream()) {
+     *     return processes.filter(p -> p.getName().equals("java")).findFirst();
+     * }
+     * }</pre>
+     *
+     * @return A sequential stream of the currently running processes
+     */
+    default Stream<OSProcess> processStream() {
+        int[] pids = getProcessIds().clone();
+        Arrays.sort(pids);
+        return Arrays.stream(pids).mapToObj(this::getProcess)
+                .filter(p -> p != null && ProcessFiltering.VALID_PROCESS.test(p));
+    }
+
+    /**
+     * Gets a columnar snapshot of the currently running processes, holding their most commonly used values in primitive
+     * arrays. This uses much less memory than a list of {@link OSProcess} objects, and allows sorting and filtering
+     * without dereferencing each process.
+     *
+     * @return A {@link ProcessTable} of the currently running processes.
+     */
+    default ProcessTable getProcessTable() {
+        return getProcessTable(null);
     }
 
+    /**
+     * Gets a columnar snapshot of the currently running processes, reusing the process name strings of a previous
+     * snapshot. A caller which takes snapshots repeatedly should pass the last one, so that names seen in both are not
+     * created again.
+     *
+     * @param previous A previous snapshot, or {@code null}
+     * @return A {@link ProcessTable} of the currently running processes.
+     */
+    default ProcessTable getProcessTable(ProcessTable previous) {
+        List<OSProcess> procs = getProcesses();
+        ProcessTable.Builder builder = new ProcessTable.Builder(procs.size(), this::getProcess, previous);
+        for (OSProcess p : procs) {
+            builder.add(p);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Gets the process IDs of the currently running processes, without gathering any other information about them.
+     *
+     * @return An array of process IDs, in no particular order.
+     */
+    default int[] getProcessIds() {
+        return getProcesses().stream().mapToInt(OSProcess::getProcessID).toArray();
+    }
+
+    /**
+     * Registers a listener for process lifecycle events. Where the operating system can report events as they happen,
+     * such as the Linux process connector, they are delivered with low latency; otherwise the process list is polled
+     * and compared at intervals. See {@link ProcessEventSubscription#isEventDriven()}.
+     *
+     * @param listener The listener to receive events
+     * @return A subscription, which must be closed to stop receiving events
+     */
+    ProcessEventSubscription subscribeProcessEvents(ProcessEventListener listener);
+
     /**
      * Gets information on a currently running process
      *
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.software.os;
+
+import java.util.Arrays;
+
+import ooo.oshi.annotation.concurrent.GuardedBy;
+import ooo.oshi.annotation.concurrent.NotThreadSafe;
+import ooo.oshi.annotation.concurrent.ThreadSafe;
+
+/**
+ * Calculates the CPU usage of every process between successive {@link ProcessTable} snapshots, without callers keeping
+ * the previous snapshot of each process.
+ * <p>
+ * The tracker remembers the CPU time and up time of each process at the previous sample, keyed by process ID and start
+ * time so that a reused process ID is treated as a new process. Processes absent from a sample are forgotten. Values
+ * are held in primitive open addressing tables which are reused between samples, so once the tables have grown to fit
+ * the number of processes, sampling allocates no objects.
+ * <p>
+ * Values are calculated as by {@link OSProcess#getProcessCpuLoadBetweenTicks(OSProcess)}: the proportion of elapsed up
+ * time the process was executing in kernel or user mode, which may exceed 1 for multi-threaded processes. A process
+ * first seen in a sample reports its cumulative load.
+ */
+@ThreadSafe
+public final class ProcessCpuTracker {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // Entries are copied from the previous table to the next on each sample, so dead processes are simply not copied
+    @GuardedBy("this")
+    private Slots previous = new Slots(INITIAL_CAPACITY);
+    @GuardedBy("this")
+    private Slots next = new Slots(INITIAL_CAPACITY);
+
+    /**
+     * Calculates the CPU usage of each process in a snapshot since the previous call, and remembers the snapshot's
+     * values for the next call.
+     *
+     * @param table A snapshot of the running processes, taken after the snapshot passed to the previous call
+     * @param loads An array to receive the CPU usage of each row of the table, reused if it has at least
+     *              {@code table.size()} elements. May be {@code null}.
+     * @return The array holding the CPU usage of each row, indexed by row. If {@code loads} was too small, a new array.
+     */
+    public synchronized double[] update(ProcessTable table, double[] loads) {
+        int size = table.size();
+        double[] result = loads == null || loads.length < size ? new double[size] : loads;
+        Slots prior = this.previous;
+        Slots current = this.next;
+        current.clear(size);
+        for (int row = 0; row < size; row++) {
+            int pid = table.getProcessID(row);
+            long startTime = table.getStartTime(row);
+            long cpuTime = table.getUserTime(row) + table.getKernelTime(row);
+            long upTime = table.getUpTime(row);
+            int slot = prior.find(pid, startTime);
+            if (slot >= 0 && upTime > prior.upTimes[slot]) {
+                result[row] = (cpuTime - prior.cpuTimes[slot]) / (double) (upTime - prior.upTimes[slot]);
+            } else {
+                result[row] = cpuTime / (double) upTime;
+            }
+            current.put(pid, startTime, cpuTime, upTime);
+        }
+        this.previous = current;
+        this.next = prior;
+        return result;
+    }
+
+    /**
+     * Gets the number of processes remembered from the previous sample.
+     *
+     * @return The number of processes tracked
+     */
+    public synchronized int size() {
+        return this.previous.size;
+    }
+
+    /**
+     * Forgets all processes, so that the next sample reports cumulative loads.
+     */
+    public synchronized void reset() {
+        this.previous.clear(0);
+    }
+
+    /**
+     * An open addressing hash table from process ID and start time to CPU time and up time, with linear probing.
+     */
+    @NotThreadSafe
+    private static final class Slots {
+        // Process ID + 1, 0 marks an empty slot
+        private int[] keys;
+        private long[] startTimes;
+        private long[] cpuTimes;
+        private long[] upTimes;
+        private int size;
+
+        private Slots(int capacity) {
+            allocate(capacity);
+        }
+
+        private void allocate(int capacity) {
+            this.keys = new int[capacity];
+            this.startTimes = new long[capacity];
+            this.cpuTimes = new long[capacity];
+            this.upTimes = new long[capacity];
+        }
+
+        /**
+         * Empties the table, growing it if needed to hold the given number of entries at no more than half load.
+         */
+        private void clear(int expected) {
+            int capacity = this.keys.length;
+            while (capacity < expected * 2) {
+                capacity *= 2;
+            }
+            if (capacity > this.keys.length) {
+                allocate(capacity);
+            } else {
+                Arrays.fill(this.keys, 0);
+            }
+            this.size = 0;
+        }
+
+        private int find(int pid, long startTime) {
+            int mask = this.keys.length - 1;
+            int slot = hash(pid, startTime) & mask;
+            int key;
+            while ((key = this.keys[slot]) != 0) {
+                if (key == pid + 1 && this.startTimes[slot] == startTime) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        private void put(int pid, long startTime, long cpuTime, long upTime) {
+            int mask = this.keys.length - 1;
+            int slot = hash(pid, startTime) & mask;
+            int key;
+            while ((key = this.keys[slot]) != 0) {
+                if (key == pid + 1 && this.startTimes[slot] == startTime) {
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (key == 0) {
+                this.size++;
+            }
+            this.keys[slot] = pid + 1;
+            this.startTimes[slot] = startTime;
+            this.cpuTimes[slot] = cpuTime;
+            this.upTimes[slot] = upTime;
+        }
+
+        private static int hash(int pid, long startTime) {
+            long h = (pid ^ startTime) * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
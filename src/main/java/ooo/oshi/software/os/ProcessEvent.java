@@ -0,0 +1,46 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.software.os;
+
+/**
+ * A change in the lifecycle of a process, delivered to a {@link ProcessEventListener}.
+ *
+ * @param type            The kind of change
+ * @param processId       The process which changed. For {@link Type#FORK}, the new child process.
+ * @param parentProcessId For {@link Type#FORK}, the parent process; otherwise -1 if unknown
+ * @param exitCode        For {@link Type#EXIT}, the process's wait status if known; otherwise -1
+ * @param userId          For {@link Type#UID}, the new effective user ID; otherwise -1
+ * @param name            For {@link Type#COMM}, the new process name; otherwise empty
+ * @param timestamp       The time the event was received, in milliseconds since the epoch
+ */
+public record ProcessEvent(Type type, int processId, int parentProcessId, int exitCode, int userId, String name,
+        long timestamp) {
+
+    /**
+     * The kinds of process lifecycle events.
+     */
+    public enum Type {
+        /**
+         * A new process was created
+         */
+        FORK,
+        /**
+         * A process replaced its program image
+         */
+        EXEC,
+        /**
+         * A process terminated
+         */
+        EXIT,
+        /**
+         * A process changed its user ID
+         */
+        UID,
+        /**
+         * A process changed its name
+         */
+        COMM
+    }
+}
@@ -0,0 +1,22 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.software.os;
+
+/**
+ * Receives process lifecycle events from {@link OperatingSystem#subscribeProcessEvents(ProcessEventListener)}.
+ * <p>
+ * Events for a subscription are delivered sequentially on a single background thread; listeners should return quickly
+ * to avoid events being dropped.
+ */
+@FunctionalInterface
+public interface ProcessEventListener {
+
+    /**
+     * Called when a process event occurs.
+     *
+     * @param event The event
+     */
+    void onEvent(ProcessEvent event);
+}
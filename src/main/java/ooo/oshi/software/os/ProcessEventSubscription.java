@@ -0,0 +1,27 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.software.os;
+
+/**
+ * A registration of a {@link ProcessEventListener}. Closing the subscription stops delivery of events and releases
+ * its background thread and any native resources.
+ */
+public interface ProcessEventSubscription extends AutoCloseable {
+
+    /**
+     * Tests whether events are delivered by the operating system as they happen. If {@code false}, events are
+     * detected by periodically comparing the list of processes, so short-lived processes may be missed and only
+     * {@link ProcessEvent.Type#FORK} and {@link ProcessEvent.Type#EXIT} events are reported.
+     *
+     * @return {@code true} if events are delivered by the operating system
+     */
+    boolean isEventDriven();
+
+    /**
+     * Stops delivery of events. Calling this method more than once has no effect.
+     */
+    @Override
+    void close();
+}
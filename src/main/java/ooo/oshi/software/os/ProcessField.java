@@ -0,0 +1,105 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.software.os;
+
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.function.Predicate;
+
+/**
+ * The groups of {@link OSProcess} attributes which may be requested with {@link OSProcess#updateAttributes(EnumSet)}
+ * and {@link OperatingSystem#getProcesses(EnumSet, Predicate, Comparator, int)}. Implementations read only the native
+ * sources needed for the requested fields; fields which were not requested may be read on first access, or may hold
+ * default or stale values, depending on the platform.
+ * <p>
+ * The process ID is always available.
+ */
+public enum ProcessField {
+    /**
+     * {@link OSProcess#getName()}
+     */
+    NAME,
+    /**
+     * {@link OSProcess#getPath()}
+     */
+    PATH,
+    /**
+     * {@link OSProcess#getCommandLine()} and {@link OSProcess#getArguments()}
+     */
+    COMMAND_LINE,
+    /**
+     * {@link OSProcess#getEnvironmentVariables()}
+     */
+    ENVIRONMENT,
+    /**
+     * {@link OSProcess#getCurrentWorkingDirectory()}
+     */
+    CURRENT_WORKING_DIRECTORY,
+    /**
+     * {@link OSProcess#getUser()} and {@link OSProcess#getUserID()}
+     */
+    USER,
+    /**
+     * {@link OSProcess#getGroup()} and {@link OSProcess#getGroupID()}
+     */
+    GROUP,
+    /**
+     * {@link OSProcess#getState()}
+     */
+    STATE,
+    /**
+     * {@link OSProcess#getParentProcessID()}
+     */
+    PARENT_PROCESS_ID,
+    /**
+     * {@link OSProcess#getThreadCount()}
+     */
+    THREAD_COUNT,
+    /**
+     * {@link OSProcess#getPriority()}
+     */
+    PRIORITY,
+    /**
+     * {@link OSProcess#getVirtualSize()} and {@link OSProcess#getResidentSetSize()}
+     */
+    MEMORY,
+    /**
+     * {@link OSProcess#getKernelTime()} and {@link OSProcess#getUserTime()}
+     */
+    CPU_TIME,
+    /**
+     * {@link OSProcess#getStartTime()} and {@link OSProcess#getUpTime()}
+     */
+    START_TIME,
+    /**
+     * {@link OSProcess#getBytesRead()} and {@link OSProcess#getBytesWritten()}
+     */
+    DISK_IO,
+    /**
+     * {@link OSProcess#getOpenFiles()}
+     */
+    OPEN_FILES,
+    /**
+     * {@link OSProcess#getBitness()}
+     */
+    BITNESS,
+    /**
+     * {@link OSProcess#getMinorFaults()} and {@link OSProcess#getMajorFaults()}
+     */
+    PAGE_FAULTS,
+    /**
+     * {@link OSProcess#getContextSwitches()}
+     */
+    CONTEXT_SWITCHES;
+
+    /**
+     * Creates a set of all fields.
+     *
+     * @return A new set containing every field
+     */
+    public static EnumSet<ProcessField> all() {
+        return EnumSet.allOf(ProcessField.class);
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.software.os;
+
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+import ooo.oshi.annotation.concurrent.Immutable;
+import ooo.oshi.annotation.concurrent.NotThreadSafe;
+import ooo.oshi.software.os.OSProcess.State;
+import ooo.oshi.util.ParseUtil;
+
+/**
+ * A process filter built from declarative criteria, which operating system implementations may evaluate before
+ * reading all of a process's attributes. When passed to
+ * {@link OperatingSystem#getProcesses(Predicate, Comparator, int)} on Linux or macOS, each criterion is tested as soon
+ * as the cheapest source holding its value has been read, and rejected processes are not read further:
+ * <ol>
+ * <li>the process ID range, before anything is read;</li>
+ * <li>the parent process ID and state, from {@code /proc/[pid]/stat} or {@code proc_pidinfo};</li>
+ * <li>the user ID, from {@code /proc/[pid]/status} or {@code proc_pidinfo};</li>
+ * <li>the control group, from {@code /proc/[pid]/cgroup};</li>
+ * <li>the name prefix, from the command name on Linux or the executable path on macOS;</li>
+ * <li>finally, an arbitrary {@link Predicate} post-filter on the populated process.</li>
+ * </ol>
+ * Elsewhere, all criteria are tested on fully populated processes. Control groups exist only on Linux; on other
+ * operating systems, {@link OSProcess#queryControlGroups()} is empty and no process matches a control group
+ * criterion.
+ */
+@Immutable
+public final class ProcessFilter implements Predicate<OSProcess> {
+
+    private final int minProcessId;
+    private final int maxProcessId;
+    private final int parentProcessId;
+    private final int userId;
+    private final String namePrefix;
+    private final EnumSet<State> states;
+    private final String controlGroup;
+    private final Predicate<OSProcess> postFilter;
+
+    private ProcessFilter(Builder builder, Predicate<OSProcess> postFilter) {
+        this.minProcessId = builder.minProcessId;
+        this.maxProcessId = builder.maxProcessId;
+        this.parentProcessId = builder.parentProcessId;
+        this.userId = builder.userId;
+        this.namePrefix = builder.namePrefix;
+        this.states = builder.states == null ? null : EnumSet.copyOf(builder.states);
+        this.controlGroup = builder.controlGroup;
+        this.postFilter = postFilter;
+    }
+
+    /**
+     * Creates a builder for a filter. A filter with no criteria matches all processes.
+     *
+     * @return A new builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Tests whether a process ID is within the requested range.
+     *
+     * @param pid The process ID
+     * @return {@code true} if the process ID may match
+     */
+    public boolean testProcessId(int pid) {
+        return pid >= minProcessId && pid <= maxProcessId;
+    }
+
+    /**
+     * Tests the parent process ID and state of a process.
+     *
+     * @param p The process
+     * @return {@code true} if the process may match
+     */
+    public boolean testParentAndState(OSProcess p) {
+        return (parentProcessId < 0 || p.getParentProcessID() == parentProcessId)
+                && (states == null || states.contains(p.getState()));
+    }
+
+    /**
+     * Tests the user ID of a process.
+     *
+     * @param p The process
+     * @return {@code true} if the process may match
+     */
+    public boolean testUser(OSProcess p) {
+        return userId < 0 || ParseUtil.parseIntOrDefault(p.getUserID(), -1) == userId;
+    }
+
+    /**
+     * Tests the name of a process.
+     *
+     * @param p The process
+     * @return {@code true} if the process may match
+     */
+    public boolean testName(OSProcess p) {
+        return namePrefix == null || p.getName().startsWith(namePrefix);
+    }
+
+    /**
+     * Tests the path of a control group containing a process. A process matches if it is in the requested group or
+     * one of its descendants.
+     *
+     * @param path The path of the control group, relative to the root of its hierarchy, such as
+     *             {@code /system.slice/sshd.service}
+     * @return {@code true} if the process may match
+     */
+    public boolean testControlGroup(String path) {
+        if (controlGroup == null) {
+            return true;
+        }
+        return path.startsWith(controlGroup) && (path.length() == controlGroup.length()
+                || controlGroup.endsWith("/") || path.charAt(controlGroup.length()) == '/');
+    }
+
+    /**
+     * Tests the control groups containing a process, reading them only if there is a control group criterion.
+     *
+     * @param p The process
+     * @return {@code true} if the process may match
+     */
+    public boolean testControlGroups(OSProcess p) {
+        return controlGroup == null || p.queryControlGroups().stream().anyMatch(this::testControlGroup);
+    }
+
+    /**
+     * Tests a process with the post-filter, if any.
+     *
+     * @param p The process
+     * @return {@code true} if the process matches
+     */
+    public boolean testPostFilter(OSProcess p) {
+        return postFilter == null || postFilter.test(p);
+    }
+
+    /**
+     * Gets the control group criterion.
+     *
+     * @return The control group path, or {@code null} if processes are not filtered by control group
+     */
+    public String getControlGroup() {
+        return controlGroup;
+    }
+
+    /**
+     * Tests all criteria on a populated process, in order of increasing cost. Control groups are read with
+     * {@link OSProcess#queryControlGroups()}.
+     */
+    @Override
+    public boolean test(OSProcess p) {
+        return testProcessId(p.getProcessID()) && testParentAndState(p) && testUser(p) && testControlGroups(p)
+                && testName(p) && testPostFilter(p);
+    }
+
+    /**
+     * Creates a filter with the same declarative criteria, and a post-filter which also requires the given predicate,
+     * so that the criteria may still be evaluated early.
+     */
+    @Override
+    public ProcessFilter and(Predicate<? super OSProcess> other) {
+        Objects.requireNonNull(other);
+        Predicate<OSProcess> combined = postFilter == null ? other::test : postFilter.and(other);
+        return new ProcessFilter(toBuilder(), combined);
+    }
+
+    private Builder toBuilder() {
+        Builder builder = new Builder();
+        builder.minProcessId = minProcessId;
+        builder.maxProcessId = maxProcessId;
+        builder.parentProcessId = parentProcessId;
+        builder.userId = userId;
+        builder.namePrefix = namePrefix;
+        builder.states = states;
+        builder.controlGroup = controlGroup;
+        return builder;
+    }
+
+    /**
+     * Builds a {@link ProcessFilter}. Each criterion narrows the processes matched.
+     */
+    @NotThreadSafe
+    public static final class Builder {
+        private int minProcessId = 0;
+        private int maxProcessId = Integer.MAX_VALUE;
+        private int parentProcessId = -1;
+        private int userId = -1;
+        private String namePrefix;
+        private EnumSet<State> states;
+        private String controlGroup;
+        private Predicate<OSProcess> postFilter;
+
+        private Builder() {
+        }
+
+        /**
+         * Matches processes with IDs in a range.
+         *
+         * @param min The lowest process ID, inclusive
+         * @param max The highest process ID, inclusive
+         * @return This builder
+         */
+        public Builder processIdRange(int min, int max) {
+            this.minProcessId = min;
+            this.maxProcessId = max;
+            return this;
+        }
+
+        /**
+         * Matches the children of a process.
+         *
+         * @param ppid The parent process ID
+         * @return This builder
+         */
+        public Builder parentProcessId(int ppid) {
+            this.parentProcessId = ppid;
+            return this;
+        }
+
+        /**
+         * Matches processes owned by a user.
+         *
+         * @param uid The numeric user ID
+         * @return This builder
+         */
+        public Builder userId(int uid) {
+            this.userId = uid;
+            return this;
+        }
+
+        /**
+         * Matches processes whose name starts with a prefix. The comparison is case sensitive.
+         *
+         * @param prefix The name prefix
+         * @return This builder
+         */
+        public Builder namePrefix(String prefix) {
+            this.namePrefix = Objects.requireNonNull(prefix);
+            return this;
+        }
+
+        /**
+         * Matches processes in any of the given states.
+         *
+         * @param first The first state
+         * @param rest  Further states
+         * @return This builder
+         */
+        public Builder states(State first, State... rest) {
+            this.states = EnumSet.of(first, rest);
+            return this;
+        }
+
+        /**
+         * Matches processes in a control group or its descendants. Only Linux supports control groups.
+         *
+         * @param path The path of the control group, relative to the root of its hierarchy, such as
+         *             {@code /system.slice}
+         * @return This builder
+         */
+        public Builder controlGroup(String path) {
+            this.controlGroup = Objects.requireNonNull(path);
+            return this;
+        }
+
+        /**
+         * Matches processes accepted by an arbitrary predicate, which is tested after all other criteria on a
+         * populated process.
+         *
+         * @param filter The predicate
+         * @return This builder
+         */
+        public Builder postFilter(Predicate<OSProcess> filter) {
+            this.postFilter = Objects.requireNonNull(filter);
+            return this;
+        }
+
+        /**
+         * Creates the filter.
+         *
+         * @return The filter
+         */
+        public ProcessFilter build() {
+            return new ProcessFilter(this, postFilter);
+        }
+    }
+}
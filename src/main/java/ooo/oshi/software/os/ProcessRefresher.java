@@ -0,0 +1,155 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.software.os;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import ooo.oshi.annotation.concurrent.GuardedBy;
+import ooo.oshi.annotation.concurrent.ThreadSafe;
+import ooo.oshi.software.os.OSProcess.State;
+import ooo.oshi.util.CollectionExecutor;
+
+/**
+ * Keeps a list of the running processes up to date by refreshing it incrementally, for callers which poll all
+ * processes repeatedly.
+ * <p>
+ * Each {@link #refresh()} lists the current process IDs. Processes seen in the previous generation are kept and only
+ * their counters are updated with {@link OSProcess#updateCounters()}; fields such as the command line, path, user and
+ * working directory are read only when a process is first seen. A process is identified by its process ID and start
+ * time, so a process ID reused by a new process is reported as both removed and added.
+ * <p>
+ * The process objects are shared between generations and updated in place; callers wishing to compare values across
+ * refreshes should copy them first.
+ */
+@ThreadSafe
+public final class ProcessRefresher {
+
+    private final OperatingSystem os;
+
+    @GuardedBy("this")
+    private Map<Integer, OSProcess> previous = Collections.emptyMap();
+
+    /**
+     * The result of a refresh. The process IDs are held in sorted primitive arrays, which callers should not modify;
+     * change sets are equal when their processes and IDs are equal.
+     *
+     * @param processes The currently running processes, in process ID order
+     * @param added     The IDs of processes first seen in this refresh
+     * @param removed   The IDs of processes which have terminated since the previous refresh
+     * @param updated   The IDs of processes which were running at the previous refresh and were updated
+     */
+    public record ChangeSet(List<OSProcess> processes, int[] added, int[] removed, int[] updated) {
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            return obj instanceof ChangeSet other && processes.equals(other.processes)
+                    && Arrays.equals(added, other.added) && Arrays.equals(removed, other.removed)
+                    && Arrays.equals(updated, other.updated);
+        }
+
+        @Override
+        public int hashCode() {
+            int h = processes.hashCode();
+            h = 31 * h + Arrays.hashCode(added);
+            h = 31 * h + Arrays.hashCode(removed);
+            return 31 * h + Arrays.hashCode(updated);
+        }
+
+        @Override
+        public String toString() {
+            return "ChangeSet[processes=" + processes.size() + ", added=" + Arrays.toString(added) + ", removed="
+                    + Arrays.toString(removed) + ", updated=" + Arrays.toString(updated) + "]";
+        }
+    }
+
+    /**
+     * Creates a refresher for the processes of an operating system. No processes are read until the first
+     * {@link #refresh()}.
+     *
+     * @param os The operating system to query
+     */
+    public ProcessRefresher(OperatingSystem os) {
+        this.os = Objects.requireNonNull(os);
+    }
+
+    /**
+     * Updates the running processes, reusing those seen in the previous refresh. The first refresh reports all
+     * processes as added.
+     *
+     * @return The current processes and the changes since the previous refresh.
+     */
+    public synchronized ChangeSet refresh() {
+        int[] pids = os.getProcessIds();
+        Arrays.sort(pids);
+        Map<Integer, OSProcess> prior = this.previous;
+        OSProcess[] current = new OSProcess[pids.length];
+        // Update survivors first, so that the list of new processes is known
+        CollectionExecutor.getDefault().forEach(pids.length, i -> {
+            OSProcess proc = prior.get(pids[i]);
+            if (proc != null) {
+                long startTime = proc.getStartTime();
+                if (proc.updateCounters() && proc.getStartTime() == startTime) {
+                    current[i] = proc;
+                }
+            }
+        });
+        int[] added = new int[pids.length];
+        int addedCount = 0;
+        int[] updated = new int[pids.length];
+        int updatedCount = 0;
+        for (int i = 0; i < pids.length; i++) {
+            if (current[i] == null) {
+                added[addedCount++] = i;
+            } else {
+                updated[updatedCount++] = pids[i];
+            }
+        }
+        CollectionExecutor.getDefault().forEach(addedCount, j -> current[added[j]] = os.getProcess(pids[added[j]]));
+
+        Map<Integer, OSProcess> next = new HashMap<>(pids.length * 4 / 3 + 1);
+        List<OSProcess> processes = new ArrayList<>(pids.length);
+        int newCount = 0;
+        for (int i = 0; i < pids.length; i++) {
+            OSProcess proc = current[i];
+            if (proc != null && !proc.getState().equals(State.INVALID)) {
+                next.put(pids[i], proc);
+                processes.add(proc);
+            }
+        }
+        for (int j = 0; j < addedCount; j++) {
+            int i = added[j];
+            if (next.containsKey(pids[i])) {
+                added[newCount++] = pids[i];
+            }
+        }
+        int[] removed = new int[prior.size()];
+        int removedCount = 0;
+        for (Map.Entry<Integer, OSProcess> e : prior.entrySet()) {
+            if (next.get(e.getKey()) != e.getValue()) {
+                removed[removedCount++] = e.getKey();
+            }
+        }
+        Arrays.sort(removed, 0, removedCount);
+        this.previous = next;
+        return new ChangeSet(Collections.unmodifiableList(processes), Arrays.copyOf(added, newCount),
+                Arrays.copyOf(removed, removedCount), Arrays.copyOf(updated, updatedCount));
+    }
+
+    /**
+     * Discards the previous generation, so that the next refresh reads all processes in full.
+     */
+    public synchronized void reset() {
+        this.previous = Collections.emptyMap();
+    }
+}
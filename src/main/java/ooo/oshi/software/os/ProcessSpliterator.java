@@ -0,0 +1,168 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.software.os;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+import ooo.oshi.annotation.concurrent.NotThreadSafe;
+import ooo.oshi.software.os.OSProcess.State;
+
+/**
+ * A {@link Spliterator} which creates each process only as it is traversed, so that a stream of processes holds at
+ * most one process at a time unless the caller collects them, and a short-circuiting operation such as
+ * {@code findFirst} reads no further processes once it has a result.
+ * <p>
+ * Process IDs are read incrementally from a {@link PidSource}. When split for parallel traversal, the remaining
+ * process IDs are read into a sorted array, which is then divided into contiguous process ID ranges. The source is
+ * closed once it is exhausted or has been read into an array, or by {@link #close()} if traversal stops early.
+ * <p>
+ * Processes which exit before they are read are skipped, so the exact number of elements is not known in advance; the
+ * estimated size is the number of process IDs remaining, when known. A caller with a fixed array of process IDs should
+ * instead stream the array, which is sized, and map it to processes.
+ */
+@NotThreadSafe
+public final class ProcessSpliterator implements Spliterator<OSProcess> {
+
+    // Below this many process IDs, the cost of a new task outweighs reading the processes in place
+    private static final int MIN_SPLIT_SIZE = 16;
+
+    private static final int[] EMPTY = new int[0];
+
+    private final IntFunction<OSProcess> loader;
+    private PidSource source;
+    private long sourceEstimate;
+    private int[] pids;
+    private int index;
+    private int end;
+
+    /**
+     * A source of process IDs read one at a time, such as a directory stream.
+     */
+    public interface PidSource extends AutoCloseable {
+        /**
+         * Gets the next process ID.
+         *
+         * @return The next process ID, or -1 if there are no more
+         */
+        int nextPid();
+
+        /**
+         * Releases any resources held by the source. Called once the source is exhausted or has been read into an
+         * array.
+         */
+        @Override
+        void close();
+    }
+
+    private ProcessSpliterator(IntFunction<OSProcess> loader, PidSource source, long estimate, int[] pids, int index,
+            int end) {
+        this.loader = loader;
+        this.source = source;
+        this.sourceEstimate = estimate;
+        this.pids = pids;
+        this.index = index;
+        this.end = end;
+    }
+
+    /**
+     * Creates a spliterator over process IDs read incrementally from a source.
+     *
+     * @param source   The source of process IDs, which the spliterator closes
+     * @param estimate The expected number of process IDs, or {@link Long#MAX_VALUE} if unknown
+     * @param loader   Creates the process for a process ID, or returns {@code null} if it is not running
+     * @return The spliterator
+     */
+    public static ProcessSpliterator of(PidSource source, long estimate, IntFunction<OSProcess> loader) {
+        return new ProcessSpliterator(Objects.requireNonNull(loader), Objects.requireNonNull(source), estimate, EMPTY,
+                0, 0);
+    }
+
+    /**
+     * Closes the source if it has not been exhausted, such as when a short-circuiting operation stops traversal early.
+     * Intended as the {@link java.util.stream.BaseStream#onClose(Runnable) close handler} of the stream.
+     */
+    public void close() {
+        if (this.source != null) {
+            this.source.close();
+            this.source = null;
+        }
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super OSProcess> action) {
+        int pid;
+        while ((pid = nextPid()) >= 0) {
+            OSProcess proc = this.loader.apply(pid);
+            if (proc != null && !proc.getState().equals(State.INVALID)) {
+                action.accept(proc);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Spliterator<OSProcess> trySplit() {
+        if (this.source != null) {
+            drainSource();
+        }
+        int size = this.end - this.index;
+        if (size < MIN_SPLIT_SIZE) {
+            return null;
+        }
+        int mid = (this.index + this.end) >>> 1;
+        ProcessSpliterator prefix = new ProcessSpliterator(this.loader, null, 0L, this.pids, this.index, mid);
+        this.index = mid;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return this.source != null ? this.sourceEstimate : this.end - this.index;
+    }
+
+    @Override
+    public int characteristics() {
+        return this.source != null ? DISTINCT | NONNULL : DISTINCT | NONNULL | ORDERED;
+    }
+
+    private int nextPid() {
+        if (this.source != null) {
+            int pid = this.source.nextPid();
+            if (pid >= 0) {
+                if (this.sourceEstimate > 1L && this.sourceEstimate < Long.MAX_VALUE) {
+                    this.sourceEstimate--;
+                }
+                return pid;
+            }
+            this.source.close();
+            this.source = null;
+            return -1;
+        }
+        return this.index < this.end ? this.pids[this.index++] : -1;
+    }
+
+    private void drainSource() {
+        int[] remaining = new int[(int) Math.min(Math.max(this.sourceEstimate, 16L), 1 << 16)];
+        int count = 0;
+        int pid;
+        while ((pid = this.source.nextPid()) >= 0) {
+            if (count == remaining.length) {
+                remaining = Arrays.copyOf(remaining, count * 2);
+            }
+            remaining[count++] = pid;
+        }
+        this.source.close();
+        this.source = null;
+        Arrays.sort(remaining, 0, count);
+        this.pids = remaining;
+        this.index = 0;
+        this.end = count;
+    }
+}
@@ -0,0 +1,1076 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.software.os;
+
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+
+import ooo.oshi.annotation.concurrent.NotThreadSafe;
+import ooo.oshi.annotation.concurrent.ThreadSafe;
+import ooo.oshi.software.os.OSProcess.State;
+import ooo.oshi.util.IndexSort;
+import ooo.oshi.util.ParseUtil;
+import ooo.oshi.util.StringPool;
+
+/**
+ * A snapshot of the processes on the operating system, stored in columns of primitive arrays rather than as individual
+ * {@link OSProcess} objects.
+ * <p>
+ * Each row holds the most commonly used numeric values of one process. Process names are held in a pool per
+ * snapshot, so each distinct name is stored once. A snapshot built from a previous one reuses its name strings, and
+ * names no longer in use are dropped with it. Rows are ordered by process ID.
+ * <p>
+ * Rows may be traversed with a {@link Cursor}, sorted or filtered by row index, and viewed as an {@link OSProcess} on
+ * demand. Values not held in the table, such as the command line, are loaded the first time they are requested from
+ * the view.
+ * <p>
+ * The values of a table never change, but its {@link ProcessTree} is built on first use.
+ */
+@ThreadSafe
+public final class ProcessTable {
+
+    /**
+     * The numeric columns of the table.
+     */
+    public enum Column {
+        /**
+         * The process ID
+         */
+        PROCESS_ID,
+        /**
+         * The parent process ID
+         */
+        PARENT_PROCESS_ID,
+        /**
+         * The numeric user ID, or -1 if not numeric
+         */
+        USER_ID,
+        /**
+         * The Resident Set Size in bytes
+         */
+        RESIDENT_SET_SIZE,
+        /**
+         * The Virtual Memory Size in bytes
+         */
+        VIRTUAL_SIZE,
+        /**
+         * The user time in milliseconds
+         */
+        USER_TIME,
+        /**
+         * The kernel time in milliseconds
+         */
+        KERNEL_TIME,
+        /**
+         * The start time in milliseconds since the epoch
+         */
+        START_TIME,
+        /**
+         * The number of minor page faults
+         */
+        MINOR_FAULTS,
+        /**
+         * The number of major page faults
+         */
+        MAJOR_FAULTS,
+        /**
+         * The number of voluntary and involuntary context switches
+         */
+        CONTEXT_SWITCHES
+    }
+
+    private static final State[] STATES = State.values();
+
+    private final int size;
+    private final long timestamp;
+    private final int[] processIds;
+    private final int[] parentProcessIds;
+    private final int[] userIds;
+    private final int[] nameIds;
+    private final byte[] states;
+    private final long[] residentSetSizes;
+    private final long[] virtualSizes;
+    private final long[] userTimes;
+    private final long[] kernelTimes;
+    private final long[] startTimes;
+    private final long[] minorFaults;
+    private final long[] majorFaults;
+    private final long[] contextSwitches;
+    private final String[] names;
+    // Passed to the builder of the next table, to reuse its strings
+    private final StringPool namePool;
+    private final IntFunction<OSProcess> loader;
+    // Built on first use; as the tree is immutable, a racing duplicate build is harmless
+    private volatile ProcessTree tree;
+
+    private ProcessTable(Builder b, int[] order) {
+        this.size = b.size;
+        this.timestamp = b.timestamp;
+        this.processIds = permute(b.processIds, order, size);
+        this.parentProcessIds = permute(b.parentProcessIds, order, size);
+        this.userIds = permute(b.userIds, order, size);
+        this.nameIds = permute(b.nameIds, order, size);
+        this.states = new byte[size];
+        for (int i = 0; i < size; i++) {
+            this.states[i] = b.states[order == null ? i : order[i]];
+        }
+        this.residentSetSizes = permute(b.residentSetSizes, order, size);
+        this.virtualSizes = permute(b.virtualSizes, order, size);
+        this.userTimes = permute(b.userTimes, order, size);
+        this.kernelTimes = permute(b.kernelTimes, order, size);
+        this.startTimes = permute(b.startTimes, order, size);
+        this.minorFaults = permute(b.minorFaults, order, size);
+        this.majorFaults = permute(b.majorFaults, order, size);
+        this.contextSwitches = permute(b.contextSwitches, order, size);
+        this.names = b.names.snapshot();
+        this.namePool = b.names;
+        this.loader = b.loader;
+        b.names.releasePrevious();
+    }
+
+    /**
+     * Gets the number of processes in the table.
+     *
+     * @return the number of rows
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Gets the time the snapshot was taken.
+     *
+     * @return the snapshot time in milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return this.timestamp;
+    }
+
+    /**
+     * Finds the row of a process.
+     *
+     * @param pid The process ID
+     * @return The row index, or a negative value if the process is not in the table
+     */
+    public int indexOf(int pid) {
+        return Arrays.binarySearch(this.processIds, 0, this.size, pid);
+    }
+
+    /**
+     * Gets the process ID of a row.
+     *
+     * @param row The row index
+     * @return the process ID
+     */
+    public int getProcessID(int row) {
+        return this.processIds[row];
+    }
+
+    /**
+     * Gets the parent process ID of a row.
+     *
+     * @param row The row index
+     * @return the parent process ID
+     */
+    public int getParentProcessID(int row) {
+        return this.parentProcessIds[row];
+    }
+
+    /**
+     * Gets the numeric user ID of a row.
+     *
+     * @param row The row index
+     * @return the numeric user ID, or -1 if not numeric
+     */
+    public int getUserID(int row) {
+        return this.userIds[row];
+    }
+
+    /**
+     * Gets the process name of a row.
+     *
+     * @param row The row index
+     * @return the process name
+     */
+    public String getName(int row) {
+        return this.names[this.nameIds[row]];
+    }
+
+    /**
+     * Gets the process state of a row.
+     *
+     * @param row The row index
+     * @return the process state
+     */
+    public State getState(int row) {
+        return STATES[this.states[row]];
+    }
+
+    /**
+     * Gets the Resident Set Size of a row.
+     *
+     * @param row The row index
+     * @return the Resident Set Size in bytes
+     */
+    public long getResidentSetSize(int row) {
+        return this.residentSetSizes[row];
+    }
+
+    /**
+     * Gets the Virtual Memory Size of a row.
+     *
+     * @param row The row index
+     * @return the Virtual Memory Size in bytes
+     */
+    public long getVirtualSize(int row) {
+        return this.virtualSizes[row];
+    }
+
+    /**
+     * Gets the user time of a row.
+     *
+     * @param row The row index
+     * @return the user time in milliseconds
+     */
+    public long getUserTime(int row) {
+        return this.userTimes[row];
+    }
+
+    /**
+     * Gets the kernel time of a row.
+     *
+     * @param row The row index
+     * @return the kernel time in milliseconds
+     */
+    public long getKernelTime(int row) {
+        return this.kernelTimes[row];
+    }
+
+    /**
+     * Gets the start time of a row.
+     *
+     * @param row The row index
+     * @return the start time in milliseconds since the epoch
+     */
+    public long getStartTime(int row) {
+        return this.startTimes[row];
+    }
+
+    /**
+     * Gets the up time of a process as of the snapshot time.
+     *
+     * @param row The row index
+     * @return the number of milliseconds the process had been running when the snapshot was taken
+     */
+    public long getUpTime(int row) {
+        return Math.max(this.timestamp - this.startTimes[row], 1L);
+    }
+
+    /**
+     * Gets the number of minor page faults of a row.
+     *
+     * @param row The row index
+     * @return the number of minor page faults
+     */
+    public long getMinorFaults(int row) {
+        return this.minorFaults[row];
+    }
+
+    /**
+     * Gets the number of major page faults of a row.
+     *
+     * @param row The row index
+     * @return the number of major page faults
+     */
+    public long getMajorFaults(int row) {
+        return this.majorFaults[row];
+    }
+
+    /**
+     * Gets the number of context switches of a row.
+     *
+     * @param row The row index
+     * @return the number of context switches
+     */
+    public long getContextSwitches(int row) {
+        return this.contextSwitches[row];
+    }
+
+    /**
+     * Gets the value of a numeric column.
+     *
+     * @param row    The row index
+     * @param column The column
+     * @return The value
+     */
+    public long get(int row, Column column) {
+        return switch (column) {
+        case PROCESS_ID -> this.processIds[row];
+        case PARENT_PROCESS_ID -> this.parentProcessIds[row];
+        case USER_ID -> this.userIds[row];
+        case RESIDENT_SET_SIZE -> this.residentSetSizes[row];
+        case VIRTUAL_SIZE -> this.virtualSizes[row];
+        case USER_TIME -> this.userTimes[row];
+        case KERNEL_TIME -> this.kernelTimes[row];
+        case START_TIME -> this.startTimes[row];
+        case MINOR_FAULTS -> this.minorFaults[row];
+        case MAJOR_FAULTS -> this.majorFaults[row];
+        case CONTEXT_SWITCHES -> this.contextSwitches[row];
+        };
+    }
+
+    /**
+     * Gets the row indices sorted by a column. Sorting is stable, so rows with equal values remain in process ID order.
+     *
+     * @param column     The column to sort by
+     * @param descending Whether to sort by decreasing value
+     * @return The row indices in sorted order
+     */
+    public int[] sortedRows(Column column, boolean descending) {
+        int[] rows = new int[this.size];
+        for (int i = 0; i < this.size; i++) {
+            rows[i] = i;
+        }
+        IndexSort.sort(rows, this.size, keys(column), descending);
+        return rows;
+    }
+
+    /**
+     * Gets the row indices with the greatest or least values of a column, in sorted order. Ties are broken by process
+     * ID, consistent with {@link #sortedRows}, but only the selected rows are ordered.
+     *
+     * @param column     The column to sort by
+     * @param descending Whether to select the greatest values
+     * @param limit      The maximum number of rows to return
+     * @return The selected row indices in sorted order
+     */
+    public int[] topRows(Column column, boolean descending, int limit) {
+        int[] rows = new int[this.size];
+        for (int i = 0; i < this.size; i++) {
+            rows[i] = i;
+        }
+        int selected = IndexSort.select(rows, this.size, keys(column), descending, limit);
+        return selected < rows.length ? Arrays.copyOf(rows, selected) : rows;
+    }
+
+    /**
+     * Gets the indices of the rows matching a predicate, in process ID order.
+     *
+     * @param rowFilter A predicate taking a row index
+     * @return The matching row indices
+     */
+    public int[] filterRows(IntPredicate rowFilter) {
+        int[] rows = new int[this.size];
+        int count = 0;
+        for (int i = 0; i < this.size; i++) {
+            if (rowFilter.test(i)) {
+                rows[count++] = i;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * Gets the index from each process to its children, building it on first use.
+     *
+     * @return The process tree of this snapshot
+     */
+    public ProcessTree getTree() {
+        ProcessTree t = this.tree;
+        if (t == null) {
+            t = new ProcessTree(this);
+            this.tree = t;
+        }
+        return t;
+    }
+
+    /**
+     * Creates a cursor positioned before the first row.
+     *
+     * @return a new cursor
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Gets an {@link OSProcess} view of a row. Values held in the table are returned from the snapshot; other values
+     * are loaded from the operating system the first time they are requested. If the process has exited, or its ID now
+     * belongs to a process with a different start time, loaded values are empty and an update marks the view
+     * {@link State#INVALID}. After a successful {@link OSProcess#updateAttributes()}, all values are returned from the
+     * reloaded process.
+     *
+     * @param row The row index
+     * @return A view of the process
+     */
+    public OSProcess getProcess(int row) {
+        return new ProcessView(row);
+    }
+
+    /**
+     * Gets {@link OSProcess} views of the specified rows.
+     *
+     * @param rows The row indices, such as those returned by {@link #sortedRows} or {@link #filterRows}
+     * @return A list of views, in the order of the rows
+     */
+    public List<OSProcess> getProcesses(int[] rows) {
+        List<OSProcess> procs = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            procs.add(new ProcessView(row));
+        }
+        return procs;
+    }
+
+    private long[] keys(Column column) {
+        return switch (column) {
+        case PROCESS_ID -> widen(this.processIds, this.size);
+        case PARENT_PROCESS_ID -> widen(this.parentProcessIds, this.size);
+        case USER_ID -> widen(this.userIds, this.size);
+        case RESIDENT_SET_SIZE -> this.residentSetSizes;
+        case VIRTUAL_SIZE -> this.virtualSizes;
+        case USER_TIME -> this.userTimes;
+        case KERNEL_TIME -> this.kernelTimes;
+        case START_TIME -> this.startTimes;
+        case MINOR_FAULTS -> this.minorFaults;
+        case MAJOR_FAULTS -> this.majorFaults;
+        case CONTEXT_SWITCHES -> this.contextSwitches;
+        };
+    }
+
+    private static long[] widen(int[] values, int size) {
+        long[] wide = new long[size];
+        for (int i = 0; i < size; i++) {
+            wide[i] = values[i];
+        }
+        return wide;
+    }
+
+    private static int[] permute(int[] values, int[] order, int size) {
+        if (order == null) {
+            return Arrays.copyOf(values, size);
+        }
+        int[] result = new int[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = values[order[i]];
+        }
+        return result;
+    }
+
+    private static long[] permute(long[] values, int[] order, int size) {
+        if (order == null) {
+            return Arrays.copyOf(values, size);
+        }
+        long[] result = new long[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = values[order[i]];
+        }
+        return result;
+    }
+
+    /**
+     * Iterates the rows of a {@link ProcessTable} in process ID order.
+     */
+    @NotThreadSafe
+    public final class Cursor {
+
+        private int row = -1;
+
+        private Cursor() {
+        }
+
+        /**
+         * Advances to the next row.
+         *
+         * @return {@code true} if the cursor is positioned on a row, {@code false} if there are no more rows
+         */
+        public boolean next() {
+            return ++this.row < size;
+        }
+
+        /**
+         * Gets the current row index, for use with the methods of the enclosing table.
+         *
+         * @return the row index
+         */
+        public int getRow() {
+            return this.row;
+        }
+
+        /**
+         * Gets the process ID of the current row.
+         *
+         * @return the process ID
+         */
+        public int getProcessID() {
+            return processIds[this.row];
+        }
+
+        /**
+         * Gets the parent process ID of the current row.
+         *
+         * @return the parent process ID
+         */
+        public int getParentProcessID() {
+            return parentProcessIds[this.row];
+        }
+
+        /**
+         * Gets the numeric user ID of the current row.
+         *
+         * @return the numeric user ID, or -1 if not numeric
+         */
+        public int getUserID() {
+            return userIds[this.row];
+        }
+
+        /**
+         * Gets the process name of the current row.
+         *
+         * @return the process name
+         */
+        public String getName() {
+            return names[nameIds[this.row]];
+        }
+
+        /**
+         * Gets the process state of the current row.
+         *
+         * @return the process state
+         */
+        public State getState() {
+            return STATES[states[this.row]];
+        }
+
+        /**
+         * Gets the Resident Set Size of the current row.
+         *
+         * @return the Resident Set Size in bytes
+         */
+        public long getResidentSetSize() {
+            return residentSetSizes[this.row];
+        }
+
+        /**
+         * Gets the Virtual Memory Size of the current row.
+         *
+         * @return the Virtual Memory Size in bytes
+         */
+        public long getVirtualSize() {
+            return virtualSizes[this.row];
+        }
+
+        /**
+         * Gets the user time of the current row.
+         *
+         * @return the user time in milliseconds
+         */
+        public long getUserTime() {
+            return userTimes[this.row];
+        }
+
+        /**
+         * Gets the kernel time of the current row.
+         *
+         * @return the kernel time in milliseconds
+         */
+        public long getKernelTime() {
+            return kernelTimes[this.row];
+        }
+
+        /**
+         * Gets the start time of the current row.
+         *
+         * @return the start time in milliseconds since the epoch
+         */
+        public long getStartTime() {
+            return startTimes[this.row];
+        }
+
+        /**
+         * Gets the up time of the current row.
+         *
+         * @return the up time in milliseconds as of the snapshot time
+         */
+        public long getUpTime() {
+            return ProcessTable.this.getUpTime(this.row);
+        }
+
+        /**
+         * Gets the number of minor page faults of the current row.
+         *
+         * @return the number of minor page faults
+         */
+        public long getMinorFaults() {
+            return minorFaults[this.row];
+        }
+
+        /**
+         * Gets the number of major page faults of the current row.
+         *
+         * @return the number of major page faults
+         */
+        public long getMajorFaults() {
+            return majorFaults[this.row];
+        }
+
+        /**
+         * Gets the number of context switches of the current row.
+         *
+         * @return the number of context switches
+         */
+        public long getContextSwitches() {
+            return contextSwitches[this.row];
+        }
+
+        /**
+         * Gets an {@link OSProcess} view of the current row.
+         *
+         * @return A view of the process
+         * @see ProcessTable#getProcess(int)
+         */
+        public OSProcess toProcess() {
+            return new ProcessView(this.row);
+        }
+    }
+
+    /**
+     * Collects the rows of a {@link ProcessTable}.
+     */
+    @NotThreadSafe
+    public static final class Builder {
+
+        private final long timestamp = System.currentTimeMillis();
+        private final IntFunction<OSProcess> loader;
+        private final StringPool names;
+        private int size;
+        private int[] processIds;
+        private int[] parentProcessIds;
+        private int[] userIds;
+        private int[] nameIds;
+        private byte[] states;
+        private long[] residentSetSizes;
+        private long[] virtualSizes;
+        private long[] userTimes;
+        private long[] kernelTimes;
+        private long[] startTimes;
+        private long[] minorFaults;
+        private long[] majorFaults;
+        private long[] contextSwitches;
+
+        /**
+         * Creates a builder.
+         *
+         * @param expectedSize The expected number of rows
+         * @param loader       A function to load the full process for a process ID, used by the {@link OSProcess}
+         *                     views of the table. Returns null if the process no longer exists.
+         */
+        public Builder(int expectedSize, IntFunction<OSProcess> loader) {
+            this(expectedSize, loader, null);
+        }
+
+        /**
+         * Creates a builder which reuses the process name strings of a previous table.
+         *
+         * @param expectedSize The expected number of rows
+         * @param loader       A function to load the full process for a process ID, used by the {@link OSProcess}
+         *                     views of the table. Returns null if the process no longer exists.
+         * @param previous     A previously built table, or {@code null}. Names it shares with the new table are not
+         *                     created again.
+         */
+        public Builder(int expectedSize, IntFunction<OSProcess> loader, ProcessTable previous) {
+            this.loader = loader;
+            this.names = new StringPool(previous == null ? null : previous.namePool);
+            allocate(Math.max(expectedSize, 16));
+        }
+
+        /**
+         * Interns a process name from UTF-8 bytes, for use with {@link #add}.
+         *
+         * @param m      The segment holding the bytes
+         * @param offset The offset of the first byte
+         * @param length The number of bytes
+         * @return The name ID
+         */
+        public int internName(MemorySegment m, long offset, int length) {
+            return this.names.intern(m, offset, length);
+        }
+
+        /**
+         * Interns a process name, for use with {@link #add}.
+         *
+         * @param name The name
+         * @return The name ID
+         */
+        public int internName(String name) {
+            return this.names.intern(name);
+        }
+
+        /**
+         * Adds a row.
+         *
+         * @param pid             The process ID
+         * @param ppid            The parent process ID
+         * @param uid             The numeric user ID, or -1
+         * @param nameId          The process name ID, from {@link #internName}
+         * @param state           The process state
+         * @param residentSetSize The Resident Set Size in bytes
+         * @param virtualSize     The Virtual Memory Size in bytes
+         * @param userTime        The user time in milliseconds
+         * @param kernelTime      The kernel time in milliseconds
+         * @param startTime       The start time in milliseconds since the epoch
+         * @param minorFault      The number of minor faults
+         * @param majorFault      The number of major faults
+         * @param contextSwitch   The number of context switches
+         * @return this builder
+         */
+        public Builder add(int pid, int ppid, int uid, int nameId, State state, long residentSetSize,
+                long virtualSize, long userTime, long kernelTime, long startTime, long minorFault, long majorFault,
+                long contextSwitch) {
+            if (this.size == this.processIds.length) {
+                allocate(this.size * 2);
+            }
+            int i = this.size++;
+            this.processIds[i] = pid;
+            this.parentProcessIds[i] = ppid;
+            this.userIds[i] = uid;
+            this.nameIds[i] = nameId;
+            this.states[i] = (byte) state.ordinal();
+            this.residentSetSizes[i] = residentSetSize;
+            this.virtualSizes[i] = virtualSize;
+            this.userTimes[i] = userTime;
+            this.kernelTimes[i] = kernelTime;
+            this.startTimes[i] = startTime;
+            this.minorFaults[i] = minorFault;
+            this.majorFaults[i] = majorFault;
+            this.contextSwitches[i] = contextSwitch;
+            return this;
+        }
+
+        /**
+         * Adds a row from the current values of a process.
+         *
+         * @param p The process
+         * @return this builder
+         */
+        public Builder add(OSProcess p) {
+            return add(p.getProcessID(), p.getParentProcessID(), ParseUtil.parseIntOrDefault(p.getUserID(), -1),
+                    internName(p.getName()), p.getState(), p.getResidentSetSize(), p.getVirtualSize(),
+                    p.getUserTime(), p.getKernelTime(), p.getStartTime(), p.getMinorFaults(), p.getMajorFaults(),
+                    p.getContextSwitches());
+        }
+
+        /**
+         * Builds the table, ordering the rows by process ID.
+         *
+         * @return A new table
+         */
+        public ProcessTable build() {
+            int[] order = null;
+            for (int i = 1; i < this.size; i++) {
+                if (this.processIds[i] < this.processIds[i - 1]) {
+                    order = new int[this.size];
+                    long[] keys = new long[this.size];
+                    for (int j = 0; j < this.size; j++) {
+                        order[j] = j;
+                        keys[j] = this.processIds[j];
+                    }
+                    IndexSort.sort(order, this.size, keys, false);
+                    break;
+                }
+            }
+            return new ProcessTable(this, order);
+        }
+
+        private void allocate(int capacity) {
+            this.processIds = this.processIds == null ? new int[capacity] : Arrays.copyOf(this.processIds, capacity);
+            this.parentProcessIds = this.parentProcessIds == null ? new int[capacity]
+                    : Arrays.copyOf(this.parentProcessIds, capacity);
+            this.userIds = this.userIds == null ? new int[capacity] : Arrays.copyOf(this.userIds, capacity);
+            this.nameIds = this.nameIds == null ? new int[capacity] : Arrays.copyOf(this.nameIds, capacity);
+            this.states = this.states == null ? new byte[capacity] : Arrays.copyOf(this.states, capacity);
+            this.residentSetSizes = grow(this.residentSetSizes, capacity);
+            this.virtualSizes = grow(this.virtualSizes, capacity);
+            this.userTimes = grow(this.userTimes, capacity);
+            this.kernelTimes = grow(this.kernelTimes, capacity);
+            this.startTimes = grow(this.startTimes, capacity);
+            this.minorFaults = grow(this.minorFaults, capacity);
+            this.majorFaults = grow(this.majorFaults, capacity);
+            this.contextSwitches = grow(this.contextSwitches, capacity);
+        }
+
+        private static long[] grow(long[] values, int capacity) {
+            return values == null ? new long[capacity] : Arrays.copyOf(values, capacity);
+        }
+    }
+
+    /**
+     * An {@link OSProcess} backed by a row of the table, loading other values on demand.
+     */
+    @ThreadSafe
+    private final class ProcessView implements OSProcess {
+
+        private final int row;
+        // The process loaded on first access to a field not held in the table, or null if it has exited
+        private volatile OSProcess detail;
+        private volatile boolean detailLoaded;
+        private volatile OSProcess updated;
+        private volatile boolean invalid;
+
+        private ProcessView(int row) {
+            this.row = row;
+        }
+
+        private OSProcess load() {
+            OSProcess p = loader.apply(processIds[this.row]);
+            // A different start time means the process exited and its ID was reused
+            return p != null && p.getStartTime() == startTimes[this.row] ? p : null;
+        }
+
+        private OSProcess detail() {
+            OSProcess p = this.updated;
+            if (p != null) {
+                return p;
+            }
+            if (!this.detailLoaded) {
+                // Concurrent first accesses may each load the process, which is equivalent
+                this.detail = load();
+                this.detailLoaded = true;
+            }
+            return this.detail;
+        }
+
+        @Override
+        public String getName() {
+            OSProcess p = this.updated;
+            return p == null ? names[nameIds[this.row]] : p.getName();
+        }
+
+        @Override
+        public String getPath() {
+            OSProcess p = detail();
+            return p == null ? "" : p.getPath();
+        }
+
+        @Override
+        public String getCommandLine() {
+            OSProcess p = detail();
+            return p == null ? "" : p.getCommandLine();
+        }
+
+        @Override
+        public List<String> getArguments() {
+            OSProcess p = detail();
+            return p == null ? Collections.emptyList() : p.getArguments();
+        }
+
+        @Override
+        public Map<String, String> getEnvironmentVariables() {
+            OSProcess p = detail();
+            return p == null ? Collections.emptyMap() : p.getEnvironmentVariables();
+        }
+
+        @Override
+        public String getCurrentWorkingDirectory() {
+            OSProcess p = detail();
+            return p == null ? "" : p.getCurrentWorkingDirectory();
+        }
+
+        @Override
+        public String getUser() {
+            OSProcess p = detail();
+            return p == null ? "" : p.getUser();
+        }
+
+        @Override
+        public String getUserID() {
+            OSProcess p = this.updated;
+            if (p != null) {
+                return p.getUserID();
+            }
+            int uid = userIds[this.row];
+            return uid < 0 ? "" : Integer.toString(uid);
+        }
+
+        @Override
+        public String getGroup() {
+            OSProcess p = detail();
+            return p == null ? "" : p.getGroup();
+        }
+
+        @Override
+        public String getGroupID() {
+            OSProcess p = detail();
+            return p == null ? "" : p.getGroupID();
+        }
+
+        @Override
+        public State getState() {
+            if (this.invalid) {
+                return State.INVALID;
+            }
+            OSProcess p = this.updated;
+            return p == null ? STATES[states[this.row]] : p.getState();
+        }
+
+        @Override
+        public int getProcessID() {
+            return processIds[this.row];
+        }
+
+        @Override
+        public int getParentProcessID() {
+            OSProcess p = this.updated;
+            return p == null ? parentProcessIds[this.row] : p.getParentProcessID();
+        }
+
+        @Override
+        public int getThreadCount() {
+            OSProcess p = detail();
+            return p == null ? 0 : p.getThreadCount();
+        }
+
+        @Override
+        public int getPriority() {
+            OSProcess p = detail();
+            return p == null ? 0 : p.getPriority();
+        }
+
+        @Override
+        public long getVirtualSize() {
+            OSProcess p = this.updated;
+            return p == null ? virtualSizes[this.row] : p.getVirtualSize();
+        }
+
+        @Override
+        public long getResidentSetSize() {
+            OSProcess p = this.updated;
+            return p == null ? residentSetSizes[this.row] : p.getResidentSetSize();
+        }
+
+        @Override
+        public long getKernelTime() {
+            OSProcess p = this.updated;
+            return p == null ? kernelTimes[this.row] : p.getKernelTime();
+        }
+
+        @Override
+        public long getUserTime() {
+            OSProcess p = this.updated;
+            return p == null ? userTimes[this.row] : p.getUserTime();
+        }
+
+        @Override
+        public long getUpTime() {
+            OSProcess p = this.updated;
+            return p == null ? ProcessTable.this.getUpTime(this.row) : p.getUpTime();
+        }
+
+        @Override
+        public long getStartTime() {
+            OSProcess p = this.updated;
+            return p == null ? startTimes[this.row] : p.getStartTime();
+        }
+
+        @Override
+        public long getBytesRead() {
+            OSProcess p = detail();
+            return p == null ? 0L : p.getBytesRead();
+        }
+
+        @Override
+        public long getBytesWritten() {
+            OSProcess p = detail();
+            return p == null ? 0L : p.getBytesWritten();
+        }
+
+        @Override
+        public long getOpenFiles() {
+            OSProcess p = detail();
+            return p == null ? -1L : p.getOpenFiles();
+        }
+
+        @Override
+        public double getProcessCpuLoadCumulative() {
+            long upTime = getUpTime();
+            return upTime > 0L ? (getKernelTime() + getUserTime()) / (double) upTime : 0d;
+        }
+
+        @Override
+        public double getProcessCpuLoadBetweenTicks(OSProcess priorSnapshot) {
+            if (priorSnapshot != null && getProcessID() == priorSnapshot.getProcessID()
+                    && getUpTime() > priorSnapshot.getUpTime()) {
+                return (getUserTime() - priorSnapshot.getUserTime() + getKernelTime() - priorSnapshot.getKernelTime())
+                        / (double) (getUpTime() - priorSnapshot.getUpTime());
+            }
+            return getProcessCpuLoadCumulative();
+        }
+
+        @Override
+        public int getBitness() {
+            OSProcess p = detail();
+            return p == null ? 0 : p.getBitness();
+        }
+
+        @Override
+        public long getAffinityMask() {
+            OSProcess p = detail();
+            return p == null ? 0L : p.getAffinityMask();
+        }
+
+        @Override
+        public boolean updateAttributes() {
+            OSProcess p = load();
+            if (p == null) {
+                this.invalid = true;
+                return false;
+            }
+            this.updated = p;
+            this.invalid = false;
+            return true;
+        }
+
+        @Override
+        public List<OSThread> getThreadDetails() {
+            OSProcess p = detail();
+            return p == null ? Collections.emptyList() : p.getThreadDetails();
+        }
+
+        @Override
+        public List<String> queryControlGroups() {
+            OSProcess p = detail();
+            return p == null ? Collections.emptyList() : p.queryControlGroups();
+        }
+
+        @Override
+        public long getMinorFaults() {
+            OSProcess p = this.updated;
+            return p == null ? minorFaults[this.row] : p.getMinorFaults();
+        }
+
+        @Override
+        public long getMajorFaults() {
+            OSProcess p = this.updated;
+            return p == null ? majorFaults[this.row] : p.getMajorFaults();
+        }
+
+        @Override
+        public long getContextSwitches() {
+            OSProcess p = this.updated;
+            return p == null ? contextSwitches[this.row] : p.getContextSwitches();
+        }
+
+        @Override
+        public String toString() {
+            return "OSProcess@" + Integer.toHexString(hashCode()) + "[processID=" + getProcessID() + ", name="
+                    + getName() + ']';
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.software.os;
+
+import java.util.Arrays;
+
+import ooo.oshi.annotation.concurrent.Immutable;
+
+/**
+ * An index from each process to its children in a {@link ProcessTable}, held in compressed sparse row form: the
+ * children of the process in row {@code r} are the rows {@code children[offsets[r]]} to
+ * {@code children[offsets[r + 1] - 1]}, in process ID order. The index is built with one pass over the table and
+ * shared by all queries on the same snapshot.
+ * <p>
+ * A process which is its own parent, or whose parent is not in the table, is a root.
+ */
+@Immutable
+public final class ProcessTree {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final ProcessTable table;
+    private final int[] offsets;
+    private final int[] children;
+
+    ProcessTree(ProcessTable table) {
+        this.table = table;
+        int size = table.size();
+        int[] parentRows = new int[size];
+        int[] counts = new int[size + 1];
+        for (int row = 0; row < size; row++) {
+            int ppid = table.getParentProcessID(row);
+            int parentRow = ppid == table.getProcessID(row) ? -1 : table.indexOf(ppid);
+            parentRows[row] = parentRow;
+            if (parentRow >= 0) {
+                counts[parentRow + 1]++;
+            }
+        }
+        for (int row = 0; row < size; row++) {
+            counts[row + 1] += counts[row];
+        }
+        this.offsets = counts.clone();
+        this.children = new int[counts[size]];
+        // Rows are visited in process ID order, so each process's children are too
+        for (int row = 0; row < size; row++) {
+            int parentRow = parentRows[row];
+            if (parentRow >= 0) {
+                this.children[counts[parentRow]++] = row;
+            }
+        }
+    }
+
+    /**
+     * Gets the table this index was built from.
+     *
+     * @return The process table
+     */
+    public ProcessTable getTable() {
+        return this.table;
+    }
+
+    /**
+     * Gets the number of children of a process.
+     *
+     * @param pid The process ID
+     * @return The number of direct children, or 0 if the process is not in the table
+     */
+    public int getChildCount(int pid) {
+        int row = this.table.indexOf(pid);
+        return row < 0 ? 0 : this.offsets[row + 1] - this.offsets[row];
+    }
+
+    /**
+     * Gets the rows of the direct children of a process.
+     *
+     * @param pid The parent process ID
+     * @return The row indices of the children, in process ID order
+     */
+    public int[] childRows(int pid) {
+        int row = this.table.indexOf(pid);
+        return row < 0 ? EMPTY : Arrays.copyOfRange(this.children, this.offsets[row], this.offsets[row + 1]);
+    }
+
+    /**
+     * Gets the rows of all descendants of a process: its children, their children, and so on.
+     *
+     * @param pid The ancestor process ID
+     * @return The row indices of the descendants, in breadth-first order
+     */
+    public int[] descendantRows(int pid) {
+        int root = this.table.indexOf(pid);
+        if (root < 0) {
+            return EMPTY;
+        }
+        int[] rows = new int[Math.max(this.offsets[root + 1] - this.offsets[root], 16)];
+        int count = 0;
+        int next = root;
+        int head = 0;
+        while (true) {
+            for (int i = this.offsets[next]; i < this.offsets[next + 1]; i++) {
+                int child = this.children[i];
+                // A parent loop can only be reached through the root, as every other process has one parent
+                if (child != root) {
+                    if (count == rows.length) {
+                        rows = Arrays.copyOf(rows, Math.min(rows.length * 2, this.table.size()));
+                    }
+                    rows[count++] = child;
+                }
+            }
+            if (head == count) {
+                break;
+            }
+            next = rows[head++];
+        }
+        return count < rows.length ? Arrays.copyOf(rows, count) : rows;
+    }
+}
@@ -4,11 +4,6 @@
  */
 package ooo.oshi.software.os.common;
 
-import static ooo.oshi.util.Memoizer.defaultExpiration;
-import static ooo.oshi.util.Memoizer.memoize;
-
-import java.util.function.Supplier;
-
 import ooo.oshi.annotation.concurrent.ThreadSafe;
 import ooo.oshi.software.os.OSProcess;
 
@@ -20,8 +15,6 @@ import ooo.oshi.software.os.OSProcess;
 @ThreadSafe
 public abstract class AbstractOSProcess implements OSProcess {
 
-    private final Supplier<Double> cumulativeCpuLoad = memoize(this::queryCumulativeCpuLoad, defaultExpiration());
-
     private int processID;
 
     protected AbstractOSProcess(int pid) {
@@ -35,10 +28,7 @@ public abstract class AbstractOSProcess implements OSProcess {
 
     @Override
     public double getProcessCpuLoadCumulative() {
-        return cumulativeCpuLoad.get();
-    }
-
-    private double queryCumulativeCpuLoad() {
+        // Computed from fields set by the last update, so there is nothing to cache
         return getUpTime() > 0d ? (getKernelTime() + getUserTime()) / (double) getUpTime() : 0d;
     }
 
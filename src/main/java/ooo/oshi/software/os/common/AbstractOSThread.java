@@ -0,0 +1,51 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.software.os.common;
+
+import ooo.oshi.annotation.concurrent.ThreadSafe;
+import ooo.oshi.software.os.OSThread;
+
+/**
+ * Common methods for OSThread implementation
+ */
+@ThreadSafe
+public abstract class AbstractOSThread implements OSThread {
+
+    private final int owningProcessId;
+
+    protected AbstractOSThread(int processId) {
+        this.owningProcessId = processId;
+    }
+
+    @Override
+    public int getOwningProcessId() {
+        return this.owningProcessId;
+    }
+
+    @Override
+    public double getThreadCpuLoadCumulative() {
+        return getUpTime() > 0d ? (getKernelTime() + getUserTime()) / (double) getUpTime() : 0d;
+    }
+
+    @Override
+    public double getThreadCpuLoadBetweenTicks(OSThread priorSnapshot) {
+        if (priorSnapshot != null && this.owningProcessId == priorSnapshot.getOwningProcessId()
+                && getThreadId() == priorSnapshot.getThreadId() && getUpTime() > priorSnapshot.getUpTime()) {
+            return (getUserTime() - priorSnapshot.getUserTime() + getKernelTime() - priorSnapshot.getKernelTime())
+                    / (double) (getUpTime() - priorSnapshot.getUpTime());
+        }
+        return getThreadCpuLoadCumulative();
+    }
+
+    @Override
+    public String toString() {
+        return "OSThread [threadId=" + getThreadId() + ", owningProcessId=" + getOwningProcessId() + ", name="
+                + getName() + ", state=" + getState() + ", kernelTime=" + getKernelTime() + ", userTime="
+                + getUserTime() + ", upTime=" + getUpTime() + ", startTime=" + getStartTime()
+                + ", startMemoryAddress=0x" + String.format("%x", getStartMemoryAddress()) + ", contextSwitches="
+                + getContextSwitches() + ", minorFaults=" + getMinorFaults() + ", majorFaults=" + getMajorFaults()
+                + "]";
+    }
+}
@@ -6,24 +6,171 @@ package ooo.oshi.software.os.common;
 
 import static ooo.oshi.software.os.OperatingSystem.ProcessFiltering.ALL_PROCESSES;
 import static ooo.oshi.software.os.OperatingSystem.ProcessSorting.NO_SORTING;
+import static ooo.oshi.util.Memoizer.defaultExpiration;
+import static ooo.oshi.util.Memoizer.memoize;
 
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 import ooo.oshi.software.os.OSProcess;
 import ooo.oshi.software.os.OperatingSystem;
+import ooo.oshi.software.os.ProcessEventListener;
+import ooo.oshi.software.os.ProcessEventSubscription;
+import ooo.oshi.software.os.ProcessField;
+import ooo.oshi.software.os.ProcessFilter;
+import ooo.oshi.software.os.ProcessTable;
+import ooo.oshi.software.os.ProcessTree;
+import ooo.oshi.util.IndexSort;
+import ooo.oshi.util.KeyComparator;
 
 public abstract class AbstractOperatingSystem implements OperatingSystem {
 
+    private final Supplier<ProcessTable> processSnapshot = memoize("OperatingSystem.getProcessTable",
+            this::nextProcessSnapshot, defaultExpiration());
+
+    // The last snapshot, whose name strings the next one reuses
+    private volatile ProcessTable lastSnapshot;
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * A {@link ProcessFilter} is evaluated with {@link #queryProcesses(ProcessFilter, EnumSet)}, allowing its
+     * criteria to be tested before all attributes are read.
+     */
     @Override
     public List<OSProcess> getProcesses(Predicate<OSProcess> filter, Comparator<OSProcess> sort, int limit) {
-        return queryAllProcesses().stream().filter(filter == null ? ALL_PROCESSES : filter)
-                .sorted(sort == null ? NO_SORTING : sort).limit(limit > 0 ? limit : Long.MAX_VALUE)
-                .collect(Collectors.toList());
+        if (filter instanceof ProcessFilter pf) {
+            return selectProcesses(queryProcesses(pf, null), null, sort, limit);
+        }
+        return selectProcesses(queryAllProcesses(), filter, sort, limit);
+    }
+
+    @Override
+    public List<OSProcess> getProcesses(EnumSet<ProcessField> fields, Predicate<OSProcess> filter,
+            Comparator<OSProcess> sort, int limit) {
+        if (filter instanceof ProcessFilter pf) {
+            return selectProcesses(queryProcesses(pf, fields), null, sort, limit);
+        }
+        return selectProcesses(queryAllProcesses(fields), filter, sort, limit);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Children are found in a {@link ProcessTable} snapshot, which with its {@link ProcessTree} index is reused by all
+     * child and descendant queries until it expires.
+     */
+    @Override
+    public List<OSProcess> getChildProcesses(int parentPid, Predicate<OSProcess> filter, Comparator<OSProcess> sort,
+            int limit) {
+        ProcessTable table = this.processSnapshot.get();
+        return selectProcesses(table.getProcesses(table.getTree().childRows(parentPid)), filter, sort, limit);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Descendants are found in a {@link ProcessTable} snapshot, which with its {@link ProcessTree} index is reused by
+     * all child and descendant queries until it expires.
+     */
+    @Override
+    public List<OSProcess> getDescendantProcesses(int parentPid, Predicate<OSProcess> filter,
+            Comparator<OSProcess> sort, int limit) {
+        ProcessTable table = this.processSnapshot.get();
+        return selectProcesses(table.getProcesses(table.getTree().descendantRows(parentPid)), filter, sort, limit);
+    }
+
+    private ProcessTable nextProcessSnapshot() {
+        ProcessTable table = getProcessTable(this.lastSnapshot);
+        this.lastSnapshot = table;
+        return table;
     }
 
     protected abstract List<OSProcess> queryAllProcesses();
 
+    /**
+     * Gets all processes, reading at least the requested fields. The default implementation reads all fields.
+     *
+     * @param fields The fields to read
+     * @return The valid processes
+     */
+    protected List<OSProcess> queryAllProcesses(EnumSet<ProcessField> fields) {
+        return queryAllProcesses();
+    }
+
+    /**
+     * Gets the processes matching a filter. The default implementation tests the filter on all processes; operating
+     * systems may instead test each criterion as soon as its value has been read, and skip reading the remaining
+     * attributes of rejected processes.
+     *
+     * @param filter The filter
+     * @param fields The fields to read for matching processes, or {@code null} for the same fields as
+     *               {@link #queryAllProcesses()}
+     * @return The valid processes matching the filter
+     */
+    protected List<OSProcess> queryProcesses(ProcessFilter filter, EnumSet<ProcessField> fields) {
+        List<OSProcess> procs = fields == null ? queryAllProcesses() : queryAllProcesses(fields);
+        List<OSProcess> matches = new ArrayList<>();
+        for (OSProcess p : procs) {
+            if (filter.test(p)) {
+                matches.add(p);
+            }
+        }
+        return matches;
+    }
+
+    @Override
+    public ProcessEventSubscription subscribeProcessEvents(ProcessEventListener listener) {
+        return new PollingProcessEventSubscription(this, listener,
+                PollingProcessEventSubscription.DEFAULT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Filters, sorts, and limits a list of processes. When a limit is given, only the first {@code limit} processes
+     * are ordered, using a bounded heap. When the comparator is a {@link KeyComparator}, each process's sort key is
+     * read once into a primitive array rather than on every comparison.
+     *
+     * @param procs  The processes
+     * @param filter An optional filter, may be {@code null}
+     * @param sort   An optional sort order, may be {@code null}
+     * @param limit  Max number of results to return, or 0 to return all results
+     * @return A new list of the selected processes, in sorted order
+     */
+    protected static List<OSProcess> selectProcesses(List<OSProcess> procs, Predicate<OSProcess> filter,
+            Comparator<OSProcess> sort, int limit) {
+        Predicate<OSProcess> f = filter == null ? ALL_PROCESSES : filter;
+        List<OSProcess> matches = new ArrayList<>(procs.size());
+        for (OSProcess p : procs) {
+            if (f.test(p)) {
+                matches.add(p);
+            }
+        }
+        int count = matches.size();
+        if (sort == null || sort == NO_SORTING) {
+            return limit > 0 && limit < count ? new ArrayList<>(matches.subList(0, limit)) : matches;
+        }
+        int[] index = new int[count];
+        for (int i = 0; i < count; i++) {
+            index[i] = i;
+        }
+        int selected;
+        if (sort instanceof KeyComparator<OSProcess> keyed) {
+            long[] keys = new long[count];
+            for (int i = 0; i < count; i++) {
+                keys[i] = keyed.key(matches.get(i));
+            }
+            selected = IndexSort.select(index, count, keys, keyed.isDescending(), limit);
+        } else {
+            selected = IndexSort.select(index, count, matches, sort, limit);
+        }
+        List<OSProcess> result = new ArrayList<>(selected);
+        for (int i = 0; i < selected; i++) {
+            result.add(matches.get(index[i]));
+        }
+        return result;
+    }
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.software.os.common;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ooo.oshi.annotation.concurrent.ThreadSafe;
+import ooo.oshi.software.os.OperatingSystem;
+import ooo.oshi.software.os.ProcessEvent;
+import ooo.oshi.software.os.ProcessEvent.Type;
+import ooo.oshi.software.os.ProcessEventListener;
+import ooo.oshi.software.os.ProcessEventSubscription;
+import ooo.oshi.software.os.ProcessTable;
+
+/**
+ * Detects process creation and termination by periodically reading a {@link ProcessTable} and comparing it with the
+ * previous one. Processes are identified by process ID and start time, as in
+ * {@link ooo.oshi.software.os.ProcessRefresher}, so that a process ID reused between polls is reported as the exit of
+ * the old process and the fork of the new one.
+ */
+@ThreadSafe
+public final class PollingProcessEventSubscription implements ProcessEventSubscription {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PollingProcessEventSubscription.class);
+
+    /**
+     * The default interval between polls, in milliseconds.
+     */
+    public static final long DEFAULT_INTERVAL_MILLIS = 1000L;
+
+    private final OperatingSystem os;
+    private final ProcessEventListener listener;
+    private final ScheduledExecutorService executor;
+
+    // Only accessed from the single executor thread
+    private ProcessTable previous;
+
+    /**
+     * Starts polling for process events.
+     *
+     * @param os             The operating system to query
+     * @param listener       The listener to receive events
+     * @param intervalMillis The interval between polls, in milliseconds
+     */
+    public PollingProcessEventSubscription(OperatingSystem os, ProcessEventListener listener, long intervalMillis) {
+        this.os = os;
+        this.listener = listener;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "oshi-process-events");
+            t.setDaemon(true);
+            return t;
+        });
+        this.executor.scheduleWithFixedDelay(this::poll, 0L, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public boolean isEventDriven() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+        this.executor.shutdownNow();
+    }
+
+    private void poll() {
+        try {
+            ProcessTable prior = this.previous;
+            ProcessTable table = os.getProcessTable(prior);
+            this.previous = table;
+            // The first poll establishes the baseline
+            if (prior == null) {
+                return;
+            }
+            // Rows of both tables are in process ID order
+            long now = table.getTimestamp();
+            int m = prior.size();
+            int n = table.size();
+            int i = 0;
+            int j = 0;
+            while (i < m || j < n) {
+                if (j >= n || i < m && prior.getProcessID(i) < table.getProcessID(j)) {
+                    deliver(new ProcessEvent(Type.EXIT, prior.getProcessID(i++), -1, -1, -1, "", now));
+                } else if (i >= m || table.getProcessID(j) < prior.getProcessID(i)) {
+                    deliverFork(table, j++, now);
+                } else {
+                    if (table.getStartTime(j) != prior.getStartTime(i)) {
+                        // The process ID was reused
+                        deliver(new ProcessEvent(Type.EXIT, prior.getProcessID(i), -1, -1, -1, "", now));
+                        deliverFork(table, j, now);
+                    }
+                    i++;
+                    j++;
+                }
+            }
+        } catch (RuntimeException e) {
+            // Keep polling; an exception would cancel the scheduled task
+            LOG.warn("Failed to poll for process events: {}", e.getMessage());
+        }
+    }
+
+    private void deliverFork(ProcessTable table, int row, long now) {
+        deliver(new ProcessEvent(Type.FORK, table.getProcessID(row), table.getParentProcessID(row), -1, -1, "", now));
+    }
+
+    private void deliver(ProcessEvent event) {
+        try {
+            listener.onEvent(event);
+        } catch (RuntimeException e) {
+            LOG.warn("Process event listener failed on {}", event, e);
+        }
+    }
+}
@@ -0,0 +1,685 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.software.os.linux;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.lang.foreign.ValueLayout.JAVA_LONG;
+import static ooo.oshi.foreign.linux.LinuxLibc.sched_getaffinity;
+import static ooo.oshi.software.os.OSProcess.State.INVALID;
+import static ooo.oshi.software.os.OSProcess.State.OTHER;
+import static ooo.oshi.software.os.OSProcess.State.RUNNING;
+import static ooo.oshi.software.os.OSProcess.State.SLEEPING;
+import static ooo.oshi.software.os.OSProcess.State.STOPPED;
+import static ooo.oshi.software.os.OSProcess.State.WAITING;
+import static ooo.oshi.software.os.OSProcess.State.ZOMBIE;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.MemorySession;
+import java.lang.foreign.SegmentAllocator;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import ooo.oshi.annotation.concurrent.GuardedBy;
+import ooo.oshi.annotation.concurrent.ThreadSafe;
+import ooo.oshi.foreign.linux.LinuxLibc;
+import ooo.oshi.software.os.OSThread;
+import ooo.oshi.software.os.ProcessField;
+import ooo.oshi.software.os.common.AbstractOSProcess;
+import ooo.oshi.util.ParseUtil;
+import ooo.oshi.util.platform.linux.PidFd;
+import ooo.oshi.util.platform.linux.ProcFileCache;
+import ooo.oshi.util.platform.linux.ProcFileCache.PidFile;
+import ooo.oshi.util.platform.linux.ProcPidDir;
+import ooo.oshi.util.platform.linux.ProcStatParser;
+import ooo.oshi.util.platform.linux.ProcUtil;
+import ooo.oshi.util.platform.linux.UserGroupNames;
+
+/**
+ * OSProcess implementation
+ */
+@ThreadSafe
+public class LinuxOSProcess extends AbstractOSProcess {
+
+    // ELF header: 0x7f 'E' 'L' 'F' followed by the class, 1 = 32-bit, 2 = 64-bit
+    private static final int ELF_CLASS_OFFSET = 4;
+
+    // Room for 1024 processors, the size of glibc's cpu_set_t
+    private static final long CPU_SET_SIZE = 128L;
+
+    // Large enough for all fields of /proc/[pid]/stat
+    static final int STAT_BUFFER_SIZE = 2048;
+
+    private static final ThreadLocal<MemorySegment> STAT_BUFFER = ThreadLocal
+            .withInitial(() -> MemorySegment.allocateNative(STAT_BUFFER_SIZE, MemorySession.openImplicit()));
+    private static final ThreadLocal<MemorySegment> STATUS_BUFFER = ThreadLocal.withInitial(
+            () -> MemorySegment.allocateNative(LinuxOperatingSystem.STATUS_BUFFER_SIZE, MemorySession.openImplicit()));
+    private static final ThreadLocal<long[]> STAT_FIELDS = ThreadLocal
+            .withInitial(() -> new long[ProcStatParser.MIN_FIELDS]);
+
+    private static final ThreadLocal<MemorySegment> ELF_HEADER = ThreadLocal
+            .withInitial(() -> MemorySegment.allocateNative(ELF_CLASS_OFFSET + 1, MemorySession.openImplicit()));
+
+    private static final byte[] GID_KEY = "Gid:".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] READ_BYTES_KEY = "read_bytes:".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] WRITE_BYTES_KEY = "write_bytes:".getBytes(StandardCharsets.US_ASCII);
+
+    // Field groups, each read from its own /proc/[pid] sources on first access and then refreshed together. Fields
+    // from stat are always read, except the name which is only converted to a String once accessed.
+    private static final int STATUS = 1;
+    private static final int IO = 1 << 1;
+    private static final int CMDLINE = 1 << 2;
+    private static final int ENVIRON = 1 << 3;
+    private static final int PATHS = 1 << 4;
+    private static final int FD = 1 << 5;
+    private static final int BITNESS = 1 << 6;
+    private static final int COMM = 1 << 7;
+
+    // The groups which have been read, written after their fields
+    private volatile int loaded;
+
+    private String commandLine = "";
+    private List<String> arguments = Collections.emptyList();
+    private Map<String, String> environmentVariables = Collections.emptyMap();
+    private String name = "";
+    private String path = "";
+    private String currentWorkingDirectory = "";
+    private String user = "";
+    private String userID = "";
+    private String group = "";
+    private String groupID = "";
+    private State state = INVALID;
+    private int parentProcessID;
+    private int threadCount;
+    private int priority;
+    private long virtualSize;
+    private long residentSetSize;
+    private long kernelTime;
+    private long userTime;
+    private long startTime;
+    private long upTime;
+    private long bytesRead;
+    private long bytesWritten;
+    private long openFiles;
+    private int bitness;
+    private long minorFaults;
+    private long majorFaults;
+    private long contextSwitches;
+
+    private volatile PidFd pidFd;
+
+    public LinuxOSProcess(int pid) {
+        super(pid);
+        updateAttributes();
+    }
+
+    /**
+     * Creates a process, reading the requested fields. Other fields are read on first access.
+     *
+     * @param pid    The process ID
+     * @param fields The fields to read now
+     */
+    public LinuxOSProcess(int pid, EnumSet<ProcessField> fields) {
+        super(pid);
+        updateAttributes(fields);
+    }
+
+    @Override
+    public String getName() {
+        load(COMM);
+        return this.name;
+    }
+
+    @Override
+    public String getPath() {
+        load(PATHS);
+        return this.path;
+    }
+
+    @Override
+    public String getCommandLine() {
+        load(CMDLINE);
+        return this.commandLine;
+    }
+
+    @Override
+    public List<String> getArguments() {
+        load(CMDLINE);
+        return this.arguments;
+    }
+
+    @Override
+    public Map<String, String> getEnvironmentVariables() {
+        load(ENVIRON);
+        return this.environmentVariables;
+    }
+
+    @Override
+    public String getCurrentWorkingDirectory() {
+        load(PATHS);
+        return this.currentWorkingDirectory;
+    }
+
+    @Override
+    public String getUser() {
+        load(STATUS);
+        return this.user;
+    }
+
+    @Override
+    public String getUserID() {
+        load(STATUS);
+        return this.userID;
+    }
+
+    @Override
+    public String getGroup() {
+        load(STATUS);
+        return this.group;
+    }
+
+    @Override
+    public String getGroupID() {
+        load(STATUS);
+        return this.groupID;
+    }
+
+    @Override
+    public State getState() {
+        return this.state;
+    }
+
+    @Override
+    public int getParentProcessID() {
+        return this.parentProcessID;
+    }
+
+    @Override
+    public int getThreadCount() {
+        return this.threadCount;
+    }
+
+    @Override
+    public List<OSThread> getThreadDetails() {
+        return LinuxOSThread.queryThreads(new int[] { getProcessID() });
+    }
+
+    @Override
+    public int getPriority() {
+        return this.priority;
+    }
+
+    @Override
+    public long getVirtualSize() {
+        return this.virtualSize;
+    }
+
+    @Override
+    public long getResidentSetSize() {
+        return this.residentSetSize;
+    }
+
+    @Override
+    public long getKernelTime() {
+        return this.kernelTime;
+    }
+
+    @Override
+    public long getUserTime() {
+        return this.userTime;
+    }
+
+    @Override
+    public long getUpTime() {
+        return this.upTime;
+    }
+
+    @Override
+    public long getStartTime() {
+        return this.startTime;
+    }
+
+    @Override
+    public long getBytesRead() {
+        load(IO);
+        return this.bytesRead;
+    }
+
+    @Override
+    public long getBytesWritten() {
+        load(IO);
+        return this.bytesWritten;
+    }
+
+    @Override
+    public long getOpenFiles() {
+        load(FD);
+        return this.openFiles;
+    }
+
+    @Override
+    public int getBitness() {
+        load(BITNESS);
+        return this.bitness;
+    }
+
+    @Override
+    public long getAffinityMask() {
+        MemorySegment mask = SegmentAllocator.implicitAllocator().allocate(CPU_SET_SIZE);
+        if (0 == sched_getaffinity(getProcessID(), CPU_SET_SIZE, mask)) {
+            return mask.get(JAVA_LONG, 0);
+        }
+        return 0L;
+    }
+
+    @Override
+    public long getMinorFaults() {
+        return this.minorFaults;
+    }
+
+    @Override
+    public long getMajorFaults() {
+        return this.majorFaults;
+    }
+
+    @Override
+    public long getContextSwitches() {
+        load(STATUS);
+        return this.contextSwitches;
+    }
+
+    /**
+     * Pins this object to the process it currently describes with a process file descriptor. Once pinned, updates
+     * fail and the state becomes {@link State#INVALID} as soon as the process exits, rather than reading a new process
+     * which reused its ID. Liveness is then checked with {@link #isAlive()} without reading {@code /proc}.
+     * <p>
+     * Requires Linux 5.3 or later. The descriptor is released by {@link #closePidFd()}, or when this object is garbage
+     * collected.
+     *
+     * @return {@code true} if the descriptor is open and refers to the process this object describes; {@code false}
+     *         if the process has exited or process file descriptors are not supported
+     */
+    public synchronized boolean openPidFd() {
+        if (this.pidFd == null && !this.state.equals(INVALID)) {
+            this.pidFd = openPidFd(getProcessID(), this.startTime);
+        }
+        return this.pidFd != null;
+    }
+
+    /**
+     * Releases the process file descriptor opened by {@link #openPidFd()}, if any.
+     */
+    public synchronized void closePidFd() {
+        PidFd fd = this.pidFd;
+        if (fd != null) {
+            this.pidFd = null;
+            fd.close();
+        }
+    }
+
+    /**
+     * Checks whether the process this object describes is still running. If a process file descriptor is open, this
+     * is a single non-blocking {@code poll}; otherwise the start time in {@code /proc/[pid]/stat} is compared.
+     *
+     * @return {@code true} if the process is running, or is a zombie which has not yet been reaped
+     */
+    public boolean isAlive() {
+        PidFd fd = this.pidFd;
+        if (fd != null) {
+            return fd.isAlive();
+        }
+        return !this.state.equals(INVALID) && queryStartTime(getProcessID()) == this.startTime;
+    }
+
+    /**
+     * Opens a process file descriptor for a process, verifying that the process holding the ID is the expected one.
+     *
+     * @param pid       The process ID
+     * @param startTime The expected start time, as returned by {@link #getStartTime()}
+     * @return The descriptor, or {@code null} if the process has exited or descriptors are not supported
+     */
+    static PidFd openPidFd(int pid, long startTime) {
+        PidFd fd = PidFd.open(pid);
+        if (fd == null) {
+            return null;
+        }
+        // The ID may have been reused before the descriptor was opened. If the process holding it after the open has
+        // the expected start time and the descriptor's process is still running, they are the same process.
+        if (queryStartTime(pid) != startTime || !fd.isAlive()) {
+            fd.close();
+            return null;
+        }
+        return fd;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * On Linux, the fields are read in groups, each from its own {@code /proc/[pid]} files: {@code stat}, with the
+     * name taken from its command name only once accessed; the user, group and context switches from {@code status};
+     * {@code io}; {@code cmdline}; {@code environ}; the path and working directory from the {@code exe} and {@code cwd}
+     * links; the bitness from the {@code exe} file's header; and the {@code fd} directory. This method reads
+     * {@code stat} and the groups which have been accessed; other groups are read when first accessed.
+     * <p>
+     * All files are read relative to a single open {@code /proc/[pid]} directory, so the values are consistent for one
+     * process even if its ID is reused during the update. If a process file descriptor is open, the update fails once
+     * the process has exited.
+     */
+    @Override
+    public synchronized boolean updateAttributes() {
+        return update(this.loaded);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * On Linux, {@code stat} is always read, and the other groups of fields described in {@link #updateAttributes()}
+     * only if requested. Groups which were not requested are read again on next access.
+     */
+    @Override
+    public synchronized boolean updateAttributes(EnumSet<ProcessField> fields) {
+        int groups = groupsOf(fields);
+        boolean updated = update(groups);
+        this.loaded = groups;
+        return updated;
+    }
+
+    private static int groupsOf(EnumSet<ProcessField> fields) {
+        int groups = 0;
+        for (ProcessField field : fields) {
+            switch (field) {
+            case NAME -> groups |= COMM;
+            case PATH, CURRENT_WORKING_DIRECTORY -> groups |= PATHS;
+            case COMMAND_LINE -> groups |= CMDLINE;
+            case ENVIRONMENT -> groups |= ENVIRON;
+            case USER, GROUP, CONTEXT_SWITCHES -> groups |= STATUS;
+            case DISK_IO -> groups |= IO;
+            case OPEN_FILES -> groups |= FD;
+            case BITNESS -> groups |= BITNESS;
+            default -> {
+                // Read from stat
+            }
+            }
+        }
+        return groups;
+    }
+
+    @GuardedBy("this")
+    private boolean update(int groups) {
+        if (hasExited()) {
+            return false;
+        }
+        try (ProcPidDir dir = ProcPidDir.open(getProcessID())) {
+            if (dir == null) {
+                this.state = INVALID;
+                return false;
+            }
+            MemorySegment statBuffer = STAT_BUFFER.get();
+            long[] stat = STAT_FIELDS.get();
+            if (!updateStat(statBuffer, stat, dir.read("stat", statBuffer))) {
+                return false;
+            }
+            readGroups(dir, statBuffer, stat, groups);
+            return !hasExited();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * On Linux, this reads {@code /proc/[pid]/stat}, and the context switch counts from {@code /proc/[pid]/status} and
+     * {@code /proc/[pid]/io} if those groups have been accessed. These files are kept open in the shared
+     * {@link ProcFileCache} and re-read with {@code pread}. The name, path, working directory, user, group, open file
+     * count and bitness are not updated. If a process file descriptor is open, the update fails once the process has
+     * exited.
+     */
+    @Override
+    public synchronized boolean updateCounters() {
+        if (hasExited()) {
+            return false;
+        }
+        int pid = getProcessID();
+        ProcFileCache cache = ProcFileCache.getInstance();
+        MemorySegment statBuffer = STAT_BUFFER.get();
+        if (!updateStat(statBuffer, STAT_FIELDS.get(), cache.read(pid, PidFile.STAT, statBuffer))) {
+            cache.invalidate(pid);
+            return false;
+        }
+        int groups = this.loaded;
+        MemorySegment buffer = STATUS_BUFFER.get();
+        if ((groups & STATUS) != 0) {
+            long length = cache.read(pid, PidFile.STATUS, buffer);
+            if (length > 0) {
+                this.contextSwitches = ProcUtil.parseStatusValue(buffer, length,
+                        LinuxOperatingSystem.VOLUNTARY_CTXT_KEY, 0L)
+                        + ProcUtil.parseStatusValue(buffer, length, LinuxOperatingSystem.NONVOLUNTARY_CTXT_KEY, 0L);
+            }
+        }
+        if ((groups & IO) != 0) {
+            // Not readable without ptrace access to the process
+            long length = cache.read(pid, PidFile.IO, buffer);
+            if (length > 0) {
+                this.bytesRead = ProcUtil.parseStatusValue(buffer, length, READ_BYTES_KEY, 0L);
+                this.bytesWritten = ProcUtil.parseStatusValue(buffer, length, WRITE_BYTES_KEY, 0L);
+            }
+        }
+        return !hasExited();
+    }
+
+    /**
+     * Reads groups of fields on first access.
+     */
+    private void load(int groups) {
+        if ((this.loaded & groups) != groups) {
+            loadGroups(groups);
+        }
+    }
+
+    /**
+     * Reads the groups holding the given fields, if not already read.
+     *
+     * @param fields The fields to read
+     */
+    void load(EnumSet<ProcessField> fields) {
+        load(groupsOf(fields));
+    }
+
+    private synchronized void loadGroups(int groups) {
+        int group = groups & ~this.loaded;
+        if (group == 0) {
+            return;
+        }
+        if (!this.state.equals(INVALID) && !hasExited()) {
+            try (ProcPidDir dir = ProcPidDir.open(getProcessID())) {
+                MemorySegment statBuffer = STAT_BUFFER.get();
+                long[] stat = STAT_FIELDS.get();
+                long length = dir == null ? -1L : dir.read("stat", statBuffer);
+                // Only read the directory of the process this object describes, not a new one reusing its ID
+                if (length > 0 && ProcStatParser.parse(statBuffer, length, stat) > ProcStatParser.STARTTIME
+                        && startTime(stat, LinuxOperatingSystem.getHz()) == this.startTime) {
+                    readGroups(dir, statBuffer, stat, group);
+                }
+            }
+        }
+        // A group which could not be read keeps its defaults until the next update
+        this.loaded |= group;
+    }
+
+    /**
+     * Reads groups of fields from a process directory.
+     *
+     * @param dir        The process directory
+     * @param statBuffer The contents of the process's {@code stat} file
+     * @param stat       The parsed fields of the {@code stat} file
+     * @param groups     The groups to read
+     */
+    private void readGroups(ProcPidDir dir, MemorySegment statBuffer, long[] stat, int groups) {
+        if ((groups & COMM) != 0) {
+            // The command name from stat, as used by ProcessTable, rather than a readlink of exe
+            this.name = ProcStatParser.getComm(statBuffer, stat);
+        }
+        if ((groups & PATHS) != 0) {
+            this.path = dir.readLink("exe");
+            this.currentWorkingDirectory = dir.readLink("cwd");
+        }
+        if ((groups & BITNESS) != 0) {
+            this.bitness = queryBitness(dir);
+        }
+        MemorySegment buffer = STATUS_BUFFER.get();
+        if ((groups & STATUS) != 0) {
+            long length = dir.read("status", buffer);
+            if (length > 0) {
+                int uid = (int) ProcUtil.parseStatusValue(buffer, length, LinuxOperatingSystem.UID_KEY, -1L);
+                int gid = (int) ProcUtil.parseStatusValue(buffer, length, GID_KEY, -1L);
+                this.userID = uid < 0 ? "" : Integer.toString(uid);
+                this.user = UserGroupNames.getUserName(uid);
+                this.groupID = gid < 0 ? "" : Integer.toString(gid);
+                this.group = UserGroupNames.getGroupName(gid);
+                this.contextSwitches = ProcUtil.parseStatusValue(buffer, length,
+                        LinuxOperatingSystem.VOLUNTARY_CTXT_KEY, 0L)
+                        + ProcUtil.parseStatusValue(buffer, length, LinuxOperatingSystem.NONVOLUNTARY_CTXT_KEY, 0L);
+            }
+        }
+        if ((groups & IO) != 0) {
+            long length = dir.read("io", buffer);
+            if (length > 0) {
+                this.bytesRead = ProcUtil.parseStatusValue(buffer, length, READ_BYTES_KEY, 0L);
+                this.bytesWritten = ProcUtil.parseStatusValue(buffer, length, WRITE_BYTES_KEY, 0L);
+            }
+        }
+        if ((groups & CMDLINE) != 0) {
+            this.arguments = Collections
+                    .unmodifiableList(ParseUtil.parseByteArrayToStrings(dir.readAllBytes("cmdline")));
+            this.commandLine = String.join(" ", this.arguments).trim();
+        }
+        if ((groups & ENVIRON) != 0) {
+            this.environmentVariables = Collections
+                    .unmodifiableMap(ParseUtil.parseByteArrayToStringMap(dir.readAllBytes("environ")));
+        }
+        if ((groups & FD) != 0) {
+            this.openFiles = dir.countNumericEntries("fd");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * On Linux, the paths are read from {@code /proc/[pid]/cgroup}. Each line holds the hierarchy ID, the controllers
+     * and the path, separated by colons; the unified hierarchy has ID 0 and no controllers.
+     */
+    @Override
+    public List<String> queryControlGroups() {
+        byte[] bytes;
+        try (ProcPidDir dir = ProcPidDir.open(getProcessID())) {
+            if (dir == null) {
+                return Collections.emptyList();
+            }
+            bytes = dir.readAllBytes("cgroup");
+        }
+        List<String> paths = new ArrayList<>();
+        for (String line : new String(bytes, StandardCharsets.UTF_8).split("\n")) {
+            int colon = line.indexOf(':', line.indexOf(':') + 1);
+            if (colon > 0) {
+                paths.add(line.substring(colon + 1));
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * Checks the process file descriptor, if open, marking this process invalid if it has exited.
+     */
+    private boolean hasExited() {
+        PidFd fd = this.pidFd;
+        if (fd != null && !fd.isAlive()) {
+            this.state = INVALID;
+            return true;
+        }
+        return false;
+    }
+
+    private static long queryStartTime(int pid) {
+        MemorySegment statBuffer = STAT_BUFFER.get();
+        long[] stat = STAT_FIELDS.get();
+        long length = ProcUtil.readPidFile(pid, "stat", statBuffer);
+        if (length <= 0 || ProcStatParser.parse(statBuffer, length, stat) <= ProcStatParser.STARTTIME) {
+            return -1L;
+        }
+        return startTime(stat, LinuxOperatingSystem.getHz());
+    }
+
+    private static long startTime(long[] stat, long hz) {
+        return LinuxOperatingSystem.getBootTime() + stat[ProcStatParser.STARTTIME] * 1000L / hz;
+    }
+
+    private boolean updateStat(MemorySegment statBuffer, long[] stat, long length) {
+        if (length <= 0 || ProcStatParser.parse(statBuffer, length, stat) <= ProcStatParser.RSS) {
+            this.state = INVALID;
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        long hz = LinuxOperatingSystem.getHz();
+
+        this.state = getProcessState((char) stat[ProcStatParser.STATE]);
+        this.parentProcessID = (int) stat[ProcStatParser.PPID];
+        this.minorFaults = stat[ProcStatParser.MINFLT];
+        this.majorFaults = stat[ProcStatParser.MAJFLT];
+        this.userTime = stat[ProcStatParser.UTIME] * 1000L / hz;
+        this.kernelTime = stat[ProcStatParser.STIME] * 1000L / hz;
+        this.priority = (int) stat[ProcStatParser.PRIORITY];
+        this.threadCount = (int) stat[ProcStatParser.NUM_THREADS];
+        this.startTime = startTime(stat, hz);
+        // Avoid divide by zero for processes started in the last millisecond
+        this.upTime = Math.max(now - this.startTime, 1L);
+        this.virtualSize = stat[ProcStatParser.VSIZE];
+        this.residentSetSize = stat[ProcStatParser.RSS] * LinuxOperatingSystem.getPageSize();
+        return true;
+    }
+
+    static State getProcessState(char stateValue) {
+        switch (stateValue) {
+        case 'R':
+            return RUNNING;
+        case 'S':
+            return SLEEPING;
+        case 'D':
+            return WAITING;
+        case 'Z':
+            return ZOMBIE;
+        case 'T':
+        case 't':
+            return STOPPED;
+        default:
+            return OTHER;
+        }
+    }
+
+    private static int queryBitness(ProcPidDir dir) {
+        // Permission denied or kernel thread without an executable
+        int fd = dir.openFile("exe", LinuxLibc.O_RDONLY | LinuxLibc.O_CLOEXEC);
+        if (fd < 0) {
+            return 0;
+        }
+        try {
+            MemorySegment header = ELF_HEADER.get();
+            if (ProcUtil.readFully(fd, header) > ELF_CLASS_OFFSET) {
+                switch (header.get(JAVA_BYTE, ELF_CLASS_OFFSET)) {
+                case 1:
+                    return 32;
+                case 2:
+                    return 64;
+                default:
+                    return 0;
+                }
+            }
+            return 0;
+        } finally {
+            LinuxLibc.close(fd);
+        }
+    }
+}
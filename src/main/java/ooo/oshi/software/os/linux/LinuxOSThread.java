@@ -0,0 +1,289 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.software.os.linux;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static ooo.oshi.software.os.OSProcess.State.INVALID;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.MemorySession;
+import java.util.ArrayList;
+import java.util.List;
+
+import ooo.oshi.annotation.concurrent.ThreadSafe;
+import ooo.oshi.software.os.OSProcess.State;
+import ooo.oshi.software.os.OSThread;
+import ooo.oshi.software.os.common.AbstractOSThread;
+import ooo.oshi.util.StringPool;
+import ooo.oshi.util.platform.linux.ProcPidDir;
+import ooo.oshi.util.platform.linux.ProcStatParser;
+import ooo.oshi.util.platform.linux.ProcUtil;
+
+/**
+ * OSThread implementation, reading {@code /proc/[pid]/task/[tid]/stat} and {@code schedstat}.
+ * <p>
+ * Files are read into per-thread native buffers and parsed in place. Thread names, which repeat across the threads of
+ * a process, are interned in a pool for each {@link #queryThreads(int[])} call, so reading a thread whose name has
+ * been seen before in the same call creates no objects other than the thread itself. The pool is discarded with the
+ * call, so names of exited threads are not retained.
+ */
+@ThreadSafe
+public class LinuxOSThread extends AbstractOSThread {
+
+    // "run_ns wait_ns timeslices\n"
+    private static final int SCHEDSTAT_BUFFER_SIZE = 64;
+
+    private static final ThreadLocal<MemorySegment> STAT_BUFFER = ThreadLocal.withInitial(
+            () -> MemorySegment.allocateNative(LinuxOSProcess.STAT_BUFFER_SIZE, MemorySession.openImplicit()));
+    private static final ThreadLocal<MemorySegment> SCHEDSTAT_BUFFER = ThreadLocal
+            .withInitial(() -> MemorySegment.allocateNative(SCHEDSTAT_BUFFER_SIZE, MemorySession.openImplicit()));
+    private static final ThreadLocal<long[]> STAT_FIELDS = ThreadLocal
+            .withInitial(() -> new long[ProcStatParser.MIN_FIELDS]);
+    private static final ThreadLocal<long[]> SCHEDSTAT_FIELDS = ThreadLocal.withInitial(() -> new long[3]);
+
+    private final int threadId;
+    private String name = "";
+    private State state = INVALID;
+    private long minorFaults;
+    private long majorFaults;
+    private long startMemoryAddress;
+    private long contextSwitches;
+    private long kernelTime;
+    private long userTime;
+    private long startTime;
+    private long upTime;
+    private int priority;
+    private long runTimeNanos;
+    private long runQueueWaitNanos;
+
+    public LinuxOSThread(int processId, int tid) {
+        super(processId);
+        this.threadId = tid;
+        updateAttributes();
+    }
+
+    private LinuxOSThread(int processId, int tid, ProcPidDir dir, StringPool names) {
+        super(processId);
+        this.threadId = tid;
+        update(dir, names);
+    }
+
+    /**
+     * Reads the threads of many processes. Each process's directory is opened once, and each thread's files are opened
+     * relative to it, so for processes with many threads the cost is dominated by two reads per thread.
+     *
+     * @param pids The process IDs
+     * @return The threads of the processes which could be read, grouped by process in the order of {@code pids}.
+     *         Threads which exited while being read are omitted.
+     */
+    public static List<OSThread> queryThreads(int[] pids) {
+        List<OSThread> threads = new ArrayList<>();
+        StringPool names = new StringPool();
+        for (int pid : pids) {
+            try (ProcPidDir dir = ProcPidDir.open(pid)) {
+                if (dir != null) {
+                    for (int tid : dir.getNumericEntries("task")) {
+                        LinuxOSThread thread = new LinuxOSThread(pid, tid, dir, names);
+                        if (thread.state != INVALID) {
+                            threads.add(thread);
+                        }
+                    }
+                }
+            }
+        }
+        return threads;
+    }
+
+    /**
+     * Reads the threads of all processes.
+     *
+     * @return The threads of all processes which could be read
+     */
+    public static List<OSThread> queryAllThreads() {
+        return queryThreads(ProcUtil.getPids());
+    }
+
+    @Override
+    public int getThreadId() {
+        return this.threadId;
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public State getState() {
+        return this.state;
+    }
+
+    @Override
+    public long getStartTime() {
+        return this.startTime;
+    }
+
+    @Override
+    public long getStartMemoryAddress() {
+        return this.startMemoryAddress;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * On Linux, this is the number of times the thread has been scheduled onto a processor, as reported by
+     * {@code schedstat}, which counts both voluntary and involuntary switches.
+     */
+    @Override
+    public long getContextSwitches() {
+        return this.contextSwitches;
+    }
+
+    @Override
+    public long getMinorFaults() {
+        return this.minorFaults;
+    }
+
+    @Override
+    public long getMajorFaults() {
+        return this.majorFaults;
+    }
+
+    @Override
+    public long getKernelTime() {
+        return this.kernelTime;
+    }
+
+    @Override
+    public long getUserTime() {
+        return this.userTime;
+    }
+
+    @Override
+    public long getUpTime() {
+        return this.upTime;
+    }
+
+    @Override
+    public int getPriority() {
+        return this.priority;
+    }
+
+    /**
+     * Gets the time the thread has spent running on a processor, as measured by the scheduler. This is more precise
+     * than the sum of {@link #getUserTime()} and {@link #getKernelTime()}, which are counted in clock ticks.
+     *
+     * @return The running time in nanoseconds, or 0 if {@code schedstat} could not be read
+     */
+    public long getRunTimeNanos() {
+        return this.runTimeNanos;
+    }
+
+    /**
+     * Gets the time the thread has spent runnable but waiting for a processor.
+     *
+     * @return The run queue wait time in nanoseconds, or 0 if {@code schedstat} could not be read
+     */
+    public long getRunQueueWaitNanos() {
+        return this.runQueueWaitNanos;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * When both snapshots include the scheduler's running time, it is used in place of the user and kernel times, so
+     * short polling intervals are not limited by the clock tick.
+     */
+    @Override
+    public double getThreadCpuLoadBetweenTicks(OSThread priorSnapshot) {
+        if (priorSnapshot instanceof LinuxOSThread prior && this.runTimeNanos > 0 && prior.runTimeNanos > 0
+                && getOwningProcessId() == prior.getOwningProcessId() && this.threadId == prior.threadId
+                && this.startTime == prior.startTime && this.upTime > prior.upTime) {
+            return (this.runTimeNanos - prior.runTimeNanos) / 1_000_000d / (this.upTime - prior.upTime);
+        }
+        return super.getThreadCpuLoadBetweenTicks(priorSnapshot);
+    }
+
+    @Override
+    public synchronized boolean updateAttributes() {
+        try (ProcPidDir dir = ProcPidDir.open(getOwningProcessId())) {
+            if (dir == null) {
+                this.state = INVALID;
+                return false;
+            }
+            return update(dir, null);
+        }
+    }
+
+    private synchronized boolean update(ProcPidDir dir, StringPool names) {
+        MemorySegment statBuffer = STAT_BUFFER.get();
+        long[] stat = STAT_FIELDS.get();
+        long length = dir.readTaskFile(this.threadId, "stat", statBuffer);
+        if (length <= 0 || ProcStatParser.parse(statBuffer, length, stat) <= ProcStatParser.STARTCODE) {
+            this.state = INVALID;
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        long hz = LinuxOperatingSystem.getHz();
+        long start = LinuxOperatingSystem.getBootTime() + stat[ProcStatParser.STARTTIME] * 1000L / hz;
+        // A different start time means the thread ID has been reused
+        if (this.startTime != 0L && this.startTime != start) {
+            this.state = INVALID;
+            return false;
+        }
+        long comm = stat[ProcStatParser.COMM];
+        this.name = names == null ? ProcStatParser.getComm(statBuffer, stat)
+                : names.get(names.intern(statBuffer, ProcStatParser.commOffset(comm), ProcStatParser.commLength(comm)));
+        this.state = LinuxOSProcess.getProcessState((char) stat[ProcStatParser.STATE]);
+        this.minorFaults = stat[ProcStatParser.MINFLT];
+        this.majorFaults = stat[ProcStatParser.MAJFLT];
+        this.userTime = stat[ProcStatParser.UTIME] * 1000L / hz;
+        this.kernelTime = stat[ProcStatParser.STIME] * 1000L / hz;
+        this.priority = (int) stat[ProcStatParser.PRIORITY];
+        this.startMemoryAddress = stat[ProcStatParser.STARTCODE];
+        this.startTime = start;
+        // Avoid divide by zero for threads started in the last millisecond
+        this.upTime = Math.max(now - start, 1L);
+
+        // Present when the kernel is built with scheduler statistics
+        MemorySegment schedBuffer = SCHEDSTAT_BUFFER.get();
+        long[] sched = SCHEDSTAT_FIELDS.get();
+        length = dir.readTaskFile(this.threadId, "schedstat", schedBuffer);
+        if (parseSchedStat(schedBuffer, length, sched)) {
+            this.runTimeNanos = sched[0];
+            this.runQueueWaitNanos = sched[1];
+            this.contextSwitches = sched[2];
+        } else {
+            // Clear values from an earlier update, which would otherwise be reported as current
+            this.runTimeNanos = 0L;
+            this.runQueueWaitNanos = 0L;
+            this.contextSwitches = 0L;
+        }
+        return true;
+    }
+
+    private static boolean parseSchedStat(MemorySegment m, long length, long[] fields) {
+        int field = 0;
+        long pos = 0;
+        while (field < fields.length) {
+            while (pos < length && m.get(JAVA_BYTE, pos) == ' ') {
+                pos++;
+            }
+            long value = 0;
+            long digits = 0;
+            byte b;
+            while (pos < length && (b = m.get(JAVA_BYTE, pos)) >= '0' && b <= '9') {
+                value = value * 10 + (b - '0');
+                digits++;
+                pos++;
+            }
+            if (digits == 0) {
+                return false;
+            }
+            fields[field++] = value;
+        }
+        return true;
+    }
+}
@@ -4,28 +4,293 @@
  */
 package ooo.oshi.software.os.linux;
 
+import static ooo.oshi.software.os.OSProcess.State.INVALID;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import ooo.oshi.foreign.linux.LinuxLibc;
 import ooo.oshi.software.os.OSProcess;
+import ooo.oshi.software.os.ProcessEventListener;
+import ooo.oshi.software.os.ProcessEventSubscription;
+import ooo.oshi.software.os.ProcessField;
+import ooo.oshi.software.os.ProcessFilter;
+import ooo.oshi.software.os.ProcessSpliterator;
+import ooo.oshi.software.os.ProcessSpliterator.PidSource;
+import ooo.oshi.software.os.ProcessTable;
 import ooo.oshi.software.os.common.AbstractOperatingSystem;
+import ooo.oshi.util.CollectionExecutor;
+import ooo.oshi.util.FileUtil;
+import ooo.oshi.util.ParseUtil;
+import ooo.oshi.util.platform.linux.ProcBatchReader;
+import ooo.oshi.util.platform.linux.ProcDirectoryReader;
+import ooo.oshi.util.platform.linux.ProcPath;
+import ooo.oshi.util.platform.linux.ProcStatParser;
+import ooo.oshi.util.platform.linux.ProcUtil;
 
 public class LinuxOperatingSystem extends AbstractOperatingSystem {
 
+    private static final Logger LOG = LoggerFactory.getLogger(LinuxOperatingSystem.class);
+
+    /**
+     * Jiffies per second, used for process time counters.
+     */
+    private static final long USER_HZ;
+    /**
+     * Size of a page in bytes, used for process memory counters.
+     */
+    private static final long PAGE_SIZE;
+    /**
+     * Boot time in milliseconds since the epoch, used for process start times.
+     */
+    private static final long BOOT_TIME;
+
+    static {
+        long hz = LinuxLibc.sysconf(LinuxLibc._SC_CLK_TCK);
+        USER_HZ = hz > 0 ? hz : 100L;
+        long pageSize = LinuxLibc.sysconf(LinuxLibc._SC_PAGESIZE);
+        PAGE_SIZE = pageSize > 0 ? pageSize : 4096L;
+        BOOT_TIME = queryBootTime();
+    }
+
+    // Large enough for /proc/[pid]/status including a long list of supplementary groups
+    static final int STATUS_BUFFER_SIZE = 8192;
+    static final byte[] UID_KEY = "Uid:".getBytes(StandardCharsets.US_ASCII);
+    static final byte[] VOLUNTARY_CTXT_KEY = "voluntary_ctxt_switches:".getBytes(StandardCharsets.US_ASCII);
+    static final byte[] NONVOLUNTARY_CTXT_KEY = "nonvoluntary_ctxt_switches:"
+            .getBytes(StandardCharsets.US_ASCII);
+
+    private static final String[] TABLE_FILES = { "stat", "status" };
+    private static final int[] TABLE_BUFFER_SIZES = { LinuxOSProcess.STAT_BUFFER_SIZE, STATUS_BUFFER_SIZE };
+
+    private volatile ProcessScanStatistics lastScan = new ProcessScanStatistics(0, 0, 0L, 0L);
+
+    /**
+     * The cost of the most recent scan of all processes, published alongside its results.
+     *
+     * @param pidCount       The number of process IDs found in {@code /proc}
+     * @param processCount   The number of valid processes returned
+     * @param directoryNanos The time in nanoseconds to list the process IDs
+     * @param processNanos   The time in nanoseconds to build the process objects
+     */
+    public record ProcessScanStatistics(int pidCount, int processCount, long directoryNanos, long processNanos) {
+    }
+
     @Override
     protected List<OSProcess> queryAllProcesses() {
-        // TODO Auto-generated method stub
-        return null;
+        return queryAllProcesses(EnumSet.noneOf(ProcessField.class));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * On Linux, {@code /proc/[pid]/stat} is always read, and other files only as needed for the requested fields.
+     * Fields which were not requested are read on first access.
+     */
+    @Override
+    protected List<OSProcess> queryAllProcesses(EnumSet<ProcessField> fields) {
+        long start = System.nanoTime();
+        int[] pids = ProcUtil.getPids();
+        long listed = System.nanoTime();
+        List<OSProcess> procs = CollectionExecutor.getDefault().map(pids, pid -> {
+            OSProcess p = new LinuxOSProcess(pid, fields);
+            return ProcessFiltering.VALID_PROCESS.test(p) ? p : null;
+        });
+        this.lastScan = new ProcessScanStatistics(pids.length, procs.size(), listed - start,
+                System.nanoTime() - listed);
+        LOG.debug("Process scan: {}", this.lastScan);
+        return procs;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * On Linux, each process is created from {@code /proc/[pid]/stat}, and its other files are read only as the
+     * filter's criteria require them, so rejected processes are never read in full.
+     */
+    @Override
+    protected List<OSProcess> queryProcesses(ProcessFilter filter, EnumSet<ProcessField> fields) {
+        EnumSet<ProcessField> none = EnumSet.noneOf(ProcessField.class);
+        int[] pids = Arrays.stream(ProcUtil.getPids()).filter(filter::testProcessId).toArray();
+        return CollectionExecutor.getDefault().map(pids, pid -> {
+            LinuxOSProcess p = new LinuxOSProcess(pid, none);
+            return matches(p, filter, fields) ? p : null;
+        });
+    }
+
+    /**
+     * Tests a process against a filter, reading each group of fields only when a criterion needs it, then reads the
+     * requested fields of a matching process.
+     */
+    private static boolean matches(LinuxOSProcess p, ProcessFilter filter, EnumSet<ProcessField> fields) {
+        if (p.getState().equals(INVALID) || !filter.testParentAndState(p) || !filter.testUser(p)) {
+            return false;
+        }
+        if (!filter.testControlGroups(p) || !filter.testName(p) || !filter.testPostFilter(p)) {
+            return false;
+        }
+        if (fields != null) {
+            p.load(fields);
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * On Linux, the table is filled directly from {@code /proc/[pid]/stat} and {@code /proc/[pid]/status} without
+     * creating an {@link OSProcess} for each process. The files may be read in batches with io_uring; see
+     * {@link ProcBatchReader}.
+     */
+    @Override
+    public ProcessTable getProcessTable(ProcessTable previous) {
+        int[] pids = ProcUtil.getPids();
+        ProcessTable.Builder builder = new ProcessTable.Builder(pids.length, this::getProcess, previous);
+        long[] stat = new long[ProcStatParser.MIN_FIELDS];
+        try (ProcBatchReader reader = ProcBatchReader.create(TABLE_FILES, TABLE_BUFFER_SIZES)) {
+            reader.readAll(pids, (pid, buffers, lengths) -> {
+                MemorySegment statBuffer = buffers[0];
+                long length = lengths[0];
+                if (length <= 0 || ProcStatParser.parse(statBuffer, length, stat) <= ProcStatParser.RSS) {
+                    return;
+                }
+                int uid = -1;
+                long contextSwitches = 0L;
+                MemorySegment statusBuffer = buffers[1];
+                long statusLength = lengths[1];
+                if (statusLength > 0) {
+                    uid = (int) ProcUtil.parseStatusValue(statusBuffer, statusLength, UID_KEY, -1L);
+                    contextSwitches = ProcUtil.parseStatusValue(statusBuffer, statusLength, VOLUNTARY_CTXT_KEY, 0L)
+                            + ProcUtil.parseStatusValue(statusBuffer, statusLength, NONVOLUNTARY_CTXT_KEY, 0L);
+                }
+                long comm = stat[ProcStatParser.COMM];
+                int nameId = builder.internName(statBuffer, ProcStatParser.commOffset(comm),
+                        ProcStatParser.commLength(comm));
+                builder.add(pid, (int) stat[ProcStatParser.PPID], uid, nameId,
+                        LinuxOSProcess.getProcessState((char) stat[ProcStatParser.STATE]),
+                        stat[ProcStatParser.RSS] * PAGE_SIZE, stat[ProcStatParser.VSIZE],
+                        stat[ProcStatParser.UTIME] * 1000L / USER_HZ, stat[ProcStatParser.STIME] * 1000L / USER_HZ,
+                        BOOT_TIME + stat[ProcStatParser.STARTTIME] * 1000L / USER_HZ, stat[ProcStatParser.MINFLT],
+                        stat[ProcStatParser.MAJFLT], contextSwitches);
+            });
+            LOG.debug("Process table read {} files with {} system calls{}", reader.getFilesRead(),
+                    reader.getSystemCalls(), reader.isIoUring() ? " using io_uring" : "");
+        }
+        return builder.build();
+    }
+
+    /**
+     * Gets the cost of the most recent scan of all processes.
+     *
+     * @return The statistics for the last call which enumerated all processes.
+     */
+    public ProcessScanStatistics getLastProcessScan() {
+        return this.lastScan;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * On Linux, events are received from the kernel process connector when the process has {@code CAP_NET_ADMIN};
+     * otherwise the process list is polled.
+     */
+    @Override
+    public ProcessEventSubscription subscribeProcessEvents(ProcessEventListener listener) {
+        ProcessEventSubscription sub = ProcConnectorSubscription.open(listener);
+        return sub == null ? super.subscribeProcessEvents(listener) : sub;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * On Linux, process IDs are read from {@code /proc} in batches as the stream advances, so a sequential stream
+     * holds a fixed amount of memory regardless of the number of processes.
+     */
+    @Override
+    public Stream<OSProcess> processStream() {
+        ProcDirectoryReader reader = ProcDirectoryReader.open(ProcPath.PROC, true);
+        if (reader == null) {
+            return super.processStream();
+        }
+        PidSource source = new PidSource() {
+            @Override
+            public int nextPid() {
+                return reader.next();
+            }
+
+            @Override
+            public void close() {
+                reader.close();
+            }
+        };
+        int lastCount = this.lastScan.pidCount();
+        long estimate = lastCount > 0 ? lastCount : Long.MAX_VALUE;
+        EnumSet<ProcessField> none = EnumSet.noneOf(ProcessField.class);
+        ProcessSpliterator spliterator = ProcessSpliterator.of(source, estimate, pid -> new LinuxOSProcess(pid, none));
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+    }
+
+    @Override
+    public int[] getProcessIds() {
+        return ProcUtil.getPids();
     }
 
     @Override
     public OSProcess getProcess(int pid) {
-        // TODO Auto-generated method stub
-        return null;
+        OSProcess proc = new LinuxOSProcess(pid);
+        return proc.getState().equals(INVALID) ? null : proc;
     }
 
     @Override
     public int getProcessId() {
-        // TODO Auto-generated method stub
-        return 0;
+        return LinuxLibc.getpid();
+    }
+
+    /**
+     * Gets Jiffies per second, useful for converting ticks to milliseconds and vice versa.
+     *
+     * @return Jiffies per second.
+     */
+    public static long getHz() {
+        return USER_HZ;
+    }
+
+    /**
+     * Gets Page Size, for converting memory stats from pages to bytes
+     *
+     * @return Page Size
+     */
+    public static long getPageSize() {
+        return PAGE_SIZE;
+    }
+
+    /**
+     * Gets the system boot time.
+     *
+     * @return The boot time in milliseconds since the epoch.
+     */
+    public static long getBootTime() {
+        return BOOT_TIME;
+    }
+
+    private static long queryBootTime() {
+        for (String line : FileUtil.readFile(ProcPath.STAT, false)) {
+            if (line.startsWith("btime")) {
+                return ParseUtil.parseLastLong(line, 0L) * 1000L;
+            }
+        }
+        // Fall back to current time minus uptime
+        String uptime = FileUtil.getStringFromFile(ProcPath.UPTIME);
+        int space = uptime.indexOf(' ');
+        double seconds = ParseUtil.parseDoubleOrDefault(space < 0 ? uptime : uptime.substring(0, space), 0d);
+        return System.currentTimeMillis() - (long) (seconds * 1000d);
     }
 }
@@ -0,0 +1,286 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.software.os.linux;
+
+import static java.lang.foreign.MemoryLayout.PathElement.groupElement;
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.lang.foreign.ValueLayout.JAVA_SHORT;
+import static ooo.oshi.foreign.linux.LinuxLibc.AF_NETLINK;
+import static ooo.oshi.foreign.linux.LinuxLibc.CN_IDX_PROC;
+import static ooo.oshi.foreign.linux.LinuxLibc.CN_MSG;
+import static ooo.oshi.foreign.linux.LinuxLibc.CN_VAL_PROC;
+import static ooo.oshi.foreign.linux.LinuxLibc.EINTR;
+import static ooo.oshi.foreign.linux.LinuxLibc.ENOBUFS;
+import static ooo.oshi.foreign.linux.LinuxLibc.NETLINK_CONNECTOR;
+import static ooo.oshi.foreign.linux.LinuxLibc.NLMSGHDR;
+import static ooo.oshi.foreign.linux.LinuxLibc.NLMSG_DONE;
+import static ooo.oshi.foreign.linux.LinuxLibc.POLLFD_EVENTS_OFFSET;
+import static ooo.oshi.foreign.linux.LinuxLibc.POLLFD_SIZE;
+import static ooo.oshi.foreign.linux.LinuxLibc.POLLIN;
+import static ooo.oshi.foreign.linux.LinuxLibc.PROC_CN_MCAST_IGNORE;
+import static ooo.oshi.foreign.linux.LinuxLibc.PROC_CN_MCAST_LISTEN;
+import static ooo.oshi.foreign.linux.LinuxLibc.PROC_EVENT;
+import static ooo.oshi.foreign.linux.LinuxLibc.PROC_EVENT_COMM;
+import static ooo.oshi.foreign.linux.LinuxLibc.PROC_EVENT_EXEC;
+import static ooo.oshi.foreign.linux.LinuxLibc.PROC_EVENT_EXIT;
+import static ooo.oshi.foreign.linux.LinuxLibc.PROC_EVENT_FORK;
+import static ooo.oshi.foreign.linux.LinuxLibc.PROC_EVENT_UID;
+import static ooo.oshi.foreign.linux.LinuxLibc.SOCKADDR_NL;
+import static ooo.oshi.foreign.linux.LinuxLibc.SOCK_CLOEXEC;
+import static ooo.oshi.foreign.linux.LinuxLibc.SOCK_DGRAM;
+import static ooo.oshi.foreign.linux.LinuxLibc.TASK_COMM_LEN;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.MemorySession;
+import java.nio.charset.StandardCharsets;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ooo.oshi.annotation.concurrent.ThreadSafe;
+import ooo.oshi.foreign.linux.LinuxLibc;
+import ooo.oshi.software.os.ProcessEvent;
+import ooo.oshi.software.os.ProcessEvent.Type;
+import ooo.oshi.software.os.ProcessEventListener;
+import ooo.oshi.software.os.ProcessEventSubscription;
+
+/**
+ * Receives process events from the kernel's process connector, a netlink multicast group which reports every fork,
+ * exec, exit, and credential or name change as it happens. Subscribing requires {@code CAP_NET_ADMIN} in the initial
+ * user and PID namespaces; {@link #open(ProcessEventListener)} returns {@code null} if the kernel refuses.
+ * <p>
+ * Only events for whole processes are reported; events for threads other than the main thread are ignored.
+ */
+@ThreadSafe
+final class ProcConnectorSubscription implements ProcessEventSubscription {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProcConnectorSubscription.class);
+
+    // A datagram holds a single message, the largest event is under 100 bytes
+    private static final long RECV_BUFFER_SIZE = 1024L;
+    // How long to wait for the kernel to acknowledge the subscription
+    private static final int ACK_TIMEOUT_MILLIS = 1000;
+    // How often the reader checks whether it has been closed
+    private static final int POLL_TIMEOUT_MILLIS = 500;
+
+    private static final long CN_MSG_OFFSET = NLMSGHDR.byteSize();
+    private static final long PROC_EVENT_OFFSET = CN_MSG_OFFSET + CN_MSG.byteSize();
+    private static final long EVENT_DATA_OFFSET = PROC_EVENT_OFFSET + PROC_EVENT.byteSize();
+    private static final long CONTROL_MESSAGE_SIZE = PROC_EVENT_OFFSET + JAVA_INT.byteSize();
+
+    private static final long NLMSG_LEN = NLMSGHDR.byteOffset(groupElement("nlmsg_len"));
+    private static final long NLMSG_TYPE = NLMSGHDR.byteOffset(groupElement("nlmsg_type"));
+    private static final long NLMSG_PID = NLMSGHDR.byteOffset(groupElement("nlmsg_pid"));
+    private static final long CN_IDX = CN_MSG_OFFSET + CN_MSG.byteOffset(groupElement("idx"));
+    private static final long CN_VAL = CN_MSG_OFFSET + CN_MSG.byteOffset(groupElement("val"));
+    private static final long CN_LEN = CN_MSG_OFFSET + CN_MSG.byteOffset(groupElement("len"));
+    private static final long EVENT_WHAT = PROC_EVENT_OFFSET + PROC_EVENT.byteOffset(groupElement("what"));
+
+    // Offsets of members of the event_data union, each of which begins with two pid_t values
+    private static final long EVENT_PID = EVENT_DATA_OFFSET;
+    private static final long EVENT_TGID = EVENT_DATA_OFFSET + 4;
+    private static final long EVENT_THIRD = EVENT_DATA_OFFSET + 8;
+    private static final long EVENT_FOURTH = EVENT_DATA_OFFSET + 12;
+
+    private final int fd;
+    private final MemorySession session;
+    private final MemorySegment buffer;
+    private final MemorySegment pollfd;
+    private final ProcessEventListener listener;
+    private final Thread reader;
+    private volatile boolean running = true;
+
+    private ProcConnectorSubscription(int fd, MemorySession session, ProcessEventListener listener) {
+        this.fd = fd;
+        this.session = session;
+        this.buffer = MemorySegment.allocateNative(RECV_BUFFER_SIZE, session);
+        this.pollfd = MemorySegment.allocateNative(POLLFD_SIZE, session);
+        this.pollfd.set(JAVA_INT, 0, fd);
+        this.pollfd.set(JAVA_SHORT, POLLFD_EVENTS_OFFSET, POLLIN);
+        this.listener = listener;
+        this.reader = new Thread(this::readEvents, "oshi-proc-connector");
+        this.reader.setDaemon(true);
+    }
+
+    /**
+     * Subscribes to the process connector.
+     *
+     * @param listener The listener to receive events
+     * @return The subscription, or {@code null} if the process connector is unavailable or permission was denied
+     */
+    static ProcConnectorSubscription open(ProcessEventListener listener) {
+        int fd = LinuxLibc.socket(AF_NETLINK, SOCK_DGRAM | SOCK_CLOEXEC, NETLINK_CONNECTOR);
+        if (fd < 0) {
+            LOG.debug("Unable to open process connector socket. errno={}", LinuxLibc.errno());
+            return null;
+        }
+        MemorySession session = MemorySession.openShared();
+        ProcConnectorSubscription sub = new ProcConnectorSubscription(fd, session, listener);
+        if (!sub.listen()) {
+            LinuxLibc.close(fd);
+            session.close();
+            return null;
+        }
+        sub.reader.start();
+        return sub;
+    }
+
+    @Override
+    public boolean isEventDriven() {
+        return true;
+    }
+
+    @Override
+    public void close() {
+        // The reader unsubscribes and closes the socket when it next wakes, so the descriptor isn't reused in use
+        this.running = false;
+    }
+
+    private boolean listen() {
+        MemorySegment addr = MemorySegment.allocateNative(SOCKADDR_NL, session);
+        addr.set(JAVA_SHORT, SOCKADDR_NL.byteOffset(groupElement("nl_family")), (short) AF_NETLINK);
+        addr.set(JAVA_INT, SOCKADDR_NL.byteOffset(groupElement("nl_groups")), CN_IDX_PROC);
+        if (LinuxLibc.bind(fd, addr, (int) SOCKADDR_NL.byteSize()) < 0) {
+            LOG.debug("Unable to bind process connector socket. errno={}", LinuxLibc.errno());
+            return false;
+        }
+        if (!sendControl(PROC_CN_MCAST_LISTEN)) {
+            LOG.debug("Unable to send process connector listen request. errno={}", LinuxLibc.errno());
+            return false;
+        }
+        // The kernel replies with a PROC_EVENT_NONE acknowledgement holding an error code. Without privileges it
+        // either reports EPERM or sends nothing at all.
+        long deadline = System.currentTimeMillis() + ACK_TIMEOUT_MILLIS;
+        long remaining;
+        while ((remaining = deadline - System.currentTimeMillis()) > 0) {
+            long n = receive((int) remaining);
+            if (n < 0) {
+                return false;
+            }
+            if (n > EVENT_DATA_OFFSET && buffer.get(JAVA_INT, EVENT_WHAT) == 0) {
+                int err = buffer.get(JAVA_INT, EVENT_DATA_OFFSET);
+                if (err != 0) {
+                    LOG.debug("Process connector subscription refused. err={}", err);
+                }
+                return err == 0;
+            }
+        }
+        LOG.debug("Process connector subscription was not acknowledged");
+        return false;
+    }
+
+    /**
+     * Sends a multicast control operation to the process connector.
+     *
+     * @param op {@code PROC_CN_MCAST_LISTEN} or {@code PROC_CN_MCAST_IGNORE}
+     * @return whether the message was sent
+     */
+    private boolean sendControl(int op) {
+        MemorySegment msg = MemorySegment.allocateNative(CONTROL_MESSAGE_SIZE, session);
+        msg.set(JAVA_INT, NLMSG_LEN, (int) CONTROL_MESSAGE_SIZE);
+        msg.set(JAVA_SHORT, NLMSG_TYPE, NLMSG_DONE);
+        msg.set(JAVA_INT, NLMSG_PID, LinuxLibc.getpid());
+        msg.set(JAVA_INT, CN_IDX, CN_IDX_PROC);
+        msg.set(JAVA_INT, CN_VAL, CN_VAL_PROC);
+        msg.set(JAVA_SHORT, CN_LEN, (short) JAVA_INT.byteSize());
+        msg.set(JAVA_INT, PROC_EVENT_OFFSET, op);
+        return LinuxLibc.send(fd, msg, CONTROL_MESSAGE_SIZE, 0) >= 0;
+    }
+
+    /**
+     * Waits for and receives one message into the buffer.
+     *
+     * @return the length of the message, 0 if none arrived within the timeout, or -1 on an unrecoverable error
+     */
+    private long receive(int timeoutMillis) {
+        int ready = LinuxLibc.poll(pollfd, 1, timeoutMillis);
+        if (ready <= 0) {
+            return ready < 0 && LinuxLibc.errno() != EINTR ? -1 : 0;
+        }
+        long n = LinuxLibc.recv(fd, buffer, RECV_BUFFER_SIZE, 0);
+        if (n < 0) {
+            int errno = LinuxLibc.errno();
+            if (errno == ENOBUFS) {
+                LOG.warn("Process connector receive buffer overflowed; some process events were lost");
+                return 0;
+            }
+            return errno == EINTR ? 0 : -1;
+        }
+        return n;
+    }
+
+    private void readEvents() {
+        try {
+            while (running) {
+                long n = receive(POLL_TIMEOUT_MILLIS);
+                if (n < 0) {
+                    LOG.warn("Process connector failed. errno={}", LinuxLibc.errno());
+                    break;
+                }
+                if (n > EVENT_DATA_OFFSET) {
+                    ProcessEvent event = parseEvent();
+                    if (event != null) {
+                        deliver(event);
+                    }
+                }
+            }
+        } finally {
+            // The kernel counts listeners rather than sockets, and keeps generating events until every listen is
+            // matched by an ignore
+            if (!sendControl(PROC_CN_MCAST_IGNORE)) {
+                LOG.debug("Unable to send process connector ignore request. errno={}", LinuxLibc.errno());
+            }
+            LinuxLibc.close(fd);
+            session.close();
+        }
+    }
+
+    private ProcessEvent parseEvent() {
+        int what = buffer.get(JAVA_INT, EVENT_WHAT);
+        int pid = buffer.get(JAVA_INT, EVENT_PID);
+        int tgid = buffer.get(JAVA_INT, EVENT_TGID);
+        long now = System.currentTimeMillis();
+        switch (what) {
+        case PROC_EVENT_FORK:
+            // parent_pid, parent_tgid, child_pid, child_tgid
+            int childPid = buffer.get(JAVA_INT, EVENT_THIRD);
+            int childTgid = buffer.get(JAVA_INT, EVENT_FOURTH);
+            return childPid == childTgid ? new ProcessEvent(Type.FORK, childPid, tgid, -1, -1, "", now) : null;
+        case PROC_EVENT_EXEC:
+            return pid == tgid ? new ProcessEvent(Type.EXEC, pid, -1, -1, -1, "", now) : null;
+        case PROC_EVENT_UID:
+            // ruid, euid
+            return pid == tgid ? new ProcessEvent(Type.UID, pid, -1, -1, buffer.get(JAVA_INT, EVENT_FOURTH), "", now)
+                    : null;
+        case PROC_EVENT_COMM:
+            return pid == tgid ? new ProcessEvent(Type.COMM, pid, -1, -1, -1, getComm(), now) : null;
+        case PROC_EVENT_EXIT:
+            // exit_code, exit_signal
+            return pid == tgid ? new ProcessEvent(Type.EXIT, pid, -1, buffer.get(JAVA_INT, EVENT_THIRD), -1, "", now)
+                    : null;
+        default:
+            return null;
+        }
+    }
+
+    private String getComm() {
+        byte[] comm = new byte[TASK_COMM_LEN];
+        MemorySegment.copy(buffer, JAVA_BYTE, EVENT_THIRD, comm, 0, TASK_COMM_LEN);
+        int len = 0;
+        while (len < TASK_COMM_LEN && comm[len] != 0) {
+            len++;
+        }
+        return new String(comm, 0, len, StandardCharsets.UTF_8);
+    }
+
+    private void deliver(ProcessEvent event) {
+        try {
+            listener.onEvent(event);
+        } catch (RuntimeException e) {
+            LOG.warn("Process event listener failed on {}", event, e);
+        }
+    }
+}
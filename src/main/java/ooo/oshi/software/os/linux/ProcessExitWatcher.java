@@ -0,0 +1,261 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.software.os.linux;
+
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.lang.foreign.ValueLayout.JAVA_LONG;
+import static ooo.oshi.foreign.linux.LinuxLibc.EFD_CLOEXEC;
+import static ooo.oshi.foreign.linux.LinuxLibc.EINTR;
+import static ooo.oshi.foreign.linux.LinuxLibc.EPOLLIN;
+import static ooo.oshi.foreign.linux.LinuxLibc.EPOLL_CLOEXEC;
+import static ooo.oshi.foreign.linux.LinuxLibc.EPOLL_CTL_ADD;
+import static ooo.oshi.foreign.linux.LinuxLibc.EPOLL_CTL_DEL;
+import static ooo.oshi.foreign.linux.LinuxLibc.EPOLL_EVENT_DATA_OFFSET;
+import static ooo.oshi.foreign.linux.LinuxLibc.EPOLL_EVENT_SIZE;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.MemorySession;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ooo.oshi.annotation.concurrent.GuardedBy;
+import ooo.oshi.annotation.concurrent.ThreadSafe;
+import ooo.oshi.foreign.linux.LinuxLibc;
+import ooo.oshi.software.os.OSProcess;
+import ooo.oshi.util.platform.linux.PidFd;
+
+/**
+ * Waits for any of a set of processes to exit, using a process file descriptor for each registered with one epoll
+ * instance. Watching many processes costs no {@code /proc} reads: a single {@code epoll_wait} returns the processes
+ * which have exited.
+ * <p>
+ * Processes may be added and removed while another thread is waiting. Requires Linux 5.3 or later;
+ * {@link #open()} returns {@code null} on older kernels.
+ * <p>
+ * Each registration is identified in the epoll set by a token combining the process ID with a sequence number, so an
+ * event for a process which has since been unwatched is not mistaken for one of a later process with the same ID.
+ */
+@ThreadSafe
+public final class ProcessExitWatcher implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProcessExitWatcher.class);
+
+    private static final int MAX_EVENTS = 256;
+    // The token of the eventfd which wakes a waiting thread on close; registration sequence numbers start at 1
+    private static final long WAKE_TOKEN = 0L;
+
+    private final int epfd;
+    private final int wakefd;
+    private final Map<Integer, Registration> watched = new ConcurrentHashMap<>();
+    private final AtomicInteger sequence = new AtomicInteger();
+    private final MemorySession session = MemorySession.openShared();
+    private final ReentrantLock waitLock = new ReentrantLock();
+    @GuardedBy("waitLock")
+    private final MemorySegment events;
+    private volatile boolean closed;
+
+    /**
+     * A watched process, with the token of its epoll registration.
+     */
+    private record Registration(PidFd fd, long token) {
+    }
+
+    private ProcessExitWatcher(int epfd, int wakefd) {
+        this.epfd = epfd;
+        this.wakefd = wakefd;
+        this.events = MemorySegment.allocateNative(EPOLL_EVENT_SIZE * MAX_EVENTS, session);
+    }
+
+    /**
+     * Creates a watcher.
+     *
+     * @return The watcher, which must be closed, or {@code null} if process file descriptors are not supported
+     */
+    public static ProcessExitWatcher open() {
+        // Confirm support using this process's own ID, which is always valid
+        PidFd self = PidFd.open(LinuxLibc.getpid());
+        if (self == null) {
+            return null;
+        }
+        self.close();
+        int epfd = LinuxLibc.epoll_create1(EPOLL_CLOEXEC);
+        if (epfd < 0) {
+            LOG.debug("epoll_create1 failed. errno={}", LinuxLibc.errno());
+            return null;
+        }
+        int wakefd = LinuxLibc.eventfd(0, EFD_CLOEXEC);
+        if (wakefd < 0 || !register(epfd, wakefd, WAKE_TOKEN)) {
+            LOG.debug("Failed to create wakeup eventfd. errno={}", LinuxLibc.errno());
+            if (wakefd >= 0) {
+                LinuxLibc.close(wakefd);
+            }
+            LinuxLibc.close(epfd);
+            return null;
+        }
+        return new ProcessExitWatcher(epfd, wakefd);
+    }
+
+    /**
+     * Starts watching a process. The process is identified by its ID and start time, so a process whose ID has been
+     * reused is not watched.
+     *
+     * @param proc The process
+     * @return {@code true} if the process is now watched; {@code false} if it has already exited or is already
+     *         watched
+     */
+    public boolean watch(OSProcess proc) {
+        return watch(proc.getProcessID(), proc.getStartTime());
+    }
+
+    /**
+     * Starts watching a process.
+     *
+     * @param pid       The process ID
+     * @param startTime The process start time, in milliseconds since the epoch, as returned by
+     *                  {@link OSProcess#getStartTime()}
+     * @return {@code true} if the process is now watched; {@code false} if it has already exited or is already
+     *         watched
+     */
+    public boolean watch(int pid, long startTime) {
+        if (closed || watched.containsKey(pid)) {
+            return false;
+        }
+        PidFd fd = LinuxOSProcess.openPidFd(pid, startTime);
+        if (fd == null) {
+            return false;
+        }
+        // The sequence number wraps after 2^32 registrations, long after any earlier event has been consumed
+        long token = (long) sequence.incrementAndGet() << 32 | pid & 0xFFFFFFFFL;
+        if (token == WAKE_TOKEN) {
+            token = (long) sequence.incrementAndGet() << 32 | pid & 0xFFFFFFFFL;
+        }
+        Registration reg = new Registration(fd, token);
+        if (watched.putIfAbsent(pid, reg) != null) {
+            fd.close();
+            return false;
+        }
+        if (!register(epfd, fd.getFd(), token)) {
+            LOG.debug("Failed to watch process {}. errno={}", pid, LinuxLibc.errno());
+            watched.remove(pid, reg);
+            fd.close();
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean register(int epfd, int fd, long token) {
+        try (MemorySession confined = MemorySession.openConfined()) {
+            MemorySegment event = MemorySegment.allocateNative(EPOLL_EVENT_SIZE, confined);
+            event.set(JAVA_INT, 0, EPOLLIN);
+            event.set(JAVA_LONG.withBitAlignment(8), EPOLL_EVENT_DATA_OFFSET, token);
+            return LinuxLibc.epoll_ctl(epfd, EPOLL_CTL_ADD, fd, event) == 0;
+        }
+    }
+
+    /**
+     * Stops watching a process.
+     *
+     * @param pid The process ID
+     * @return {@code true} if the process was being watched
+     */
+    public boolean unwatch(int pid) {
+        Registration reg = watched.remove(pid);
+        if (reg == null) {
+            return false;
+        }
+        // Closing the last reference to the descriptor also removes it from the epoll interest list
+        reg.fd().close();
+        return true;
+    }
+
+    /**
+     * Gets the number of processes being watched.
+     *
+     * @return The number of watched processes
+     */
+    public int size() {
+        return watched.size();
+    }
+
+    /**
+     * Waits until at least one watched process exits, the timeout elapses, or the watcher is closed. Exited processes
+     * are no longer watched. Only one thread waits at a time; others wait for it to return first.
+     *
+     * @param timeoutMillis The maximum time to wait in milliseconds, 0 to return immediately, or -1 to wait
+     *                      indefinitely
+     * @param onExit        Receives the ID of each process which has exited
+     * @return The number of exited processes reported
+     */
+    public int awaitExits(int timeoutMillis, IntConsumer onExit) {
+        waitLock.lock();
+        try {
+            if (closed) {
+                return 0;
+            }
+            int n;
+            do {
+                n = LinuxLibc.epoll_wait(epfd, events, MAX_EVENTS, timeoutMillis);
+            } while (n < 0 && LinuxLibc.errno() == EINTR && !closed);
+            if (n < 0) {
+                LOG.debug("epoll_wait failed. errno={}", LinuxLibc.errno());
+                return 0;
+            }
+            int reported = 0;
+            for (int i = 0; i < n; i++) {
+                long token = events.get(JAVA_LONG.withBitAlignment(8),
+                        i * EPOLL_EVENT_SIZE + EPOLL_EVENT_DATA_OFFSET);
+                int pid = (int) token;
+                Registration reg = watched.get(pid);
+                // The process may have been unwatched, and its ID watched again, since the event was queued
+                if (token != WAKE_TOKEN && reg != null && reg.token() == token && watched.remove(pid, reg)) {
+                    LinuxLibc.epoll_ctl(epfd, EPOLL_CTL_DEL, reg.fd().getFd(), events);
+                    reg.fd().close();
+                    onExit.accept(pid);
+                    reported++;
+                }
+            }
+            return reported;
+        } finally {
+            waitLock.unlock();
+        }
+    }
+
+    /**
+     * Stops watching all processes and releases the epoll instance. A thread waiting in
+     * {@link #awaitExits(int, IntConsumer)} is woken and returns.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Integer pid : watched.keySet()) {
+            unwatch(pid);
+        }
+        // Make the eventfd readable, so that a waiting epoll_wait returns
+        try (MemorySession confined = MemorySession.openConfined()) {
+            MemorySegment one = MemorySegment.allocateNative(JAVA_LONG, confined);
+            one.set(JAVA_LONG, 0, 1L);
+            if (LinuxLibc.write(wakefd, one, JAVA_LONG.byteSize()) < 0) {
+                LOG.debug("Failed to wake waiting thread. errno={}", LinuxLibc.errno());
+            }
+        }
+        waitLock.lock();
+        try {
+            LinuxLibc.close(wakefd);
+            LinuxLibc.close(epfd);
+            session.close();
+        } finally {
+            waitLock.unlock();
+        }
+    }
+}
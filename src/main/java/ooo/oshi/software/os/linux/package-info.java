@@ -0,0 +1,8 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+/**
+ * Provides Linux implementations for OS/software classes
+ */
+package ooo.oshi.software.os.linux;
@@ -9,6 +9,7 @@ import static java.lang.foreign.MemoryLayout.PathElement.groupElement;
 import static java.lang.foreign.ValueLayout.ADDRESS;
 import static java.lang.foreign.ValueLayout.JAVA_INT;
 import static java.lang.foreign.ValueLayout.JAVA_LONG;
+import static ooo.oshi.foreign.mac.SystemLibrary.ERANGE;
 import static ooo.oshi.foreign.mac.SystemLibrary.GROUP;
 import static ooo.oshi.foreign.mac.SystemLibrary.MAXCOMLEN;
 import static ooo.oshi.foreign.mac.SystemLibrary.MAXPATHLEN;
@@ -21,8 +22,8 @@ import static ooo.oshi.foreign.mac.SystemLibrary.RUSAGEINFOV2;
 import static ooo.oshi.foreign.mac.SystemLibrary.RUSAGE_INFO_V2;
 import static ooo.oshi.foreign.mac.SystemLibrary.VNODE_PATH_INFO;
 import static ooo.oshi.foreign.mac.SystemLibrary.errno;
-import static ooo.oshi.foreign.mac.SystemLibrary.getgrgid;
-import static ooo.oshi.foreign.mac.SystemLibrary.getpwuid;
+import static ooo.oshi.foreign.mac.SystemLibrary.getgrgid_r;
+import static ooo.oshi.foreign.mac.SystemLibrary.getpwuid_r;
 import static ooo.oshi.foreign.mac.SystemLibrary.proc_pid_rusage;
 import static ooo.oshi.foreign.mac.SystemLibrary.proc_pidinfo;
 import static ooo.oshi.foreign.mac.SystemLibrary.proc_pidpath;
@@ -35,19 +36,22 @@ import static ooo.oshi.software.os.OSProcess.State.STOPPED;
 import static ooo.oshi.software.os.OSProcess.State.WAITING;
 import static ooo.oshi.software.os.OSProcess.State.ZOMBIE;
 import static ooo.oshi.util.Memoizer.memoize;
+import static ooo.oshi.util.Memoizer.memoizeSource;
 
 import java.lang.foreign.MemoryAddress;
 import java.lang.foreign.MemoryLayout.PathElement;
 import java.lang.foreign.MemorySegment;
+import java.lang.foreign.MemorySession;
 import java.lang.foreign.SegmentAllocator;
 import java.lang.foreign.ValueLayout;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Supplier;
+import java.util.concurrent.TimeUnit;
 
 import ooo.oshi.util.Tuples.Pair;
 import org.slf4j.Logger;
@@ -56,7 +60,10 @@ import org.slf4j.LoggerFactory;
 import ooo.oshi.annotation.concurrent.ThreadSafe;
 import ooo.oshi.foreign.mac.SystemLibrary;
 import ooo.oshi.software.os.OSThread;
+import ooo.oshi.software.os.ProcessField;
 import ooo.oshi.software.os.common.AbstractOSProcess;
+import ooo.oshi.util.IntKeyedMemoizer;
+import ooo.oshi.util.SourceGroup;
 import ooo.oshi.util.platform.mac.SysctlUtil;
 
 /**
@@ -115,11 +122,31 @@ public class MacOSProcess extends AbstractOSProcess {
     private static final long VIP_PATH_OFFSET = VNODE_PATH_INFO.byteOffset(groupElement("pvi_cdir"),
             groupElement("vip_path"));
 
+    private static final EnumSet<ProcessField> ALL_FIELDS = ProcessField.all();
+
+    // Users and groups change rarely, so names are cached rather than looked up for every process on every update
+    private static final long NAME_TTL_NANOS = TimeUnit.MINUTES.toNanos(5);
+    private static final int MAX_NAMES = 1024;
+    // Doubled on ERANGE up to the maximum
+    private static final long DEFAULT_NAME_BUFFER_SIZE = 1024L;
+    private static final long MAX_NAME_BUFFER_SIZE = 1L << 20;
+    private static final IntKeyedMemoizer<String> USER_NAMES = memoize("MacOSProcess.getpwuid_r",
+            MacOSProcess::queryUserName, NAME_TTL_NANOS, MAX_NAMES);
+    private static final IntKeyedMemoizer<String> GROUP_NAMES = memoize("MacOSProcess.getgrgid_r",
+            MacOSProcess::queryGroupName, NAME_TTL_NANOS, MAX_NAMES);
+
     private int majorVersion;
     private int minorVersion;
 
-    private Supplier<String> commandLine = memoize(this::queryCommandLine);
-    private Supplier<Pair<List<String>, Map<String, String>>> argsEnviron = memoize(this::queryArgsAndEnvironment);
+    // Read again on every update, into one native buffer per process; the group records the latency of each call
+    private final SourceGroup<TaskAllInfo> taskAllInfo = memoizeSource("MacOSProcess.proc_pidinfo",
+            () -> MemorySegment.allocateNative(PROC_TASK_ALL_INFO, MemorySession.openImplicit()),
+            this::readTaskAllInfo, 0L);
+
+    // Read on first request and kept for the life of the process. Concurrent first requests may each read the
+    // values, which are the same, so no lock is needed.
+    private volatile String commandLine;
+    private volatile Pair<List<String>, Map<String, String>> argsEnviron;
 
     private String name = "";
     private String path = "";
@@ -153,6 +180,21 @@ public class MacOSProcess extends AbstractOSProcess {
         updateAttributes();
     }
 
+    /**
+     * Creates a process, reading only the requested fields.
+     *
+     * @param pid    The process ID
+     * @param major  The macOS major version
+     * @param minor  The macOS minor version
+     * @param fields The fields to read
+     */
+    public MacOSProcess(int pid, int major, int minor, EnumSet<ProcessField> fields) {
+        super(pid);
+        this.majorVersion = major;
+        this.minorVersion = minor;
+        updateAttributes(fields);
+    }
+
     @Override
     public String getName() {
         return this.name;
@@ -165,21 +207,31 @@ public class MacOSProcess extends AbstractOSProcess {
 
     @Override
     public String getCommandLine() {
-        return this.commandLine.get();
-    }
-
-    private String queryCommandLine() {
-        return String.join(" ", getArguments()).trim();
+        String cmd = this.commandLine;
+        if (cmd == null) {
+            cmd = String.join(" ", getArguments()).trim();
+            this.commandLine = cmd;
+        }
+        return cmd;
     }
 
     @Override
     public List<String> getArguments() {
-        return argsEnviron.get().a();
+        return argsEnviron().a();
     }
 
     @Override
     public Map<String, String> getEnvironmentVariables() {
-        return argsEnviron.get().b();
+        return argsEnviron().b();
+    }
+
+    private Pair<List<String>, Map<String, String>> argsEnviron() {
+        Pair<List<String>, Map<String, String>> ae = this.argsEnviron;
+        if (ae == null) {
+            ae = queryArgsAndEnvironment();
+            this.argsEnviron = ae;
+        }
+        return ae;
     }
 
     private Pair<List<String>, Map<String, String>> queryArgsAndEnvironment() {
@@ -374,36 +426,50 @@ public class MacOSProcess extends AbstractOSProcess {
 
     @Override
     public boolean updateAttributes() {
+        return updateAttributes(ALL_FIELDS);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * On macOS, {@code PROC_PIDTASKALLINFO} is always read. The executable path, user and group names, disk I/O usage
+     * and working directory are each read only if requested. The command line and environment are read on first
+     * access.
+     */
+    @Override
+    public boolean updateAttributes(EnumSet<ProcessField> fields) {
         long now = System.currentTimeMillis();
-        SegmentAllocator allocator = SegmentAllocator.implicitAllocator();
-        int size = (int) PROC_TASK_ALL_INFO.byteSize();
-        MemorySegment m = allocator.allocate(size);
-        if (0 > proc_pidinfo(getProcessID(), PROC_PIDTASKALLINFO, 0, m, size)) {
+        TaskAllInfo info = this.taskAllInfo.get();
+        if (info == null) {
             this.state = INVALID;
             return false;
         }
         // Check threadcount first: 0 is invalid
-        this.threadCount = m.get(JAVA_INT, TNUM_OFFSET);
+        this.threadCount = info.threadCount();
         if (0 == this.threadCount) {
             this.state = INVALID;
             return false;
         }
 
-        MemorySegment buf = allocator.allocate(PROC_PIDPATHINFO_MAXSIZE);
-        if (0 < proc_pidpath(getProcessID(), buf, PROC_PIDPATHINFO_MAXSIZE)) {
-            this.path = buf.getUtf8String(0);
-            // Overwrite name with last part of path
-            String[] pathSplit = this.path.split("/");
-            if (pathSplit.length > 0) {
-                this.name = pathSplit[pathSplit.length - 1];
+        SegmentAllocator allocator = SegmentAllocator.implicitAllocator();
+
+        if (fields.contains(ProcessField.NAME) || fields.contains(ProcessField.PATH)) {
+            MemorySegment buf = allocator.allocate(PROC_PIDPATHINFO_MAXSIZE);
+            if (0 < proc_pidpath(getProcessID(), buf, PROC_PIDPATHINFO_MAXSIZE)) {
+                this.path = buf.getUtf8String(0);
+                // Overwrite name with last part of path
+                String[] pathSplit = this.path.split("/");
+                if (pathSplit.length > 0) {
+                    this.name = pathSplit[pathSplit.length - 1];
+                }
             }
         }
         if (this.name.isEmpty()) {
             // pbi_comm contains first 16 characters of name
-            this.name = m.asSlice(COMM_OFFSET, MAXCOMLEN).getUtf8String(0);
+            this.name = info.comm();
         }
 
-        switch (m.get(JAVA_INT, STATUS_OFFSET)) {
+        switch (info.status()) {
         case SSLEEP:
             this.state = SLEEPING;
             break;
@@ -426,36 +492,40 @@ public class MacOSProcess extends AbstractOSProcess {
             this.state = OTHER;
             break;
         }
-        this.parentProcessID = m.get(JAVA_INT, PPID_OFFSET);
+        this.parentProcessID = info.parentProcessID();
 
-        int uid = m.get(JAVA_INT, UID_OFFSET);
+        int uid = info.uid();
         this.userID = Integer.toString(uid);
-        MemoryAddress pwuid = getpwuid(uid);
-        if (!pwuid.equals(NULL)) {
-            this.user = pwuid.get(ADDRESS, PASSWD_NAME_OFFSET).getUtf8String(0);
+        if (fields.contains(ProcessField.USER)) {
+            String name = USER_NAMES.apply(uid);
+            if (name != null) {
+                this.user = name;
+            }
         }
-        int gid = m.get(JAVA_INT, GID_OFFSET);
+        int gid = info.gid();
         this.groupID = Integer.toString(gid);
-        MemoryAddress grgid = getgrgid(gid);
-        if (!grgid.equals(NULL)) {
-            this.group = grgid.get(ADDRESS, GROUP_NAME_OFFSET).getUtf8String(0);
+        if (fields.contains(ProcessField.GROUP)) {
+            String name = GROUP_NAMES.apply(gid);
+            if (name != null) {
+                this.group = name;
+            }
         }
 
-        this.priority = m.get(JAVA_INT, PRI_OFFSET);
-        this.virtualSize = m.get(JAVA_LONG, VSZ_OFFSET);
-        this.residentSetSize = m.get(JAVA_LONG, RSS_OFFSET);
-        this.kernelTime = m.get(JAVA_LONG, SYS_OFFSET) / 1_000_000L;
-        this.userTime = m.get(JAVA_LONG, USR_OFFSET) / 1_000_000L;
-        this.startTime = m.get(JAVA_LONG, START_SEC_OFFSET) * 1000L + m.get(JAVA_LONG, START_USEC_OFFSET) / 1000L;
+        this.priority = info.priority();
+        this.virtualSize = info.virtualSize();
+        this.residentSetSize = info.residentSetSize();
+        this.kernelTime = info.kernelTime();
+        this.userTime = info.userTime();
+        this.startTime = info.startTime();
         this.upTime = now - this.startTime;
-        this.openFiles = m.get(JAVA_INT, NFILES_OFFSET);
-        this.bitness = (m.get(JAVA_INT, FLAGS_OFFSET) & P_LP64) == 0 ? 32 : 64;
-        this.majorFaults = m.get(JAVA_INT, PGIN_OFFSET);
+        this.openFiles = info.openFiles();
+        this.bitness = (info.flags() & P_LP64) == 0 ? 32 : 64;
+        this.majorFaults = info.pageIns();
         // testing using getrusage confirms pti_faults includes both major and minor
-        this.minorFaults = m.get(JAVA_INT, FLTS_OFFSET) - this.majorFaults;
-        this.contextSwitches = m.get(JAVA_INT, CSW_OFFSET);
+        this.minorFaults = info.faults() - this.majorFaults;
+        this.contextSwitches = info.contextSwitches();
 
-        if (this.majorVersion > 10 || this.minorVersion >= 9) {
+        if (fields.contains(ProcessField.DISK_IO) && (this.majorVersion > 10 || this.minorVersion >= 9)) {
             MemorySegment rUsageInfoV2 = allocator.allocate(RUSAGEINFOV2.byteSize());
             if (0 == proc_pid_rusage(getProcessID(), RUSAGE_INFO_V2, rUsageInfoV2)) {
                 this.bytesRead = rUsageInfoV2.get(JAVA_LONG, DISKIO_READ_OFFSET);
@@ -463,11 +533,74 @@ public class MacOSProcess extends AbstractOSProcess {
             }
         }
 
-        size = (int) VNODE_PATH_INFO.byteSize();
-        MemorySegment vpi = allocator.allocate(size);
-        if (0 < proc_pidinfo(getProcessID(), PROC_PIDVNODEPATHINFO, 0, vpi, size)) {
-            this.currentWorkingDirectory = vpi.asSlice(VIP_PATH_OFFSET, MAXPATHLEN).getUtf8String(0);
+        if (fields.contains(ProcessField.CURRENT_WORKING_DIRECTORY)) {
+            int size = (int) VNODE_PATH_INFO.byteSize();
+            MemorySegment vpi = allocator.allocate(size);
+            if (0 < proc_pidinfo(getProcessID(), PROC_PIDVNODEPATHINFO, 0, vpi, size)) {
+                this.currentWorkingDirectory = vpi.asSlice(VIP_PATH_OFFSET, MAXPATHLEN).getUtf8String(0);
+            }
         }
         return true;
     }
+
+    /**
+     * Reads {@code PROC_PIDTASKALLINFO} into the buffer and copies the fields used by this class.
+     *
+     * @param m A buffer of the size of {@code proc_taskallinfo}
+     * @return The fields, or {@code null} if the call failed
+     */
+    private TaskAllInfo readTaskAllInfo(MemorySegment m) {
+        if (0 > proc_pidinfo(getProcessID(), PROC_PIDTASKALLINFO, 0, m, (int) m.byteSize())) {
+            return null;
+        }
+        return new TaskAllInfo(m.asSlice(COMM_OFFSET, MAXCOMLEN).getUtf8String(0), m.get(JAVA_INT, STATUS_OFFSET),
+                m.get(JAVA_INT, PPID_OFFSET), m.get(JAVA_INT, UID_OFFSET), m.get(JAVA_INT, GID_OFFSET),
+                m.get(JAVA_INT, TNUM_OFFSET), m.get(JAVA_INT, PRI_OFFSET), m.get(JAVA_LONG, VSZ_OFFSET),
+                m.get(JAVA_LONG, RSS_OFFSET), m.get(JAVA_LONG, SYS_OFFSET) / 1_000_000L,
+                m.get(JAVA_LONG, USR_OFFSET) / 1_000_000L,
+                m.get(JAVA_LONG, START_SEC_OFFSET) * 1000L + m.get(JAVA_LONG, START_USEC_OFFSET) / 1000L,
+                m.get(JAVA_INT, NFILES_OFFSET), m.get(JAVA_INT, FLAGS_OFFSET), m.get(JAVA_INT, PGIN_OFFSET),
+                m.get(JAVA_INT, FLTS_OFFSET), m.get(JAVA_INT, CSW_OFFSET));
+    }
+
+    /**
+     * The fields of {@code proc_taskallinfo} used by this class, copied out of the native buffer. Times are in
+     * milliseconds.
+     */
+    private record TaskAllInfo(String comm, int status, int parentProcessID, int uid, int gid, int threadCount,
+            int priority, long virtualSize, long residentSetSize, long kernelTime, long userTime, long startTime,
+            int openFiles, int flags, int pageIns, int faults, int contextSwitches) {
+    }
+
+    private static String queryUserName(int uid) {
+        return queryName(uid, true);
+    }
+
+    private static String queryGroupName(int gid) {
+        return queryName(gid, false);
+    }
+
+    private static String queryName(int id, boolean user) {
+        long size = DEFAULT_NAME_BUFFER_SIZE;
+        try (MemorySession session = MemorySession.openConfined()) {
+            MemorySegment entry = session.allocate(user ? PASSWD : GROUP);
+            MemorySegment result = session.allocate(ADDRESS);
+            while (true) {
+                MemorySegment buf = session.allocate(size);
+                int err = user ? getpwuid_r(id, entry, buf, size, result) : getgrgid_r(id, entry, buf, size, result);
+                if (err == 0) {
+                    if (result.get(ADDRESS, 0).equals(NULL)) {
+                        return null;
+                    }
+                    MemoryAddress name = entry.get(ADDRESS, user ? PASSWD_NAME_OFFSET : GROUP_NAME_OFFSET);
+                    return name.equals(NULL) ? null : name.getUtf8String(0);
+                }
+                if (err != ERANGE || size >= MAX_NAME_BUFFER_SIZE) {
+                    LOG.debug("Failed to look up {} ID {}, Error code: {}", user ? "user" : "group", id, err);
+                    return null;
+                }
+                size *= 2;
+            }
+        }
+    }
 }
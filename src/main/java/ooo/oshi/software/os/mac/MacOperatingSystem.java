@@ -14,13 +14,16 @@ import static ooo.oshi.software.os.OSProcess.State.INVALID;
 
 import java.lang.foreign.MemorySegment;
 import java.lang.foreign.SegmentAllocator;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
 
 import ooo.oshi.software.os.OSProcess;
+import ooo.oshi.software.os.ProcessField;
+import ooo.oshi.software.os.ProcessFilter;
 import ooo.oshi.software.os.common.AbstractOperatingSystem;
+import ooo.oshi.util.CollectionExecutor;
 import ooo.oshi.util.ExecutingCommand;
 import ooo.oshi.util.ParseUtil;
 import ooo.oshi.util.platform.mac.SysctlUtil;
@@ -51,14 +54,58 @@ public class MacOperatingSystem extends AbstractOperatingSystem {
 
     @Override
     protected List<OSProcess> queryAllProcesses() {
+        return CollectionExecutor.getDefault().map(getProcessIds(), pid -> {
+            OSProcess p = getProcess(pid);
+            return p != null && ProcessFiltering.VALID_PROCESS.test(p) ? p : null;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * On macOS, the path, user and group names, disk I/O usage and working directory are read only if requested.
+     */
+    @Override
+    protected List<OSProcess> queryAllProcesses(EnumSet<ProcessField> fields) {
+        return CollectionExecutor.getDefault().map(getProcessIds(), pid -> {
+            OSProcess p = new MacOSProcess(pid, this.major, this.minor, fields);
+            return ProcessFiltering.VALID_PROCESS.test(p) ? p : null;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * On macOS, the parent process ID, state and user ID are tested using only {@code PROC_PIDTASKALLINFO}. The
+     * remaining fields, including the path used for the name, are read only for processes which pass.
+     */
+    @Override
+    protected List<OSProcess> queryProcesses(ProcessFilter filter, EnumSet<ProcessField> fields) {
+        if (filter.getControlGroup() != null) {
+            return new ArrayList<>();
+        }
+        EnumSet<ProcessField> none = EnumSet.noneOf(ProcessField.class);
+        EnumSet<ProcessField> rest = fields == null ? ProcessField.all() : EnumSet.copyOf(fields);
+        rest.add(ProcessField.NAME);
+        int[] pids = Arrays.stream(getProcessIds()).filter(filter::testProcessId).toArray();
+        return CollectionExecutor.getDefault().map(pids, pid -> {
+            OSProcess p = new MacOSProcess(pid, this.major, this.minor, none);
+            if (p.getState().equals(INVALID) || !filter.testParentAndState(p) || !filter.testUser(p)) {
+                return null;
+            }
+            return p.updateAttributes(rest) && filter.testName(p) && filter.testPostFilter(p) ? p : null;
+        });
+    }
+
+    @Override
+    public int[] getProcessIds() {
         int numberOfProcesses = proc_listpids(PROC_ALL_PIDS, 0, NULL, 0) / INT_SIZE;
         int[] pids = new int[numberOfProcesses];
         SegmentAllocator allocator = SegmentAllocator.implicitAllocator();
         MemorySegment cPids = allocator.allocateArray(JAVA_INT, pids);
         numberOfProcesses = proc_listpids(PROC_ALL_PIDS, 0, cPids, pids.length * INT_SIZE) / INT_SIZE;
         pids = cPids.toArray(JAVA_INT);
-        return Arrays.stream(pids).distinct().parallel().mapToObj(this::getProcess).filter(Objects::nonNull)
-                .filter(ProcessFiltering.VALID_PROCESS).collect(Collectors.toList());
+        return Arrays.stream(pids).distinct().toArray();
     }
 
     @Override
@@ -0,0 +1,344 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ooo.oshi.annotation.concurrent.ThreadSafe;
+
+/**
+ * Runs bulk collection work, such as reading every process, on a dedicated set of threads rather than the common
+ * {@link java.util.concurrent.ForkJoinPool}, where blocking system calls would hold up unrelated parallel streams.
+ * <p>
+ * Work is divided into chunks of consecutive indices. Each call runs at most {@link #getParallelism()} chunks at once:
+ * the calling thread claims chunks itself, and up to {@code parallelism - 1} helper tasks claim the rest, so a call
+ * completes even when all helper threads are busy with other calls.
+ * <p>
+ * The default instance is configured with system properties: {@value #THREADS_PROPERTY} selects {@code platform}
+ * threads (the default) or {@code virtual} threads, {@value #PARALLELISM_PROPERTY} caps the concurrency of each call
+ * (default: the number of available processors), and {@value #CHUNK_SIZE_PROPERTY} sets the number of indices per
+ * chunk (default {@value #DEFAULT_CHUNK_SIZE}).
+ * <p>
+ * Readers of native sources keep their buffers in {@link ThreadLocal}s, which are allocated once per thread and then
+ * reused. Platform helper threads are pooled, so in steady state a scan allocates no native memory. Virtual helper
+ * threads are started for each call and are never reused, so each helper task allocates its own buffers, which are
+ * freed only when garbage collected. Virtual threads therefore give up the allocation-free path; they suit callers
+ * which would otherwise block many platform threads, not repeated scans.
+ */
+@ThreadSafe
+public final class CollectionExecutor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CollectionExecutor.class);
+
+    public static final String THREADS_PROPERTY = "oshi.collection.threads";
+    public static final String PARALLELISM_PROPERTY = "oshi.collection.parallelism";
+    public static final String CHUNK_SIZE_PROPERTY = "oshi.collection.chunksize";
+
+    public static final int DEFAULT_CHUNK_SIZE = 32;
+
+    private static volatile CollectionExecutor defaultExecutor;
+
+    private final ExecutorService executor;
+    private final boolean virtual;
+    private final int parallelism;
+    private final int chunkSize;
+
+    private final AtomicLong queuedChunks = new AtomicLong();
+    private final AtomicLong maxQueuedChunks = new AtomicLong();
+    private final LongAdder chunks = new LongAdder();
+    private final LongAdder chunkNanos = new LongAdder();
+    private final AtomicLong maxChunkNanos = new AtomicLong();
+
+    /**
+     * Counters of the work run by an executor since it was created.
+     *
+     * @param queuedChunks    The number of chunks currently waiting to be claimed
+     * @param maxQueuedChunks The largest number of chunks which have waited to be claimed at once
+     * @param chunks          The number of chunks completed
+     * @param chunkNanos      The total time in nanoseconds spent running chunks
+     * @param maxChunkNanos   The longest time in nanoseconds spent running one chunk
+     */
+    public record Statistics(long queuedChunks, long maxQueuedChunks, long chunks, long chunkNanos,
+            long maxChunkNanos) {
+
+        /**
+         * Gets the mean time to run a chunk.
+         *
+         * @return The mean chunk latency in nanoseconds, or 0 if no chunks have run
+         */
+        public long meanChunkNanos() {
+            return chunks == 0 ? 0L : chunkNanos / chunks;
+        }
+    }
+
+    private CollectionExecutor(boolean virtual, int parallelism, int chunkSize) {
+        if (parallelism < 1 || chunkSize < 1) {
+            throw new IllegalArgumentException("Parallelism and chunk size must be positive");
+        }
+        this.virtual = virtual;
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+        if (parallelism == 1) {
+            this.executor = null;
+        } else if (virtual) {
+            this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("oshi-collector-", 0).factory());
+        } else {
+            AtomicInteger count = new AtomicInteger();
+            ThreadFactory factory = r -> {
+                Thread t = new Thread(r, "oshi-collector-" + count.getAndIncrement());
+                t.setDaemon(true);
+                return t;
+            };
+            // Helper threads beyond the parallelism of one call are not needed, and idle ones exit
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(parallelism - 1, parallelism - 1, 30L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), factory);
+            pool.allowCoreThreadTimeOut(true);
+            this.executor = pool;
+        }
+    }
+
+    /**
+     * Creates an executor using platform threads.
+     *
+     * @param parallelism The maximum number of chunks of one call to run at once, including the calling thread
+     * @param chunkSize   The number of indices in each chunk
+     * @return A new executor
+     */
+    public static CollectionExecutor ofPlatformThreads(int parallelism, int chunkSize) {
+        return new CollectionExecutor(false, parallelism, chunkSize);
+    }
+
+    /**
+     * Creates an executor starting a virtual thread for each helper task. Per-thread native buffers are allocated
+     * again by each helper task rather than reused.
+     *
+     * @param parallelism The maximum number of chunks of one call to run at once, including the calling thread
+     * @param chunkSize   The number of indices in each chunk
+     * @return A new executor
+     */
+    public static CollectionExecutor ofVirtualThreads(int parallelism, int chunkSize) {
+        return new CollectionExecutor(true, parallelism, chunkSize);
+    }
+
+    /**
+     * Gets the executor used for bulk process queries, creating it from the system properties on first use.
+     *
+     * @return The default executor
+     */
+    public static CollectionExecutor getDefault() {
+        CollectionExecutor e = defaultExecutor;
+        if (e == null) {
+            synchronized (CollectionExecutor.class) {
+                e = defaultExecutor;
+                if (e == null) {
+                    e = fromProperties();
+                    defaultExecutor = e;
+                }
+            }
+        }
+        return e;
+    }
+
+    /**
+     * Replaces the executor used for bulk process queries. The previous executor is not shut down, as calls may still
+     * be using it.
+     *
+     * @param executor The new default executor
+     */
+    public static void setDefault(CollectionExecutor executor) {
+        defaultExecutor = Objects.requireNonNull(executor);
+    }
+
+    private static CollectionExecutor fromProperties() {
+        int parallelism = Integer.getInteger(PARALLELISM_PROPERTY, Runtime.getRuntime().availableProcessors());
+        int chunkSize = Integer.getInteger(CHUNK_SIZE_PROPERTY, DEFAULT_CHUNK_SIZE);
+        boolean virtual = "virtual".equalsIgnoreCase(System.getProperty(THREADS_PROPERTY, "platform"));
+        LOG.debug("Collection executor: {} threads, parallelism {}, chunk size {}", virtual ? "virtual" : "platform",
+                parallelism, chunkSize);
+        return new CollectionExecutor(virtual, Math.max(parallelism, 1), Math.max(chunkSize, 1));
+    }
+
+    /**
+     * Gets whether helper tasks run on virtual threads.
+     *
+     * @return {@code true} for virtual threads, {@code false} for platform threads
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * Gets the maximum number of chunks of one call run at once.
+     *
+     * @return The parallelism
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Gets the number of indices in each chunk.
+     *
+     * @return The chunk size
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Gets the counters of the work run by this executor.
+     *
+     * @return The current statistics
+     */
+    public Statistics getStatistics() {
+        return new Statistics(queuedChunks.get(), maxQueuedChunks.get(), chunks.sum(), chunkNanos.sum(),
+                maxChunkNanos.get());
+    }
+
+    /**
+     * Maps each key to a value, in parallel.
+     *
+     * @param <T>    The type of the values
+     * @param keys   The keys, such as process IDs
+     * @param mapper Maps a key to its value, or to {@code null} to omit it
+     * @return The non-null values, in the order of their keys
+     */
+    public <T> List<T> map(int[] keys, IntFunction<T> mapper) {
+        Object[] values = new Object[keys.length];
+        forEach(keys.length, i -> values[i] = mapper.apply(keys[i]));
+        List<T> result = new ArrayList<>(keys.length);
+        for (Object value : values) {
+            if (value != null) {
+                @SuppressWarnings("unchecked")
+                T t = (T) value;
+                result.add(t);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Runs an action for each index from 0 to {@code count - 1}, in parallel, and waits for all to complete. If any
+     * action throws, the first exception is rethrown after the others complete.
+     *
+     * @param count  The number of indices
+     * @param action The action
+     */
+    public void forEach(int count, IntConsumer action) {
+        int chunkCount = (count + chunkSize - 1) / chunkSize;
+        if (chunkCount == 0) {
+            return;
+        }
+        Batch batch = new Batch(count, chunkCount, action);
+        enqueued(chunkCount);
+        int helpers = Math.min(parallelism, chunkCount) - 1;
+        for (int i = 0; i < helpers; i++) {
+            try {
+                executor.execute(batch::run);
+            } catch (RejectedExecutionException e) {
+                // The calling thread completes the remaining chunks
+                break;
+            }
+        }
+        batch.run();
+        batch.await();
+    }
+
+    private void enqueued(long n) {
+        long depth = queuedChunks.addAndGet(n);
+        maxQueuedChunks.accumulateAndGet(depth, Math::max);
+    }
+
+    private void completed(long nanos) {
+        chunks.increment();
+        chunkNanos.add(nanos);
+        maxChunkNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * The chunks of one call, claimed in order by the calling thread and helper tasks.
+     */
+    private final class Batch {
+        private final int count;
+        private final int chunkCount;
+        private final IntConsumer action;
+        private final AtomicInteger nextChunk = new AtomicInteger();
+        private final CountDownLatch done;
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        private Batch(int count, int chunkCount, IntConsumer action) {
+            this.count = count;
+            this.chunkCount = chunkCount;
+            this.action = action;
+            this.done = new CountDownLatch(chunkCount);
+        }
+
+        private void run() {
+            int chunk;
+            while ((chunk = nextChunk.getAndIncrement()) < chunkCount) {
+                queuedChunks.decrementAndGet();
+                long start = System.nanoTime();
+                try {
+                    if (failure.get() == null) {
+                        int end = Math.min(count, (chunk + 1) * chunkSize);
+                        for (int i = chunk * chunkSize; i < end; i++) {
+                            action.accept(i);
+                        }
+                    }
+                } catch (Throwable t) { // NOSONAR squid:S1181
+                    failure.compareAndSet(null, t);
+                } finally {
+                    completed(System.nanoTime() - start);
+                    done.countDown();
+                }
+            }
+        }
+
+        private void await() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    done.await();
+                    break;
+                } catch (InterruptedException e) {
+                    // Chunks claimed by helpers still refer to the caller's arrays, so wait for them regardless
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            Throwable t = failure.get();
+            if (t instanceof RuntimeException re) {
+                throw re;
+            }
+            if (t instanceof Error err) {
+                throw err;
+            }
+            if (t != null) {
+                throw new IllegalStateException(t);
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ooo.oshi.annotation.concurrent.ThreadSafe;
+
+/**
+ * File reading methods
+ */
+@ThreadSafe
+public final class FileUtil {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileUtil.class);
+
+    private static final String READING_LOG = "Reading file {}";
+    private static final String READ_LOG = "Read {}";
+
+    private FileUtil() {
+    }
+
+    /**
+     * Read an entire file at one time. Intended primarily for Linux /proc filesystem to avoid recalculating file
+     * contents on iterative reads.
+     *
+     * @param filename The file to read
+     * @return A list of Strings representing each line of the file, or an empty list if file could not be read or is
+     *         empty
+     */
+    public static List<String> readFile(String filename) {
+        return readFile(filename, true);
+    }
+
+    /**
+     * Read an entire file at one time. Intended primarily for Linux /proc filesystem to avoid recalculating file
+     * contents on iterative reads.
+     *
+     * @param filename    The file to read
+     * @param reportError Whether to log errors reading the file
+     * @return A list of Strings representing each line of the file, or an empty list if file could not be read or is
+     *         empty
+     */
+    public static List<String> readFile(String filename, boolean reportError) {
+        Path path = Paths.get(filename);
+        if (Files.isReadable(path)) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(READING_LOG, filename);
+            }
+            try {
+                return Files.readAllLines(path, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                if (reportError) {
+                    LOG.error("Error reading file {}. {}", filename, e.getMessage());
+                } else {
+                    LOG.debug("Error reading file {}. {}", filename, e.getMessage());
+                }
+            }
+        } else if (reportError) {
+            LOG.warn("File not found or not readable: {}", filename);
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Read a file and return the String value contained therein. Intended primarily for Linux /sys filesystem
+     *
+     * @param filename The file to read
+     * @return The value contained in the file, if any; otherwise empty string
+     */
+    public static String getStringFromFile(String filename) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(READING_LOG, filename);
+        }
+        List<String> read = readFile(filename, false);
+        if (!read.isEmpty()) {
+            if (LOG.isTraceEnabled()) {
+                LOG.trace(READ_LOG, read.get(0));
+            }
+            return read.get(0).trim();
+        }
+        return "";
+    }
+}
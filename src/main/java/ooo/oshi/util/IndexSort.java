@@ -0,0 +1,166 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.util;
+
+import java.util.Comparator;
+import java.util.List;
+
+import ooo.oshi.annotation.concurrent.ThreadSafe;
+
+/**
+ * Sorts arrays of indices by primitive keys, without boxing either the indices or the keys.
+ * <p>
+ * The {@code select} methods find only the first {@code k} indices in sorted order using a bounded heap, in
+ * {@code O(n log k)} time. Ties are broken by the lesser index, so when the indices are initially ascending the result
+ * is the same as the first {@code k} elements of a stable sort.
+ */
+@ThreadSafe
+public final class IndexSort {
+
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+
+    private IndexSort() {
+    }
+
+    /**
+     * Stably sorts an array of indices by the keys they reference.
+     *
+     * @param index      The indices to sort, each a valid index into {@code keys}
+     * @param count      The number of leading elements of {@code index} to sort
+     * @param keys       The sort keys
+     * @param descending Whether to sort by decreasing key
+     */
+    public static void sort(int[] index, int count, long[] keys, boolean descending) {
+        if (count < 2) {
+            return;
+        }
+        int[] buffer = new int[count];
+        mergeSort(index, buffer, 0, count, keys, descending);
+    }
+
+    /**
+     * Selects the first {@code k} indices in order of the keys they reference, moving them in sorted order to the start
+     * of the array. The remaining elements are left in unspecified order.
+     *
+     * @param index      The indices to select from, each a valid index into {@code keys}
+     * @param count      The number of leading elements of {@code index} to select from
+     * @param keys       The sort keys
+     * @param descending Whether to order by decreasing key
+     * @param k          The number of indices to select, or 0 to sort all of them
+     * @return The number of indices selected, the lesser of {@code k} and {@code count}
+     */
+    public static int select(int[] index, int count, long[] keys, boolean descending, int k) {
+        if (k <= 0 || k >= count) {
+            sort(index, count, keys, descending);
+            return count;
+        }
+        return heapSelect(index, count, k, (a, b) -> {
+            long ka = keys[a];
+            long kb = keys[b];
+            return ka == kb ? a < b : before(ka, kb, descending);
+        });
+    }
+
+    /**
+     * Selects the first {@code k} indices in order of the list elements they reference, moving them in sorted order to
+     * the start of the array. The remaining elements are left in unspecified order.
+     *
+     * @param <T>   The type of list elements
+     * @param index The indices to select from, each a valid index into {@code items}
+     * @param count The number of leading elements of {@code index} to select from
+     * @param items The elements to compare
+     * @param order The order of the elements
+     * @param k     The number of indices to select, or 0 to sort all of them
+     * @return The number of indices selected, the lesser of {@code k} and {@code count}
+     */
+    public static <T> int select(int[] index, int count, List<? extends T> items, Comparator<? super T> order, int k) {
+        int n = k <= 0 || k >= count ? count : k;
+        return heapSelect(index, count, n, (a, b) -> {
+            int c = order.compare(items.get(a), items.get(b));
+            return c == 0 ? a < b : c < 0;
+        });
+    }
+
+    /**
+     * Keeps the best {@code k} indices seen so far in a heap at the start of the array, with the one which would sort
+     * last at the root, then sorts the heap in place.
+     */
+    private static int heapSelect(int[] index, int count, int k, Precedence precedes) {
+        for (int i = (k >>> 1) - 1; i >= 0; i--) {
+            siftDown(index, i, k, precedes);
+        }
+        for (int i = k; i < count; i++) {
+            if (precedes.test(index[i], index[0])) {
+                int evicted = index[0];
+                index[0] = index[i];
+                index[i] = evicted;
+                siftDown(index, 0, k, precedes);
+            }
+        }
+        for (int end = k - 1; end > 0; end--) {
+            int last = index[0];
+            index[0] = index[end];
+            index[end] = last;
+            siftDown(index, 0, end, precedes);
+        }
+        return k;
+    }
+
+    private static void siftDown(int[] heap, int i, int size, Precedence precedes) {
+        int value = heap[i];
+        int child;
+        while ((child = 2 * i + 1) < size) {
+            if (child + 1 < size && precedes.test(heap[child], heap[child + 1])) {
+                child++;
+            }
+            if (!precedes.test(value, heap[child])) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = value;
+    }
+
+    @FunctionalInterface
+    private interface Precedence {
+        boolean test(int a, int b);
+    }
+
+    private static void mergeSort(int[] index, int[] buffer, int from, int to, long[] keys, boolean descending) {
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            for (int i = from + 1; i < to; i++) {
+                int value = index[i];
+                int j = i - 1;
+                while (j >= from && before(keys[value], keys[index[j]], descending)) {
+                    index[j + 1] = index[j];
+                    j--;
+                }
+                index[j + 1] = value;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(index, buffer, from, mid, keys, descending);
+        mergeSort(index, buffer, mid, to, keys, descending);
+        if (!before(keys[index[mid]], keys[index[mid - 1]], descending)) {
+            return;
+        }
+        System.arraycopy(index, from, buffer, from, to - from);
+        int left = from;
+        int right = mid;
+        for (int i = from; i < to; i++) {
+            if (right >= to || left < mid && !before(keys[buffer[right]], keys[buffer[left]], descending)) {
+                index[i] = buffer[left++];
+            } else {
+                index[i] = buffer[right++];
+            }
+        }
+    }
+
+    private static boolean before(long a, long b, boolean descending) {
+        return descending ? a > b : a < b;
+    }
+}
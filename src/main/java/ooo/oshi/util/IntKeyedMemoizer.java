@@ -0,0 +1,411 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.util;
+
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
+
+import ooo.oshi.annotation.concurrent.GuardedBy;
+import ooo.oshi.annotation.concurrent.ThreadSafe;
+
+/**
+ * A memoized function of an int key, such as a process, user or group ID, holding a bounded number of values. Each
+ * value is retained until its time to live expires, and when the memoizer is full, the least recently used value is
+ * evicted.
+ * <p>
+ * Keys are held in primitive arrays, so lookups do not box them. When several threads request the same missing key at
+ * once, one computes the value and the others wait for it. Values may be {@code null}.
+ *
+ * @param <V> The type of the values
+ */
+@ThreadSafe
+public final class IntKeyedMemoizer<V> implements IntFunction<V> {
+
+    private static final Object NULL_VALUE = new Object();
+    private static final int NONE = -1;
+
+    private final IntFunction<V> loader;
+    private final long ttlNanos;
+    private final int maxSize;
+    private final MemoizerStatistics stats;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // Nodes, linked from most to least recently used
+    @GuardedBy("lock")
+    private final int[] keys;
+    @GuardedBy("lock")
+    private final Object[] values;
+    @GuardedBy("lock")
+    private final long[] expirations;
+    @GuardedBy("lock")
+    private final int[] prev;
+    @GuardedBy("lock")
+    private final int[] next;
+    @GuardedBy("lock")
+    private int head = NONE;
+    @GuardedBy("lock")
+    private int tail = NONE;
+    @GuardedBy("lock")
+    private int size;
+    // Nodes never used are those from allocated onwards; removed nodes are linked through next
+    @GuardedBy("lock")
+    private int allocated;
+    @GuardedBy("lock")
+    private int free = NONE;
+    // Open addressing table of node + 1, 0 marks an empty slot
+    @GuardedBy("lock")
+    private final int[] slots;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * A value being computed, which other threads requesting the same key wait for.
+     */
+    private static final class Loading {
+        private final CountDownLatch done = new CountDownLatch(1);
+        private Object value;
+        private RuntimeException failure;
+
+        private Object await() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    done.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return value;
+        }
+    }
+
+    IntKeyedMemoizer(IntFunction<V> loader, long ttlNanos, int maxSize, MemoizerStatistics stats) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be positive");
+        }
+        this.loader = Objects.requireNonNull(loader);
+        this.ttlNanos = ttlNanos;
+        this.maxSize = maxSize;
+        this.stats = stats;
+        this.keys = new int[maxSize];
+        this.values = new Object[maxSize];
+        this.expirations = new long[maxSize];
+        this.prev = new int[maxSize];
+        this.next = new int[maxSize];
+        this.slots = new int[Integer.highestOneBit(maxSize * 2 - 1) << 1];
+    }
+
+    /**
+     * Gets the value for a key, computing it if it is absent or expired.
+     *
+     * @param key The key
+     * @return The value
+     */
+    @Override
+    public V apply(int key) {
+        Loading loading;
+        int node;
+        lock.lock();
+        try {
+            node = find(key);
+            if (node != NONE) {
+                Object v = values[node];
+                if (v instanceof Loading l) {
+                    hit();
+                    loading = l;
+                    node = NONE;
+                } else if (ttlNanos < 0 || System.nanoTime() - expirations[node] < 0) {
+                    hit();
+                    moveToFront(node);
+                    return unwrap(v);
+                } else {
+                    misses.increment();
+                    loading = new Loading();
+                    values[node] = loading;
+                    moveToFront(node);
+                }
+            } else {
+                misses.increment();
+                loading = new Loading();
+                node = insert(key, loading);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (node == NONE) {
+            return unwrap(loading.await());
+        }
+        return load(key, node, loading);
+    }
+
+    private V load(int key, int node, Loading loading) {
+        Object v;
+        try {
+            V value = Memoizer.load(() -> loader.apply(key), stats);
+            v = value == null ? NULL_VALUE : value;
+        } catch (RuntimeException e) {
+            lock.lock();
+            try {
+                if (values[node] == loading) {
+                    remove(node);
+                }
+            } finally {
+                lock.unlock();
+            }
+            loading.failure = e;
+            loading.done.countDown();
+            throw e;
+        }
+        lock.lock();
+        try {
+            // The node may have been evicted and reused while loading
+            if (values[node] == loading) {
+                values[node] = v;
+                expirations[node] = System.nanoTime() + ttlNanos;
+            }
+        } finally {
+            lock.unlock();
+        }
+        loading.value = v;
+        loading.done.countDown();
+        return unwrap(v);
+    }
+
+    /**
+     * Removes the value for a key, so that the next request computes it again.
+     *
+     * @param key The key
+     */
+    public void invalidate(int key) {
+        lock.lock();
+        try {
+            int node = find(key);
+            if (node != NONE && !(values[node] instanceof Loading)) {
+                remove(node);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes all values which are not being computed.
+     */
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            int node = head;
+            while (node != NONE) {
+                int following = next[node];
+                if (!(values[node] instanceof Loading)) {
+                    remove(node);
+                }
+                node = following;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of values held, including those expired but not yet evicted.
+     *
+     * @return The number of values
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the maximum number of values held.
+     *
+     * @return The maximum size
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Gets the number of requests answered from a held value, or by waiting for another thread's computation.
+     *
+     * @return The hit count
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of requests which computed a value.
+     *
+     * @return The miss count
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the number of values evicted to make room for others.
+     *
+     * @return The eviction count
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private void hit() {
+        hits.increment();
+        if (stats != null) {
+            stats.hit();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V unwrap(Object v) {
+        return v == NULL_VALUE ? null : (V) v;
+    }
+
+    @GuardedBy("lock")
+    private int find(int key) {
+        int mask = slots.length - 1;
+        int slot = hash(key) & mask;
+        int entry;
+        while ((entry = slots[slot]) != 0) {
+            if (keys[entry - 1] == key) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NONE;
+    }
+
+    @GuardedBy("lock")
+    private int insert(int key, Object value) {
+        int node;
+        if (free != NONE) {
+            node = free;
+            free = next[node];
+            size++;
+        } else if (allocated < maxSize) {
+            node = allocated++;
+            size++;
+        } else {
+            // Evict the least recently used value, preferring one which is not being computed
+            node = tail;
+            while (node != NONE && values[node] instanceof Loading) {
+                node = prev[node];
+            }
+            if (node == NONE) {
+                node = tail;
+            }
+            unlinkSlot(node);
+            unlink(node);
+            evictions.increment();
+        }
+        keys[node] = key;
+        values[node] = value;
+        int mask = slots.length - 1;
+        int slot = hash(key) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = node + 1;
+        linkFirst(node);
+        return node;
+    }
+
+    @GuardedBy("lock")
+    private void remove(int node) {
+        unlinkSlot(node);
+        unlink(node);
+        values[node] = null;
+        next[node] = free;
+        free = node;
+        size--;
+    }
+
+    /**
+     * Removes a node from the hash table, shifting back later entries of its probe sequence.
+     */
+    @GuardedBy("lock")
+    private void unlinkSlot(int node) {
+        int mask = slots.length - 1;
+        int slot = hash(keys[node]) & mask;
+        while (slots[slot] != node + 1) {
+            slot = (slot + 1) & mask;
+        }
+        int hole = slot;
+        slot = (slot + 1) & mask;
+        int entry;
+        while ((entry = slots[slot]) != 0) {
+            int home = hash(keys[entry - 1]) & mask;
+            // Move the entry into the hole unless its home slot lies cyclically after the hole
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                slots[hole] = entry;
+                hole = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        slots[hole] = 0;
+    }
+
+    @GuardedBy("lock")
+    private void linkFirst(int node) {
+        prev[node] = NONE;
+        next[node] = head;
+        if (head != NONE) {
+            prev[head] = node;
+        }
+        head = node;
+        if (tail == NONE) {
+            tail = node;
+        }
+    }
+
+    @GuardedBy("lock")
+    private void unlink(int node) {
+        int p = prev[node];
+        int n = next[node];
+        if (p == NONE) {
+            head = n;
+        } else {
+            next[p] = n;
+        }
+        if (n == NONE) {
+            tail = p;
+        } else {
+            prev[n] = p;
+        }
+    }
+
+    @GuardedBy("lock")
+    private void moveToFront(int node) {
+        if (head != node) {
+            unlink(node);
+            linkFirst(node);
+        }
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
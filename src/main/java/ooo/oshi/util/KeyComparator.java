@@ -0,0 +1,103 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.util;
+
+import java.util.Comparator;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+import ooo.oshi.annotation.concurrent.Immutable;
+
+/**
+ * A {@link Comparator} which orders objects by a single primitive key. Callers sorting many objects may read each key
+ * once with {@link #key(Object)} and sort the keys, rather than calling the key function for every comparison.
+ *
+ * @param <T> The type of objects compared
+ */
+@Immutable
+public final class KeyComparator<T> implements Comparator<T> {
+
+    private final ToLongFunction<? super T> keyFunction;
+    private final boolean descending;
+
+    private KeyComparator(ToLongFunction<? super T> keyFunction, boolean descending) {
+        this.keyFunction = keyFunction;
+        this.descending = descending;
+    }
+
+    /**
+     * Creates a comparator ordering by increasing value of a {@code long} key.
+     *
+     * @param <T>         The type of objects compared
+     * @param keyFunction The function extracting the key
+     * @return The comparator
+     */
+    public static <T> KeyComparator<T> comparingLong(ToLongFunction<? super T> keyFunction) {
+        return new KeyComparator<>(keyFunction, false);
+    }
+
+    /**
+     * Creates a comparator ordering by increasing value of an {@code int} key.
+     *
+     * @param <T>         The type of objects compared
+     * @param keyFunction The function extracting the key
+     * @return The comparator
+     */
+    public static <T> KeyComparator<T> comparingInt(ToIntFunction<? super T> keyFunction) {
+        return new KeyComparator<>(keyFunction::applyAsInt, false);
+    }
+
+    /**
+     * Creates a comparator ordering by increasing value of a {@code double} key, consistent with
+     * {@link Double#compare(double, double)}.
+     *
+     * @param <T>         The type of objects compared
+     * @param keyFunction The function extracting the key
+     * @return The comparator
+     */
+    public static <T> KeyComparator<T> comparingDouble(ToDoubleFunction<? super T> keyFunction) {
+        return new KeyComparator<>(t -> sortableBits(keyFunction.applyAsDouble(t)), false);
+    }
+
+    /**
+     * Gets the sort key of an object. Keys are always compared in increasing order; see {@link #isDescending()}.
+     *
+     * @param t The object
+     * @return Its sort key
+     */
+    public long key(T t) {
+        return keyFunction.applyAsLong(t);
+    }
+
+    /**
+     * Gets whether this comparator orders by decreasing key.
+     *
+     * @return {@code true} if greater keys come first
+     */
+    public boolean isDescending() {
+        return descending;
+    }
+
+    @Override
+    public int compare(T o1, T o2) {
+        long k1 = key(o1);
+        long k2 = key(o2);
+        return descending ? Long.compare(k2, k1) : Long.compare(k1, k2);
+    }
+
+    @Override
+    public KeyComparator<T> reversed() {
+        return new KeyComparator<>(keyFunction, !descending);
+    }
+
+    /**
+     * Maps a double to a long with the same ordering as {@link Double#compare(double, double)}.
+     */
+    private static long sortableBits(double d) {
+        long bits = Double.doubleToLongBits(d);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+}
@@ -4,9 +4,26 @@
  */
 package ooo.oshi.util;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.IntFunction;
 import java.util.function.Supplier;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import ooo.oshi.annotation.concurrent.ThreadSafe;
 
 /**
@@ -16,6 +33,10 @@ import ooo.oshi.annotation.concurrent.ThreadSafe;
 @ThreadSafe
 public final class Memoizer {
 
+    private static final Logger LOG = LoggerFactory.getLogger(Memoizer.class);
+
+    private static final Map<String, MemoizerStatistics> REGISTRY = new ConcurrentHashMap<>();
+
     private static final Supplier<Long> DEFAULT_EXPIRATION_NANOS = memoize(Memoizer::queryExpirationConfig,
             TimeUnit.MINUTES.toNanos(1));
 
@@ -45,30 +66,200 @@ public final class Memoizer {
      * @return A memoized version of the supplier
      */
     public static <T> Supplier<T> memoize(Supplier<T> original, long ttlNanos) {
-        // Adapted from Guava's ExpiringMemoizingSupplier
-        return new Supplier<T>() {
-            private final Supplier<T> delegate = original;
-            private volatile T value; // NOSONAR squid:S3077
-            private volatile long expirationNanos;
-
-            @Override
-            public T get() {
-                long nanos = expirationNanos;
-                long now = System.nanoTime();
-                if (nanos == 0 || (ttlNanos >= 0 && now - nanos >= 0)) {
-                    synchronized (this) {
-                        if (nanos == expirationNanos) { // recheck for lost race
-                            T t = delegate.get();
-                            value = t;
-                            nanos = now + ttlNanos;
-                            expirationNanos = (nanos == 0) ? 1 : nanos;
-                            return t;
-                        }
-                    }
-                }
-                return value;
-            }
-        };
+        return new ExpiringSupplier<>(original, ttlNanos, null);
+    }
+
+    /**
+     * Store a supplier in a delegate function to be computed once, and only again after time to live (ttl) has
+     * expired, recording its use in the statistics registered under a name. Suppliers memoized under the same name
+     * share their statistics.
+     *
+     * @param <T>      The type of object supplied
+     * @param name     The name under which to record statistics, such as the native source of the value
+     * @param original The {@link java.util.function.Supplier} to memoize
+     * @param ttlNanos Time in nanoseconds to retain calculation. If negative, retain indefinitely.
+     * @return A memoized version of the supplier
+     * @see #getStatistics()
+     */
+    public static <T> Supplier<T> memoize(String name, Supplier<T> original, long ttlNanos) {
+        return new ExpiringSupplier<>(original, ttlNanos, register(name));
+    }
+
+    /**
+     * Store a supplier in a delegate function to be computed once, and refreshed asynchronously after its time to live
+     * has expired. Once expired, callers receive the previous value at once while a single refresh runs on the
+     * executor, so only the first call, and calls after the maximum staleness, wait for the delegate.
+     *
+     * @param <T>           The type of object supplied
+     * @param original      The {@link java.util.function.Supplier} to memoize
+     * @param ttlNanos      Time in nanoseconds to retain calculation before refreshing it in the background. Must
+     *                      not be negative.
+     * @param maxStaleNanos Time in nanoseconds after expiration for which the previous value may still be returned
+     *                      while a refresh is pending. After this, callers wait for a refresh.
+     * @param executor      The executor on which to run refreshes
+     * @return A memoized version of the supplier
+     */
+    public static <T> Supplier<T> memoizeAsync(Supplier<T> original, long ttlNanos, long maxStaleNanos,
+            Executor executor) {
+        return refreshAhead(original, ttlNanos, maxStaleNanos, executor, null);
+    }
+
+    /**
+     * Store a supplier in a delegate function to be computed once, and refreshed asynchronously after its time to live
+     * has expired, recording its use in the statistics registered under a name.
+     *
+     * @param <T>           The type of object supplied
+     * @param name          The name under which to record statistics
+     * @param original      The {@link java.util.function.Supplier} to memoize
+     * @param ttlNanos      Time in nanoseconds to retain calculation before refreshing it in the background. Must
+     *                      not be negative.
+     * @param maxStaleNanos Time in nanoseconds after expiration for which the previous value may still be returned
+     *                      while a refresh is pending. After this, callers wait for a refresh.
+     * @param executor      The executor on which to run refreshes
+     * @return A memoized version of the supplier
+     * @see #memoizeAsync(Supplier, long, long, Executor)
+     */
+    public static <T> Supplier<T> memoizeAsync(String name, Supplier<T> original, long ttlNanos, long maxStaleNanos,
+            Executor executor) {
+        return refreshAhead(original, ttlNanos, maxStaleNanos, executor, register(name));
+    }
+
+    /**
+     * Store a supplier in a delegate function to be computed once, and refreshed asynchronously after its time to live
+     * has expired, using a shared pool of daemon threads.
+     *
+     * @param <T>           The type of object supplied
+     * @param original      The {@link java.util.function.Supplier} to memoize
+     * @param ttlNanos      Time in nanoseconds to retain calculation before refreshing it in the background. Must
+     *                      not be negative.
+     * @param maxStaleNanos Time in nanoseconds after expiration for which the previous value may still be returned
+     *                      while a refresh is pending. After this, callers wait for a refresh.
+     * @return A memoized version of the supplier
+     * @see #memoizeAsync(Supplier, long, long, Executor)
+     */
+    public static <T> Supplier<T> memoizeAsync(Supplier<T> original, long ttlNanos, long maxStaleNanos) {
+        return memoizeAsync(original, ttlNanos, maxStaleNanos, RefreshExecutor.INSTANCE);
+    }
+
+    private static <T> Supplier<T> refreshAhead(Supplier<T> original, long ttlNanos, long maxStaleNanos,
+            Executor executor, MemoizerStatistics stats) {
+        if (ttlNanos < 0 || maxStaleNanos < 0) {
+            throw new IllegalArgumentException("Expiration and staleness must not be negative");
+        }
+        return new RefreshAheadSupplier<>(original, ttlNanos, maxStaleNanos, Objects.requireNonNull(executor), stats);
+    }
+
+    /**
+     * Store a function of an int key in a delegate function which computes the value for each key once, and only again
+     * after its time to live has expired. At most {@code maxSize} values are retained; beyond that, the least recently
+     * used is evicted. Concurrent requests for the same key compute its value once.
+     *
+     * @param <V>      The type of the values
+     * @param original The function to memoize
+     * @param ttlNanos Time in nanoseconds to retain each value. If negative, retain until evicted.
+     * @param maxSize  The maximum number of values to retain
+     * @return A memoized version of the function, which reports its hit, miss and eviction counts
+     */
+    public static <V> IntKeyedMemoizer<V> memoize(IntFunction<V> original, long ttlNanos, int maxSize) {
+        return new IntKeyedMemoizer<>(original, ttlNanos, maxSize, null);
+    }
+
+    /**
+     * Store a function of an int key in a delegate function which computes the value for each key once, and only again
+     * after its time to live has expired, recording its use in the statistics registered under a name.
+     *
+     * @param <V>      The type of the values
+     * @param name     The name under which to record statistics
+     * @param original The function to memoize
+     * @param ttlNanos Time in nanoseconds to retain each value. If negative, retain until evicted.
+     * @param maxSize  The maximum number of values to retain
+     * @return A memoized version of the function
+     * @see #memoize(IntFunction, long, int)
+     */
+    public static <V> IntKeyedMemoizer<V> memoize(String name, IntFunction<V> original, long ttlNanos, int maxSize) {
+        return new IntKeyedMemoizer<>(original, ttlNanos, maxSize, register(name));
+    }
+
+    /**
+     * Memoize a group of values derived from one native source. Each refresh reads the source into a buffer created
+     * once and reused, and the reader copies all derived values into a new snapshot, which replaces the previous one
+     * atomically. Refreshes are serialized, so the buffer is never used by two threads at once; the snapshot must not
+     * refer to the buffer.
+     *
+     * @param <B>           The type of the reusable buffer, such as a native memory segment
+     * @param <S>           The type of the snapshot of derived values
+     * @param bufferFactory Creates the buffer, on the first refresh
+     * @param reader        Reads the source into the buffer and returns a snapshot of the derived values
+     * @param ttlNanos      Time in nanoseconds to retain the snapshot. If negative, retain indefinitely.
+     * @return The memoized group
+     */
+    public static <B, S> SourceGroup<S> memoizeSource(Supplier<B> bufferFactory,
+            Function<? super B, ? extends S> reader, long ttlNanos) {
+        return new SourceGroup<>(memoize(new SourceGroup.BufferedRead<>(bufferFactory, reader), ttlNanos));
+    }
+
+    /**
+     * Memoize a group of values derived from one native source, recording its use in the statistics registered under
+     * a name.
+     *
+     * @param <B>           The type of the reusable buffer, such as a native memory segment
+     * @param <S>           The type of the snapshot of derived values
+     * @param name          The name under which to record statistics
+     * @param bufferFactory Creates the buffer, on the first refresh
+     * @param reader        Reads the source into the buffer and returns a snapshot of the derived values
+     * @param ttlNanos      Time in nanoseconds to retain the snapshot. If negative, retain indefinitely.
+     * @return The memoized group
+     * @see #memoizeSource(Supplier, Function, long)
+     */
+    public static <B, S> SourceGroup<S> memoizeSource(String name, Supplier<B> bufferFactory,
+            Function<? super B, ? extends S> reader, long ttlNanos) {
+        return new SourceGroup<>(memoize(name, new SourceGroup.BufferedRead<>(bufferFactory, reader), ttlNanos));
+    }
+
+    /**
+     * Gets the statistics of all named registrations.
+     *
+     * @return The statistics, in order of decreasing total refresh time
+     */
+    public static List<MemoizerStatistics> getStatistics() {
+        List<MemoizerStatistics> stats = new ArrayList<>(REGISTRY.values());
+        stats.sort(Comparator.comparingLong(MemoizerStatistics::getRefreshNanos).reversed());
+        return stats;
+    }
+
+    /**
+     * Formats the statistics of all named registrations, one per line, in order of decreasing total refresh time.
+     *
+     * @return The formatted statistics
+     */
+    public static String dumpStatistics() {
+        StringBuilder sb = new StringBuilder();
+        for (MemoizerStatistics stats : getStatistics()) {
+            sb.append(stats).append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+
+    private static MemoizerStatistics register(String name) {
+        return REGISTRY.computeIfAbsent(Objects.requireNonNull(name), MemoizerStatistics::new);
+    }
+
+    /**
+     * Calls a delegate, recording the time taken if statistics are being kept.
+     */
+    static <T> T load(Supplier<T> delegate, MemoizerStatistics stats) {
+        if (stats == null) {
+            return delegate.get();
+        }
+        long start = System.nanoTime();
+        try {
+            T t = delegate.get();
+            stats.refreshed(System.nanoTime() - start);
+            return t;
+        } catch (RuntimeException e) {
+            stats.failed(System.nanoTime() - start);
+            throw e;
+        }
     }
 
     /**
@@ -81,4 +272,156 @@ public final class Memoizer {
     public static <T> Supplier<T> memoize(Supplier<T> original) {
         return memoize(original, -1L);
     }
+
+    /**
+     * A value and the time it expires, published together so that readers see a consistent pair with one volatile
+     * read.
+     */
+    private record Entry<T>(T value, long expirationNanos) {
+    }
+
+    /**
+     * Adapted from Guava's ExpiringMemoizingSupplier. Refreshes are serialized with a {@link ReentrantLock} rather than
+     * a monitor, so a virtual thread waiting for another thread's refresh, which may perform native I/O, unmounts from
+     * its carrier thread instead of pinning it.
+     */
+    private static final class ExpiringSupplier<T> implements Supplier<T> {
+        private final Supplier<T> delegate;
+        private final long ttlNanos;
+        private final MemoizerStatistics stats;
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile Entry<T> entry; // NOSONAR squid:S3077
+
+        private ExpiringSupplier(Supplier<T> delegate, long ttlNanos, MemoizerStatistics stats) {
+            this.delegate = delegate;
+            this.ttlNanos = ttlNanos;
+            this.stats = stats;
+        }
+
+        @Override
+        public T get() {
+            Entry<T> e = entry;
+            if (e != null && (ttlNanos < 0 || System.nanoTime() - e.expirationNanos() < 0)) {
+                if (stats != null) {
+                    stats.hit();
+                }
+                return e.value();
+            }
+            lock.lock();
+            try {
+                // Recheck for lost race
+                if (e == entry) {
+                    T t = load(delegate, stats);
+                    entry = new Entry<>(t, System.nanoTime() + ttlNanos);
+                    return t;
+                }
+                if (stats != null) {
+                    stats.hit();
+                }
+                return entry.value();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns the previous value while one refresh runs in the background, until the value is older than its
+     * expiration plus the maximum staleness.
+     */
+    private static final class RefreshAheadSupplier<T> implements Supplier<T> {
+        private final Supplier<T> delegate;
+        private final long ttlNanos;
+        private final long maxStaleNanos;
+        private final Executor executor;
+        private final MemoizerStatistics stats;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        private volatile Entry<T> entry; // NOSONAR squid:S3077
+
+        private RefreshAheadSupplier(Supplier<T> delegate, long ttlNanos, long maxStaleNanos, Executor executor,
+                MemoizerStatistics stats) {
+            this.delegate = delegate;
+            this.ttlNanos = ttlNanos;
+            this.maxStaleNanos = maxStaleNanos;
+            this.executor = executor;
+            this.stats = stats;
+        }
+
+        @Override
+        public T get() {
+            Entry<T> e = entry;
+            if (e != null) {
+                long age = System.nanoTime() - e.expirationNanos();
+                if (age >= 0 && age < maxStaleNanos) {
+                    refreshAsync();
+                }
+                if (age < maxStaleNanos) {
+                    if (stats != null) {
+                        stats.hit();
+                    }
+                    return e.value();
+                }
+            }
+            lock.lock();
+            try {
+                // Recheck for lost race, including a background refresh
+                if (e == entry) {
+                    return refresh();
+                }
+                if (stats != null) {
+                    stats.hit();
+                }
+                return entry.value();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void refreshAsync() {
+            if (!refreshing.compareAndSet(false, true)) {
+                return;
+            }
+            Entry<T> stale = entry;
+            try {
+                executor.execute(() -> {
+                    lock.lock();
+                    try {
+                        // A caller may have refreshed while waiting past the maximum staleness
+                        if (stale == entry) {
+                            refresh();
+                        }
+                    } catch (RuntimeException ex) {
+                        LOG.debug("Background refresh failed: {}", ex.getMessage());
+                    } finally {
+                        lock.unlock();
+                        refreshing.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException ex) {
+                refreshing.set(false);
+            }
+        }
+
+        private T refresh() {
+            T t = load(delegate, stats);
+            entry = new Entry<>(t, System.nanoTime() + ttlNanos);
+            return t;
+        }
+    }
+
+    /**
+     * The default executor for background refreshes, created on first use.
+     */
+    private static final class RefreshExecutor {
+        private static final AtomicInteger COUNT = new AtomicInteger();
+        private static final Executor INSTANCE = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "oshi-memoizer-refresh-" + COUNT.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+
+        private RefreshExecutor() {
+        }
+    }
 }
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.util;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import ooo.oshi.annotation.concurrent.ThreadSafe;
+
+/**
+ * Counters of the use of memoized values registered under one name with {@link Memoizer}: how often a held value is
+ * returned, how often the delegate is called to refresh it, and how long refreshes take.
+ * <p>
+ * Counters are striped {@link LongAdder}s, so recording adds little contention to the memoized values' hot path.
+ * Refresh latencies are recorded in a histogram with power of two buckets: bucket {@code i} counts refreshes taking at
+ * least {@code 2^(i-1)} and less than {@code 2^i} nanoseconds, and bucket 0 counts refreshes measured as taking no
+ * time.
+ */
+@ThreadSafe
+public final class MemoizerStatistics {
+
+    /**
+     * The number of histogram buckets, covering all non-negative long values.
+     */
+    public static final int BUCKETS = 64;
+
+    private final String name;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder refreshNanos = new LongAdder();
+    private final LongAdder[] histogram = new LongAdder[BUCKETS];
+
+    MemoizerStatistics(String name) {
+        this.name = name;
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram[i] = new LongAdder();
+        }
+    }
+
+    void hit() {
+        hits.increment();
+    }
+
+    void refreshed(long nanos) {
+        refreshes.increment();
+        refreshNanos.add(nanos);
+        histogram[bucket(nanos)].increment();
+    }
+
+    void failed(long nanos) {
+        failures.increment();
+        refreshed(nanos);
+    }
+
+    /**
+     * Gets the name the memoized values were registered under.
+     *
+     * @return The name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the number of requests answered with a held value.
+     *
+     * @return The hit count
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of times the delegate was called, including failed calls.
+     *
+     * @return The refresh count
+     */
+    public long getRefreshes() {
+        return refreshes.sum();
+    }
+
+    /**
+     * Gets the number of times the delegate threw an exception.
+     *
+     * @return The failure count
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * Gets the total time spent in the delegate.
+     *
+     * @return The total refresh time in nanoseconds
+     */
+    public long getRefreshNanos() {
+        return refreshNanos.sum();
+    }
+
+    /**
+     * Gets the proportion of requests answered with a held value.
+     *
+     * @return The hit ratio, or 0 if there have been no requests
+     */
+    public double getHitRatio() {
+        long h = getHits();
+        long total = h + getRefreshes();
+        return total == 0 ? 0d : h / (double) total;
+    }
+
+    /**
+     * Gets the refresh latency histogram.
+     *
+     * @return The count of refreshes in each bucket
+     */
+    public long[] getHistogram() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = histogram[i].sum();
+        }
+        return counts;
+    }
+
+    /**
+     * Estimates a refresh latency percentile from the histogram, as the upper bound of the bucket containing it.
+     *
+     * @param percentile The percentile, from 0 to 100
+     * @return The estimated latency in nanoseconds, or 0 if there have been no refreshes
+     */
+    public long getRefreshNanosPercentile(double percentile) {
+        long[] counts = getHistogram();
+        long total = 0;
+        for (long c : counts) {
+            total += c;
+        }
+        if (total == 0) {
+            return 0L;
+        }
+        long rank = (long) Math.ceil(total * Math.min(Math.max(percentile, 0d), 100d) / 100d);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= Math.max(rank, 1L)) {
+                return i == BUCKETS - 1 ? Long.MAX_VALUE : (1L << i) - 1;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        long n = getRefreshes();
+        return name + ": hits=" + getHits() + ", refreshes=" + n + ", failures=" + getFailures() + ", hitRatio="
+                + String.format("%.3f", getHitRatio()) + ", meanRefreshNanos=" + (n == 0 ? 0 : getRefreshNanos() / n)
+                + ", p50<=" + getRefreshNanosPercentile(50) + ", p99<=" + getRefreshNanosPercentile(99);
+    }
+
+    private static int bucket(long nanos) {
+        return nanos <= 0 ? 0 : Math.min(BUCKETS - Long.numberOfLeadingZeros(nanos), BUCKETS - 1);
+    }
+}
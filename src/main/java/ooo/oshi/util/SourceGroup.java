@@ -0,0 +1,103 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.util;
+
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+import ooo.oshi.annotation.concurrent.ThreadSafe;
+
+/**
+ * A group of values derived from one native source, such as the fields of {@code /proc/[pid]/stat} or of a
+ * {@code proc_pidinfo} structure, memoized together. One refresh reads the source into a reusable buffer and copies
+ * every derived value into an immutable snapshot, which is published atomically; the values are never read from the
+ * source separately.
+ * <p>
+ * Readers get a consistent view of all values with a single expiration check by calling {@link #get()} and reading
+ * the snapshot. Accessors for individual values, created with {@link #field(Function)}, {@link #intField} and
+ * {@link #longField}, may be held in place of separately memoized suppliers; each call checks the group's expiration
+ * and reads from its current snapshot, so values read through different accessors in quick succession may come from
+ * different refreshes.
+ *
+ * @param <S> The type of the snapshot of derived values
+ * @see Memoizer#memoizeSource(Supplier, Function, long)
+ */
+@ThreadSafe
+public final class SourceGroup<S> implements Supplier<S> {
+
+    private final Supplier<S> snapshot;
+
+    SourceGroup(Supplier<S> snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Gets the current snapshot, refreshing it from the source if it has expired.
+     *
+     * @return The snapshot of derived values
+     */
+    @Override
+    public S get() {
+        return snapshot.get();
+    }
+
+    /**
+     * Creates an accessor for one value of the group.
+     *
+     * @param <V>    The type of the value
+     * @param getter Extracts the value from a snapshot
+     * @return A supplier of the value from the current snapshot
+     */
+    public <V> Supplier<V> field(Function<? super S, ? extends V> getter) {
+        return () -> getter.apply(snapshot.get());
+    }
+
+    /**
+     * Creates an accessor for one int value of the group, without boxing.
+     *
+     * @param getter Extracts the value from a snapshot
+     * @return A supplier of the value from the current snapshot
+     */
+    public IntSupplier intField(ToIntFunction<? super S> getter) {
+        return () -> getter.applyAsInt(snapshot.get());
+    }
+
+    /**
+     * Creates an accessor for one long value of the group, without boxing.
+     *
+     * @param getter Extracts the value from a snapshot
+     * @return A supplier of the value from the current snapshot
+     */
+    public LongSupplier longField(ToLongFunction<? super S> getter) {
+        return () -> getter.applyAsLong(snapshot.get());
+    }
+
+    /**
+     * Reads the source into a buffer allocated on first use and reused by every later refresh. Only called by the
+     * memoized supplier while it holds its refresh lock, so the buffer is never used concurrently.
+     */
+    static final class BufferedRead<B, S> implements Supplier<S> {
+        private final Supplier<B> bufferFactory;
+        private final Function<? super B, ? extends S> reader;
+        private B buffer;
+
+        BufferedRead(Supplier<B> bufferFactory, Function<? super B, ? extends S> reader) {
+            this.bufferFactory = bufferFactory;
+            this.reader = reader;
+        }
+
+        @Override
+        public S get() {
+            if (buffer == null) {
+                buffer = bufferFactory.get();
+            }
+            return reader.apply(buffer);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.util;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import ooo.oshi.annotation.concurrent.GuardedBy;
+import ooo.oshi.annotation.concurrent.ThreadSafe;
+
+/**
+ * An append-only pool of interned strings, each identified by a stable non-negative int ID. Intended for values which
+ * repeat across many records, such as process names, so that each distinct value is stored once.
+ * <p>
+ * Strings may be interned directly from UTF-8 bytes in native memory; a String is only created the first time a value
+ * is seen.
+ * <p>
+ * A pool never forgets a value, so a long-lived pool grows with every distinct value ever seen. To hold only current
+ * values, create a new pool for each set of records from the previous one: values seen again reuse the previous pool's
+ * strings, and values no longer seen are dropped with the previous pool.
+ */
+@ThreadSafe
+public final class StringPool {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    @GuardedBy("this")
+    private byte[][] bytes = new byte[INITIAL_CAPACITY][];
+    @GuardedBy("this")
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    // Open addressing table of id + 1, 0 marks an empty slot
+    @GuardedBy("this")
+    private int[] slots = new int[INITIAL_CAPACITY * 2];
+    @GuardedBy("this")
+    private int size;
+
+    // Only ever replaced by a larger copy, and existing elements are never changed
+    private volatile String[] strings = new String[INITIAL_CAPACITY];
+
+    // Values are copied from this pool rather than created, until it is released
+    @GuardedBy("this")
+    private StringPool previous;
+
+    /**
+     * Creates an empty pool.
+     */
+    public StringPool() {
+        this(null);
+    }
+
+    /**
+     * Creates an empty pool which reuses the strings of a previous pool for values both contain.
+     *
+     * @param previous The previous pool, or {@code null}. It is referenced until {@link #releasePrevious()} is called.
+     */
+    public StringPool(StringPool previous) {
+        this.previous = previous;
+    }
+
+    /**
+     * Stops reusing strings from the previous pool, so that it may be garbage collected.
+     */
+    public synchronized void releasePrevious() {
+        previous = null;
+    }
+
+    /**
+     * Interns a String.
+     *
+     * @param s The string to intern
+     * @return The ID of the string in this pool
+     */
+    public int intern(String s) {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        return intern(MemorySegment.ofArray(b), 0, b.length);
+    }
+
+    /**
+     * Interns a UTF-8 encoded string held in a memory segment. No objects are created if the value is already present.
+     *
+     * @param m      The segment holding the bytes
+     * @param offset The offset of the first byte
+     * @param length The number of bytes
+     * @return The ID of the string in this pool
+     */
+    public synchronized int intern(MemorySegment m, long offset, int length) {
+        int hash = 1;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + m.get(JAVA_BYTE, offset + i);
+        }
+        int existing = find(hash, m, offset, length);
+        if (existing >= 0) {
+            return existing;
+        }
+        byte[] value = null;
+        String string = null;
+        if (previous != null) {
+            synchronized (previous) {
+                int prior = previous.find(hash, m, offset, length);
+                if (prior >= 0) {
+                    value = previous.bytes[prior];
+                    string = previous.strings[prior];
+                }
+            }
+        }
+        if (value == null) {
+            value = new byte[length];
+            MemorySegment.copy(m, JAVA_BYTE, offset, value, 0, length);
+            string = new String(value, StandardCharsets.UTF_8);
+        }
+        int id = size++;
+        if (id == bytes.length) {
+            grow();
+        }
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        bytes[id] = value;
+        hashes[id] = hash;
+        slots[slot] = id + 1;
+        // Publish the new element by writing the volatile reference
+        String[] s = strings;
+        s[id] = string;
+        strings = s;
+        return id;
+    }
+
+    @GuardedBy("this")
+    private int find(int hash, MemorySegment m, long offset, int length) {
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        int entry;
+        while ((entry = slots[slot]) != 0) {
+            int id = entry - 1;
+            if (hashes[id] == hash && equals(bytes[id], m, offset, length)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Gets an interned string.
+     *
+     * @param id An ID returned by one of the {@code intern} methods
+     * @return The interned string
+     */
+    public String get(int id) {
+        return strings[id];
+    }
+
+    /**
+     * Gets an array view of the pool's current contents, indexed by ID. Elements for IDs already returned by
+     * {@code intern} never change; the array must not be modified.
+     *
+     * @return The current array of interned strings.
+     */
+    public String[] snapshot() {
+        return strings;
+    }
+
+    /**
+     * Gets the number of distinct strings in the pool.
+     *
+     * @return The number of interned strings.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    @GuardedBy("this")
+    private void grow() {
+        int capacity = bytes.length * 2;
+        bytes = Arrays.copyOf(bytes, capacity);
+        hashes = Arrays.copyOf(hashes, capacity);
+        strings = Arrays.copyOf(strings, capacity);
+        slots = new int[capacity * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < size - 1; id++) {
+            int slot = hashes[id] & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    private static boolean equals(byte[] value, MemorySegment m, long offset, int length) {
+        if (value.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (value[i] != m.get(JAVA_BYTE, offset + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,413 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.util.platform.linux;
+
+import static java.lang.foreign.MemoryAddress.NULL;
+import static java.lang.foreign.MemoryLayout.PathElement.groupElement;
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.lang.foreign.ValueLayout.JAVA_LONG;
+import static java.lang.foreign.ValueLayout.JAVA_SHORT;
+import static ooo.oshi.foreign.linux.LinuxLibc.AT_FDCWD;
+import static ooo.oshi.foreign.linux.LinuxLibc.EINTR;
+import static ooo.oshi.foreign.linux.LinuxLibc.IORING_ENTER_GETEVENTS;
+import static ooo.oshi.foreign.linux.LinuxLibc.IORING_FEAT_SINGLE_MMAP;
+import static ooo.oshi.foreign.linux.LinuxLibc.IORING_OFF_CQ_RING;
+import static ooo.oshi.foreign.linux.LinuxLibc.IORING_OFF_SQES;
+import static ooo.oshi.foreign.linux.LinuxLibc.IORING_OFF_SQ_RING;
+import static ooo.oshi.foreign.linux.LinuxLibc.IORING_OP_CLOSE;
+import static ooo.oshi.foreign.linux.LinuxLibc.IORING_OP_OPENAT;
+import static ooo.oshi.foreign.linux.LinuxLibc.IORING_OP_READ;
+import static ooo.oshi.foreign.linux.LinuxLibc.IORING_REGISTER_PROBE;
+import static ooo.oshi.foreign.linux.LinuxLibc.IO_CQRING_OFFSETS;
+import static ooo.oshi.foreign.linux.LinuxLibc.IO_SQRING_OFFSETS;
+import static ooo.oshi.foreign.linux.LinuxLibc.IO_URING_CQE;
+import static ooo.oshi.foreign.linux.LinuxLibc.IO_URING_OP_SUPPORTED;
+import static ooo.oshi.foreign.linux.LinuxLibc.IO_URING_PARAMS;
+import static ooo.oshi.foreign.linux.LinuxLibc.IO_URING_PROBE;
+import static ooo.oshi.foreign.linux.LinuxLibc.IO_URING_PROBE_OP;
+import static ooo.oshi.foreign.linux.LinuxLibc.IO_URING_SQE;
+import static ooo.oshi.foreign.linux.LinuxLibc.MAP_FAILED;
+import static ooo.oshi.foreign.linux.LinuxLibc.MAP_POPULATE;
+import static ooo.oshi.foreign.linux.LinuxLibc.MAP_SHARED;
+import static ooo.oshi.foreign.linux.LinuxLibc.PROT_READ;
+import static ooo.oshi.foreign.linux.LinuxLibc.PROT_WRITE;
+
+import java.lang.foreign.MemoryAddress;
+import java.lang.foreign.MemoryLayout.PathElement;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.MemorySession;
+import java.lang.invoke.VarHandle;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ooo.oshi.annotation.concurrent.NotThreadSafe;
+import ooo.oshi.foreign.linux.LinuxLibc;
+
+/**
+ * A minimal io_uring instance supporting the open, read and close operations, with the submission and completion
+ * rings mapped into native memory segments.
+ * <p>
+ * Operations are queued with the {@code prep} methods, then {@link #submitAndWait()} submits them all and waits for
+ * their completions, usually with a single {@code io_uring_enter} call. Completions are then consumed with
+ * {@link #forEachCompletion(CompletionHandler)}. If the kernel stops accepting submissions, the instance fails: the
+ * entries it did not accept can't be withdrawn, so no further operations are queued and it should be closed.
+ */
+@NotThreadSafe
+public final class IoUring implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IoUring.class);
+
+    private static final VarHandle INT_HANDLE = JAVA_INT.varHandle();
+
+    private static final long SQE_SIZE = IO_URING_SQE.byteSize();
+    private static final long CQE_SIZE = IO_URING_CQE.byteSize();
+
+    private static final long SQE_OPCODE = IO_URING_SQE.byteOffset(groupElement("opcode"));
+    private static final long SQE_FLAGS = IO_URING_SQE.byteOffset(groupElement("flags"));
+    private static final long SQE_FD = IO_URING_SQE.byteOffset(groupElement("fd"));
+    private static final long SQE_OFF = IO_URING_SQE.byteOffset(groupElement("off"));
+    private static final long SQE_ADDR = IO_URING_SQE.byteOffset(groupElement("addr"));
+    private static final long SQE_LEN = IO_URING_SQE.byteOffset(groupElement("len"));
+    private static final long SQE_OP_FLAGS = IO_URING_SQE.byteOffset(groupElement("op_flags"));
+    private static final long SQE_USER_DATA = IO_URING_SQE.byteOffset(groupElement("user_data"));
+    private static final long CQE_USER_DATA = IO_URING_CQE.byteOffset(groupElement("user_data"));
+    private static final long CQE_RES = IO_URING_CQE.byteOffset(groupElement("res"));
+    private static final long PROBE_OPS_LEN = IO_URING_PROBE.byteOffset(groupElement("ops_len"));
+    private static final long PROBE_OP_SIZE = IO_URING_PROBE_OP.byteSize();
+    private static final long PROBE_OP_FLAGS = IO_URING_PROBE_OP.byteOffset(groupElement("flags"));
+
+    /**
+     * Receives a completion.
+     */
+    @FunctionalInterface
+    public interface CompletionHandler {
+        /**
+         * Called for each completion.
+         *
+         * @param userData The value passed when the operation was queued
+         * @param result   The result of the operation, such as a file descriptor or byte count, or a negated errno
+         */
+        void complete(long userData, int result);
+    }
+
+    private final int ringFd;
+    private final MemorySession session;
+    private final MemorySegment sqRing;
+    private final MemorySegment cqRing;
+    private final MemorySegment sqes;
+    private final long sqRingSize;
+    private final long cqRingSize;
+    private final boolean singleMmap;
+
+    private final MemorySegment sqTail;
+    private final MemorySegment cqHead;
+    private final MemorySegment cqTail;
+    private final int sqMask;
+    private final int sqEntries;
+    private final int cqMask;
+    private final long cqesOffset;
+
+    private int tail;
+    private int queued;
+    private long enterCount;
+    private boolean failed;
+
+    private IoUring(int ringFd, MemorySegment params, MemorySession session) {
+        this.ringFd = ringFd;
+        this.session = session;
+        this.sqEntries = params.get(JAVA_INT, IO_URING_PARAMS.byteOffset(groupElement("sq_entries")));
+        int cqEntries = params.get(JAVA_INT, IO_URING_PARAMS.byteOffset(groupElement("cq_entries")));
+        int features = params.get(JAVA_INT, IO_URING_PARAMS.byteOffset(groupElement("features")));
+        this.singleMmap = (features & IORING_FEAT_SINGLE_MMAP) != 0;
+
+        long sqArrayOffset = sqOffset(params, "array");
+        this.cqesOffset = cqOffset(params, "cqes");
+        long sqSize = sqArrayOffset + (long) sqEntries * JAVA_INT.byteSize();
+        long cqSize = this.cqesOffset + cqEntries * CQE_SIZE;
+        if (this.singleMmap) {
+            sqSize = Math.max(sqSize, cqSize);
+            cqSize = sqSize;
+        }
+        this.sqRingSize = sqSize;
+        this.cqRingSize = cqSize;
+        MemorySegment sq = map(sqSize, IORING_OFF_SQ_RING);
+        MemorySegment cq = null;
+        try {
+            cq = this.singleMmap ? sq : map(cqSize, IORING_OFF_CQ_RING);
+            this.sqes = map(sqEntries * SQE_SIZE, IORING_OFF_SQES);
+        } catch (IllegalStateException e) {
+            if (cq != null && cq != sq) {
+                LinuxLibc.munmap(cq, cqSize);
+            }
+            LinuxLibc.munmap(sq, sqSize);
+            throw e;
+        }
+        this.sqRing = sq;
+        this.cqRing = cq;
+
+        this.sqTail = this.sqRing.asSlice(sqOffset(params, "tail"), JAVA_INT.byteSize());
+        this.cqHead = this.cqRing.asSlice(cqOffset(params, "head"), JAVA_INT.byteSize());
+        this.cqTail = this.cqRing.asSlice(cqOffset(params, "tail"), JAVA_INT.byteSize());
+        this.sqMask = this.sqRing.get(JAVA_INT, sqOffset(params, "ring_mask"));
+        this.cqMask = this.cqRing.get(JAVA_INT, cqOffset(params, "ring_mask"));
+        this.tail = (int) INT_HANDLE.getAcquire(this.sqTail);
+        // Each submission queue slot always refers to the entry of the same index
+        for (int i = 0; i < sqEntries; i++) {
+            this.sqRing.set(JAVA_INT, sqArrayOffset + i * JAVA_INT.byteSize(), i);
+        }
+    }
+
+    /**
+     * Creates an io_uring instance.
+     *
+     * @param entries The number of submission queue entries, a power of 2
+     * @return The instance, or {@code null} if io_uring is unavailable or lacks the open, read and close operations,
+     *         such as on kernels before 5.6 or where it has been disabled
+     */
+    public static IoUring create(int entries) {
+        MemorySession session = MemorySession.openShared();
+        MemorySegment params = MemorySegment.allocateNative(IO_URING_PARAMS, session);
+        int fd = LinuxLibc.io_uring_setup(entries, params);
+        if (fd < 0) {
+            LOG.debug("io_uring_setup failed. errno={}", LinuxLibc.errno());
+            session.close();
+            return null;
+        }
+        // Kernels 5.1 to 5.5 create rings but complete open, read and close with -EINVAL
+        if (!supportsOperations(fd, session)) {
+            LOG.debug("io_uring does not support open, read and close.");
+            LinuxLibc.close(fd);
+            session.close();
+            return null;
+        }
+        try {
+            return new IoUring(fd, params, session);
+        } catch (IllegalStateException e) {
+            LOG.debug("Failed to map io_uring: {}", e.getMessage());
+            LinuxLibc.close(fd);
+            session.close();
+            return null;
+        }
+    }
+
+    /**
+     * Checks that the kernel supports the operations used, with {@code IORING_REGISTER_PROBE}. The probe was added in
+     * 5.6 together with the open, read and close operations, so a kernel without it supports none of them.
+     */
+    private static boolean supportsOperations(int fd, MemorySession session) {
+        int entries = IORING_OP_READ + 1;
+        MemorySegment probe = MemorySegment.allocateNative(IO_URING_PROBE.byteSize() + entries * PROBE_OP_SIZE,
+                session);
+        if (LinuxLibc.io_uring_register(fd, IORING_REGISTER_PROBE, probe, entries) < 0) {
+            LOG.debug("IORING_REGISTER_PROBE failed. errno={}", LinuxLibc.errno());
+            return false;
+        }
+        int length = Byte.toUnsignedInt(probe.get(JAVA_BYTE, PROBE_OPS_LEN));
+        for (byte op : new byte[] { IORING_OP_OPENAT, IORING_OP_READ, IORING_OP_CLOSE }) {
+            long offset = IO_URING_PROBE.byteSize() + op * PROBE_OP_SIZE;
+            if (op >= length || (probe.get(JAVA_SHORT, offset + PROBE_OP_FLAGS) & IO_URING_OP_SUPPORTED) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the number of operations which may be queued before submitting.
+     *
+     * @return The submission queue size
+     */
+    public int getCapacity() {
+        return sqEntries;
+    }
+
+    /**
+     * Gets the number of operations queued and not yet submitted.
+     *
+     * @return The number of queued operations
+     */
+    public int getQueued() {
+        return queued;
+    }
+
+    /**
+     * Gets the number of {@code io_uring_enter} calls made by this instance.
+     *
+     * @return The number of system calls used to submit operations
+     */
+    public long getEnterCount() {
+        return enterCount;
+    }
+
+    /**
+     * Queues opening a file for reading.
+     *
+     * @param path     A null-terminated absolute path, which must remain valid until the operation completes
+     * @param flags    The open flags
+     * @param userData A value to identify the completion
+     * @return {@code false} if the submission queue is full or the instance has failed
+     */
+    public boolean prepOpen(MemorySegment path, int flags, long userData) {
+        MemorySegment sqe = nextSqe();
+        if (sqe == null) {
+            return false;
+        }
+        sqe.set(JAVA_BYTE, SQE_OPCODE, IORING_OP_OPENAT);
+        sqe.set(JAVA_INT, SQE_FD, AT_FDCWD);
+        sqe.set(JAVA_LONG, SQE_ADDR, path.address().toRawLongValue());
+        sqe.set(JAVA_INT, SQE_OP_FLAGS, flags);
+        sqe.set(JAVA_LONG, SQE_USER_DATA, userData);
+        return true;
+    }
+
+    /**
+     * Queues reading from the start of a file.
+     *
+     * @param fd       The file descriptor
+     * @param buffer   The buffer to read into, which must remain valid until the operation completes
+     * @param linkFlags Flags linking this operation to the next, such as
+     *                 {@link ooo.oshi.foreign.linux.LinuxLibc#IOSQE_IO_HARDLINK}, or 0
+     * @param userData A value to identify the completion
+     * @return {@code false} if the submission queue is full or the instance has failed
+     */
+    public boolean prepRead(int fd, MemorySegment buffer, byte linkFlags, long userData) {
+        MemorySegment sqe = nextSqe();
+        if (sqe == null) {
+            return false;
+        }
+        sqe.set(JAVA_BYTE, SQE_OPCODE, IORING_OP_READ);
+        sqe.set(JAVA_BYTE, SQE_FLAGS, linkFlags);
+        sqe.set(JAVA_INT, SQE_FD, fd);
+        sqe.set(JAVA_LONG, SQE_OFF, 0L);
+        sqe.set(JAVA_LONG, SQE_ADDR, buffer.address().toRawLongValue());
+        sqe.set(JAVA_INT, SQE_LEN, (int) Math.min(buffer.byteSize(), Integer.MAX_VALUE));
+        sqe.set(JAVA_LONG, SQE_USER_DATA, userData);
+        return true;
+    }
+
+    /**
+     * Queues closing a file descriptor.
+     *
+     * @param fd       The file descriptor
+     * @param userData A value to identify the completion
+     * @return {@code false} if the submission queue is full or the instance has failed
+     */
+    public boolean prepClose(int fd, long userData) {
+        MemorySegment sqe = nextSqe();
+        if (sqe == null) {
+            return false;
+        }
+        sqe.set(JAVA_BYTE, SQE_OPCODE, IORING_OP_CLOSE);
+        sqe.set(JAVA_INT, SQE_FD, fd);
+        sqe.set(JAVA_LONG, SQE_USER_DATA, userData);
+        return true;
+    }
+
+    /**
+     * Submits all queued operations and waits for all of them to complete. The completion queue must be empty.
+     *
+     * @return {@code true} if the operations were submitted and completed; {@code false} if the instance has failed,
+     *         in which case some operations may have been submitted and their completions may still be posted
+     */
+    public boolean submitAndWait() {
+        if (failed) {
+            return false;
+        }
+        int total = queued;
+        if (total == 0) {
+            return true;
+        }
+        INT_HANDLE.setRelease(sqTail, tail);
+        // The kernel may accept fewer entries than requested, returning without waiting; the rest stay queued
+        int remaining = total;
+        while (remaining > 0) {
+            enterCount++;
+            int submitted = LinuxLibc.io_uring_enter(ringFd, remaining, total, IORING_ENTER_GETEVENTS);
+            if (submitted < 0 && LinuxLibc.errno() == EINTR) {
+                continue;
+            }
+            if (submitted <= 0) {
+                return fail(submitted < 0 ? LinuxLibc.errno() : 0);
+            }
+            remaining -= submitted;
+        }
+        queued = 0;
+        // A wait interrupted by a signal still returns the number submitted, so wait until every completion is posted
+        while ((int) INT_HANDLE.getAcquire(cqTail) - (int) INT_HANDLE.getAcquire(cqHead) < total) {
+            enterCount++;
+            if (LinuxLibc.io_uring_enter(ringFd, 0, total, IORING_ENTER_GETEVENTS) < 0
+                    && LinuxLibc.errno() != EINTR) {
+                return fail(LinuxLibc.errno());
+            }
+        }
+        return true;
+    }
+
+    private boolean fail(int errno) {
+        LOG.debug("io_uring_enter failed. errno={}", errno);
+        failed = true;
+        queued = 0;
+        return false;
+    }
+
+    /**
+     * Consumes all available completions.
+     *
+     * @param handler The handler to receive each completion
+     * @return The number of completions consumed
+     */
+    public int forEachCompletion(CompletionHandler handler) {
+        int head = (int) INT_HANDLE.getAcquire(cqHead);
+        int end = (int) INT_HANDLE.getAcquire(cqTail);
+        int count = 0;
+        for (; head != end; head++, count++) {
+            long cqe = cqesOffset + (head & cqMask) * CQE_SIZE;
+            handler.complete(cqRing.get(JAVA_LONG, cqe + CQE_USER_DATA), cqRing.get(JAVA_INT, cqe + CQE_RES));
+        }
+        INT_HANDLE.setRelease(cqHead, head);
+        return count;
+    }
+
+    @Override
+    public void close() {
+        LinuxLibc.munmap(sqes, sqes.byteSize());
+        LinuxLibc.munmap(sqRing, sqRingSize);
+        if (!singleMmap) {
+            LinuxLibc.munmap(cqRing, cqRingSize);
+        }
+        LinuxLibc.close(ringFd);
+        session.close();
+    }
+
+    private MemorySegment nextSqe() {
+        if (failed || queued >= sqEntries) {
+            return null;
+        }
+        MemorySegment sqe = sqes.asSlice((tail & sqMask) * SQE_SIZE, SQE_SIZE);
+        sqe.fill((byte) 0);
+        tail++;
+        queued++;
+        return sqe;
+    }
+
+    private MemorySegment map(long size, long offset) {
+        MemoryAddress addr = LinuxLibc.mmap(NULL, size, PROT_READ | PROT_WRITE, MAP_SHARED | MAP_POPULATE, ringFd,
+                offset);
+        if (addr.toRawLongValue() == MAP_FAILED) {
+            throw new IllegalStateException("mmap failed. errno=" + LinuxLibc.errno());
+        }
+        return MemorySegment.ofAddress(addr, size, session);
+    }
+
+    private static long sqOffset(MemorySegment params, String name) {
+        return params.get(JAVA_INT, IO_URING_PARAMS.byteOffset(groupElement("sq_off"), PathElement.groupElement(name)));
+    }
+
+    private static long cqOffset(MemorySegment params, String name) {
+        return params.get(JAVA_INT, IO_URING_PARAMS.byteOffset(groupElement("cq_off"), PathElement.groupElement(name)));
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.util.platform.linux;
+
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.lang.foreign.ValueLayout.JAVA_SHORT;
+import static ooo.oshi.foreign.linux.LinuxLibc.POLLFD_EVENTS_OFFSET;
+import static ooo.oshi.foreign.linux.LinuxLibc.POLLFD_REVENTS_OFFSET;
+import static ooo.oshi.foreign.linux.LinuxLibc.POLLFD_SIZE;
+import static ooo.oshi.foreign.linux.LinuxLibc.POLLIN;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.MemorySession;
+import java.lang.ref.Cleaner;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ooo.oshi.annotation.concurrent.ThreadSafe;
+import ooo.oshi.foreign.linux.LinuxLibc;
+
+/**
+ * A process file descriptor, which refers to one process for its whole lifetime. Unlike a process ID, it can never
+ * come to refer to a different process, and it becomes readable when the process exits.
+ * <p>
+ * Requires Linux 5.3 or later. The descriptor is closed by {@link #close()}, or when the instance is garbage
+ * collected.
+ */
+@ThreadSafe
+public final class PidFd implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PidFd.class);
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private static final ThreadLocal<MemorySegment> POLLFD = ThreadLocal
+            .withInitial(() -> MemorySegment.allocateNative(POLLFD_SIZE, MemorySession.openImplicit()));
+
+    private static volatile boolean supported = true;
+
+    private final int pid;
+    private final int fd;
+    private final Cleaner.Cleanable cleanable;
+
+    private PidFd(int pid, int fd) {
+        this.pid = pid;
+        this.fd = fd;
+        // The action must not refer to this instance, or it would never become unreachable
+        this.cleanable = CLEANER.register(this, () -> LinuxLibc.close(fd));
+    }
+
+    /**
+     * Opens a descriptor for the process currently holding a process ID. Callers must verify the process is the one
+     * they expect, such as by comparing its start time, as the ID may have been reused before this call.
+     *
+     * @param pid The process ID
+     * @return The descriptor, or {@code null} if the process does not exist or the kernel does not support process
+     *         file descriptors
+     */
+    public static PidFd open(int pid) {
+        if (!supported) {
+            return null;
+        }
+        int fd = LinuxLibc.pidfd_open(pid, 0);
+        if (fd < 0) {
+            int errno = LinuxLibc.errno();
+            if (errno == LinuxLibc.ENOSYS) {
+                LOG.debug("pidfd_open is not supported by this kernel.");
+                supported = false;
+            }
+            return null;
+        }
+        return new PidFd(pid, fd);
+    }
+
+    /**
+     * Gets whether the kernel supports process file descriptors. This is only known after the first call to
+     * {@link #open(int)}.
+     *
+     * @return {@code false} if {@code pidfd_open} has been found to be unsupported
+     */
+    public static boolean isSupported() {
+        return supported;
+    }
+
+    /**
+     * Gets the ID the process had when this descriptor was opened.
+     *
+     * @return The process ID
+     */
+    public int getProcessId() {
+        return pid;
+    }
+
+    /**
+     * Gets the file descriptor, for registering with {@code poll} or {@code epoll}. It remains owned by this
+     * instance.
+     *
+     * @return The file descriptor
+     */
+    public int getFd() {
+        return fd;
+    }
+
+    /**
+     * Checks whether the process is still running, without blocking.
+     *
+     * @return {@code true} if the process has not exited; {@code false} if it has, or if the check failed
+     */
+    public boolean isAlive() {
+        MemorySegment pollfd = POLLFD.get();
+        pollfd.set(JAVA_INT, 0, fd);
+        pollfd.set(JAVA_SHORT, POLLFD_EVENTS_OFFSET, POLLIN);
+        pollfd.set(JAVA_SHORT, POLLFD_REVENTS_OFFSET, (short) 0);
+        int n;
+        do {
+            n = LinuxLibc.poll(pollfd, 1L, 0);
+        } while (n < 0 && LinuxLibc.errno() == LinuxLibc.EINTR);
+        return n == 0;
+    }
+
+    @Override
+    public void close() {
+        cleanable.clean();
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.util.platform.linux;
+
+import static ooo.oshi.foreign.linux.LinuxLibc.EINVAL;
+import static ooo.oshi.foreign.linux.LinuxLibc.EOPNOTSUPP;
+import static ooo.oshi.foreign.linux.LinuxLibc.IOSQE_IO_HARDLINK;
+import static ooo.oshi.foreign.linux.LinuxLibc.O_CLOEXEC;
+import static ooo.oshi.foreign.linux.LinuxLibc.O_RDONLY;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.MemorySession;
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ooo.oshi.annotation.concurrent.NotThreadSafe;
+import ooo.oshi.foreign.linux.LinuxLibc;
+
+/**
+ * Reads the same set of {@code /proc/[pid]} files for many processes into pooled native buffers.
+ * <p>
+ * When enabled with the system property {@value #IO_URING_PROPERTY} and supported by the kernel, the files are read
+ * with io_uring: the opens for a chunk of processes are submitted with one system call, then the reads and closes
+ * with a second, rather than three system calls per file. Otherwise, or if io_uring fails, each file is read with
+ * {@link ProcUtil#readPidFile(int, String, MemorySegment)}.
+ */
+@NotThreadSafe
+public final class ProcBatchReader implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProcBatchReader.class);
+
+    /**
+     * The system property which enables reading with io_uring.
+     */
+    public static final String IO_URING_PROPERTY = "oshi.os.linux.procfs.iouring";
+
+    private static final int RING_ENTRIES = 256;
+    private static final int PATH_SIZE = 64;
+    private static final long CLOSE_TAG = 1L << 32;
+
+    /**
+     * Receives the contents of the files read for one process.
+     */
+    @FunctionalInterface
+    public interface FileConsumer {
+        /**
+         * Called once for each process, in the order the process IDs were given. The buffers are reused for the next
+         * process once this method returns.
+         *
+         * @param pid     The process ID
+         * @param buffers The buffers holding the file contents, in the order the file names were given
+         * @param lengths The number of bytes read into each buffer, or -1 if the file could not be read
+         */
+        void accept(int pid, MemorySegment[] buffers, long[] lengths);
+    }
+
+    private final String[] files;
+    private final MemorySession session = MemorySession.openConfined();
+    private final IoUring ring;
+    // Pooled per-slot buffers, indexed by slot * files.length + file
+    private final MemorySegment[] buffers;
+    private final MemorySegment[] paths;
+    private final int[] fds;
+    private final long[] lengths;
+    private final int chunkSize;
+
+    private final MemorySegment[] slotBuffers;
+    private final long[] slotLengths;
+
+    private boolean ringFailed;
+    private long systemCalls;
+    private long filesRead;
+
+    private ProcBatchReader(String[] files, int[] bufferSizes, IoUring ring) {
+        this.files = files.clone();
+        this.ring = ring;
+        // Each file needs an open, then a linked read and close
+        this.chunkSize = ring == null ? 1 : Math.max(1, ring.getCapacity() / (2 * files.length));
+        int slots = this.chunkSize * files.length;
+        this.buffers = new MemorySegment[slots];
+        this.paths = new MemorySegment[ring == null ? 0 : slots];
+        this.fds = new int[slots];
+        this.lengths = new long[slots];
+        for (int i = 0; i < slots; i++) {
+            this.buffers[i] = MemorySegment.allocateNative(bufferSizes[i % files.length], session);
+        }
+        for (int i = 0; i < this.paths.length; i++) {
+            this.paths[i] = MemorySegment.allocateNative(PATH_SIZE, session);
+        }
+        this.slotBuffers = new MemorySegment[files.length];
+        this.slotLengths = new long[files.length];
+    }
+
+    /**
+     * Creates a reader for a set of files.
+     *
+     * @param files       The file names relative to {@code /proc/[pid]}, such as {@code stat}
+     * @param bufferSizes The size of the buffer for each file. Contents beyond this size are not read.
+     * @return The reader, which must be closed to release its buffers
+     */
+    public static ProcBatchReader create(String[] files, int[] bufferSizes) {
+        if (files.length == 0 || files.length != bufferSizes.length) {
+            throw new IllegalArgumentException("Each file requires a buffer size.");
+        }
+        IoUring ring = null;
+        if (Boolean.getBoolean(IO_URING_PROPERTY) && 2 * files.length <= RING_ENTRIES) {
+            ring = IoUring.create(RING_ENTRIES);
+            if (ring == null) {
+                LOG.debug("io_uring is unavailable, reading /proc files individually.");
+            }
+        }
+        return new ProcBatchReader(files, bufferSizes, ring);
+    }
+
+    /**
+     * Gets whether this reader submits reads with io_uring.
+     *
+     * @return {@code true} if io_uring is used
+     */
+    public boolean isIoUring() {
+        return ring != null && !ringFailed;
+    }
+
+    /**
+     * Gets the number of system calls made by this reader, to compare the cost of the two read strategies.
+     *
+     * @return The number of system calls made to open, read and close files
+     */
+    public long getSystemCalls() {
+        return systemCalls + (ring == null ? 0L : ring.getEnterCount());
+    }
+
+    /**
+     * Gets the number of files successfully read by this reader.
+     *
+     * @return The number of files read
+     */
+    public long getFilesRead() {
+        return filesRead;
+    }
+
+    /**
+     * Reads the files for each process.
+     *
+     * @param pids     The process IDs
+     * @param consumer The consumer receiving the file contents for each process
+     */
+    public void readAll(int[] pids, FileConsumer consumer) {
+        for (int start = 0; start < pids.length; start += chunkSize) {
+            int count = Math.min(chunkSize, pids.length - start);
+            if (!isIoUring() || !readChunk(pids, start, count)) {
+                readChunkIndividually(pids, start, count);
+            }
+            for (int slot = 0; slot < count; slot++) {
+                int base = slot * files.length;
+                System.arraycopy(buffers, base, slotBuffers, 0, files.length);
+                System.arraycopy(lengths, base, slotLengths, 0, files.length);
+                consumer.accept(pids[start + slot], slotBuffers, slotLengths);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (ring != null) {
+            ring.close();
+        }
+        session.close();
+    }
+
+    private boolean readChunk(int[] pids, int start, int count) {
+        int slots = count * files.length;
+        Arrays.fill(fds, 0, slots, -1);
+        Arrays.fill(lengths, 0, slots, -1L);
+        for (int i = 0; i < slots; i++) {
+            if (ProcUtil.writePidPath(paths[i], pids[start + i / files.length], files[i % files.length])) {
+                ring.prepOpen(paths[i], O_RDONLY | O_CLOEXEC, i);
+            }
+        }
+        boolean submitted = ring.submitAndWait();
+        ring.forEachCompletion((userData, result) -> fds[(int) userData] = result);
+        if (!submitted || unsupported(slots)) {
+            for (int i = 0; i < slots; i++) {
+                if (fds[i] >= 0) {
+                    LinuxLibc.close(fds[i]);
+                }
+            }
+            return ringFailure();
+        }
+        for (int i = 0; i < slots; i++) {
+            if (fds[i] >= 0) {
+                // The close is linked to run after the read completes, whether or not the read succeeds
+                ring.prepRead(fds[i], buffers[i], IOSQE_IO_HARDLINK, i);
+                ring.prepClose(fds[i], CLOSE_TAG | i);
+            }
+        }
+        if (!ring.submitAndWait()) {
+            // The descriptors may or may not have been closed, so they are not closed again
+            return ringFailure();
+        }
+        ring.forEachCompletion((userData, result) -> {
+            if ((userData & CLOSE_TAG) == 0) {
+                lengths[(int) userData] = result;
+                if (result >= 0) {
+                    filesRead++;
+                }
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Checks whether an open failed because the ring does not support the operation, rather than because a process
+     * exited, which the probe in {@link IoUring#create(int)} should already have ruled out.
+     */
+    private boolean unsupported(int slots) {
+        for (int i = 0; i < slots; i++) {
+            if (fds[i] == -EINVAL || fds[i] == -EOPNOTSUPP) {
+                LOG.debug("io_uring open failed. errno={}", -fds[i]);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean ringFailure() {
+        LOG.warn("io_uring submission failed, reading /proc files individually.");
+        ringFailed = true;
+        return false;
+    }
+
+    private void readChunkIndividually(int[] pids, int start, int count) {
+        for (int i = 0; i < count * files.length; i++) {
+            lengths[i] = -1L;
+            int fd = ProcUtil.openPidFile(pids[start + i / files.length], files[i % files.length]);
+            systemCalls++;
+            if (fd < 0) {
+                continue;
+            }
+            try {
+                lengths[i] = read(fd, buffers[i]);
+            } finally {
+                LinuxLibc.close(fd);
+                systemCalls++;
+            }
+            if (lengths[i] >= 0) {
+                filesRead++;
+            }
+        }
+    }
+
+    /**
+     * Reads until end of file or the buffer is full, as {@link ProcUtil#readFully(int, MemorySegment)} does, counting
+     * each read.
+     */
+    private long read(int fd, MemorySegment buffer) {
+        long size = buffer.byteSize();
+        long total = 0;
+        while (total < size) {
+            long n = LinuxLibc.read(fd, total == 0 ? buffer : buffer.asSlice(total), size - total);
+            systemCalls++;
+            if (n < 0) {
+                return -1L;
+            }
+            if (n == 0) {
+                break;
+            }
+            total += n;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.util.platform.linux;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.lang.foreign.ValueLayout.JAVA_SHORT;
+import static ooo.oshi.foreign.linux.LinuxLibc.DT_DIR;
+import static ooo.oshi.foreign.linux.LinuxLibc.D_NAME_OFFSET;
+import static ooo.oshi.foreign.linux.LinuxLibc.D_RECLEN_OFFSET;
+import static ooo.oshi.foreign.linux.LinuxLibc.D_TYPE_OFFSET;
+import static ooo.oshi.foreign.linux.LinuxLibc.O_CLOEXEC;
+import static ooo.oshi.foreign.linux.LinuxLibc.O_DIRECTORY;
+import static ooo.oshi.foreign.linux.LinuxLibc.O_RDONLY;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.MemorySession;
+import java.lang.ref.Cleaner;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ooo.oshi.annotation.concurrent.NotThreadSafe;
+import ooo.oshi.foreign.linux.LinuxLibc;
+
+/**
+ * Reads the numeric entries of a directory, such as the process IDs in {@code /proc}, one at a time. Entries are read
+ * with {@code getdents64} in batches into a fixed native buffer, so memory use does not depend on the number of
+ * entries, and a caller which stops early does not read the rest of the directory.
+ * <p>
+ * The directory is closed when the last entry has been read, by {@link #close()}, or when the instance is garbage
+ * collected.
+ */
+@NotThreadSafe
+public final class ProcDirectoryReader implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProcDirectoryReader.class);
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final int fd;
+    private final boolean directories;
+    private final MemorySegment buffer;
+    private final Cleaner.Cleanable cleanable;
+    private long offset;
+    private long length;
+    private boolean done;
+
+    private ProcDirectoryReader(int fd, boolean directories) {
+        this.fd = fd;
+        this.directories = directories;
+        this.buffer = MemorySegment.allocateNative(ProcUtil.DIRENT_BUFFER_SIZE, MemorySession.openImplicit());
+        // The action must not refer to this instance, or it would never become unreachable
+        this.cleanable = CLEANER.register(this, () -> LinuxLibc.close(fd));
+    }
+
+    /**
+     * Opens a directory for reading.
+     *
+     * @param directory   The directory to read, such as {@link ProcPath#PROC}
+     * @param directories If {@code true}, only return entries which are directories
+     * @return The reader, or {@code null} if the directory could not be opened or the C library does not export
+     *         {@code getdents64}
+     */
+    public static ProcDirectoryReader open(String directory, boolean directories) {
+        if (!LinuxLibc.hasGetdents64()) {
+            return null;
+        }
+        int fd;
+        try (MemorySession session = MemorySession.openConfined()) {
+            fd = LinuxLibc.open(session.allocateUtf8String(directory), O_RDONLY | O_DIRECTORY | O_CLOEXEC);
+        }
+        if (fd < 0) {
+            LOG.debug("Failed to open directory {}, Error code: {}", directory, LinuxLibc.errno());
+            return null;
+        }
+        return new ProcDirectoryReader(fd, directories);
+    }
+
+    /**
+     * Reads the next numeric entry.
+     *
+     * @return The next non-negative integer which is the name of an entry, or -1 if there are no more entries
+     */
+    public int next() {
+        while (!done) {
+            if (offset >= length) {
+                length = LinuxLibc.getdents64(fd, buffer, ProcUtil.DIRENT_BUFFER_SIZE);
+                offset = 0;
+                if (length <= 0) {
+                    if (length < 0) {
+                        LOG.debug("Failed to read directory entries, Error code: {}", LinuxLibc.errno());
+                    }
+                    close();
+                    break;
+                }
+            }
+            long entry = offset;
+            offset += Short.toUnsignedInt(buffer.get(JAVA_SHORT, entry + D_RECLEN_OFFSET));
+            byte type = buffer.get(JAVA_BYTE, entry + D_TYPE_OFFSET);
+            if (!directories || type == DT_DIR || type == ProcUtil.DT_UNKNOWN) {
+                int value = ProcUtil.parseName(buffer, entry + D_NAME_OFFSET);
+                if (value >= 0) {
+                    return value;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Closes the directory. Subsequent calls to {@link #next()} return -1.
+     */
+    @Override
+    public void close() {
+        done = true;
+        cleanable.clean();
+    }
+}
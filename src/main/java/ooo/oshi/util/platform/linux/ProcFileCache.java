@@ -0,0 +1,515 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.util.platform.linux;
+
+import static java.lang.foreign.ValueLayout.JAVA_LONG;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.MemorySession;
+import java.util.Locale;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ooo.oshi.annotation.concurrent.GuardedBy;
+import ooo.oshi.annotation.concurrent.ThreadSafe;
+import ooo.oshi.foreign.linux.LinuxLibc;
+
+/**
+ * Keeps frequently read {@code /proc/[pid]} files open, so that each refresh is a single {@code pread} at offset 0
+ * rather than an open, read and close with a path lookup. The kernel regenerates the contents on every read from
+ * offset 0.
+ * <p>
+ * The number of open descriptors is bounded by a budget. What happens once the budget is reached depends on the
+ * {@link Policy}: by default, the least recently read file is evicted to admit the new one, which keeps the files of
+ * the processes a caller polls. Descriptors are released when a read fails, as it does once the process has exited,
+ * making room for other files; all cached descriptors for that process ID are closed and the file is reopened once, in
+ * case the ID now belongs to a new process.
+ * <p>
+ * The default budget is a quarter of the soft {@code RLIMIT_NOFILE} limit, at most {@value #MAX_DEFAULT_BUDGET}, so
+ * that the cache leaves most descriptors to the application. The budget and policy of the shared instance may be set
+ * with the system properties {@value #BUDGET_PROPERTY} and {@value #POLICY_PROPERTY} ({@code lru} or
+ * {@code admit_until_full}).
+ */
+@ThreadSafe
+public final class ProcFileCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProcFileCache.class);
+
+    /**
+     * The system property setting the descriptor budget of the shared instance.
+     */
+    public static final String BUDGET_PROPERTY = "oshi.os.linux.procfs.fdcache.budget";
+
+    /**
+     * The system property setting the {@link Policy} of the shared instance.
+     */
+    public static final String POLICY_PROPERTY = "oshi.os.linux.procfs.fdcache.policy";
+
+    /**
+     * The largest default budget, enough for three files of each of several thousand processes.
+     */
+    public static final int MAX_DEFAULT_BUDGET = 16384;
+
+    // Used if the descriptor limit can't be read, well below the common soft limit of 1024
+    private static final int FALLBACK_BUDGET = 256;
+
+    /**
+     * What to do with a file which is not cached once the budget is reached.
+     */
+    public enum Policy {
+        /**
+         * Evict the least recently read file and cache the new one. Suits polling a set of processes whose files fit
+         * in the budget, such as with {@link ooo.oshi.software.os.ProcessRefresher}.
+         */
+        LRU,
+        /**
+         * Read the new file without caching it, keeping the files already cached. Suits repeated sweeps over more
+         * files than the budget, where least recently read eviction would close every file before it is read again.
+         */
+        ADMIT_UNTIL_FULL
+    }
+
+    /**
+     * The per-process files which may be cached.
+     */
+    public enum PidFile {
+        STAT("stat"), STATUS("status"), IO("io");
+
+        private final String fileName;
+
+        PidFile(String fileName) {
+            this.fileName = fileName;
+        }
+
+        /**
+         * Gets the name of the file relative to {@code /proc/[pid]}.
+         *
+         * @return The file name
+         */
+        public String getFileName() {
+            return fileName;
+        }
+    }
+
+    private static final ProcFileCache INSTANCE = new ProcFileCache(
+            Integer.getInteger(BUDGET_PROPERTY, defaultBudget()), policyProperty());
+    private static final int KINDS = PidFile.values().length;
+
+    // Open addressing table of keys to entries, a null entry marks an empty slot
+    @GuardedBy("this")
+    private long[] keys = new long[64];
+    @GuardedBy("this")
+    private Entry[] entries = new Entry[64];
+    @GuardedBy("this")
+    private int size;
+    @GuardedBy("this")
+    private int budget;
+    private final Policy policy;
+    // Cached entries, linked from most to least recently read
+    @GuardedBy("this")
+    private Entry head;
+    @GuardedBy("this")
+    private Entry tail;
+
+    /**
+     * An open descriptor, which is closed only when evicted and no longer being read.
+     */
+    private static final class Entry {
+        private final long key;
+        private final int fd;
+        @GuardedBy("ProcFileCache.this")
+        private int readers;
+        @GuardedBy("ProcFileCache.this")
+        private boolean evicted;
+        @GuardedBy("ProcFileCache.this")
+        private Entry prev;
+        @GuardedBy("ProcFileCache.this")
+        private Entry next;
+
+        private Entry(long key, int fd) {
+            this.key = key;
+            this.fd = fd;
+        }
+    }
+
+    /**
+     * Creates a cache with the given descriptor budget, evicting the least recently read file when full.
+     *
+     * @param budget The maximum number of descriptors to keep open
+     */
+    public ProcFileCache(int budget) {
+        this(budget, Policy.LRU);
+    }
+
+    /**
+     * Creates a cache with the given descriptor budget and policy.
+     *
+     * @param budget The maximum number of descriptors to keep open
+     * @param policy What to do with new files once the budget is reached
+     */
+    public ProcFileCache(int budget, Policy policy) {
+        this.budget = Math.max(budget, 0);
+        this.policy = Objects.requireNonNull(policy);
+    }
+
+    /**
+     * Gets the shared cache used for process refreshes.
+     *
+     * @return The shared instance
+     */
+    public static ProcFileCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Reads a cached file into a caller-supplied native buffer, opening it if necessary.
+     *
+     * @param pid    The process ID
+     * @param file   The file to read
+     * @param buffer The buffer to read into. Contents beyond its size are not read.
+     * @return The number of bytes read, or -1 if the file could not be read
+     */
+    public long read(int pid, PidFile file, MemorySegment buffer) {
+        long key = key(pid, file.ordinal());
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Entry entry = acquire(key, pid, file);
+            if (entry == null) {
+                return -1L;
+            }
+            long n;
+            try {
+                n = LinuxLibc.pread(entry.fd, buffer, buffer.byteSize(), 0L);
+            } finally {
+                release(entry);
+            }
+            if (n > 0) {
+                return n;
+            }
+            // The process has exited; its ID may since have been reused
+            invalidate(pid);
+        }
+        return -1L;
+    }
+
+    /**
+     * Closes all cached descriptors for a process ID.
+     *
+     * @param pid The process ID
+     */
+    public void invalidate(int pid) {
+        int[] unused = new int[KINDS];
+        int count = 0;
+        synchronized (this) {
+            for (int kind = 0; kind < KINDS; kind++) {
+                Entry entry = remove(key(pid, kind));
+                if (entry != null) {
+                    unlink(entry);
+                }
+                if (entry != null && evict(entry)) {
+                    unused[count++] = entry.fd;
+                }
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            LinuxLibc.close(unused[i]);
+        }
+    }
+
+    /**
+     * Closes all cached descriptors.
+     */
+    public synchronized void clear() {
+        for (int slot = 0; slot < entries.length; slot++) {
+            Entry entry = entries[slot];
+            if (entry != null) {
+                if (evict(entry)) {
+                    LinuxLibc.close(entry.fd);
+                }
+                entries[slot] = null;
+            }
+        }
+        size = 0;
+        head = null;
+        tail = null;
+    }
+
+    /**
+     * Changes the maximum number of descriptors kept open, closing cached files if necessary.
+     *
+     * @param budget The maximum number of descriptors to keep open, or 0 to disable caching
+     */
+    public synchronized void setBudget(int budget) {
+        this.budget = Math.max(budget, 0);
+        while (size > this.budget) {
+            Entry entry = evictLeastRecentlyRead();
+            if (entry != null) {
+                LinuxLibc.close(entry.fd);
+            }
+        }
+    }
+
+    /**
+     * Gets the policy applied once the budget is reached.
+     *
+     * @return The policy
+     */
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Gets the maximum number of descriptors kept open.
+     *
+     * @return The descriptor budget
+     */
+    public synchronized int getBudget() {
+        return budget;
+    }
+
+    /**
+     * Gets the number of descriptors currently cached.
+     *
+     * @return The number of open descriptors
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private Entry acquire(long key, int pid, PidFile file) {
+        synchronized (this) {
+            Entry entry = get(key);
+            if (entry != null) {
+                entry.readers++;
+                moveToFront(entry);
+                return entry;
+            }
+        }
+        // Open without holding the lock, so that other readers are not held up by the path lookup
+        int fd = ProcUtil.openPidFile(pid, file.getFileName());
+        if (fd < 0) {
+            return null;
+        }
+        Entry entry = new Entry(key, fd);
+        Entry other;
+        Entry victim = null;
+        synchronized (this) {
+            other = get(key);
+            if (other != null) {
+                // Another thread opened the file first
+                other.readers++;
+                moveToFront(other);
+            } else {
+                if (size >= budget && budget > 0 && policy == Policy.LRU) {
+                    victim = evictLeastRecentlyRead();
+                }
+                if (size < budget) {
+                    put(key, entry);
+                    linkFirst(entry);
+                } else {
+                    // Full, or caching disabled: close after this read
+                    entry.evicted = true;
+                }
+                entry.readers++;
+            }
+        }
+        if (victim != null) {
+            LinuxLibc.close(victim.fd);
+        }
+        if (other == null) {
+            return entry;
+        }
+        LinuxLibc.close(fd);
+        return other;
+    }
+
+    private void release(Entry entry) {
+        boolean close;
+        synchronized (this) {
+            close = --entry.readers == 0 && entry.evicted;
+        }
+        if (close) {
+            LinuxLibc.close(entry.fd);
+        }
+    }
+
+    /**
+     * Removes the least recently read entry.
+     *
+     * @return The entry if the caller must close its descriptor, or {@code null} if it is still being read or the
+     *         cache is empty
+     */
+    @GuardedBy("this")
+    private Entry evictLeastRecentlyRead() {
+        Entry entry = tail;
+        if (entry == null) {
+            return null;
+        }
+        remove(entry.key);
+        unlink(entry);
+        return evict(entry) ? entry : null;
+    }
+
+    @GuardedBy("this")
+    private void linkFirst(Entry entry) {
+        entry.prev = null;
+        entry.next = head;
+        if (head != null) {
+            head.prev = entry;
+        }
+        head = entry;
+        if (tail == null) {
+            tail = entry;
+        }
+    }
+
+    @GuardedBy("this")
+    private void unlink(Entry entry) {
+        if (entry.prev == null) {
+            head = entry.next;
+        } else {
+            entry.prev.next = entry.next;
+        }
+        if (entry.next == null) {
+            tail = entry.prev;
+        } else {
+            entry.next.prev = entry.prev;
+        }
+        entry.prev = null;
+        entry.next = null;
+    }
+
+    @GuardedBy("this")
+    private void moveToFront(Entry entry) {
+        if (head != entry) {
+            unlink(entry);
+            linkFirst(entry);
+        }
+    }
+
+    /**
+     * Marks an entry removed from the table, to be closed by its last reader.
+     *
+     * @return {@code true} if there are no readers, and the caller must close the descriptor
+     */
+    @GuardedBy("this")
+    private boolean evict(Entry entry) {
+        entry.evicted = true;
+        return entry.readers == 0;
+    }
+
+    @GuardedBy("this")
+    private Entry get(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        Entry entry;
+        while ((entry = entries[slot]) != null) {
+            if (keys[slot] == key) {
+                return entry;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    @GuardedBy("this")
+    private void put(long key, Entry entry) {
+        if ((size + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (entries[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        entries[slot] = entry;
+        size++;
+    }
+
+    /**
+     * Removes a key, shifting back later entries of its probe sequence.
+     */
+    @GuardedBy("this")
+    private Entry remove(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        Entry removed;
+        while ((removed = entries[slot]) != null && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (removed == null) {
+            return null;
+        }
+        int hole = slot;
+        slot = (slot + 1) & mask;
+        while (entries[slot] != null) {
+            int home = hash(keys[slot]) & mask;
+            // Move the entry into the hole unless its home slot lies cyclically after the hole
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                keys[hole] = keys[slot];
+                entries[hole] = entries[slot];
+                hole = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        entries[hole] = null;
+        size--;
+        return removed;
+    }
+
+    @GuardedBy("this")
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Entry[] oldEntries = entries;
+        keys = new long[capacity];
+        entries = new Entry[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldEntries.length; i++) {
+            if (oldEntries[i] != null) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (entries[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                entries[slot] = oldEntries[i];
+            }
+        }
+    }
+
+    private static long key(int pid, int kind) {
+        return (long) pid * KINDS + kind;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static Policy policyProperty() {
+        String value = System.getProperty(POLICY_PROPERTY);
+        if (value != null) {
+            try {
+                return Policy.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                LOG.warn("Invalid {}: {}, using lru.", POLICY_PROPERTY, value);
+            }
+        }
+        return Policy.LRU;
+    }
+
+    private static int defaultBudget() {
+        try (MemorySession session = MemorySession.openConfined()) {
+            MemorySegment rlim = MemorySegment.allocateNative(LinuxLibc.RLIMIT_SIZE, session);
+            if (LinuxLibc.getrlimit(LinuxLibc.RLIMIT_NOFILE, rlim) == 0) {
+                // RLIM_INFINITY is all ones, negative as a signed long
+                long soft = rlim.get(JAVA_LONG, 0);
+                return soft < 0 ? MAX_DEFAULT_BUDGET : (int) Math.min(soft / 4, MAX_DEFAULT_BUDGET);
+            }
+        }
+        return FALLBACK_BUDGET;
+    }
+}
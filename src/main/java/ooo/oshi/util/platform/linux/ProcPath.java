@@ -0,0 +1,22 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.util.platform.linux;
+
+import ooo.oshi.annotation.concurrent.ThreadSafe;
+
+/**
+ * Provides constants for paths in the {@code /proc} filesystem on Linux.
+ */
+@ThreadSafe
+public final class ProcPath {
+
+    public static final String PROC = "/proc";
+
+    public static final String STAT = PROC + "/stat";
+    public static final String UPTIME = PROC + "/uptime";
+
+    private ProcPath() {
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.util.platform.linux;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static ooo.oshi.foreign.linux.LinuxLibc.O_CLOEXEC;
+import static ooo.oshi.foreign.linux.LinuxLibc.O_DIRECTORY;
+import static ooo.oshi.foreign.linux.LinuxLibc.O_PATH;
+import static ooo.oshi.foreign.linux.LinuxLibc.O_RDONLY;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.MemorySession;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import ooo.oshi.annotation.concurrent.NotThreadSafe;
+import ooo.oshi.foreign.linux.LinuxLibc;
+
+/**
+ * An open {@code /proc/[pid]} directory. Files within it are opened with {@code openat} relative to the directory's
+ * file descriptor, avoiding building a path string and walking the path from the root for each file.
+ * <p>
+ * Every read is anchored to the process which owned the ID when the directory was opened. If that process exits,
+ * reads fail rather than returning the contents of a new process which reused its ID.
+ * <p>
+ * Instances must be closed, and are intended to be used by one thread for the duration of a single update.
+ */
+@NotThreadSafe
+public final class ProcPidDir implements AutoCloseable {
+
+    // Room for any file name in /proc/[pid], including the null terminator
+    private static final int NAME_BUFFER_SIZE = 64;
+    // Room for a typical symlink target; longer targets are retried with a larger buffer
+    private static final int LINK_BUFFER_SIZE = 4096;
+    private static final int READ_BUFFER_SIZE = 4096;
+
+    private static final byte[] TASK_PREFIX = "task/".getBytes(StandardCharsets.US_ASCII);
+
+    private static final ThreadLocal<MemorySegment> NAME_BUFFER = ThreadLocal
+            .withInitial(() -> MemorySegment.allocateNative(NAME_BUFFER_SIZE, MemorySession.openImplicit()));
+    private static final ThreadLocal<MemorySegment> READ_BUFFER = ThreadLocal
+            .withInitial(() -> MemorySegment.allocateNative(READ_BUFFER_SIZE, MemorySession.openImplicit()));
+
+    private final int pid;
+    private int fd;
+
+    private ProcPidDir(int pid, int fd) {
+        this.pid = pid;
+        this.fd = fd;
+    }
+
+    /**
+     * Opens a process's {@code /proc/[pid]} directory with {@code O_PATH}, which requires no permissions on the
+     * directory itself.
+     *
+     * @param pid The process ID
+     * @return The open directory, or {@code null} if the process does not exist
+     */
+    public static ProcPidDir open(int pid) {
+        int fd = ProcUtil.openPidFile(pid, "", O_PATH | O_DIRECTORY | O_CLOEXEC);
+        return fd < 0 ? null : new ProcPidDir(pid, fd);
+    }
+
+    /**
+     * Gets the process ID of this directory.
+     *
+     * @return The process ID
+     */
+    public int getProcessId() {
+        return pid;
+    }
+
+    /**
+     * Opens a file in this directory.
+     *
+     * @param name  The file name, such as {@code stat}
+     * @param flags The open flags
+     * @return The file descriptor, which the caller must close, or -1 if the file could not be opened
+     */
+    public int openFile(String name, int flags) {
+        MemorySegment path = NAME_BUFFER.get();
+        if (!writeName(path, name)) {
+            try (MemorySession session = MemorySession.openConfined()) {
+                return LinuxLibc.openat(fd, session.allocateUtf8String(name), flags);
+            }
+        }
+        return LinuxLibc.openat(fd, path, flags);
+    }
+
+    /**
+     * Reads a file in this directory into a caller-supplied native buffer.
+     *
+     * @param name   The file name, such as {@code stat}
+     * @param buffer The buffer to read into. Contents beyond its size are not read.
+     * @return The number of bytes read, or -1 if the file could not be opened or read
+     */
+    public long read(String name, MemorySegment buffer) {
+        int file = openFile(name, O_RDONLY | O_CLOEXEC);
+        if (file < 0) {
+            return -1L;
+        }
+        try {
+            return ProcUtil.readFully(file, buffer);
+        } finally {
+            LinuxLibc.close(file);
+        }
+    }
+
+    /**
+     * Reads a file of one of this process's threads, {@code task/[tid]/[name]}, into a caller-supplied native buffer.
+     * The path is built in a per-thread native buffer, so no objects are created.
+     *
+     * @param tid    The thread ID
+     * @param name   The file name within the thread's directory, such as {@code stat}
+     * @param buffer The buffer to read into. Contents beyond its size are not read.
+     * @return The number of bytes read, or -1 if the file could not be opened or read
+     */
+    public long readTaskFile(int tid, String name, MemorySegment buffer) {
+        MemorySegment path = NAME_BUFFER.get();
+        if (!writeTaskName(path, tid, name)) {
+            return read("task/" + tid + "/" + name, buffer);
+        }
+        int file = LinuxLibc.openat(fd, path, O_RDONLY | O_CLOEXEC);
+        if (file < 0) {
+            return -1L;
+        }
+        try {
+            return ProcUtil.readFully(file, buffer);
+        } finally {
+            LinuxLibc.close(file);
+        }
+    }
+
+    /**
+     * Reads the entire contents of a file in this directory, such as {@code cmdline} or {@code environ}.
+     *
+     * @param name The file name
+     * @return The contents of the file, or an empty array if it could not be read
+     */
+    public byte[] readAllBytes(String name) {
+        int file = openFile(name, O_RDONLY | O_CLOEXEC);
+        if (file < 0) {
+            return new byte[0];
+        }
+        try {
+            MemorySegment buffer = READ_BUFFER.get();
+            byte[] bytes = new byte[0];
+            long n;
+            while ((n = LinuxLibc.read(file, buffer, READ_BUFFER_SIZE)) > 0) {
+                int offset = bytes.length;
+                bytes = Arrays.copyOf(bytes, offset + (int) n);
+                MemorySegment.copy(buffer, JAVA_BYTE, 0, bytes, offset, (int) n);
+            }
+            return n < 0 ? new byte[0] : bytes;
+        } finally {
+            LinuxLibc.close(file);
+        }
+    }
+
+    /**
+     * Reads the target of a symbolic link in this directory, such as {@code exe} or {@code cwd}.
+     *
+     * @param name The link name
+     * @return The link target, or an empty string if it could not be read
+     */
+    public String readLink(String name) {
+        MemorySegment path = NAME_BUFFER.get();
+        try (MemorySession session = MemorySession.openConfined()) {
+            if (!writeName(path, name)) {
+                path = session.allocateUtf8String(name);
+            }
+            for (long size = LINK_BUFFER_SIZE;; size *= 2) {
+                MemorySegment buf = MemorySegment.allocateNative(size, session);
+                long n = LinuxLibc.readlinkat(fd, path, buf, size);
+                if (n < 0) {
+                    return "";
+                }
+                if (n < size) {
+                    byte[] bytes = new byte[(int) n];
+                    MemorySegment.copy(buf, JAVA_BYTE, 0, bytes, 0, bytes.length);
+                    return new String(bytes, StandardCharsets.UTF_8);
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts the numeric entries of a subdirectory, such as the open file descriptors in {@code fd}.
+     *
+     * @param name The subdirectory name
+     * @return The number of entries whose names are non-negative integers, or 0 if the directory could not be read.
+     */
+    public int countNumericEntries(String name) {
+        return getNumericEntries(name).length;
+    }
+
+    /**
+     * Lists the numeric entries of a subdirectory, such as the thread IDs in {@code task}.
+     *
+     * @param name The subdirectory name
+     * @return The entries whose names are non-negative integers, in directory order, or an empty array if the
+     *         directory could not be read.
+     */
+    public int[] getNumericEntries(String name) {
+        if (!LinuxLibc.hasGetdents64()) {
+            return ProcUtil.getNumericEntries(String.format(ProcPath.PROC + "/%d/%s", pid, name), false);
+        }
+        int dir = openFile(name, O_RDONLY | O_DIRECTORY | O_CLOEXEC);
+        if (dir < 0) {
+            return new int[0];
+        }
+        try (MemorySession session = MemorySession.openConfined()) {
+            int[] entries = ProcUtil.readNumericEntries(dir, false,
+                    MemorySegment.allocateNative(ProcUtil.DIRENT_BUFFER_SIZE, session));
+            return entries == null ? new int[0] : entries;
+        } finally {
+            LinuxLibc.close(dir);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (fd >= 0) {
+            LinuxLibc.close(fd);
+            fd = -1;
+        }
+    }
+
+    private static boolean writeTaskName(MemorySegment path, int tid, String name) {
+        int digits = 1;
+        for (int t = tid; t >= 10; t /= 10) {
+            digits++;
+        }
+        if (tid < 0 || TASK_PREFIX.length + digits + 1 + name.length() >= path.byteSize()) {
+            return false;
+        }
+        MemorySegment.copy(TASK_PREFIX, 0, path, JAVA_BYTE, 0, TASK_PREFIX.length);
+        long offset = TASK_PREFIX.length + digits;
+        for (int t = tid; offset > TASK_PREFIX.length; t /= 10) {
+            path.set(JAVA_BYTE, --offset, (byte) ('0' + t % 10));
+        }
+        offset = TASK_PREFIX.length + digits;
+        path.set(JAVA_BYTE, offset++, (byte) '/');
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c > 0x7f) {
+                return false;
+            }
+            path.set(JAVA_BYTE, offset++, (byte) c);
+        }
+        path.set(JAVA_BYTE, offset, (byte) 0);
+        return true;
+    }
+
+    private static boolean writeName(MemorySegment path, String name) {
+        if (name.length() >= path.byteSize()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c > 0x7f) {
+                return false;
+            }
+            path.set(JAVA_BYTE, i, (byte) c);
+        }
+        path.set(JAVA_BYTE, name.length(), (byte) 0);
+        return true;
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.util.platform.linux;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import ooo.oshi.annotation.concurrent.ThreadSafe;
+
+/**
+ * Parses the contents of {@code /proc/[pid]/stat} or {@code /proc/[pid]/task/[tid]/stat} directly from the bytes read
+ * from the file, into a caller-supplied {@code long[]}, without creating any objects.
+ * <p>
+ * Array indices are the field numbers documented in {@code proc(5)} minus one, so that {@link #PID} is at index 0.
+ * Numeric fields hold their parsed value; values exceeding {@link Long#MAX_VALUE} hold {@link Long#MAX_VALUE}. The
+ * {@link #STATE} field holds the state character. The {@link #COMM} field holds the position of the command name in
+ * the buffer, packed as an offset and length which may be decoded with {@link #commOffset(long)} and
+ * {@link #commLength(long)} or converted to a String with {@link #getComm}.
+ * <p>
+ * The command name is delimited by the first {@code (} and the last {@code )} in the file, so names containing
+ * spaces or parentheses are handled correctly.
+ */
+@ThreadSafe
+public final class ProcStatParser {
+
+    public static final int PID = 0;
+    public static final int COMM = 1;
+    public static final int STATE = 2;
+    public static final int PPID = 3;
+    public static final int PGRP = 4;
+    public static final int SESSION = 5;
+    public static final int TTY_NR = 6;
+    public static final int MINFLT = 9;
+    public static final int MAJFLT = 11;
+    public static final int UTIME = 13;
+    public static final int STIME = 14;
+    public static final int PRIORITY = 17;
+    public static final int NICE = 18;
+    public static final int NUM_THREADS = 19;
+    public static final int STARTTIME = 21;
+    public static final int VSIZE = 22;
+    public static final int RSS = 23;
+    public static final int STARTCODE = 25;
+    public static final int PROCESSOR = 38;
+
+    /**
+     * The number of fields present on all kernels since 2.6, sufficient to hold every named index in this class.
+     */
+    public static final int MIN_FIELDS = 44;
+
+    private ProcStatParser() {
+    }
+
+    /**
+     * Parses the stat fields from a native memory segment.
+     *
+     * @param m      A segment containing the file contents
+     * @param length The number of valid bytes in the segment
+     * @param fields The array to fill. Fields beyond its length are ignored; elements beyond the number of fields
+     *               parsed are left unchanged.
+     * @return The number of fields parsed, including the pid, comm and state, or -1 if the contents are malformed
+     */
+    public static int parse(MemorySegment m, long length, long[] fields) {
+        // Locate the last ')' to find the end of the comm field
+        long end = length - 1;
+        while (end > 0 && m.get(JAVA_BYTE, end) != ')') {
+            end--;
+        }
+        long start = 0;
+        long pid = 0;
+        byte b;
+        while (start < end && (b = m.get(JAVA_BYTE, start)) != '(') {
+            if (b >= '0' && b <= '9') {
+                pid = pid * 10 + (b - '0');
+            }
+            start++;
+        }
+        // Require "pid (comm) s"
+        if (start >= end || end + 2 >= length || fields.length <= STATE) {
+            return -1;
+        }
+        fields[PID] = pid;
+        fields[COMM] = packComm(start + 1, end - start - 1);
+        fields[STATE] = m.get(JAVA_BYTE, end + 2);
+
+        int field = STATE + 1;
+        long pos = end + 3;
+        while (pos < length && field < fields.length) {
+            b = m.get(JAVA_BYTE, pos);
+            if (b == ' ') {
+                pos++;
+                continue;
+            }
+            if (b == '\n' || b == 0) {
+                break;
+            }
+            boolean negative = b == '-';
+            if (negative) {
+                pos++;
+            }
+            long value = 0;
+            boolean overflow = false;
+            while (pos < length && (b = m.get(JAVA_BYTE, pos)) >= '0' && b <= '9') {
+                if (value > (Long.MAX_VALUE - (b - '0')) / 10) {
+                    overflow = true;
+                } else {
+                    value = value * 10 + (b - '0');
+                }
+                pos++;
+            }
+            // Skip any unexpected trailing characters in this field
+            while (pos < length && (b = m.get(JAVA_BYTE, pos)) != ' ' && b != '\n' && b != 0) {
+                pos++;
+            }
+            fields[field++] = overflow ? Long.MAX_VALUE : negative ? -value : value;
+        }
+        return field;
+    }
+
+    /**
+     * Parses the stat fields from a byte buffer, between its position and limit. The buffer's position is not
+     * changed.
+     *
+     * @param buf    A buffer containing the file contents
+     * @param fields The array to fill. Fields beyond its length are ignored; elements beyond the number of fields
+     *               parsed are left unchanged.
+     * @return The number of fields parsed, including the pid, comm and state, or -1 if the contents are malformed
+     */
+    public static int parse(ByteBuffer buf, long[] fields) {
+        int base = buf.position();
+        int length = buf.limit();
+        int end = length - 1;
+        while (end > base && buf.get(end) != ')') {
+            end--;
+        }
+        int start = base;
+        long pid = 0;
+        byte b;
+        while (start < end && (b = buf.get(start)) != '(') {
+            if (b >= '0' && b <= '9') {
+                pid = pid * 10 + (b - '0');
+            }
+            start++;
+        }
+        if (start >= end || end + 2 >= length || fields.length <= STATE) {
+            return -1;
+        }
+        fields[PID] = pid;
+        fields[COMM] = packComm(start + 1 - base, end - start - 1);
+        fields[STATE] = buf.get(end + 2);
+
+        int field = STATE + 1;
+        int pos = end + 3;
+        while (pos < length && field < fields.length) {
+            b = buf.get(pos);
+            if (b == ' ') {
+                pos++;
+                continue;
+            }
+            if (b == '\n' || b == 0) {
+                break;
+            }
+            boolean negative = b == '-';
+            if (negative) {
+                pos++;
+            }
+            long value = 0;
+            boolean overflow = false;
+            while (pos < length && (b = buf.get(pos)) >= '0' && b <= '9') {
+                if (value > (Long.MAX_VALUE - (b - '0')) / 10) {
+                    overflow = true;
+                } else {
+                    value = value * 10 + (b - '0');
+                }
+                pos++;
+            }
+            while (pos < length && (b = buf.get(pos)) != ' ' && b != '\n' && b != 0) {
+                pos++;
+            }
+            fields[field++] = overflow ? Long.MAX_VALUE : negative ? -value : value;
+        }
+        return field;
+    }
+
+    /**
+     * Decodes the offset of the command name from the packed {@link #COMM} field.
+     *
+     * @param comm The value of the {@link #COMM} field
+     * @return The offset of the first byte of the command name, relative to the start of the parsed contents
+     */
+    public static int commOffset(long comm) {
+        return (int) (comm >>> 32);
+    }
+
+    /**
+     * Decodes the length of the command name from the packed {@link #COMM} field.
+     *
+     * @param comm The value of the {@link #COMM} field
+     * @return The length of the command name in bytes
+     */
+    public static int commLength(long comm) {
+        return (int) comm;
+    }
+
+    /**
+     * Gets the command name. Unlike parsing, this allocates the returned String.
+     *
+     * @param m      The segment which was parsed
+     * @param fields The parsed fields
+     * @return The command name
+     */
+    public static String getComm(MemorySegment m, long[] fields) {
+        byte[] bytes = new byte[commLength(fields[COMM])];
+        MemorySegment.copy(m, JAVA_BYTE, commOffset(fields[COMM]), bytes, 0, bytes.length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Gets the command name. Unlike parsing, this allocates the returned String.
+     *
+     * @param buf    The buffer which was parsed, with its position unchanged
+     * @param fields The parsed fields
+     * @return The command name
+     */
+    public static String getComm(ByteBuffer buf, long[] fields) {
+        byte[] bytes = new byte[commLength(fields[COMM])];
+        buf.get(buf.position() + commOffset(fields[COMM]), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long packComm(long offset, long length) {
+        return offset << 32 | length & 0xffff_ffffL;
+    }
+}
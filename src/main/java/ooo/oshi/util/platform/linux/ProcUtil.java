@@ -0,0 +1,345 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.util.platform.linux;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.lang.foreign.ValueLayout.JAVA_SHORT;
+import static ooo.oshi.foreign.linux.LinuxLibc.DT_DIR;
+import static ooo.oshi.foreign.linux.LinuxLibc.D_NAME_OFFSET;
+import static ooo.oshi.foreign.linux.LinuxLibc.D_RECLEN_OFFSET;
+import static ooo.oshi.foreign.linux.LinuxLibc.D_TYPE_OFFSET;
+import static ooo.oshi.foreign.linux.LinuxLibc.O_CLOEXEC;
+import static ooo.oshi.foreign.linux.LinuxLibc.O_RDONLY;
+import static ooo.oshi.foreign.linux.LinuxLibc.errno;
+
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.MemorySession;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ooo.oshi.annotation.concurrent.ThreadSafe;
+import ooo.oshi.foreign.linux.LinuxLibc;
+import ooo.oshi.util.Constants;
+import ooo.oshi.util.ParseUtil;
+
+/**
+ * Provides access to the {@code /proc} filesystem on Linux.
+ */
+@ThreadSafe
+public final class ProcUtil {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProcUtil.class);
+
+    // The getdents64 buffer size for all /proc directories, room for about a thousand process entries per call
+    static final int DIRENT_BUFFER_SIZE = 32 * 1024;
+
+    // Any directory entry type other than DT_DIR and DT_UNKNOWN cannot be a process
+    static final byte DT_UNKNOWN = 0;
+
+    // Room for "/proc/[pid]/" and a file name, including the null terminator
+    private static final int PATH_BUFFER_SIZE = 256;
+    private static final byte[] PROC_PREFIX = (ProcPath.PROC + "/").getBytes(StandardCharsets.US_ASCII);
+
+    private static final ThreadLocal<MemorySegment> PATH_BUFFER = ThreadLocal
+            .withInitial(() -> MemorySegment.allocateNative(PATH_BUFFER_SIZE, MemorySession.openImplicit()));
+
+    private ProcUtil() {
+    }
+
+    /**
+     * Lists the process IDs of all processes by reading the numeric entries of {@code /proc} in a single directory
+     * pass.
+     *
+     * @return An array of process IDs, in directory order
+     */
+    public static int[] getPids() {
+        return getNumericEntries(ProcPath.PROC, true);
+    }
+
+    /**
+     * Lists the numeric entries of a directory, such as the process IDs in {@code /proc}, the thread IDs in
+     * {@code /proc/[pid]/task}, or the file descriptors in {@code /proc/[pid]/fd}.
+     * <p>
+     * Uses {@code getdents64} to read the directory entries directly into native memory, parsing each name in place,
+     * so no {@link Path} or {@link String} is created per entry. Falls back to a {@link DirectoryStream} if the C
+     * library does not export {@code getdents64}.
+     *
+     * @param directory   The directory to list
+     * @param directories If {@code true}, only include entries which are directories
+     * @return An array of the non-negative integers which are names of entries in the directory. An empty array if the
+     *         directory could not be read.
+     */
+    public static int[] getNumericEntries(String directory, boolean directories) {
+        if (!LinuxLibc.hasGetdents64()) {
+            return getNumericEntriesFromStream(directory);
+        }
+        try (MemorySession session = MemorySession.openConfined()) {
+            int fd = LinuxLibc.open(session.allocateUtf8String(directory), O_RDONLY | O_CLOEXEC);
+            if (fd < 0) {
+                LOG.debug("Failed to open directory {}, Error code: {}", directory, errno());
+                return new int[0];
+            }
+            try {
+                int[] entries = readNumericEntries(fd, directories,
+                        MemorySegment.allocateNative(DIRENT_BUFFER_SIZE, session));
+                if (entries == null) {
+                    LOG.debug("Failed to read directory {}, Error code: {}", directory, errno());
+                    return new int[0];
+                }
+                return entries;
+            } finally {
+                LinuxLibc.close(fd);
+            }
+        }
+    }
+
+    /**
+     * Lists the numeric entries of an open directory using {@code getdents64}. Requires
+     * {@link LinuxLibc#hasGetdents64()}.
+     *
+     * @param fd          A file descriptor open for reading on the directory
+     * @param directories If {@code true}, only include entries which are directories
+     * @param buf         A native buffer to read directory entries into
+     * @return An array of the non-negative integers which are names of entries in the directory, or {@code null} if
+     *         the directory could not be read.
+     */
+    static int[] readNumericEntries(int fd, boolean directories, MemorySegment buf) {
+        int[] entries = new int[256];
+        int count = 0;
+        long bytesRead;
+        while ((bytesRead = LinuxLibc.getdents64(fd, buf, buf.byteSize())) > 0) {
+            long offset = 0;
+            while (offset < bytesRead) {
+                byte type = buf.get(JAVA_BYTE, offset + D_TYPE_OFFSET);
+                if (!directories || type == DT_DIR || type == DT_UNKNOWN) {
+                    int value = parseName(buf, offset + D_NAME_OFFSET);
+                    if (value >= 0) {
+                        if (count == entries.length) {
+                            entries = Arrays.copyOf(entries, count * 2);
+                        }
+                        entries[count++] = value;
+                    }
+                }
+                offset += Short.toUnsignedInt(buf.get(JAVA_SHORT, offset + D_RECLEN_OFFSET));
+            }
+        }
+        return bytesRead < 0 ? null : Arrays.copyOf(entries, count);
+    }
+
+    /**
+     * Counts the numeric entries of a directory, such as the open file descriptors in {@code /proc/[pid]/fd}.
+     *
+     * @param directory The directory to count
+     * @return The number of entries whose names are non-negative integers, or 0 if the directory could not be read.
+     */
+    public static int countNumericEntries(String directory) {
+        return getNumericEntries(directory, false).length;
+    }
+
+    /**
+     * Reads a file in a process's {@code /proc/[pid]} directory into a caller-supplied native buffer. The path is built
+     * in a per-thread native buffer, so no objects are created for short ASCII file names.
+     *
+     * @param pid    The process ID
+     * @param file   The file name relative to {@code /proc/[pid]}, such as {@code stat}
+     * @param buffer The buffer to read into. Contents beyond its size are not read.
+     * @return The number of bytes read, or -1 if the file could not be opened or read
+     */
+    public static long readPidFile(int pid, String file, MemorySegment buffer) {
+        MemorySegment path = PATH_BUFFER.get();
+        if (!writePidPath(path, pid, file)) {
+            try (MemorySession session = MemorySession.openConfined()) {
+                return readFile(session.allocateUtf8String(String.format(ProcPath.PROC + "/%d/%s", pid, file)),
+                        buffer);
+            }
+        }
+        return readFile(path, buffer);
+    }
+
+    /**
+     * Opens a file in a process's {@code /proc} directory for reading.
+     *
+     * @param pid  The process ID
+     * @param file The file name relative to {@code /proc/[pid]}, such as {@code stat}
+     * @return The file descriptor, which the caller must close, or -1 if the file could not be opened
+     */
+    public static int openPidFile(int pid, String file) {
+        return openPidFile(pid, file, O_RDONLY | O_CLOEXEC);
+    }
+
+    static int openPidFile(int pid, String file, int flags) {
+        MemorySegment path = PATH_BUFFER.get();
+        if (!writePidPath(path, pid, file)) {
+            try (MemorySession session = MemorySession.openConfined()) {
+                return LinuxLibc.open(session.allocateUtf8String(String.format(ProcPath.PROC + "/%d/%s", pid, file)),
+                        flags);
+            }
+        }
+        return LinuxLibc.open(path, flags);
+    }
+
+    /**
+     * Reads a file into a caller-supplied native buffer, until end of file or the buffer is full.
+     *
+     * @param path   The null-terminated path of the file
+     * @param buffer The buffer to read into
+     * @return The number of bytes read, or -1 if the file could not be opened or read
+     */
+    public static long readFile(MemorySegment path, MemorySegment buffer) {
+        int fd = LinuxLibc.open(path, O_RDONLY | O_CLOEXEC);
+        if (fd < 0) {
+            return -1L;
+        }
+        try {
+            return readFully(fd, buffer);
+        } finally {
+            LinuxLibc.close(fd);
+        }
+    }
+
+    /**
+     * Reads from an open file descriptor into a caller-supplied native buffer, until end of file or the buffer is
+     * full.
+     *
+     * @param fd     The file descriptor
+     * @param buffer The buffer to read into
+     * @return The number of bytes read, or -1 if the read failed
+     */
+    public static long readFully(int fd, MemorySegment buffer) {
+        long size = buffer.byteSize();
+        long total = 0;
+        while (total < size) {
+            long n = LinuxLibc.read(fd, total == 0 ? buffer : buffer.asSlice(total), size - total);
+            if (n < 0) {
+                return -1L;
+            }
+            if (n == 0) {
+                break;
+            }
+            total += n;
+        }
+        return total;
+    }
+
+    /**
+     * Parses the first numeric value of a line of a {@code /proc/[pid]/status} style file, held in native memory. Only
+     * lines starting with the key are matched.
+     *
+     * @param m      A segment containing the file contents
+     * @param length The number of valid bytes in the segment
+     * @param key    The ASCII bytes of the key, including the trailing colon, such as {@code Uid:}
+     * @param def    The value to return if the key is not found
+     * @return The first number following the key, or the default
+     */
+    public static long parseStatusValue(MemorySegment m, long length, byte[] key, long def) {
+        long lineStart = 0;
+        while (lineStart + key.length < length) {
+            int i = 0;
+            while (i < key.length && m.get(JAVA_BYTE, lineStart + i) == key[i]) {
+                i++;
+            }
+            long pos = lineStart + i;
+            if (i == key.length) {
+                byte b;
+                while (pos < length && ((b = m.get(JAVA_BYTE, pos)) == ' ' || b == '\t')) {
+                    pos++;
+                }
+                long value = 0;
+                boolean found = false;
+                while (pos < length && (b = m.get(JAVA_BYTE, pos)) >= '0' && b <= '9') {
+                    value = value * 10 + (b - '0');
+                    found = true;
+                    pos++;
+                }
+                return found ? value : def;
+            }
+            while (pos < length && m.get(JAVA_BYTE, pos) != '\n') {
+                pos++;
+            }
+            lineStart = pos + 1;
+        }
+        return def;
+    }
+
+    /**
+     * Writes the null-terminated path {@code /proc/[pid]/[file]} into a native buffer.
+     *
+     * @return {@code true} if the path was written; {@code false} if it would not fit or is not ASCII
+     */
+    static boolean writePidPath(MemorySegment path, int pid, String file) {
+        int digits = 1;
+        for (int p = pid; p >= 10; p /= 10) {
+            digits++;
+        }
+        int length = PROC_PREFIX.length + digits + 1 + file.length();
+        if (pid < 0 || length >= path.byteSize()) {
+            return false;
+        }
+        MemorySegment.copy(PROC_PREFIX, 0, path, JAVA_BYTE, 0, PROC_PREFIX.length);
+        long offset = PROC_PREFIX.length + digits;
+        for (int p = pid; offset > PROC_PREFIX.length; p /= 10) {
+            path.set(JAVA_BYTE, --offset, (byte) ('0' + p % 10));
+        }
+        offset = PROC_PREFIX.length + digits;
+        path.set(JAVA_BYTE, offset++, (byte) '/');
+        for (int i = 0; i < file.length(); i++) {
+            char c = file.charAt(i);
+            if (c > 0x7f) {
+                return false;
+            }
+            path.set(JAVA_BYTE, offset++, (byte) c);
+        }
+        path.set(JAVA_BYTE, offset, (byte) 0);
+        return true;
+    }
+
+    /**
+     * Parses a null-terminated directory entry name as a non-negative integer.
+     *
+     * @param m      The segment containing the name
+     * @param offset The offset of the first byte of the name
+     * @return The parsed value, or -1 if the name is empty, not entirely decimal digits, or too large for an int
+     */
+    static int parseName(MemorySegment m, long offset) {
+        long value = 0;
+        int digits = 0;
+        byte b;
+        while ((b = m.get(JAVA_BYTE, offset + digits)) != 0) {
+            if (b < '0' || b > '9' || digits > 9) {
+                return -1;
+            }
+            value = value * 10 + (b - '0');
+            digits++;
+        }
+        return digits == 0 || value > Integer.MAX_VALUE ? -1 : (int) value;
+    }
+
+    private static int[] getNumericEntriesFromStream(String directory) {
+        int[] entries = new int[256];
+        int count = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(Paths.get(directory))) {
+            for (Path p : stream) {
+                String name = p.getFileName().toString();
+                if (Constants.DIGITS.matcher(name).matches()) {
+                    if (count == entries.length) {
+                        entries = Arrays.copyOf(entries, count * 2);
+                    }
+                    entries[count++] = ParseUtil.parseIntOrDefault(name, 0);
+                }
+            }
+        } catch (IOException e) {
+            LOG.debug("Failed to read directory {}: {}", directory, e.getMessage());
+        }
+        return Arrays.copyOf(entries, count);
+    }
+}
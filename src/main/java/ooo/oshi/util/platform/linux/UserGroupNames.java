@@ -0,0 +1,276 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.util.platform.linux;
+
+import static java.lang.foreign.MemoryAddress.NULL;
+import static java.lang.foreign.ValueLayout.ADDRESS;
+import static ooo.oshi.foreign.linux.LinuxLibc.ERANGE;
+import static ooo.oshi.foreign.linux.LinuxLibc.GROUP_SIZE;
+import static ooo.oshi.foreign.linux.LinuxLibc.GR_NAME_OFFSET;
+import static ooo.oshi.foreign.linux.LinuxLibc.PASSWD_SIZE;
+import static ooo.oshi.foreign.linux.LinuxLibc.PW_NAME_OFFSET;
+import static ooo.oshi.foreign.linux.LinuxLibc._SC_GETGR_R_SIZE_MAX;
+import static ooo.oshi.foreign.linux.LinuxLibc._SC_GETPW_R_SIZE_MAX;
+import static ooo.oshi.util.Memoizer.memoize;
+
+import java.io.IOException;
+import java.lang.foreign.MemoryAddress;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.MemorySession;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ooo.oshi.annotation.concurrent.GuardedBy;
+import ooo.oshi.annotation.concurrent.Immutable;
+import ooo.oshi.annotation.concurrent.ThreadSafe;
+import ooo.oshi.foreign.linux.LinuxLibc;
+import ooo.oshi.util.FileUtil;
+import ooo.oshi.util.IntKeyedMemoizer;
+
+/**
+ * Resolves user and group IDs to names, shared by all processes.
+ * <p>
+ * Names are looked up first in {@code /etc/passwd} and {@code /etc/group}, parsed into int-keyed tables which are
+ * replaced when a file's modification time or size changes. Files are checked for changes at most once a second. IDs
+ * not in the files, such as those of directory service users, are resolved with the reentrant {@code getpwuid_r} and
+ * {@code getgrgid_r}, and the results are cached for a few minutes, including IDs with no name.
+ */
+@ThreadSafe
+public final class UserGroupNames {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UserGroupNames.class);
+
+    private static final long CHECK_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long NSS_TTL_NANOS = TimeUnit.MINUTES.toNanos(5);
+    private static final int MAX_NSS_NAMES = 1024;
+    // Used when sysconf gives no suggested size; doubled on ERANGE up to the maximum
+    private static final long DEFAULT_BUFFER_SIZE = 1024L;
+    private static final long MAX_BUFFER_SIZE = 1L << 20;
+
+    private static final NameFile USERS = new NameFile(Paths.get("/etc/passwd"), CHECK_INTERVAL_NANOS);
+    private static final NameFile GROUPS = new NameFile(Paths.get("/etc/group"), CHECK_INTERVAL_NANOS);
+    private static final IntKeyedMemoizer<String> NSS_USERS = nssNames("UserGroupNames.getpwuid_r",
+            uid -> queryName(uid, true));
+    private static final IntKeyedMemoizer<String> NSS_GROUPS = nssNames("UserGroupNames.getgrgid_r",
+            gid -> queryName(gid, false));
+
+    private UserGroupNames() {
+    }
+
+    /**
+     * Gets the name of a user.
+     *
+     * @param uid The user ID
+     * @return The user name, or an empty string if the ID is negative or has no name
+     */
+    public static String getUserName(int uid) {
+        return resolve(USERS, NSS_USERS, uid);
+    }
+
+    /**
+     * Gets the name of a group.
+     *
+     * @param gid The group ID
+     * @return The group name, or an empty string if the ID is negative or has no name
+     */
+    public static String getGroupName(int gid) {
+        return resolve(GROUPS, NSS_GROUPS, gid);
+    }
+
+    /**
+     * Looks up an ID in a file, then in the name service.
+     *
+     * @param file The file of names
+     * @param nss  The memoized name service lookup
+     * @param id   The user or group ID
+     * @return The name, or an empty string if the ID is negative or has no name
+     */
+    static String resolve(NameFile file, IntFunction<String> nss, int id) {
+        if (id < 0) {
+            return "";
+        }
+        String name = file.get(id);
+        if (name == null) {
+            name = nss.apply(id);
+        }
+        return name == null ? "" : name;
+    }
+
+    /**
+     * Memoizes name service lookups, including those which find no name.
+     *
+     * @param name  The name under which to record statistics
+     * @param query Looks up the name of an ID, returning {@code null} if it has none
+     * @return The memoized lookup
+     */
+    static IntKeyedMemoizer<String> nssNames(String name, IntFunction<String> query) {
+        return memoize(name, query, NSS_TTL_NANOS, MAX_NSS_NAMES);
+    }
+
+    private static String queryName(int id, boolean user) {
+        long size = LinuxLibc.sysconf(user ? _SC_GETPW_R_SIZE_MAX : _SC_GETGR_R_SIZE_MAX);
+        if (size <= 0) {
+            size = DEFAULT_BUFFER_SIZE;
+        }
+        try (MemorySession session = MemorySession.openConfined()) {
+            MemorySegment entry = session.allocate(user ? PASSWD_SIZE : GROUP_SIZE, ADDRESS.byteSize());
+            MemorySegment result = session.allocate(ADDRESS);
+            while (true) {
+                MemorySegment buf = session.allocate(size);
+                int err = user ? LinuxLibc.getpwuid_r(id, entry, buf, size, result)
+                        : LinuxLibc.getgrgid_r(id, entry, buf, size, result);
+                if (err == 0) {
+                    if (result.get(ADDRESS, 0).equals(NULL)) {
+                        return null;
+                    }
+                    MemoryAddress name = entry.get(ADDRESS, user ? PW_NAME_OFFSET : GR_NAME_OFFSET);
+                    return name.equals(NULL) ? null : name.getUtf8String(0);
+                }
+                if (err != ERANGE || size >= MAX_BUFFER_SIZE) {
+                    LOG.debug("Failed to look up {} ID {}, Error code: {}", user ? "user" : "group", id, err);
+                    return null;
+                }
+                size *= 2;
+            }
+        }
+    }
+
+    /**
+     * A file of colon separated entries with the name in the first field and the ID in the third, reparsed when it
+     * changes.
+     */
+    static final class NameFile {
+        private final Path path;
+        private final long checkIntervalNanos;
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile IdNameTable names = IdNameTable.EMPTY;
+        private volatile long nextCheckNanos = System.nanoTime();
+        @GuardedBy("lock")
+        private FileTime modified;
+        @GuardedBy("lock")
+        private long size = -1L;
+
+        NameFile(Path path, long checkIntervalNanos) {
+            this.path = path;
+            this.checkIntervalNanos = checkIntervalNanos;
+        }
+
+        String get(int id) {
+            if (System.nanoTime() - nextCheckNanos >= 0) {
+                lock.lock();
+                try {
+                    if (System.nanoTime() - nextCheckNanos >= 0) {
+                        reloadIfChanged();
+                        nextCheckNanos = System.nanoTime() + checkIntervalNanos;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+            return names.get(id);
+        }
+
+        @GuardedBy("lock")
+        private void reloadIfChanged() {
+            BasicFileAttributes attrs;
+            try {
+                attrs = Files.readAttributes(path, BasicFileAttributes.class);
+            } catch (IOException e) {
+                if (size >= 0) {
+                    LOG.debug("Unable to read attributes of {}. {}", path, e.getMessage());
+                }
+                names = IdNameTable.EMPTY;
+                modified = null;
+                size = -1L;
+                return;
+            }
+            if (attrs.lastModifiedTime().equals(modified) && attrs.size() == size) {
+                return;
+            }
+            modified = attrs.lastModifiedTime();
+            size = attrs.size();
+            names = IdNameTable.parse(FileUtil.readFile(path.toString(), false));
+        }
+    }
+
+    /**
+     * An open addressing table of IDs to names, with keys held in a primitive array.
+     */
+    @Immutable
+    private static final class IdNameTable {
+        private static final IdNameTable EMPTY = new IdNameTable(new int[1], new String[1]);
+
+        private final int[] ids;
+        private final String[] names;
+
+        private IdNameTable(int[] ids, String[] names) {
+            this.ids = ids;
+            this.names = names;
+        }
+
+        private String get(int id) {
+            int mask = ids.length - 1;
+            int slot = hash(id) & mask;
+            String name;
+            while ((name = names[slot]) != null) {
+                if (ids[slot] == id) {
+                    return name;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        }
+
+        private static IdNameTable parse(List<String> lines) {
+            int capacity = Integer.highestOneBit(Math.max(lines.size(), 1) * 2 - 1) << 1;
+            int[] ids = new int[capacity];
+            String[] names = new String[capacity];
+            int mask = capacity - 1;
+            for (String line : lines) {
+                // Skip comments and NIS compatibility entries
+                if (line.isEmpty() || line.charAt(0) == '#' || line.charAt(0) == '+' || line.charAt(0) == '-') {
+                    continue;
+                }
+                int nameEnd = line.indexOf(':');
+                int idStart = nameEnd < 0 ? -1 : line.indexOf(':', nameEnd + 1) + 1;
+                if (nameEnd <= 0 || idStart <= 0) {
+                    continue;
+                }
+                int idEnd = line.indexOf(':', idStart);
+                int id;
+                try {
+                    id = Integer.parseUnsignedInt(idEnd < 0 ? line.substring(idStart) : line.substring(idStart, idEnd));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                // As with getpwuid, the first entry for an ID wins
+                int slot = hash(id) & mask;
+                while (names[slot] != null && ids[slot] != id) {
+                    slot = (slot + 1) & mask;
+                }
+                if (names[slot] == null) {
+                    ids[slot] = id;
+                    names[slot] = line.substring(0, nameEnd);
+                }
+            }
+            return new IdNameTable(ids, names);
+        }
+
+        private static int hash(int id) {
+            int h = id * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+/**
+ * Provides utilities for Linux.
+ */
+package ooo.oshi.util.platform.linux;
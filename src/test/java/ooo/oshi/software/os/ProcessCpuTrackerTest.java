@@ -0,0 +1,130 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.software.os;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import ooo.oshi.software.os.OSProcess.State;
+
+class ProcessCpuTrackerTest {
+
+    private static final double DELTA = 1e-9;
+
+    // Started ten seconds ago, so that up times are positive
+    private final long startTime = System.currentTimeMillis() - 10_000L;
+
+    @Test
+    void testFirstSampleIsCumulative() {
+        ProcessCpuTracker tracker = new ProcessCpuTracker();
+        ProcessTable table = table(new long[][] { { 1, 0, 2000 }, { 2, 0, 500 } });
+        double[] loads = tracker.update(table, null);
+        assertEquals(2, loads.length);
+        for (int row = 0; row < table.size(); row++) {
+            assertEquals(cpuTime(table, row) / (double) table.getUpTime(row), loads[row], DELTA);
+        }
+        assertEquals(2, tracker.size());
+    }
+
+    @Test
+    void testLoadBetweenSamples() throws InterruptedException {
+        ProcessCpuTracker tracker = new ProcessCpuTracker();
+        ProcessTable first = table(new long[][] { { 1, 0, 2000 }, { 2, 0, 500 } });
+        tracker.update(first, null);
+        ProcessTable second = later(new long[][] { { 1, 0, 2010 }, { 2, 0, 500 } });
+        double[] loads = tracker.update(second, null);
+
+        long elapsed = second.getUpTime(0) - first.getUpTime(0);
+        assertTrue(elapsed > 0);
+        assertEquals(10d / elapsed, loads[0], DELTA);
+        assertEquals(0d, loads[1], DELTA);
+    }
+
+    @Test
+    void testReusedProcessIdIsNewProcess() throws InterruptedException {
+        ProcessCpuTracker tracker = new ProcessCpuTracker();
+        tracker.update(table(new long[][] { { 1, 0, 2000 }, { 2, 0, 500 } }), null);
+        // Process 2 exited and its ID was reused by a process started later
+        ProcessTable second = later(new long[][] { { 1, 0, 2000 }, { 2, 5000, 100 } });
+        double[] loads = tracker.update(second, null);
+        assertEquals(0d, loads[0], DELTA);
+        assertEquals(100d / second.getUpTime(1), loads[1], DELTA);
+        assertEquals(2, tracker.size());
+    }
+
+    @Test
+    void testExitedProcessesAreForgotten() throws InterruptedException {
+        ProcessCpuTracker tracker = new ProcessCpuTracker();
+        tracker.update(table(new long[][] { { 1, 0, 2000 }, { 2, 0, 500 }, { 3, 0, 100 } }), null);
+        assertEquals(3, tracker.size());
+        tracker.update(later(new long[][] { { 1, 0, 2000 } }), null);
+        assertEquals(1, tracker.size());
+        // A process absent from one sample reports its cumulative load when seen again
+        ProcessTable third = later(new long[][] { { 1, 0, 2000 }, { 2, 0, 600 } });
+        double[] loads = tracker.update(third, null);
+        assertEquals(600d / third.getUpTime(1), loads[1], DELTA);
+
+        tracker.reset();
+        assertEquals(0, tracker.size());
+        loads = tracker.update(later(new long[][] { { 1, 0, 2000 } }), null);
+        assertTrue(loads[0] > 0d);
+    }
+
+    @Test
+    void testTableGrowth() throws InterruptedException {
+        // More processes than the initial tables hold at half load, with clustered process IDs
+        int n = 5000;
+        long[][] rows = new long[n][];
+        long[][] laterRows = new long[n][];
+        for (int i = 0; i < n; i++) {
+            rows[i] = new long[] { i * 4 + 1, i % 7, 1000 + i };
+            laterRows[i] = new long[] { i * 4 + 1, i % 7, 1000 + i + i % 5 };
+        }
+        ProcessCpuTracker tracker = new ProcessCpuTracker();
+        ProcessTable first = table(rows);
+        double[] loads = new double[n + 10];
+        assertSame(loads, tracker.update(first, loads));
+        assertEquals(n, tracker.size());
+
+        ProcessTable second = later(laterRows);
+        long elapsed = second.getUpTime(0) - first.getUpTime(0);
+        double[] next = tracker.update(second, new double[1]);
+        assertNotSame(loads, next);
+        assertEquals(n, next.length);
+        for (int i = 0; i < n; i++) {
+            assertEquals((i % 5) / (double) elapsed, next[i], DELTA);
+        }
+    }
+
+    /**
+     * Builds a table after sleeping, so that its up times exceed those of the previous table.
+     */
+    private ProcessTable later(long[][] rows) throws InterruptedException {
+        Thread.sleep(5L);
+        return table(rows);
+    }
+
+    /**
+     * Builds a table from rows of process ID, start time offset and CPU time, split between user and kernel time.
+     */
+    private ProcessTable table(long[][] rows) {
+        ProcessTable.Builder builder = new ProcessTable.Builder(rows.length, pid -> null);
+        int name = builder.internName("p");
+        for (long[] row : rows) {
+            long cpuTime = row[2];
+            builder.add((int) row[0], 1, 0, name, State.RUNNING, 0L, 0L, cpuTime - cpuTime / 3, cpuTime / 3,
+                    startTime + row[1], 0L, 0L, 0L);
+        }
+        return builder.build();
+    }
+
+    private static long cpuTime(ProcessTable table, int row) {
+        return table.getUserTime(row) + table.getKernelTime(row);
+    }
+}
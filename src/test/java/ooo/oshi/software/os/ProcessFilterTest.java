@@ -0,0 +1,147 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.software.os;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import ooo.oshi.software.os.OSProcess.State;
+
+class ProcessFilterTest {
+
+    private static final long START_TIME = 1_600_000_000_000L;
+
+    private static final Map<Integer, List<String>> CONTROL_GROUPS = Map.of(1, List.of("/init.scope"), 100,
+            List.of("/system.slice/sshd.service"), 200, List.of("/user.slice/user-1000.slice", "/system.slicex"));
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final ProcessTable table = build();
+
+    @Test
+    void testEmptyFilterMatchesAll() {
+        ProcessFilter filter = ProcessFilter.builder().build();
+        for (int row = 0; row < table.size(); row++) {
+            assertTrue(filter.test(table.getProcess(row)));
+        }
+        assertNull(filter.getControlGroup());
+        // Control groups are not read without a control group criterion
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    void testProcessIdRange() {
+        ProcessFilter filter = ProcessFilter.builder().processIdRange(2, 100).build();
+        assertFalse(filter.testProcessId(1));
+        assertTrue(filter.testProcessId(2));
+        assertTrue(filter.testProcessId(100));
+        assertFalse(filter.testProcessId(101));
+        assertEquals(List.of(100), matching(filter));
+    }
+
+    @Test
+    void testParentStateAndUser() {
+        assertEquals(List.of(100, 200), matching(ProcessFilter.builder().parentProcessId(1).build()));
+        assertEquals(List.of(1), matching(ProcessFilter.builder().parentProcessId(0).build()));
+        assertEquals(List.of(100), matching(ProcessFilter.builder().states(State.RUNNING).build()));
+        assertEquals(List.of(1, 100, 200),
+                matching(ProcessFilter.builder().states(State.RUNNING, State.SLEEPING).build()));
+        assertEquals(List.of(200),
+                matching(ProcessFilter.builder().parentProcessId(1).states(State.SLEEPING).build()));
+        assertEquals(List.of(200), matching(ProcessFilter.builder().userId(1000).build()));
+        assertEquals(List.of(1, 100), matching(ProcessFilter.builder().userId(0).build()));
+    }
+
+    @Test
+    void testNamePrefix() {
+        assertEquals(List.of(100), matching(ProcessFilter.builder().namePrefix("ssh").build()));
+        assertEquals(List.of(1, 100, 200), matching(ProcessFilter.builder().namePrefix("").build()));
+        // The comparison is case sensitive
+        assertEquals(List.of(), matching(ProcessFilter.builder().namePrefix("SSH").build()));
+    }
+
+    @Test
+    void testControlGroupPath() {
+        ProcessFilter filter = ProcessFilter.builder().controlGroup("/system.slice").build();
+        assertTrue(filter.testControlGroup("/system.slice"));
+        assertTrue(filter.testControlGroup("/system.slice/sshd.service"));
+        // A sibling group sharing the prefix is not a descendant
+        assertFalse(filter.testControlGroup("/system.slicex"));
+        assertFalse(filter.testControlGroup("/user.slice"));
+        assertFalse(filter.testControlGroup("/"));
+
+        ProcessFilter root = ProcessFilter.builder().controlGroup("/").build();
+        assertTrue(root.testControlGroup("/"));
+        assertTrue(root.testControlGroup("/system.slice"));
+        ProcessFilter trailing = ProcessFilter.builder().controlGroup("/system.slice/").build();
+        assertTrue(trailing.testControlGroup("/system.slice/sshd.service"));
+        assertFalse(trailing.testControlGroup("/system.slice"));
+    }
+
+    @Test
+    void testControlGroupsOfProcess() {
+        ProcessFilter filter = ProcessFilter.builder().controlGroup("/system.slice").build();
+        assertEquals("/system.slice", filter.getControlGroup());
+        assertEquals(List.of(100), matching(filter));
+        assertEquals(List.of(200), matching(ProcessFilter.builder().controlGroup("/user.slice").build()));
+        // The process ID criterion is tested before control groups are read
+        loads.set(0);
+        assertEquals(List.of(), matching(ProcessFilter.builder().processIdRange(300, 400).controlGroup("/").build()));
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    void testAndKeepsCriteria() {
+        ProcessFilter filter = ProcessFilter.builder().parentProcessId(1).build();
+        ProcessFilter combined = filter.and(p -> p.getProcessID() > 150);
+        assertEquals(List.of(200), matching(combined));
+        // The original filter is unchanged
+        assertEquals(List.of(100, 200), matching(filter));
+
+        ProcessFilter withPostFilter = ProcessFilter.builder().postFilter(p -> p.getName().endsWith("d")).build();
+        assertEquals(List.of(1, 100), matching(withPostFilter));
+        assertEquals(List.of(1), matching(withPostFilter.and(p -> p.getProcessID() == 1)));
+        assertEquals(List.of(), matching(withPostFilter.and(p -> p.getProcessID() == 200)));
+        assertTrue(withPostFilter.and(p -> true).testParentAndState(table.getProcess(0)));
+    }
+
+    private ProcessTable build() {
+        ProcessTable.Builder builder = new ProcessTable.Builder(3, this::load);
+        builder.add(1, 0, 0, builder.internName("systemd"), State.SLEEPING, 0L, 0L, 0L, 0L, START_TIME, 0L, 0L, 0L);
+        builder.add(100, 1, 0, builder.internName("sshd"), State.RUNNING, 0L, 0L, 0L, 0L, START_TIME, 0L, 0L, 0L);
+        builder.add(200, 1, 1000, builder.internName("bash"), State.SLEEPING, 0L, 0L, 0L, 0L, START_TIME, 0L, 0L,
+                0L);
+        return builder.build();
+    }
+
+    private List<Integer> matching(ProcessFilter filter) {
+        return table.getProcesses(table.filterRows(row -> filter.test(table.getProcess(row)))).stream()
+                .map(OSProcess::getProcessID).toList();
+    }
+
+    /**
+     * Loads the full process behind a view, which supplies only the start time and control groups.
+     */
+    private OSProcess load(int pid) {
+        loads.incrementAndGet();
+        return (OSProcess) Proxy.newProxyInstance(OSProcess.class.getClassLoader(), new Class<?>[] { OSProcess.class },
+                (proxy, method, args) -> switch (method.getName()) {
+                case "getStartTime" -> START_TIME;
+                case "getProcessID" -> pid;
+                case "queryControlGroups" -> CONTROL_GROUPS.getOrDefault(pid, Collections.emptyList());
+                default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
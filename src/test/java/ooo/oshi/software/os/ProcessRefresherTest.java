@@ -0,0 +1,175 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.software.os;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import ooo.oshi.software.os.OSProcess.State;
+import ooo.oshi.software.os.ProcessRefresher.ChangeSet;
+
+class ProcessRefresherTest {
+
+    // Process ID to start time of the running processes
+    private final Map<Integer, Long> running = new ConcurrentHashMap<>();
+    // Process IDs listed by the operating system, which may include processes which have since exited
+    private int[] listed;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final OperatingSystem os = (OperatingSystem) Proxy.newProxyInstance(
+            OperatingSystem.class.getClassLoader(), new Class<?>[] { OperatingSystem.class },
+            (proxy, method, args) -> switch (method.getName()) {
+            case "getProcessIds" -> listed.clone();
+            case "getProcess" -> load((Integer) args[0]);
+            default -> throw new UnsupportedOperationException(method.getName());
+            });
+
+    @Test
+    void testFirstRefreshAddsAll() {
+        run(30, 10, 20);
+        ChangeSet changes = new ProcessRefresher(os).refresh();
+        assertEquals(List.of(10, 20, 30), pids(changes.processes()));
+        assertArrayEquals(new int[] { 10, 20, 30 }, changes.added());
+        assertArrayEquals(new int[0], changes.removed());
+        assertArrayEquals(new int[0], changes.updated());
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void testNewAndExitedProcesses() {
+        ProcessRefresher refresher = new ProcessRefresher(os);
+        run(10, 20, 30);
+        List<OSProcess> first = refresher.refresh().processes();
+
+        running.remove(20);
+        run(10, 30, 25, 40);
+        ChangeSet changes = refresher.refresh();
+        assertEquals(List.of(10, 25, 30, 40), pids(changes.processes()));
+        assertArrayEquals(new int[] { 25, 40 }, changes.added());
+        assertArrayEquals(new int[] { 20 }, changes.removed());
+        assertArrayEquals(new int[] { 10, 30 }, changes.updated());
+        // Survivors are the same objects, updated in place; only new processes are loaded
+        assertSame(first.get(0), changes.processes().get(0));
+        assertSame(first.get(2), changes.processes().get(2));
+        assertEquals(5, loads.get());
+
+        ChangeSet unchanged = refresher.refresh();
+        assertArrayEquals(new int[0], unchanged.added());
+        assertArrayEquals(new int[0], unchanged.removed());
+        assertArrayEquals(new int[] { 10, 25, 30, 40 }, unchanged.updated());
+        assertEquals(5, loads.get());
+    }
+
+    @Test
+    void testReusedProcessId() {
+        ProcessRefresher refresher = new ProcessRefresher(os);
+        run(10, 20);
+        OSProcess old = refresher.refresh().processes().get(1);
+
+        // Process 20 exited and its ID was reused by a process started later
+        running.put(20, 5000L);
+        ChangeSet changes = refresher.refresh();
+        assertArrayEquals(new int[] { 20 }, changes.added());
+        assertArrayEquals(new int[] { 20 }, changes.removed());
+        assertArrayEquals(new int[] { 10 }, changes.updated());
+        OSProcess reused = changes.processes().get(1);
+        assertNotSame(old, reused);
+        assertEquals(5000L, reused.getStartTime());
+    }
+
+    @Test
+    void testExitedAfterListing() {
+        ProcessRefresher refresher = new ProcessRefresher(os);
+        run(10, 20);
+        refresher.refresh();
+
+        // Both listed, but 20 exits before it is updated and 30 before it is loaded
+        run(10, 20, 30);
+        running.remove(20);
+        running.remove(30);
+        ChangeSet changes = refresher.refresh();
+        assertEquals(List.of(10), pids(changes.processes()));
+        assertArrayEquals(new int[0], changes.added());
+        assertArrayEquals(new int[] { 20 }, changes.removed());
+        assertArrayEquals(new int[] { 10 }, changes.updated());
+    }
+
+    @Test
+    void testReset() {
+        ProcessRefresher refresher = new ProcessRefresher(os);
+        run(10, 20);
+        refresher.refresh();
+        refresher.reset();
+        ChangeSet changes = refresher.refresh();
+        assertArrayEquals(new int[] { 10, 20 }, changes.added());
+        assertArrayEquals(new int[0], changes.removed());
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void testChangeSetEquality() {
+        List<OSProcess> processes = List.of();
+        ChangeSet a = new ChangeSet(processes, new int[] { 1, 2 }, new int[] { 3 }, new int[0]);
+        ChangeSet b = new ChangeSet(processes, new int[] { 1, 2 }, new int[] { 3 }, new int[0]);
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertNotEquals(a, new ChangeSet(processes, new int[] { 1, 2 }, new int[0], new int[] { 3 }));
+        assertEquals("ChangeSet[processes=0, added=[1, 2], removed=[3], updated=[]]", a.toString());
+    }
+
+    /**
+     * Starts processes, with a start time equal to the process ID unless already running, and lists all running
+     * processes in the given order.
+     */
+    private void run(int... pids) {
+        for (int pid : pids) {
+            running.putIfAbsent(pid, (long) pid);
+        }
+        listed = pids;
+    }
+
+    private OSProcess load(int pid) {
+        Long startTime = running.get(pid);
+        if (startTime == null) {
+            return null;
+        }
+        loads.incrementAndGet();
+        long[] start = { startTime };
+        State[] state = { State.RUNNING };
+        return (OSProcess) Proxy.newProxyInstance(OSProcess.class.getClassLoader(), new Class<?>[] { OSProcess.class },
+                (proxy, method, args) -> switch (method.getName()) {
+                case "getProcessID" -> pid;
+                case "getStartTime" -> start[0];
+                case "getState" -> state[0];
+                case "updateCounters" -> {
+                    Long now = running.get(pid);
+                    if (now == null) {
+                        state[0] = State.INVALID;
+                        yield false;
+                    }
+                    start[0] = now;
+                    yield true;
+                }
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static List<Integer> pids(List<OSProcess> processes) {
+        return processes.stream().map(OSProcess::getProcessID).toList();
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.software.os;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import ooo.oshi.software.os.OSProcess.State;
+
+class ProcessTreeTest {
+
+    @Test
+    void testChildRows() {
+        // Added out of order; rows are in process ID order
+        ProcessTable table = table(new int[][] { { 11, 2 }, { 1, 0 }, { 3, 1 }, { 2, 1 }, { 10, 2 }, { 20, 10 } });
+        ProcessTree tree = table.getTree();
+        assertSame(table, tree.getTable());
+        assertSame(tree, table.getTree());
+
+        assertArrayEquals(new int[] { 2, 3 }, pids(table, tree.childRows(1)));
+        assertArrayEquals(new int[] { 10, 11 }, pids(table, tree.childRows(2)));
+        assertArrayEquals(new int[] { 20 }, pids(table, tree.childRows(10)));
+        assertArrayEquals(new int[0], pids(table, tree.childRows(20)));
+        assertEquals(2, tree.getChildCount(1));
+        assertEquals(0, tree.getChildCount(3));
+        // Not in the table
+        assertArrayEquals(new int[0], tree.childRows(0));
+        assertEquals(0, tree.getChildCount(99));
+    }
+
+    @Test
+    void testDescendantRowsBreadthFirst() {
+        ProcessTable table = table(new int[][] { { 1, 0 }, { 2, 1 }, { 3, 1 }, { 10, 2 }, { 11, 2 }, { 12, 3 },
+                { 20, 10 }, { 30, 20 } });
+        ProcessTree tree = table.getTree();
+        assertArrayEquals(new int[] { 2, 3, 10, 11, 12, 20, 30 }, pids(table, tree.descendantRows(1)));
+        assertArrayEquals(new int[] { 10, 11, 20, 30 }, pids(table, tree.descendantRows(2)));
+        assertArrayEquals(new int[0], pids(table, tree.descendantRows(30)));
+        assertArrayEquals(new int[0], tree.descendantRows(99));
+    }
+
+    @Test
+    void testRoots() {
+        // Its own parent, a parent not in the table, and the idle process with parent 0
+        ProcessTable table = table(new int[][] { { 0, 0 }, { 5, 5 }, { 6, 5 }, { 7, 99 }, { 8, 7 } });
+        ProcessTree tree = table.getTree();
+        assertArrayEquals(new int[0], pids(table, tree.childRows(0)));
+        assertArrayEquals(new int[] { 6 }, pids(table, tree.descendantRows(5)));
+        assertArrayEquals(new int[] { 8 }, pids(table, tree.descendantRows(7)));
+    }
+
+    @Test
+    void testParentLoop() {
+        // Each process's parent is in the loop, so none is a root
+        ProcessTable table = table(new int[][] { { 40, 42 }, { 41, 40 }, { 42, 41 }, { 43, 41 } });
+        ProcessTree tree = table.getTree();
+        assertArrayEquals(new int[] { 41, 42, 43 }, pids(table, tree.descendantRows(40)));
+        assertArrayEquals(new int[] { 42, 43, 40 }, pids(table, tree.descendantRows(41)));
+    }
+
+    @Test
+    void testMatchesModel() {
+        Random random = new Random(3);
+        int n = 2000;
+        int[][] rows = new int[n][];
+        for (int i = 0; i < n; i++) {
+            int pid = i + 1;
+            // Mostly recent parents, so that some processes have many descendants
+            int ppid = random.nextInt(10) == 0 ? random.nextInt(pid) : Math.max(0, pid - 1 - random.nextInt(3));
+            rows[i] = new int[] { pid, ppid };
+        }
+        ProcessTable table = table(rows);
+        ProcessTree tree = table.getTree();
+        for (int pid : new int[] { 1, 2, 10, 500, 1999, 2000 }) {
+            int[] expectedChildren = IntStream.range(0, n).filter(i -> rows[i][1] == pid).map(i -> rows[i][0])
+                    .toArray();
+            assertArrayEquals(expectedChildren, pids(table, tree.childRows(pid)), "children of " + pid);
+            assertEquals(expectedChildren.length, tree.getChildCount(pid));
+
+            Deque<Integer> queue = new ArrayDeque<>();
+            queue.add(pid);
+            IntStream.Builder expected = IntStream.builder();
+            while (!queue.isEmpty()) {
+                int parent = queue.poll();
+                for (int[] row : rows) {
+                    if (row[1] == parent) {
+                        expected.add(row[0]);
+                        queue.add(row[0]);
+                    }
+                }
+            }
+            assertArrayEquals(expected.build().toArray(), pids(table, tree.descendantRows(pid)),
+                    "descendants of " + pid);
+        }
+    }
+
+    private static ProcessTable table(int[][] pidAndParent) {
+        ProcessTable.Builder builder = new ProcessTable.Builder(pidAndParent.length, pid -> null);
+        int name = builder.internName("p");
+        for (int[] row : pidAndParent) {
+            builder.add(row[0], row[1], 0, name, State.SLEEPING, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L);
+        }
+        return builder.build();
+    }
+
+    private static int[] pids(ProcessTable table, int[] rows) {
+        return Arrays.stream(rows).map(table::getProcessID).toArray();
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.jupiter.api.Test;
+
+class CollectionExecutorTest {
+
+    @Test
+    void testEachIndexRunsOnce() {
+        for (CollectionExecutor executor : List.of(CollectionExecutor.ofPlatformThreads(1, 4),
+                CollectionExecutor.ofPlatformThreads(4, 4), CollectionExecutor.ofVirtualThreads(4, 3))) {
+            for (int count : new int[] { 0, 1, 3, 4, 5, 16, 17, 1000 }) {
+                AtomicIntegerArray runs = new AtomicIntegerArray(count);
+                executor.forEach(count, runs::incrementAndGet);
+                for (int i = 0; i < count; i++) {
+                    assertEquals(1, runs.get(i), "index " + i + " of " + count);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testMapKeepsKeyOrderAndOmitsNulls() {
+        CollectionExecutor executor = CollectionExecutor.ofPlatformThreads(3, 2);
+        int[] keys = { 9, 4, 7, 1, 8, 2, 6 };
+        List<String> values = executor.map(keys, key -> key % 2 == 0 ? null : "v" + key);
+        assertEquals(List.of("v9", "v7", "v1"), values);
+        assertEquals(List.of(), executor.map(new int[0], key -> "v" + key));
+    }
+
+    @Test
+    void testChunksAreClaimedOnce() {
+        CollectionExecutor executor = CollectionExecutor.ofPlatformThreads(4, 10);
+        executor.forEach(95, i -> {
+        });
+        CollectionExecutor.Statistics stats = executor.getStatistics();
+        assertEquals(10L, stats.chunks());
+        assertEquals(0L, stats.queuedChunks());
+        assertEquals(10L, stats.maxQueuedChunks());
+        assertTrue(stats.maxChunkNanos() <= stats.chunkNanos());
+
+        executor.forEach(5, i -> {
+        });
+        assertEquals(11L, executor.getStatistics().chunks());
+        assertEquals(0L, executor.getStatistics().queuedChunks());
+    }
+
+    @Test
+    void testParallelismIsCapped() {
+        int parallelism = 3;
+        CollectionExecutor executor = CollectionExecutor.ofPlatformThreads(parallelism, 1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        executor.forEach(60, i -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep(1L);
+            running.decrementAndGet();
+        });
+        assertTrue(maxRunning.get() <= parallelism, "max running " + maxRunning.get());
+        assertEquals(parallelism, executor.getParallelism());
+        assertEquals(1, executor.getChunkSize());
+        assertFalse(executor.isVirtual());
+    }
+
+    @Test
+    void testFirstExceptionIsRethrown() {
+        CollectionExecutor executor = CollectionExecutor.ofPlatformThreads(1, 1);
+        IllegalStateException failure = new IllegalStateException("index 2");
+        AtomicIntegerArray runs = new AtomicIntegerArray(5);
+        IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> executor.forEach(5, i -> {
+            runs.incrementAndGet(i);
+            if (i == 2) {
+                throw failure;
+            }
+        }));
+        assertSame(failure, thrown);
+        // Chunks claimed after a failure are skipped
+        assertEquals(1, runs.get(1));
+        assertEquals(0, runs.get(3));
+        assertEquals(0, runs.get(4));
+        // All chunks are still completed
+        assertEquals(5L, executor.getStatistics().chunks());
+
+        AssertionError error = new AssertionError("error");
+        assertSame(error, assertThrows(AssertionError.class, () -> executor.forEach(1, i -> {
+            throw error;
+        })));
+    }
+
+    @Test
+    void testCheckedExceptionIsWrapped() {
+        CollectionExecutor executor = CollectionExecutor.ofPlatformThreads(2, 1);
+        IOException failure = new IOException("checked");
+        IllegalStateException thrown = assertThrows(IllegalStateException.class,
+                () -> executor.forEach(4, i -> sneakyThrow(failure)));
+        assertSame(failure, thrown.getCause());
+    }
+
+    @Test
+    void testInterruptedCallerWaitsForHelpers() throws InterruptedException {
+        CollectionExecutor executor = CollectionExecutor.ofPlatformThreads(2, 1);
+        Thread caller = Thread.currentThread();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicIntegerArray runs = new AtomicIntegerArray(2);
+        Thread releaser = new Thread(() -> {
+            sleep(100L);
+            release.countDown();
+        });
+        releaser.start();
+        try {
+            executor.forEach(2, i -> {
+                if (Thread.currentThread() == caller) {
+                    caller.interrupt();
+                } else {
+                    await(release);
+                }
+                runs.incrementAndGet(i);
+            });
+            // The helper's chunk completed before the call returned, and the interrupt is kept
+            assertEquals(1, runs.get(0));
+            assertEquals(1, runs.get(1));
+            assertTrue(Thread.interrupted());
+        } finally {
+            Thread.interrupted();
+            release.countDown();
+            releaser.join();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E extends Throwable> void sneakyThrow(Throwable t) throws E {
+        throw (E) t;
+    }
+}
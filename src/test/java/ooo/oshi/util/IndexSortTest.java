@@ -0,0 +1,117 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class IndexSortTest {
+
+    @Test
+    void testSortIsStable() {
+        Random random = new Random(7);
+        // Sizes below and above the insertion sort threshold, with many equal keys
+        for (int n : new int[] { 0, 1, 2, 10, 32, 33, 100, 1000 }) {
+            long[] keys = random.longs(n, 0, 5).toArray();
+            for (boolean descending : new boolean[] { false, true }) {
+                int[] index = ascending(n);
+                IndexSort.sort(index, n, keys, descending);
+                assertArrayEquals(stableSort(keys, descending), index, "n=" + n + " descending=" + descending);
+            }
+        }
+    }
+
+    @Test
+    void testSortKeepsOrderOfEqualKeysFromInput() {
+        long[] keys = { 3, 1, 3, 1, 3, 1 };
+        int[] index = { 5, 4, 3, 2, 1, 0 };
+        IndexSort.sort(index, index.length, keys, false);
+        assertArrayEquals(new int[] { 5, 3, 1, 4, 2, 0 }, index);
+        IndexSort.sort(index, index.length, keys, true);
+        assertArrayEquals(new int[] { 4, 2, 0, 5, 3, 1 }, index);
+    }
+
+    @Test
+    void testSortOnlyLeadingCount() {
+        long[] keys = { 4, 3, 2, 1, 0 };
+        int[] index = { 0, 1, 2, 3, 4 };
+        IndexSort.sort(index, 3, keys, false);
+        assertArrayEquals(new int[] { 2, 1, 0, 3, 4 }, index);
+    }
+
+    @Test
+    void testSelectMatchesStableSortPrefix() {
+        Random random = new Random(11);
+        int n = 500;
+        long[] keys = random.longs(n, 0, 20).toArray();
+        for (boolean descending : new boolean[] { false, true }) {
+            int[] expected = stableSort(keys, descending);
+            for (int k : new int[] { 1, 2, 10, 33, 499 }) {
+                int[] index = ascending(n);
+                assertEquals(k, IndexSort.select(index, n, keys, descending, k));
+                assertArrayEquals(Arrays.copyOf(expected, k), Arrays.copyOf(index, k),
+                        "k=" + k + " descending=" + descending);
+                // The rest of the array still holds the other indices
+                int[] all = index.clone();
+                Arrays.sort(all);
+                assertArrayEquals(ascending(n), all);
+            }
+        }
+    }
+
+    @Test
+    void testSelectLimitLargerThanCount() {
+        long[] keys = { 5, 2, 5, 1, 2 };
+        int[] expected = { 3, 1, 4, 0, 2 };
+        for (int k : new int[] { 0, 5, 6, Integer.MAX_VALUE }) {
+            int[] index = ascending(keys.length);
+            assertEquals(keys.length, IndexSort.select(index, keys.length, keys, false, k), "k=" + k);
+            assertArrayEquals(expected, index, "k=" + k);
+        }
+
+        // A limit larger than a count smaller than the array
+        int[] index = { 0, 1, 2, 3, 4 };
+        assertEquals(2, IndexSort.select(index, 2, keys, true, 10));
+        assertArrayEquals(new int[] { 0, 1, 2, 3, 4 }, index);
+        assertEquals(0, IndexSort.select(new int[0], 0, keys, false, 3));
+    }
+
+    @Test
+    void testSelectByComparator() {
+        List<String> items = List.of("pear", "fig", "apple", "kiwi", "plum", "date");
+        Comparator<String> byLength = Comparator.comparingInt(String::length);
+        List<Integer> expected = new ArrayList<>(IntStream.range(0, items.size()).boxed().toList());
+        expected.sort(Comparator.comparing(items::get, byLength));
+
+        for (int k : new int[] { 1, 3, 6, 7, 0 }) {
+            int[] index = ascending(items.size());
+            int selected = IndexSort.select(index, items.size(), items, byLength, k);
+            int n = k <= 0 || k >= items.size() ? items.size() : k;
+            assertEquals(n, selected, "k=" + k);
+            assertArrayEquals(expected.subList(0, n).stream().mapToInt(Integer::intValue).toArray(),
+                    Arrays.copyOf(index, n), "k=" + k);
+        }
+    }
+
+    private static int[] ascending(int n) {
+        return IntStream.range(0, n).toArray();
+    }
+
+    private static int[] stableSort(long[] keys, boolean descending) {
+        Comparator<Integer> order = Comparator.comparingLong(i -> keys[i]);
+        List<Integer> sorted = new ArrayList<>(IntStream.range(0, keys.length).boxed().toList());
+        sorted.sort(descending ? order.reversed() : order);
+        return sorted.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
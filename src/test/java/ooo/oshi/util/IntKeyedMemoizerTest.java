@@ -0,0 +1,217 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class IntKeyedMemoizerTest {
+
+    private static final long NO_EXPIRY = -1L;
+
+    @Test
+    void testInsertAndHit() {
+        AtomicInteger loads = new AtomicInteger();
+        IntKeyedMemoizer<String> m = Memoizer.memoize(key -> {
+            loads.incrementAndGet();
+            return "v" + key;
+        }, NO_EXPIRY, 4);
+
+        assertEquals("v1", m.apply(1));
+        assertEquals("v1", m.apply(1));
+        assertEquals("v2", m.apply(2));
+        assertEquals(2, loads.get());
+        assertEquals(2, m.size());
+        assertEquals(1L, m.getHitCount());
+        assertEquals(2L, m.getMissCount());
+        assertEquals(0L, m.getEvictionCount());
+    }
+
+    @Test
+    void testNullValuesAreCached() {
+        AtomicInteger loads = new AtomicInteger();
+        IntKeyedMemoizer<String> m = Memoizer.memoize(key -> {
+            loads.incrementAndGet();
+            return null;
+        }, NO_EXPIRY, 4);
+
+        assertNull(m.apply(5));
+        assertNull(m.apply(5));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsed() {
+        AtomicInteger loads = new AtomicInteger();
+        IntKeyedMemoizer<Integer> m = Memoizer.memoize(key -> {
+            loads.incrementAndGet();
+            return key;
+        }, NO_EXPIRY, 2);
+
+        m.apply(1);
+        m.apply(2);
+        // Touch 1 so that 2 is the least recently used
+        m.apply(1);
+        m.apply(3);
+        assertEquals(2, m.size());
+        assertEquals(1L, m.getEvictionCount());
+        assertEquals(3, loads.get());
+
+        m.apply(1);
+        m.apply(3);
+        assertEquals(3, loads.get());
+        m.apply(2);
+        assertEquals(4, loads.get());
+        assertEquals(2L, m.getEvictionCount());
+        assertEquals(2, m.getMaxSize());
+    }
+
+    @Test
+    void testInvalidate() {
+        AtomicInteger loads = new AtomicInteger();
+        IntKeyedMemoizer<Integer> m = Memoizer.memoize(key -> {
+            loads.incrementAndGet();
+            return key;
+        }, NO_EXPIRY, 4);
+
+        m.apply(1);
+        m.apply(2);
+        m.invalidate(1);
+        // Invalidating an absent key does nothing
+        m.invalidate(9);
+        assertEquals(1, m.size());
+        m.apply(1);
+        assertEquals(3, loads.get());
+
+        m.invalidateAll();
+        assertEquals(0, m.size());
+        m.apply(1);
+        m.apply(2);
+        assertEquals(5, loads.get());
+        // Removals make room, so nothing is evicted
+        assertEquals(0L, m.getEvictionCount());
+    }
+
+    @Test
+    void testTtlExpiry() {
+        AtomicInteger loads = new AtomicInteger();
+        // A zero time to live expires each value as soon as it is stored
+        IntKeyedMemoizer<Integer> expiring = Memoizer.memoize(key -> loads.incrementAndGet(), 0L, 4);
+        assertEquals(1, expiring.apply(1));
+        assertEquals(2, expiring.apply(1));
+        assertEquals(1, expiring.size());
+        assertEquals(2L, expiring.getMissCount());
+
+        IntKeyedMemoizer<Integer> longLived = Memoizer.memoize(key -> loads.incrementAndGet(),
+                TimeUnit.HOURS.toNanos(1), 4);
+        assertEquals(3, longLived.apply(1));
+        assertEquals(3, longLived.apply(1));
+    }
+
+    @Test
+    void testFailedLoadIsNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+        IntKeyedMemoizer<Integer> m = Memoizer.memoize(key -> {
+            if (loads.incrementAndGet() == 1) {
+                throw new IllegalStateException("first load fails");
+            }
+            return key;
+        }, NO_EXPIRY, 4);
+
+        assertThrows(IllegalStateException.class, () -> m.apply(1));
+        assertEquals(0, m.size());
+        assertEquals(1, m.apply(1));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testMatchesLruModel() {
+        int maxSize = 8;
+        AtomicInteger loads = new AtomicInteger();
+        IntKeyedMemoizer<Integer> m = Memoizer.memoize(key -> {
+            loads.incrementAndGet();
+            return key * 10;
+        }, NO_EXPIRY, maxSize);
+        Map<Integer, Integer> model = new LinkedHashMap<>(16, 0.75f, true);
+
+        // Colliding keys exercise probing and removal from the hash table
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            int key = random.nextInt(32) * 64;
+            if (random.nextInt(8) == 0) {
+                m.invalidate(key);
+                model.remove(key);
+                continue;
+            }
+            int before = loads.get();
+            assertEquals(key * 10, m.apply(key));
+            boolean cached = model.containsKey(key);
+            assertEquals(cached ? before : before + 1, loads.get(), "load of key " + key);
+            if (!cached && model.size() == maxSize) {
+                model.remove(model.keySet().iterator().next());
+            }
+            model.put(key, key * 10);
+            assertEquals(model.size(), m.size());
+        }
+    }
+
+    @Test
+    void testConcurrentLoadsOfSameKey() throws Exception {
+        int threads = 8;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Object value = new Object();
+        IntKeyedMemoizer<Object> m = Memoizer.memoize(key -> {
+            loads.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return value;
+        }, NO_EXPIRY, 4);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(pool.submit(() -> m.apply(7)));
+            }
+            // Threads finding the load in progress count as hits before waiting for it
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (m.getHitCount() < threads - 1 && System.nanoTime() < deadline) {
+                Thread.sleep(1L);
+            }
+            assertEquals(threads - 1, m.getHitCount());
+            release.countDown();
+            for (Future<Object> result : results) {
+                assertSame(value, result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1L, m.getMissCount());
+    }
+}
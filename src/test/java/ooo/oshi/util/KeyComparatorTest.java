@@ -0,0 +1,62 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class KeyComparatorTest {
+
+    @Test
+    void testLongAndIntKeys() {
+        KeyComparator<long[]> byLong = KeyComparator.comparingLong(a -> a[0]);
+        assertFalse(byLong.isDescending());
+        assertTrue(byLong.compare(new long[] { Long.MIN_VALUE }, new long[] { Long.MAX_VALUE }) < 0);
+        assertEquals(0, byLong.compare(new long[] { 7 }, new long[] { 7 }));
+        assertEquals(42L, byLong.key(new long[] { 42 }));
+
+        KeyComparator<String> byLength = KeyComparator.comparingInt(String::length);
+        assertEquals(3L, byLength.key("abc"));
+        List<String> values = new ArrayList<>(List.of("ccc", "a", "bb"));
+        values.sort(byLength);
+        assertEquals(List.of("a", "bb", "ccc"), values);
+    }
+
+    @Test
+    void testDoubleKeysMatchDoubleCompare() {
+        double[] values = { Double.NEGATIVE_INFINITY, -Double.MAX_VALUE, -1.5, -Double.MIN_VALUE, -0d, 0d,
+                Double.MIN_VALUE, 1.5, Double.MAX_VALUE, Double.POSITIVE_INFINITY, Double.NaN };
+        KeyComparator<Double> comparator = KeyComparator.comparingDouble(Double::doubleValue);
+        for (double a : values) {
+            for (double b : values) {
+                assertEquals(Integer.signum(Double.compare(a, b)), Integer.signum(comparator.compare(a, b)),
+                        a + " vs " + b);
+                // Sorting the keys alone gives the same order
+                assertEquals(Integer.signum(Double.compare(a, b)),
+                        Integer.signum(Long.compare(comparator.key(a), comparator.key(b))), a + " vs " + b);
+            }
+        }
+    }
+
+    @Test
+    void testReversed() {
+        KeyComparator<Integer> ascending = KeyComparator.comparingInt(Integer::intValue);
+        KeyComparator<Integer> descending = ascending.reversed();
+        assertTrue(descending.isDescending());
+        assertFalse(descending.reversed().isDescending());
+        // Keys are unchanged; only the order of comparison is reversed
+        assertEquals(ascending.key(5), descending.key(5));
+
+        List<Integer> values = new ArrayList<>(List.of(3, 1, 2));
+        values.sort(descending);
+        assertEquals(List.of(3, 2, 1), values);
+    }
+}
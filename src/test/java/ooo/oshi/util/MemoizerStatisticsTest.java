@@ -0,0 +1,75 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class MemoizerStatisticsTest {
+
+    @Test
+    void testBucketBoundaries() {
+        // Bucket i counts at least 2^(i-1) and less than 2^i nanoseconds
+        long[][] expected = { { -1L, 0 }, { 0L, 0 }, { 1L, 1 }, { 2L, 2 }, { 3L, 2 }, { 4L, 3 }, { 1023L, 10 },
+                { 1024L, 11 }, { (1L << 62) - 1, 62 }, { 1L << 62, 63 }, { Long.MAX_VALUE, 63 } };
+        for (long[] pair : expected) {
+            MemoizerStatistics stats = new MemoizerStatistics("test");
+            stats.refreshed(pair[0]);
+            long[] histogram = stats.getHistogram();
+            assertEquals(MemoizerStatistics.BUCKETS, histogram.length);
+            for (int i = 0; i < histogram.length; i++) {
+                assertEquals(i == pair[1] ? 1L : 0L, histogram[i], "bucket " + i + " for " + pair[0]);
+            }
+        }
+    }
+
+    @Test
+    void testPercentiles() {
+        MemoizerStatistics stats = new MemoizerStatistics("test");
+        assertEquals(0L, stats.getRefreshNanosPercentile(50));
+
+        stats.refreshed(1L);
+        stats.refreshed(2L);
+        stats.refreshed(3L);
+        stats.refreshed(1000L);
+        // Each estimate is the upper bound of the bucket holding the percentile
+        assertEquals(1L, stats.getRefreshNanosPercentile(0));
+        assertEquals(1L, stats.getRefreshNanosPercentile(25));
+        assertEquals(3L, stats.getRefreshNanosPercentile(50));
+        assertEquals(3L, stats.getRefreshNanosPercentile(75));
+        assertEquals(1023L, stats.getRefreshNanosPercentile(99));
+        assertEquals(1023L, stats.getRefreshNanosPercentile(100));
+        // Out of range percentiles are clamped
+        assertEquals(1L, stats.getRefreshNanosPercentile(-5));
+        assertEquals(1023L, stats.getRefreshNanosPercentile(500));
+
+        stats.refreshed(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, stats.getRefreshNanosPercentile(100));
+    }
+
+    @Test
+    void testCounters() {
+        MemoizerStatistics stats = new MemoizerStatistics("source");
+        assertEquals(0d, stats.getHitRatio(), 0d);
+        stats.hit();
+        stats.hit();
+        stats.hit();
+        stats.refreshed(10L);
+        stats.failed(20L);
+
+        assertEquals("source", stats.getName());
+        assertEquals(3L, stats.getHits());
+        // A failed refresh is also counted as a refresh
+        assertEquals(2L, stats.getRefreshes());
+        assertEquals(1L, stats.getFailures());
+        assertEquals(30L, stats.getRefreshNanos());
+        assertEquals(0.6, stats.getHitRatio(), 1e-9);
+        String s = stats.toString();
+        assertTrue(s.startsWith("source: hits=3, refreshes=2, failures=1, hitRatio="), s);
+        assertTrue(s.contains("meanRefreshNanos=15"), s);
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+class MemoizerTest {
+
+    @Test
+    void testMemoizeOnce() {
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<Integer> once = Memoizer.memoize(loads::incrementAndGet);
+        assertEquals(1, once.get());
+        assertEquals(1, once.get());
+
+        Supplier<Integer> indefinite = Memoizer.memoize(loads::incrementAndGet, -1L);
+        assertEquals(2, indefinite.get());
+        assertEquals(2, indefinite.get());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testExpiry() throws InterruptedException {
+        AtomicInteger loads = new AtomicInteger();
+        // A zero time to live expires each value as soon as it is stored
+        Supplier<Integer> expiring = Memoizer.memoize(loads::incrementAndGet, 0L);
+        assertEquals(1, expiring.get());
+        assertEquals(2, expiring.get());
+
+        Supplier<Integer> longLived = Memoizer.memoize(loads::incrementAndGet, TimeUnit.HOURS.toNanos(1));
+        assertEquals(3, longLived.get());
+        assertEquals(3, longLived.get());
+
+        Supplier<Integer> shortLived = Memoizer.memoize(loads::incrementAndGet, TimeUnit.MILLISECONDS.toNanos(20));
+        assertEquals(4, shortLived.get());
+        Thread.sleep(40L);
+        assertEquals(5, shortLived.get());
+    }
+
+    @Test
+    void testFailedLoadIsNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<Integer> m = Memoizer.memoize("MemoizerTest.testFailedLoadIsNotCached", () -> {
+            if (loads.incrementAndGet() == 1) {
+                throw new IllegalStateException("first load fails");
+            }
+            return loads.get();
+        }, -1L);
+        assertThrows(IllegalStateException.class, m::get);
+        assertEquals(2, m.get());
+        assertEquals(2, m.get());
+
+        MemoizerStatistics stats = statistics("MemoizerTest.testFailedLoadIsNotCached");
+        assertEquals(2L, stats.getRefreshes());
+        assertEquals(1L, stats.getFailures());
+        assertEquals(1L, stats.getHits());
+    }
+
+    @Test
+    void testSharedStatistics() {
+        String name = "MemoizerTest.testSharedStatistics";
+        Supplier<String> a = Memoizer.memoize(name, () -> "a", -1L);
+        Supplier<String> b = Memoizer.memoize(name, () -> "b", -1L);
+        assertEquals("a", a.get());
+        assertEquals("a", a.get());
+        assertEquals("b", b.get());
+
+        MemoizerStatistics stats = statistics(name);
+        assertEquals(name, stats.getName());
+        assertEquals(2L, stats.getRefreshes());
+        assertEquals(1L, stats.getHits());
+        assertTrue(Memoizer.dumpStatistics().contains(name + ": hits=1, refreshes=2"));
+    }
+
+    @Test
+    void testConcurrentCallersLoadOnce() throws Exception {
+        int threads = 8;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Object value = new Object();
+        Supplier<Object> m = Memoizer.memoize(() -> {
+            loads.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return value;
+        }, TimeUnit.HOURS.toNanos(1));
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(pool.submit(m::get));
+            }
+            // Let the other callers reach the lock held by the first
+            Thread.sleep(50L);
+            release.countDown();
+            for (Future<Object> result : results) {
+                assertSame(value, result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testRefreshAheadServesStaleValue() {
+        AtomicInteger loads = new AtomicInteger();
+        List<Runnable> tasks = new ArrayList<>();
+        // Expired as soon as stored, but may be served stale for an hour
+        Supplier<Integer> m = Memoizer.memoizeAsync(loads::incrementAndGet, 0L, TimeUnit.HOURS.toNanos(1), tasks::add);
+        // The first call loads in the caller
+        assertEquals(1, m.get());
+        assertEquals(0, tasks.size());
+
+        // Later calls return the stale value, and only one refresh is scheduled
+        assertEquals(1, m.get());
+        assertEquals(1, m.get());
+        assertEquals(1, tasks.size());
+        assertEquals(1, loads.get());
+
+        tasks.remove(0).run();
+        assertEquals(2, loads.get());
+        assertEquals(2, m.get());
+        assertEquals(1, tasks.size());
+    }
+
+    @Test
+    void testRefreshAheadBlocksAfterMaxStaleness() throws InterruptedException {
+        AtomicInteger loads = new AtomicInteger();
+        List<Runnable> tasks = new ArrayList<>();
+        Supplier<Integer> m = Memoizer.memoizeAsync(loads::incrementAndGet, 0L, TimeUnit.MILLISECONDS.toNanos(20),
+                tasks::add);
+        assertEquals(1, m.get());
+        assertEquals(1, m.get());
+        assertEquals(1, tasks.size());
+
+        // Past the maximum staleness the caller loads the value itself
+        Thread.sleep(40L);
+        assertEquals(2, m.get());
+        assertEquals(2, loads.get());
+        // The pending refresh finds the value already replaced
+        tasks.remove(0).run();
+        assertEquals(2, loads.get());
+
+        Supplier<Integer> neverStale = Memoizer.memoizeAsync(loads::incrementAndGet, 0L, 0L, tasks::add);
+        assertEquals(3, neverStale.get());
+        assertEquals(4, neverStale.get());
+        assertEquals(0, tasks.size());
+    }
+
+    @Test
+    void testRefreshAheadFailures() {
+        AtomicInteger loads = new AtomicInteger();
+        List<Runnable> tasks = new ArrayList<>();
+        Supplier<Integer> m = Memoizer.memoizeAsync(() -> {
+            if (loads.incrementAndGet() == 2) {
+                throw new IllegalStateException("second load fails");
+            }
+            return loads.get();
+        }, 0L, TimeUnit.HOURS.toNanos(1), tasks::add);
+        assertEquals(1, m.get());
+        assertEquals(1, m.get());
+
+        // A failed background refresh keeps the stale value, and the next call schedules another
+        tasks.remove(0).run();
+        assertEquals(1, m.get());
+        assertEquals(1, tasks.size());
+        tasks.remove(0).run();
+        assertEquals(3, m.get());
+
+        // A rejected refresh also keeps the stale value, and is retried by the next call
+        AtomicInteger attempts = new AtomicInteger();
+        Supplier<Integer> rejected = Memoizer.memoizeAsync(loads::incrementAndGet, 0L, TimeUnit.HOURS.toNanos(1),
+                task -> {
+                    attempts.incrementAndGet();
+                    throw new RejectedExecutionException();
+                });
+        int value = rejected.get();
+        assertEquals(value, rejected.get());
+        assertEquals(value, rejected.get());
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    void testRefreshAheadArguments() {
+        assertThrows(IllegalArgumentException.class, () -> Memoizer.memoizeAsync(() -> 1, -1L, 0L, Runnable::run));
+        assertThrows(IllegalArgumentException.class, () -> Memoizer.memoizeAsync(() -> 1, 0L, -1L, Runnable::run));
+        assertThrows(IllegalArgumentException.class,
+                () -> Memoizer.memoizeAsync("MemoizerTest.testRefreshAheadArguments", () -> 1, -1L, 0L, Runnable::run));
+        assertThrows(NullPointerException.class, () -> Memoizer.memoizeAsync(() -> 1, 0L, 0L, null));
+    }
+
+    private static MemoizerStatistics statistics(String name) {
+        return Memoizer.getStatistics().stream().filter(s -> s.getName().equals(name)).findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+class SourceGroupTest {
+
+    private record Snapshot(String name, int count, long total) {
+    }
+
+    @Test
+    void testBufferIsReused() {
+        AtomicInteger allocations = new AtomicInteger();
+        AtomicInteger reads = new AtomicInteger();
+        int[][] seen = new int[3][];
+        SourceGroup<Snapshot> group = Memoizer.memoizeSource(() -> {
+            allocations.incrementAndGet();
+            return new int[1];
+        }, buffer -> {
+            seen[reads.get()] = buffer;
+            buffer[0] = reads.incrementAndGet();
+            return new Snapshot("s" + buffer[0], buffer[0], buffer[0] * 10L);
+        }, 0L);
+        // Nothing is allocated until the first refresh
+        assertEquals(0, allocations.get());
+
+        for (int i = 1; i <= 3; i++) {
+            assertEquals(i, group.get().count());
+        }
+        assertEquals(1, allocations.get());
+        assertSame(seen[0], seen[1]);
+        assertSame(seen[0], seen[2]);
+    }
+
+    @Test
+    void testSnapshotIsShared() {
+        AtomicInteger reads = new AtomicInteger();
+        SourceGroup<Snapshot> group = Memoizer.memoizeSource(() -> new int[1], buffer -> {
+            int n = reads.incrementAndGet();
+            return new Snapshot("s" + n, n, n * 10L);
+        }, TimeUnit.HOURS.toNanos(1));
+        Supplier<String> name = group.field(Snapshot::name);
+        IntSupplier count = group.intField(Snapshot::count);
+        LongSupplier total = group.longField(Snapshot::total);
+
+        // All accessors read the one snapshot of a single refresh
+        assertEquals("s1", name.get());
+        assertEquals(1, count.getAsInt());
+        assertEquals(10L, total.getAsLong());
+        assertSame(group.get(), group.get());
+        assertEquals(1, reads.get());
+    }
+
+    @Test
+    void testExpiry() throws InterruptedException {
+        AtomicInteger reads = new AtomicInteger();
+        SourceGroup<Snapshot> group = Memoizer.memoizeSource(() -> new int[1], buffer -> {
+            int n = reads.incrementAndGet();
+            return new Snapshot("s" + n, n, n * 10L);
+        }, TimeUnit.MILLISECONDS.toNanos(20));
+        IntSupplier count = group.intField(Snapshot::count);
+        assertEquals(1, count.getAsInt());
+        assertEquals(1, count.getAsInt());
+        Thread.sleep(40L);
+        // The first accessor called after expiry refreshes the whole group
+        assertEquals(20L, group.longField(Snapshot::total).getAsLong());
+        assertEquals(2, count.getAsInt());
+        assertEquals(2, reads.get());
+    }
+
+    @Test
+    void testNamedStatistics() {
+        String name = "SourceGroupTest.testNamedStatistics";
+        AtomicInteger allocations = new AtomicInteger();
+        SourceGroup<Snapshot> group = Memoizer.memoizeSource(name, () -> {
+            allocations.incrementAndGet();
+            return new int[1];
+        }, buffer -> new Snapshot("s", ++buffer[0], 0L), -1L);
+        IntSupplier count = group.intField(Snapshot::count);
+        assertEquals(1, count.getAsInt());
+        assertEquals(1, count.getAsInt());
+        assertEquals("s", group.field(Snapshot::name).get());
+
+        MemoizerStatistics stats = Memoizer.getStatistics().stream().filter(s -> s.getName().equals(name))
+                .findFirst().orElseThrow();
+        assertEquals(1L, stats.getRefreshes());
+        assertEquals(2L, stats.getHits());
+        assertEquals(1, allocations.get());
+    }
+}
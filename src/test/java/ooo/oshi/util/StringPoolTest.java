@@ -0,0 +1,89 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+class StringPoolTest {
+
+    @Test
+    void testIntern() {
+        StringPool pool = new StringPool();
+        int bash = pool.intern("bash");
+        int sshd = pool.intern("sshd");
+        assertEquals(0, bash);
+        assertEquals(1, sshd);
+        assertEquals(bash, pool.intern(new String("bash")));
+        assertEquals(2, pool.size());
+        assertEquals("bash", pool.get(bash));
+        assertSame(pool.get(bash), pool.get(pool.intern("bash")));
+
+        // The empty string and multi-byte characters are values like any other
+        int empty = pool.intern("");
+        int accented = pool.intern("café");
+        assertEquals("", pool.get(empty));
+        assertEquals("café", pool.get(accented));
+        assertEquals(accented, pool.intern("café"));
+        assertEquals(4, pool.size());
+    }
+
+    @Test
+    void testInternFromSegment() {
+        StringPool pool = new StringPool();
+        int id = pool.intern("kworker");
+        byte[] line = "12 (kworker) S".getBytes(StandardCharsets.UTF_8);
+        MemorySegment m = MemorySegment.ofArray(line);
+        assertEquals(id, pool.intern(m, 4, 7));
+        // A prefix is a different value
+        int prefix = pool.intern(m, 4, 3);
+        assertEquals("kwo", pool.get(prefix));
+        assertEquals(2, pool.size());
+    }
+
+    @Test
+    void testGrowth() {
+        StringPool pool = new StringPool();
+        int n = 2000;
+        for (int i = 0; i < n; i++) {
+            assertEquals(i, pool.intern("p" + i));
+        }
+        assertEquals(n, pool.size());
+        // IDs and strings are kept across growth
+        for (int i = 0; i < n; i++) {
+            assertEquals(i, pool.intern("p" + i));
+            assertEquals("p" + i, pool.get(i));
+        }
+        String[] snapshot = pool.snapshot();
+        assertEquals("p1999", snapshot[n - 1]);
+        assertEquals(n, pool.size());
+    }
+
+    @Test
+    void testReusePrevious() {
+        StringPool first = new StringPool();
+        String init = first.get(first.intern("init"));
+        first.intern("old");
+
+        StringPool second = new StringPool(first);
+        int id = second.intern("init");
+        // IDs are assigned by the new pool, but the previous pool's strings are reused
+        assertEquals(0, id);
+        assertSame(init, second.get(id));
+        String fresh = second.get(second.intern("fresh"));
+        assertEquals(2, second.size());
+        assertEquals(2, first.size());
+
+        StringPool third = new StringPool(second);
+        third.releasePrevious();
+        assertNotSame(fresh, third.get(third.intern("fresh")));
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.util.platform.linux;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class ProcStatParserTest {
+
+    // A line from a 5.x kernel, with 52 fields
+    private static final String FIELDS_AFTER_STATE = "1 1234 1234 34816 1234 4194560 1523 12 0 0 25 7 0 0 20 0 1 0 "
+            + "5151 8904704 1301 18446744073709551615 94720438222848 94720439140725 140726330547568 0 0 0 0 65536 "
+            + "3670020 0 0 0 17 3 0 0 0 0 0 94720439378416 94720439427300 94720459509760 140726330554195 "
+            + "140726330554201 140726330554201 140726330556398 0\n";
+
+    @Test
+    void testParseFields() {
+        String line = "1234 (bash) S " + FIELDS_AFTER_STATE;
+        long[] fields = new long[64];
+        assertEquals(52, parseSegment(line, fields));
+        assertEquals(1234L, fields[ProcStatParser.PID]);
+        assertEquals("bash", commOf(line, fields));
+        assertEquals('S', fields[ProcStatParser.STATE]);
+        assertEquals(1L, fields[ProcStatParser.PPID]);
+        assertEquals(1523L, fields[ProcStatParser.MINFLT]);
+        assertEquals(25L, fields[ProcStatParser.UTIME]);
+        assertEquals(7L, fields[ProcStatParser.STIME]);
+        assertEquals(20L, fields[ProcStatParser.PRIORITY]);
+        assertEquals(1L, fields[ProcStatParser.NUM_THREADS]);
+        assertEquals(5151L, fields[ProcStatParser.STARTTIME]);
+        assertEquals(8904704L, fields[ProcStatParser.VSIZE]);
+        assertEquals(1301L, fields[ProcStatParser.RSS]);
+        assertEquals(3L, fields[ProcStatParser.PROCESSOR]);
+
+        long[] fromBuffer = new long[64];
+        assertEquals(52, parseBuffer(line, fromBuffer));
+        assertEquals(Arrays.toString(fields), Arrays.toString(fromBuffer));
+    }
+
+    @Test
+    void testCommWithParenthesesAndSpaces() {
+        String line = "42 (a) b (c d)) R 7 " + FIELDS_AFTER_STATE.substring(2);
+        long[] fields = new long[ProcStatParser.MIN_FIELDS];
+        assertEquals(ProcStatParser.MIN_FIELDS, parseSegment(line, fields));
+        assertEquals(42L, fields[ProcStatParser.PID]);
+        assertEquals("a) b (c d)", commOf(line, fields));
+        assertEquals('R', fields[ProcStatParser.STATE]);
+        assertEquals(7L, fields[ProcStatParser.PPID]);
+        assertEquals(5151L, fields[ProcStatParser.STARTTIME]);
+
+        long[] fromBuffer = new long[ProcStatParser.MIN_FIELDS];
+        assertEquals(ProcStatParser.MIN_FIELDS, parseBuffer(line, fromBuffer));
+        assertEquals("a) b (c d)", ProcStatParser.getComm(buffer(line), fromBuffer));
+        assertEquals(7L, fromBuffer[ProcStatParser.PPID]);
+    }
+
+    @Test
+    void testEmptyAndMultiByteComm() {
+        long[] fields = new long[8];
+        assertEquals(5, parseSegment("9 () Z 1 0\n", fields));
+        assertEquals("", commOf("9 () Z 1 0\n", fields));
+        assertEquals('Z', fields[ProcStatParser.STATE]);
+
+        String line = "10 (hé llo) S 2 0\n";
+        assertEquals(5, parseSegment(line, fields));
+        assertEquals("hé llo", commOf(line, fields));
+        assertEquals(2L, fields[ProcStatParser.PPID]);
+    }
+
+    @Test
+    void testOverflow() {
+        // One above Long.MAX_VALUE, the maximum, a much larger value, and a negative value
+        String line = "5 (x) S 9223372036854775808 9223372036854775807 123456789012345678901234567890 -20 3\n";
+        long[] fields = new long[16];
+        assertEquals(8, parseSegment(line, fields));
+        assertEquals(Long.MAX_VALUE, fields[3]);
+        assertEquals(Long.MAX_VALUE, fields[4]);
+        assertEquals(Long.MAX_VALUE, fields[5]);
+        assertEquals(-20L, fields[6]);
+        // Fields after an overflow are still parsed
+        assertEquals(3L, fields[7]);
+
+        long[] fromBuffer = new long[16];
+        assertEquals(8, parseBuffer(line, fromBuffer));
+        assertEquals(Arrays.toString(fields), Arrays.toString(fromBuffer));
+    }
+
+    @Test
+    void testFieldsArrayLimitsParsing() {
+        long[] fields = new long[6];
+        Arrays.fill(fields, -1L);
+        assertEquals(6, parseSegment("1234 (bash) S " + FIELDS_AFTER_STATE, fields));
+        assertEquals(1234L, fields[ProcStatParser.PGRP]);
+        assertEquals(1234L, fields[ProcStatParser.SESSION]);
+
+        // Elements beyond the fields present are left unchanged
+        fields = new long[8];
+        Arrays.fill(fields, -1L);
+        assertEquals(5, parseSegment("1 (init) S 0 1\n", fields));
+        assertEquals(-1L, fields[5]);
+    }
+
+    @Test
+    void testMalformed() {
+        long[] fields = new long[8];
+        assertEquals(-1, parseSegment("", fields));
+        assertEquals(-1, parseSegment("1234 bash S 1", fields));
+        assertEquals(-1, parseSegment("1234 (bash", fields));
+        // Truncated before the state
+        assertEquals(-1, parseSegment("1234 (bash)", fields));
+        assertEquals(-1, parseSegment("1234 (bash) ", fields));
+        assertEquals(-1, parseSegment("1234 (bash) S 1", new long[2]));
+        assertEquals(-1, parseBuffer("1234 (bash", fields));
+    }
+
+    @Test
+    void testBufferPositionAndLength() {
+        // The buffer is parsed from its position, and comm offsets are relative to it
+        byte[] bytes = "xx7 (cat) R 3 0\nyyyy".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buf = ByteBuffer.wrap(bytes, 2, 14);
+        long[] fields = new long[8];
+        assertEquals(5, ProcStatParser.parse(buf, fields));
+        assertEquals(2, buf.position());
+        assertEquals(7L, fields[ProcStatParser.PID]);
+        assertEquals(3, ProcStatParser.commOffset(fields[ProcStatParser.COMM]));
+        assertEquals("cat", ProcStatParser.getComm(buf, fields));
+        assertEquals(3L, fields[ProcStatParser.PPID]);
+
+        // Only the given length of a segment is parsed
+        MemorySegment m = MemorySegment.ofArray(bytes);
+        assertEquals(5, ProcStatParser.parse(m.asSlice(2), 14, fields));
+        assertEquals(3L, fields[ProcStatParser.PPID]);
+    }
+
+    private static int parseSegment(String line, long[] fields) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        return ProcStatParser.parse(MemorySegment.ofArray(bytes), bytes.length, fields);
+    }
+
+    private static int parseBuffer(String line, long[] fields) {
+        return ProcStatParser.parse(buffer(line), fields);
+    }
+
+    private static ByteBuffer buffer(String line) {
+        return ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String commOf(String line, long[] fields) {
+        return ProcStatParser.getComm(MemorySegment.ofArray(line.getBytes(StandardCharsets.UTF_8)), fields);
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2022 the OSHI-FFM project contributors.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package ooo.oshi.util.platform.linux;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import org.junit.jupiter.api.Test;
+
+import ooo.oshi.util.platform.linux.UserGroupNames.NameFile;
+
+class UserGroupNamesTest {
+
+    private static final FileTime MODIFIED = FileTime.fromMillis(1_600_000_000_000L);
+
+    @Test
+    void testParsePasswd() throws IOException {
+        Path passwd = Files.createTempFile("passwd", null);
+        try {
+            write(passwd, MODIFIED, "root:x:0:0:root:/root:/bin/bash", "# comment:x:5:5", "",
+                    "daemon:x:1:1:daemon:/usr/sbin:/usr/sbin/nologin", "+nisuser:x:7:7", "-other:x:8:8",
+                    "broken:x:notanumber:0", "noid", ":x:9:9", "nobody:x:65534:65534:nobody:/:/bin/false",
+                    "shadow:x:1:1", "big:x:4294967294:0");
+            NameFile file = new NameFile(passwd, 0L);
+            assertEquals("root", file.get(0));
+            assertEquals("nobody", file.get(65534));
+            // The first entry for an ID wins
+            assertEquals("daemon", file.get(1));
+            // IDs above Integer.MAX_VALUE are parsed as unsigned
+            assertEquals("big", file.get(-2));
+            for (int id : new int[] { 5, 7, 8, 9, 2 }) {
+                assertNull(file.get(id), "id " + id);
+            }
+        } finally {
+            Files.deleteIfExists(passwd);
+        }
+    }
+
+    @Test
+    void testParseGroupWithoutTrailingFields() throws IOException {
+        Path group = Files.createTempFile("group", null);
+        try {
+            write(group, MODIFIED, "root:x:0:", "wheel:x:10", "users:x:100:alice,bob");
+            NameFile file = new NameFile(group, 0L);
+            assertEquals("root", file.get(0));
+            assertEquals("wheel", file.get(10));
+            assertEquals("users", file.get(100));
+        } finally {
+            Files.deleteIfExists(group);
+        }
+    }
+
+    @Test
+    void testReloadOnChange() throws IOException {
+        Path passwd = Files.createTempFile("passwd", null);
+        try {
+            write(passwd, MODIFIED, "alice:x:1000:1000");
+            NameFile file = new NameFile(passwd, 0L);
+            assertEquals("alice", file.get(1000));
+
+            // Same size, new modification time
+            write(passwd, FileTime.fromMillis(MODIFIED.toMillis() + 1000L), "carol:x:1000:1000");
+            assertEquals("carol", file.get(1000));
+
+            // Neither changed, so not parsed again
+            write(passwd, FileTime.fromMillis(MODIFIED.toMillis() + 1000L), "chris:x:1000:1000");
+            assertEquals("carol", file.get(1000));
+
+            // Same modification time, new size
+            write(passwd, FileTime.fromMillis(MODIFIED.toMillis() + 1000L), "erin:x:1000:1000", "frank:x:1001:1001");
+            assertEquals("erin", file.get(1000));
+            assertEquals("frank", file.get(1001));
+
+            // A missing file has no names, and is read again when it reappears
+            Files.delete(passwd);
+            assertNull(file.get(1000));
+            write(passwd, MODIFIED, "alice:x:1000:1000");
+            assertEquals("alice", file.get(1000));
+        } finally {
+            Files.deleteIfExists(passwd);
+        }
+    }
+
+    @Test
+    void testCheckInterval() throws IOException {
+        Path passwd = Files.createTempFile("passwd", null);
+        try {
+            write(passwd, MODIFIED, "alice:x:1000:1000");
+            NameFile file = new NameFile(passwd, TimeUnit.HOURS.toNanos(1));
+            assertEquals("alice", file.get(1000));
+            // Not checked again until the interval has passed
+            write(passwd, FileTime.fromMillis(MODIFIED.toMillis() + 1000L), "bob:x:1000:1000", "carol:x:1001:1001");
+            assertEquals("alice", file.get(1000));
+            assertNull(file.get(1001));
+        } finally {
+            Files.deleteIfExists(passwd);
+        }
+    }
+
+    @Test
+    void testNegativeCaching() throws IOException {
+        Path passwd = Files.createTempFile("passwd", null);
+        try {
+            write(passwd, MODIFIED, "root:x:0:0");
+            NameFile file = new NameFile(passwd, 0L);
+            AtomicInteger queries = new AtomicInteger();
+            IntFunction<String> nss = UserGroupNames.nssNames("UserGroupNamesTest.testNegativeCaching", id -> {
+                queries.incrementAndGet();
+                return id == 5000 ? "ldapuser" : null;
+            });
+
+            // Names in the file do not query the name service
+            assertEquals("root", UserGroupNames.resolve(file, nss, 0));
+            assertEquals(0, queries.get());
+
+            assertEquals("ldapuser", UserGroupNames.resolve(file, nss, 5000));
+            assertEquals("ldapuser", UserGroupNames.resolve(file, nss, 5000));
+            assertEquals(1, queries.get());
+
+            // An ID with no name is also cached
+            assertEquals("", UserGroupNames.resolve(file, nss, 6000));
+            assertEquals("", UserGroupNames.resolve(file, nss, 6000));
+            assertEquals(2, queries.get());
+
+            // Negative IDs are never looked up
+            assertEquals("", UserGroupNames.resolve(file, nss, -1));
+            assertEquals(2, queries.get());
+        } finally {
+            Files.deleteIfExists(passwd);
+        }
+    }
+
+    private static void write(Path path, FileTime modified, String... lines) throws IOException {
+        Files.write(path, String.join("\n", lines).concat("\n").getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(path, modified);
+    }
+}